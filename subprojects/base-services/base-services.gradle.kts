@@ -44,7 +44,7 @@ testFixtures {
 
 jmh {
     withGroovyBuilder {
-        setProperty("include", listOf("HashingAlgorithmsBenchmark"))
+        setProperty("include", listOf("HashingAlgorithmsBenchmark", "DefaultServiceRegistryBenchmark"))
     }
 }
 
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Simulates the registry hierarchy used by a build (global, session, build and one registry per project),
+ * and measures the cost of creating the per-project registries and looking up services through them.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class DefaultServiceRegistryBenchmark {
+
+    @Param({"1000", "5000"})
+    int projectCount;
+
+    DefaultServiceRegistry buildServices;
+    DefaultServiceRegistry[] projectServices;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        DefaultServiceRegistry globalServices = new DefaultServiceRegistry("global");
+        globalServices.addProvider(new GlobalServices());
+        DefaultServiceRegistry sessionServices = new DefaultServiceRegistry("session", globalServices);
+        sessionServices.addProvider(new SessionServices());
+        buildServices = new DefaultServiceRegistry("build", sessionServices);
+        buildServices.addProvider(new BuildServices());
+        projectServices = createProjectRegistries();
+    }
+
+    @Benchmark
+    public void createProjectRegistries(Blackhole blackhole) {
+        blackhole.consume(createProjectRegistries());
+    }
+
+    @Benchmark
+    public void lookupServicesInProjectRegistries(Blackhole blackhole) {
+        for (DefaultServiceRegistry registry : projectServices) {
+            blackhole.consume(registry.get(GlobalService.class));
+            blackhole.consume(registry.get(SessionService.class));
+            blackhole.consume(registry.get(BuildService.class));
+            blackhole.consume(registry.get(ProjectService.class));
+            blackhole.consume(registry.find(UnknownService.class));
+        }
+    }
+
+    private DefaultServiceRegistry[] createProjectRegistries() {
+        DefaultServiceRegistry[] registries = new DefaultServiceRegistry[projectCount];
+        for (int i = 0; i < projectCount; i++) {
+            DefaultServiceRegistry registry = new DefaultServiceRegistry("project " + i, buildServices);
+            registry.addProvider(new ProjectServices());
+            registry.get(ProjectService.class);
+            registries[i] = registry;
+        }
+        return registries;
+    }
+
+    interface GlobalService {
+    }
+
+    interface SessionService {
+    }
+
+    interface BuildService {
+    }
+
+    interface ProjectService {
+    }
+
+    interface UnknownService {
+    }
+
+    private static class GlobalServices {
+        GlobalService createGlobalService() {
+            return new GlobalService() {
+            };
+        }
+    }
+
+    private static class SessionServices {
+        SessionService createSessionService(GlobalService globalService) {
+            return new SessionService() {
+            };
+        }
+    }
+
+    private static class BuildServices {
+        BuildService createBuildService(SessionService sessionService, GlobalService globalService) {
+            return new BuildService() {
+            };
+        }
+    }
+
+    private static class ProjectServices {
+        ProjectService createProjectService(BuildService buildService, SessionService sessionService, GlobalService globalService) {
+            return new ProjectService() {
+            };
+        }
+    }
+}
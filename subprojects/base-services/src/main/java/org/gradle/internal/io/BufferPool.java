@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.io;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of the short-lived buffers used by encoders, decoders and in-memory streams.
+ *
+ * <p>Heap buffers are cached per thread, as they are usually acquired and released by the same thread. Only buffers whose size is a power of two between
+ * {@link #MIN_POOLED_SIZE} and {@link #MAX_POOLED_SIZE} are pooled, other sizes are simply allocated.</p>
+ *
+ * <p>Direct buffers are carved out of a single slab that is allocated on first use and shared by all threads. When the slab is exhausted, additional
+ * direct buffers are allocated, and are pooled on release while there is space for them.</p>
+ *
+ * <p>A buffer must not be used after it has been released, and must be released at most once.</p>
+ */
+public class BufferPool {
+    public static final int MIN_POOLED_SIZE = 4 * 1024;
+    public static final int MAX_POOLED_SIZE = 32 * 1024;
+    public static final int DIRECT_BUFFER_SIZE = 64 * 1024;
+    private static final int SIZE_CLASSES = Integer.numberOfTrailingZeros(MAX_POOLED_SIZE) - Integer.numberOfTrailingZeros(MIN_POOLED_SIZE) + 1;
+    private static final int BUFFERS_PER_SIZE_CLASS = 2;
+    private static final int SLAB_BUFFERS = 16;
+    private static final BufferPool SHARED = new BufferPool(SLAB_BUFFERS);
+
+    private final ThreadLocal<byte[][]> heapBuffers = new ThreadLocal<byte[][]>() {
+        @Override
+        protected byte[][] initialValue() {
+            return new byte[SIZE_CLASSES * BUFFERS_PER_SIZE_CLASS][];
+        }
+    };
+    private final int slabBuffers;
+    private final Queue<ByteBuffer> directBuffers = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger pooledDirectBuffers = new AtomicInteger();
+    private volatile boolean slabAllocated;
+
+    BufferPool(int slabBuffers) {
+        this.slabBuffers = slabBuffers;
+    }
+
+    /**
+     * Returns the pool shared by the whole process.
+     */
+    public static BufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns a heap buffer of exactly the given size. The content of the buffer is undefined.
+     */
+    public byte[] acquireBytes(int size) {
+        int sizeClass = sizeClassOf(size);
+        if (sizeClass >= 0) {
+            byte[][] cache = heapBuffers.get();
+            int start = sizeClass * BUFFERS_PER_SIZE_CLASS;
+            for (int i = start; i < start + BUFFERS_PER_SIZE_CLASS; i++) {
+                byte[] buffer = cache[i];
+                if (buffer != null) {
+                    cache[i] = null;
+                    return buffer;
+                }
+            }
+        }
+        return new byte[size];
+    }
+
+    /**
+     * Makes the given heap buffer available for reuse by the current thread.
+     */
+    public void releaseBytes(byte[] buffer) {
+        int sizeClass = sizeClassOf(buffer.length);
+        if (sizeClass < 0) {
+            return;
+        }
+        byte[][] cache = heapBuffers.get();
+        int start = sizeClass * BUFFERS_PER_SIZE_CLASS;
+        int free = -1;
+        for (int i = start; i < start + BUFFERS_PER_SIZE_CLASS; i++) {
+            if (cache[i] == buffer) {
+                throw new IllegalStateException("Buffer has already been released.");
+            }
+            if (cache[i] == null && free < 0) {
+                free = i;
+            }
+        }
+        if (free >= 0) {
+            cache[free] = buffer;
+        }
+    }
+
+    /**
+     * Returns a cleared direct buffer with a capacity of {@link #DIRECT_BUFFER_SIZE} bytes.
+     */
+    public ByteBuffer acquireDirect() {
+        ByteBuffer buffer = directBuffers.poll();
+        if (buffer == null && !slabAllocated) {
+            allocateSlab();
+            buffer = directBuffers.poll();
+        }
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+        }
+        pooledDirectBuffers.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Makes the given direct buffer available for reuse by any thread.
+     */
+    public void releaseDirect(ByteBuffer buffer) {
+        if (!buffer.isDirect() || buffer.capacity() != DIRECT_BUFFER_SIZE) {
+            return;
+        }
+        if (pooledDirectBuffers.incrementAndGet() <= slabBuffers) {
+            directBuffers.add(buffer);
+        } else {
+            pooledDirectBuffers.decrementAndGet();
+        }
+    }
+
+    private synchronized void allocateSlab() {
+        if (slabAllocated) {
+            return;
+        }
+        ByteBuffer slab = ByteBuffer.allocateDirect(slabBuffers * DIRECT_BUFFER_SIZE);
+        for (int i = 0; i < slabBuffers; i++) {
+            slab.limit((i + 1) * DIRECT_BUFFER_SIZE);
+            slab.position(i * DIRECT_BUFFER_SIZE);
+            directBuffers.add(slab.slice());
+        }
+        pooledDirectBuffers.addAndGet(slabBuffers);
+        slabAllocated = true;
+    }
+
+    private static int sizeClassOf(int size) {
+        if (size < MIN_POOLED_SIZE || size > MAX_POOLED_SIZE || Integer.bitCount(size) != 1) {
+            return -1;
+        }
+        return Integer.numberOfTrailingZeros(size) - Integer.numberOfTrailingZeros(MIN_POOLED_SIZE);
+    }
+}
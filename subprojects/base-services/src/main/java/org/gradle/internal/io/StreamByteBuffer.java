@@ -305,10 +305,12 @@ public class StreamByteBuffer {
         private byte[] buffer;
         private int size;
         private int used;
+        private boolean pooled;
 
         public StreamByteBufferChunk(int size) {
             this.size = size;
-            buffer = new byte[size];
+            buffer = BufferPool.shared().acquireBytes(size);
+            pooled = true;
         }
 
         public StreamByteBufferChunk(byte[] buf) {
@@ -394,9 +396,18 @@ public class StreamByteBuffer {
             used = pointer = 0;
         }
 
+        public void release() {
+            if (pooled) {
+                pooled = false;
+                BufferPool.shared().releaseBytes(buffer);
+            }
+        }
+
         public byte[] readBuffer() {
             if (used == buffer.length && pointer == 0) {
                 pointer = used;
+                // The caller now owns the array
+                pooled = false;
                 return buffer;
             } else if (pointer < used) {
                 byte[] buf = new byte[used - pointer];
@@ -525,4 +536,24 @@ public class StreamByteBuffer {
         totalBytesUnreadInList = 0;
         currentWriteChunk.clear();
     }
+
+    /**
+     * Returns the memory held by this buffer to the {@link BufferPool}, so that it can be reused by other buffers. The buffer must not be used afterwards.
+     * Byte arrays previously returned by this buffer remain valid.
+     */
+    public void release() {
+        for (StreamByteBufferChunk chunk : chunks) {
+            chunk.release();
+        }
+        chunks.clear();
+        if (currentReadChunk != null && currentReadChunk != currentWriteChunk) {
+            currentReadChunk.release();
+        }
+        if (currentWriteChunk != null) {
+            currentWriteChunk.release();
+        }
+        currentReadChunk = null;
+        currentWriteChunk = null;
+        totalBytesUnreadInList = 0;
+    }
 }
@@ -39,7 +39,9 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -70,18 +72,23 @@ import java.util.concurrent.atomic.AtomicReference;
  * org.gradle.internal.concurrent.Stoppable} then the appropriate close() or stop() method is called. Instances are closed in reverse dependency order.</p>
  *
  * <p>Service registries are arranged in a hierarchy. If a service of a given type cannot be located, the registry uses its parent registry, if any, to locate the service.</p>
+ *
+ * <p>Once a registry is no longer mutable, the result of locating a service by its class is remembered, so that later lookups for the same type do not need to walk the registry hierarchy again.
+ * This is only done when all ancestors of the registry are also {@link DefaultServiceRegistry} instances, as their contents are known to be fixed.</p>
  */
 public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
     private enum State {INIT, STARTED, CLOSED};
     private final static ServiceRegistry[] NO_PARENTS = new ServiceRegistry[0];
     private final static Service[] NO_DEPENDENTS = new Service[0];
     private final static Object[] NO_PARAMS = new Object[0];
+    private final static Object NO_SERVICE = new Object();
 
     private final OwnServices ownServices;
     private final ServiceProvider allServices;
     private final ServiceProvider parentServices;
     private final String displayName;
     private final ServiceProvider thisAsServiceProvider;
+    private final ConcurrentMap<Class<?>, Object> servicesByType;
 
     private AtomicReference<State> state = new AtomicReference<State>(State.INIT);
 
@@ -108,6 +115,7 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
             parentServices = setupParentServices(parents);
             allServices = new CompositeServiceProvider(ownServices, parentServices);
         }
+        this.servicesByType = canCacheLookups(parents) ? new ConcurrentHashMap<Class<?>, Object>(64, 0.75f, 1) : null;
 
         findProviderMethods(this);
     }
@@ -126,6 +134,15 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
         return parentServices;
     }
 
+    private static boolean canCacheLookups(ServiceRegistry[] parents) {
+        for (ServiceRegistry parent : parents) {
+            if (!(parent instanceof DefaultServiceRegistry) || ((DefaultServiceRegistry) parent).servicesByType == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private ServiceProvider asProvider() {
         return thisAsServiceProvider;
     }
@@ -297,7 +314,17 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
 
     private Service getService(Type serviceType) {
         serviceRequested();
-        return find(serviceType, allServices);
+        if (servicesByType == null || !(serviceType instanceof Class)) {
+            return find(serviceType, allServices);
+        }
+        Class<?> serviceClass = (Class<?>) serviceType;
+        Object cached = servicesByType.get(serviceClass);
+        if (cached == null) {
+            Service service = find(serviceType, allServices);
+            servicesByType.putIfAbsent(serviceClass, service == null ? NO_SERVICE : service);
+            return service;
+        }
+        return cached == NO_SERVICE ? null : (Service) cached;
     }
 
     @Override
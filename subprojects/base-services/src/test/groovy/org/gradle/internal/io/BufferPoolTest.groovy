@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.io
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class BufferPoolTest extends Specification {
+    def pool = new BufferPool(2)
+
+    def "reuses heap buffer released by the same thread"() {
+        when:
+        def buffer = pool.acquireBytes(8192)
+        pool.releaseBytes(buffer)
+
+        then:
+        buffer.length == 8192
+        pool.acquireBytes(8192).is(buffer)
+        !pool.acquireBytes(8192).is(buffer)
+    }
+
+    def "does not reuse heap buffer of a different size"() {
+        when:
+        def buffer = pool.acquireBytes(8192)
+        pool.releaseBytes(buffer)
+
+        then:
+        pool.acquireBytes(4096).length == 4096
+        pool.acquireBytes(16384).length == 16384
+        pool.acquireBytes(8192).is(buffer)
+    }
+
+    @Unroll
+    def "does not pool heap buffer of size #size"() {
+        when:
+        def buffer = pool.acquireBytes(size)
+        pool.releaseBytes(buffer)
+
+        then:
+        buffer.length == size
+        !pool.acquireBytes(size).is(buffer)
+
+        where:
+        size << [0, 10, 2048, 5000, 64 * 1024, 1024 * 1024]
+    }
+
+    def "keeps a limited number of heap buffers of each size"() {
+        def buffers = (1..3).collect { pool.acquireBytes(4096) }
+
+        when:
+        buffers.each { pool.releaseBytes(it) }
+        def reused = (1..3).collect { pool.acquireBytes(4096) }
+
+        then:
+        reused[0].is(buffers[0])
+        reused[1].is(buffers[1])
+        !buffers.any { it.is(reused[2]) }
+    }
+
+    def "does not reuse heap buffer released by another thread"() {
+        def buffer = pool.acquireBytes(4096)
+
+        when:
+        def thread = new Thread({ pool.releaseBytes(buffer) })
+        thread.start()
+        thread.join()
+
+        then:
+        !pool.acquireBytes(4096).is(buffer)
+    }
+
+    def "cannot release heap buffer twice"() {
+        def buffer = pool.acquireBytes(4096)
+        pool.releaseBytes(buffer)
+
+        when:
+        pool.releaseBytes(buffer)
+
+        then:
+        IllegalStateException e = thrown()
+        e.message == "Buffer has already been released."
+    }
+
+    def "hands out direct buffers from slab and reuses released buffers"() {
+        when:
+        def first = pool.acquireDirect()
+        def second = pool.acquireDirect()
+
+        then:
+        first.direct
+        first.capacity() == BufferPool.DIRECT_BUFFER_SIZE
+        first.position() == 0
+        first.limit() == BufferPool.DIRECT_BUFFER_SIZE
+        second.capacity() == BufferPool.DIRECT_BUFFER_SIZE
+
+        when:
+        first.put(12 as byte)
+        pool.releaseDirect(first)
+        def reused = pool.acquireDirect()
+
+        then:
+        reused.is(first)
+        reused.position() == 0
+    }
+
+    def "allocates direct buffers when slab is exhausted and pools up to the slab size"() {
+        def buffers = (1..3).collect { pool.acquireDirect() }
+
+        when:
+        buffers.each { pool.releaseDirect(it) }
+        def reused = (1..3).collect { pool.acquireDirect() }
+
+        then:
+        buffers.every { it.capacity() == BufferPool.DIRECT_BUFFER_SIZE }
+        reused[0].is(buffers[0])
+        reused[1].is(buffers[1])
+        !buffers.any { it.is(reused[2]) }
+    }
+}
@@ -418,4 +418,47 @@ class StreamByteBufferTest extends Specification {
         expect:
         StreamByteBuffer.of(byteArrayList).readAsByteArray() == (byteArrayList.flatten() as byte[])
     }
-}
\ No newline at end of file
+
+    def "returns chunks to the buffer pool when released"() {
+        def chunks = []
+
+        when:
+        inSeparateThread {
+            def byteBuffer = new StreamByteBuffer(8192)
+            byteBuffer.outputStream.write(testbuffer, 0, 8192)
+            byteBuffer.outputStream.write(testbuffer, 0, 100)
+            byteBuffer.release()
+            chunks << BufferPool.shared().acquireBytes(8192)
+            chunks << BufferPool.shared().acquireBytes(8192)
+        }
+
+        then:
+        chunks[0][0..99] == testbuffer[0..99]
+        chunks[1][0..99] == testbuffer[0..99]
+    }
+
+    def "does not return chunks handed out by the buffer to the buffer pool"() {
+        def arrays = []
+        def reused = []
+
+        when:
+        inSeparateThread {
+            def byteBuffer = new StreamByteBuffer(8192)
+            byteBuffer.outputStream.write(testbuffer, 0, 8192)
+            arrays.addAll(byteBuffer.readAsListOfByteArrays())
+            byteBuffer.release()
+            reused << BufferPool.shared().acquireBytes(8192)
+        }
+
+        then:
+        arrays.size() == 1
+        arrays[0].length == 8192
+        !reused[0].is(arrays[0])
+    }
+
+    private static void inSeparateThread(Closure action) {
+        def thread = new Thread(action)
+        thread.start()
+        thread.join()
+    }
+}
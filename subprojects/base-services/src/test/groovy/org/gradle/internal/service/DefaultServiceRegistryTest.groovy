@@ -324,6 +324,42 @@ class DefaultServiceRegistryTest extends Specification {
         registry.get(String).is(registry.get(String))
     }
 
+    def cachesLookupsOfServicesFromParentRegistries() {
+        def grandParent = new DefaultServiceRegistry()
+        grandParent.add(Integer, 12)
+        def parent = new DefaultServiceRegistry(grandParent)
+        def registry = new DefaultServiceRegistry(parent)
+        registry.addProvider(new Object() {
+            String createString(Integer value) {
+                return value.toString()
+            }
+        })
+
+        expect:
+        registry.get(Integer).is(grandParent.get(Integer))
+        registry.get(Number).is(registry.get(Integer))
+        registry.get(String) == "12"
+        registry.get(String).is(registry.get(String))
+        registry.find(BigDecimal) == null
+        registry.find(BigDecimal) == null
+        parent.find(String) == null
+    }
+
+    def failsLookupOfCachedServiceWhenRegistryIsClosed() {
+        given:
+        def registry = new DefaultServiceRegistry()
+        registry.add(Integer, 12)
+        registry.get(Integer)
+        registry.close()
+
+        when:
+        registry.get(Integer)
+
+        then:
+        IllegalStateException e = thrown()
+        e.message == "DefaultServiceRegistry has been closed."
+    }
+
     def usesProviderDecoratorMethodToDecorateParentServiceInstance() {
         def parent = Mock(ServiceRegistry)
         def registry = new DefaultServiceRegistry(parent)
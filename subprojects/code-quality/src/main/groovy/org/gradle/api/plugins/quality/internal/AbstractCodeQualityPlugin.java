@@ -137,7 +137,7 @@ public abstract class AbstractCodeQualityPlugin<T> implements Plugin<ProjectInte
     }
 
     private void configureTaskRule() {
-        project.getTasks().withType(getCastedTaskType(), new Action<Task>() {
+        project.getTasks().withType(getCastedTaskType()).configureEach(new Action<Task>() {
             @Override
             public void execute(Task task) {
                 String prunedName = task.getName().replaceFirst(getTaskBaseName(), "");
@@ -17,6 +17,7 @@ package org.gradle.api.tasks;
 
 import groovy.lang.Closure;
 import org.gradle.api.Action;
+import org.gradle.api.Incubating;
 import org.gradle.api.NamedDomainObjectSet;
 import org.gradle.api.Task;
 import org.gradle.api.UnknownTaskException;
@@ -72,6 +73,16 @@ public interface TaskCollection<T extends Task> extends NamedDomainObjectSet<T>
     @SuppressWarnings("UnusedDeclaration")
     void whenTaskAdded(Closure closure);
 
+    /**
+     * Configures each task in this collection using the given action, as each task is required. Unlike {@link #all(Action)}, this method does not cause tasks
+     * that have been defined using {@link TaskContainer#register(String)} to be created. Instead, the action is executed when each such task is created.
+     *
+     * @param action The action to execute for each task.
+     * @since 4.8
+     */
+    @Incubating
+    void configureEach(Action<? super T> action);
+
     /**
      * {@inheritDoc}
      */
@@ -186,6 +186,60 @@ public interface TaskContainer extends TaskCollection<Task>, PolymorphicDomainOb
      */
     <T extends Task> T create(String name, Class<T> type, Action<? super T> configuration) throws InvalidUserDataException;
 
+    /**
+     * <p>Defines a new task, which will be created when it is required. A task is 'required' when the task is located using query methods such as {@link #getByName(String)}, when the task is added
+     * to the task graph for execution or when {@link TaskProvider#get()} is called on the return value of this method.</p>
+     *
+     * <p>It is generally more efficient to use this method instead of {@link #create(String)}, as that method will eagerly create and configure the task, regardless of whether that task is required
+     * for the current build or not. This method, on the other hand, will defer creation and configuration until required.</p>
+     *
+     * @param name The name of the task.
+     * @return A {@link TaskProvider} that can be used to further configure the task.
+     * @throws InvalidUserDataException If a task with the given name already exists in this project.
+     * @since 4.8
+     */
+    @Incubating
+    TaskProvider<Task> register(String name) throws InvalidUserDataException;
+
+    /**
+     * <p>Defines a new task, which will be created and configured when it is required. See {@link #register(String)}.</p>
+     *
+     * @param name The name of the task.
+     * @param configurationAction The action to run to configure the task. This action runs when the task is required.
+     * @return A {@link TaskProvider} that can be used to further configure the task.
+     * @throws InvalidUserDataException If a task with the given name already exists in this project.
+     * @since 4.8
+     */
+    @Incubating
+    TaskProvider<Task> register(String name, Action<? super Task> configurationAction) throws InvalidUserDataException;
+
+    /**
+     * <p>Defines a new task, which will be created when it is required. See {@link #register(String)}.</p>
+     *
+     * @param name The name of the task.
+     * @param type The task type.
+     * @param <T> The task type
+     * @return A {@link TaskProvider} that can be used to further configure the task.
+     * @throws InvalidUserDataException If a task with the given name already exists in this project.
+     * @since 4.8
+     */
+    @Incubating
+    <T extends Task> TaskProvider<T> register(String name, Class<T> type) throws InvalidUserDataException;
+
+    /**
+     * <p>Defines a new task, which will be created and configured when it is required. See {@link #register(String)}.</p>
+     *
+     * @param name The name of the task.
+     * @param type The task type.
+     * @param configurationAction The action to run to configure the task. This action runs when the task is required.
+     * @param <T> The task type
+     * @return A {@link TaskProvider} that can be used to further configure the task.
+     * @throws InvalidUserDataException If a task with the given name already exists in this project.
+     * @since 4.8
+     */
+    @Incubating
+    <T extends Task> TaskProvider<T> register(String name, Class<T> type, Action<? super T> configurationAction) throws InvalidUserDataException;
+
     /**
      * <p>Creates a {@link Task} with the given name and adds it to this container, replacing any existing task with the
      * same name.</p>
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal;
+
+import com.google.common.io.ByteStreams;
+import org.gradle.api.Action;
+import org.gradle.internal.hash.HashCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compares generating a decorated class from scratch, as happens in a new daemon or for a new plugin ClassLoader, with loading the class from a {@link GeneratedClassStore}.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class AsmBackedClassGeneratorBenchmark {
+    private final byte[] beanBytes = readClassFile(SampleBean.class);
+    private final AsmBackedClassGenerator generator = new AsmBackedClassGenerator();
+    private final InMemoryGeneratedClassStore store = new InMemoryGeneratedClassStore();
+    private final AsmBackedClassGenerator generatorWithStore = new AsmBackedClassGenerator(store);
+
+    private Class<?> beanType;
+
+    @Setup(Level.Trial)
+    public void populateStore() throws ClassNotFoundException {
+        generatorWithStore.generate(newBeanType());
+    }
+
+    @Setup(Level.Invocation)
+    public void loadBeanType() throws ClassNotFoundException {
+        beanType = newBeanType();
+    }
+
+    @Benchmark
+    public Class<?> generate() {
+        return generator.generate(beanType);
+    }
+
+    @Benchmark
+    public Class<?> loadFromStore() {
+        return generatorWithStore.generate(beanType);
+    }
+
+    private Class<?> newBeanType() throws ClassNotFoundException {
+        return new BeanClassLoader(getClass().getClassLoader(), SampleBean.class.getName(), beanBytes).loadClass(SampleBean.class.getName());
+    }
+
+    private static byte[] readClassFile(Class<?> type) {
+        InputStream inputStream = type.getClassLoader().getResourceAsStream(type.getName().replace('.', '/') + ".class");
+        try {
+            try {
+                return ByteStreams.toByteArray(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Defines its own copy of the bean class, so that each instance requires a new decorated class.
+     */
+    private static class BeanClassLoader extends ClassLoader {
+        private final String beanClassName;
+        private final byte[] beanBytes;
+
+        BeanClassLoader(ClassLoader parent, String beanClassName, byte[] beanBytes) {
+            super(parent);
+            this.beanClassName = beanClassName;
+            this.beanBytes = beanBytes;
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.equals(beanClassName)) {
+                Class<?> type = findLoadedClass(name);
+                if (type == null) {
+                    type = defineClass(name, beanBytes, 0, beanBytes.length);
+                }
+                return type;
+            }
+            return super.loadClass(name, resolve);
+        }
+    }
+
+    private static class InMemoryGeneratedClassStore implements GeneratedClassStore {
+        private final Map<HashCode, byte[]> classes = new ConcurrentHashMap<HashCode, byte[]>();
+
+        @Override
+        public byte[] get(HashCode key) {
+            return classes.get(key);
+        }
+
+        @Override
+        public void put(HashCode key, byte[] bytecode) {
+            classes.put(key, bytecode);
+        }
+    }
+
+    public static class SampleBean {
+        private String name;
+        private int count;
+        private List<String> values;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public List<String> getValues() {
+            return values;
+        }
+
+        public void setValues(List<String> values) {
+            this.values = values;
+        }
+
+        public void values(Action<? super List<String>> action) {
+            action.execute(values);
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.gradle.api.NonExtensible;
 import org.gradle.api.plugins.ExtensionAware;
 import org.gradle.api.provider.HasMultipleValues;
 import org.gradle.api.provider.Property;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.reflect.ClassDetails;
 import org.gradle.internal.reflect.ClassInspector;
 import org.gradle.internal.reflect.DirectInstantiator;
@@ -110,11 +111,17 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
             throw new GradleException(String.format("Cannot create a proxy class for final class '%s'.",
                 type.getSimpleName()));
         }
-        Class<? extends T> subclass;
+        HashCode generatedClassKey = getGeneratedClassKey(type);
+        Class<? extends T> subclass = generatedClassKey == null ? null : loadPreviouslyGeneratedClass(type, generatedClassKey);
+        if (subclass != null) {
+            cache.put(type, subclass);
+            cache.put(subclass, subclass);
+            return subclass;
+        }
         try {
             ClassMetaData classMetaData = inspectType(type);
 
-            ClassBuilder<T> builder = start(type, classMetaData);
+            ClassBuilder<T> builder = start(type, classMetaData, generatedClassKey);
 
             builder.startClass(classMetaData.isShouldImplementWithServiceRegistry());
 
@@ -233,7 +240,23 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
         return subclass;
     }
 
-    protected abstract <T> ClassBuilder<T> start(Class<T> type, ClassMetaData classMetaData);
+    /**
+     * Returns the key under which the class generated for the given type is shared with other builds, or null when the class is not shared.
+     */
+    @Nullable
+    protected HashCode getGeneratedClassKey(Class<?> type) {
+        return null;
+    }
+
+    /**
+     * Loads a class that was generated for the given type by an earlier build, if available. Returns null when the class needs to be generated.
+     */
+    @Nullable
+    protected <T> Class<? extends T> loadPreviouslyGeneratedClass(Class<T> type, HashCode generatedClassKey) {
+        return null;
+    }
+
+    protected abstract <T> ClassBuilder<T> start(Class<T> type, ClassMetaData classMetaData, @Nullable HashCode generatedClassKey);
 
     private ClassMetaData inspectType(Class<?> type) {
         boolean isConventionAware = type.getAnnotation(NoConventionMapping.class) == null;
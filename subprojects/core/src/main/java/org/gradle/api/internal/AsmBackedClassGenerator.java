@@ -29,6 +29,8 @@ import org.gradle.api.internal.provider.PropertyInternal;
 import org.gradle.api.plugins.Convention;
 import org.gradle.api.plugins.ExtensionAware;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.metaobject.AbstractDynamicObject;
 import org.gradle.internal.metaobject.BeanDynamicObject;
 import org.gradle.internal.metaobject.DynamicObject;
@@ -38,6 +40,7 @@ import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.model.internal.asm.AsmClassGenerator;
 import org.gradle.util.CollectionUtils;
 import org.gradle.util.ConfigureUtil;
+import org.gradle.util.GradleVersion;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Label;
@@ -63,9 +66,49 @@ import static org.objectweb.asm.Opcodes.*;
 import static org.objectweb.asm.Type.VOID_TYPE;
 
 public class AsmBackedClassGenerator extends AbstractClassGenerator {
+    private static final String GENERATED_CLASS_SUFFIX = "_Decorated";
+    private static final ClassHierarchyHasher HASHER = new ClassHierarchyHasher(AsmBackedClassGenerator.class.getName() + ":" + GradleVersion.current().getVersion());
+
+    @Nullable
+    private final GeneratedClassStore generatedClassStore;
+
+    public AsmBackedClassGenerator() {
+        this(null);
+    }
+
+    /**
+     * Creates a generator that reuses the classes held by the given store, and adds the classes it generates to the store.
+     */
+    public AsmBackedClassGenerator(@Nullable GeneratedClassStore generatedClassStore) {
+        this.generatedClassStore = generatedClassStore;
+    }
+
+    @Nullable
     @Override
-    protected <T> ClassBuilder<T> start(Class<T> type, ClassMetaData classMetaData) {
-        return new ClassBuilderImpl<T>(type, classMetaData);
+    protected HashCode getGeneratedClassKey(Class<?> type) {
+        return generatedClassStore == null ? null : HASHER.hash(type);
+    }
+
+    @Nullable
+    @Override
+    protected <T> Class<? extends T> loadPreviouslyGeneratedClass(Class<T> type, HashCode generatedClassKey) {
+        byte[] bytecode = generatedClassStore.get(generatedClassKey);
+        if (bytecode == null) {
+            return null;
+        }
+        try {
+            return ClassLoaderUtils.<T>define(type.getClassLoader(), type.getName() + GENERATED_CLASS_SUFFIX, bytecode).asSubclass(type);
+        } catch (RuntimeException e) {
+            // The class may already have been defined in this ClassLoader, or the bytecode is no longer valid, so generate it again
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    @Override
+    protected <T> ClassBuilder<T> start(Class<T> type, ClassMetaData classMetaData, @Nullable HashCode generatedClassKey) {
+        return new ClassBuilderImpl<T>(type, classMetaData, generatedClassKey == null ? null : generatedClassStore, generatedClassKey);
     }
 
     private static class ClassBuilderImpl<T> implements ClassBuilder<T> {
@@ -135,11 +178,15 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
         private final boolean conventionAware;
         private final boolean extensible;
         private final boolean providesOwnDynamicObject;
+        private final GeneratedClassStore generatedClassStore;
+        private final HashCode generatedClassKey;
 
-        private ClassBuilderImpl(Class<T> type, ClassMetaData classMetaData) {
+        private ClassBuilderImpl(Class<T> type, ClassMetaData classMetaData, @Nullable GeneratedClassStore generatedClassStore, @Nullable HashCode generatedClassKey) {
             this.type = type;
+            this.generatedClassStore = generatedClassStore;
+            this.generatedClassKey = generatedClassKey;
 
-            classGenerator = new AsmClassGenerator(type, "_Decorated");
+            classGenerator = new AsmClassGenerator(type, GENERATED_CLASS_SUFFIX);
             visitor = classGenerator.getVisitor();
             generatedType = classGenerator.getGeneratedType();
             superclassType = Type.getType(type);
@@ -964,7 +1011,11 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
             writeGenericReturnTypeFields();
             visitor.visitEnd();
 
-            return classGenerator.define().asSubclass(type);
+            Class<? extends T> generatedClass = classGenerator.define().asSubclass(type);
+            if (generatedClassStore != null) {
+                generatedClassStore.put(generatedClassKey, visitor.toByteArray());
+            }
+            return generatedClass;
         }
 
         private void writeGenericReturnTypeFields() {
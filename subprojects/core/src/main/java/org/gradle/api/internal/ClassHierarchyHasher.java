@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal;
+
+import org.gradle.api.provider.HasMultipleValues;
+import org.gradle.api.provider.Property;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Calculates a hash of everything that a generated subclass of a given type depends on: the bytecode of the type, its supertypes and the annotation types it uses,
+ * plus the kind of each property type. Classes loaded by the bootstrap classloader contribute their name only.
+ */
+class ClassHierarchyHasher {
+    private final String generatorVersion;
+
+    ClassHierarchyHasher(String generatorVersion) {
+        this.generatorVersion = generatorVersion;
+    }
+
+    /**
+     * Returns the hash for the given type, or null when the bytecode of some class it depends on is not available.
+     */
+    @Nullable
+    public HashCode hash(Class<?> type) {
+        Set<Class<?>> classes = new LinkedHashSet<Class<?>>();
+        collectHierarchy(type, classes);
+        for (Annotation annotation : type.getAnnotations()) {
+            classes.add(annotation.annotationType());
+        }
+
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(generatorVersion);
+        for (Method method : type.getMethods()) {
+            for (Annotation annotation : method.getAnnotations()) {
+                classes.add(annotation.annotationType());
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType.getClassLoader() != null) {
+                hasher.putString(returnType.getName());
+                hasher.putBoolean(Property.class.isAssignableFrom(returnType));
+                hasher.putBoolean(HasMultipleValues.class.isAssignableFrom(returnType));
+                hasher.putBoolean(Iterable.class.isAssignableFrom(returnType));
+            }
+        }
+        for (Class<?> current : classes) {
+            hasher.putString(current.getName());
+            ClassLoader classLoader = current.getClassLoader();
+            if (classLoader == null) {
+                continue;
+            }
+            if (!hashClassFile(classLoader, current, hasher)) {
+                return null;
+            }
+        }
+        return hasher.hash();
+    }
+
+    private static void collectHierarchy(@Nullable Class<?> type, Set<Class<?>> classes) {
+        if (type == null || !classes.add(type)) {
+            return;
+        }
+        collectHierarchy(type.getSuperclass(), classes);
+        for (Class<?> iface : type.getInterfaces()) {
+            collectHierarchy(iface, classes);
+        }
+    }
+
+    private static boolean hashClassFile(ClassLoader classLoader, Class<?> type, Hasher hasher) {
+        InputStream inputStream = classLoader.getResourceAsStream(type.getName().replace('.', '/') + ".class");
+        if (inputStream == null) {
+            return false;
+        }
+        try {
+            try {
+                byte[] buffer = new byte[8192];
+                int nread;
+                while ((nread = inputStream.read(buffer)) > 0) {
+                    hasher.putBytes(buffer, 0, nread);
+                }
+                return true;
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal;
+
+import org.gradle.internal.Factory;
+import org.gradle.internal.hash.HashCode;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link GeneratedClassStore} that is shared by all builds in a process, and delegates to the store attached for the current Gradle user home directory, if any.
+ * The attached store is only created when a class is first looked up or added, so that builds that generate no new classes do not open it.
+ */
+public class CrossBuildGeneratedClassStore implements GeneratedClassStore {
+    private final Object lock = new Object();
+    private Factory<? extends GeneratedClassStore> storeFactory;
+    private GeneratedClassStore store;
+
+    public void attach(Factory<? extends GeneratedClassStore> storeFactory) {
+        synchronized (lock) {
+            this.storeFactory = storeFactory;
+            store = null;
+        }
+    }
+
+    public void detach(Factory<? extends GeneratedClassStore> storeFactory) {
+        synchronized (lock) {
+            if (this.storeFactory == storeFactory) {
+                this.storeFactory = null;
+                store = null;
+            }
+        }
+    }
+
+    @Nullable
+    @Override
+    public byte[] get(HashCode key) {
+        GeneratedClassStore store = getStore();
+        return store == null ? null : store.get(key);
+    }
+
+    @Override
+    public void put(HashCode key, byte[] bytecode) {
+        GeneratedClassStore store = getStore();
+        if (store != null) {
+            store.put(key, bytecode);
+        }
+    }
+
+    @Nullable
+    private GeneratedClassStore getStore() {
+        synchronized (lock) {
+            if (store == null && storeFactory != null) {
+                store = storeFactory.create();
+            }
+            return store;
+        }
+    }
+}
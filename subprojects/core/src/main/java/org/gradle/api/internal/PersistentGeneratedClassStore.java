@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal;
+
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * A {@link GeneratedClassStore} backed by a persistent cache in the Gradle user home directory.
+ */
+public class PersistentGeneratedClassStore implements GeneratedClassStore, Closeable {
+    private final PersistentCache cache;
+    private final PersistentIndexedCache<HashCode, byte[]> classes;
+
+    public PersistentGeneratedClassStore(CacheRepository cacheRepository) {
+        cache = cacheRepository
+            .cache("generatedClasses")
+            .withDisplayName("generated classes cache")
+            .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
+            .open();
+        classes = cache.createCache(new PersistentIndexedCacheParameters<HashCode, byte[]>("generatedClasses", BaseSerializerFactory.HASHCODE_SERIALIZER, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER));
+    }
+
+    @Nullable
+    @Override
+    public byte[] get(HashCode key) {
+        return classes.get(key);
+    }
+
+    @Override
+    public void put(HashCode key, byte[] bytecode) {
+        classes.put(key, bytecode);
+    }
+
+    @Override
+    public void close() {
+        cache.close();
+    }
+}
@@ -24,14 +24,30 @@ import java.util.Set;
 
 public class StartParameterInternal extends StartParameter implements Deprecatable {
     private final Deprecatable deprecationHandler = new LoggingDeprecatable();
+    private boolean profileCompare;
 
     @Override
     public StartParameter newInstance() {
-        return prepareNewInstance(new StartParameterInternal());
+        StartParameterInternal p = (StartParameterInternal) prepareNewInstance(new StartParameterInternal());
+        p.profileCompare = profileCompare;
+        return p;
     }
 
     public StartParameter newBuild() {
-        return prepareNewBuild(new StartParameterInternal());
+        StartParameterInternal p = (StartParameterInternal) prepareNewBuild(new StartParameterInternal());
+        p.profileCompare = profileCompare;
+        return p;
+    }
+
+    /**
+     * Returns true if the performance of the build should be compared with the performance of earlier builds of the same invocation.
+     */
+    public boolean isProfileCompare() {
+        return profileCompare;
+    }
+
+    public void setProfileCompare(boolean profileCompare) {
+        this.profileCompare = profileCompare;
     }
 
     @Override
@@ -31,7 +31,9 @@ import org.gradle.cache.internal.CrossBuildInMemoryCache;
 import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
 import org.gradle.cache.internal.CrossProcessSynchronizingCache;
 import org.gradle.cache.internal.HeapProportionalCacheSizer;
+import org.gradle.cache.internal.InMemoryCacheShrinker;
 import org.gradle.cache.internal.MultiProcessSafeAsyncPersistentIndexedCache;
+import org.gradle.cache.internal.ShrinkableCache;
 
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -40,15 +42,23 @@ import java.util.concurrent.atomic.AtomicReference;
  * The in-memory cache is invalidated when the backing cache is changed by another process.
  *
  * Also decorates each cache so that updates to the backing cache are made asynchronously.
+ *
+ * The in-memory caches are registered with the given {@link InMemoryCacheShrinker}, so that they can be shrunk when the process runs low on heap.
  */
 public class InMemoryCacheDecoratorFactory {
     private final static Logger LOG = Logging.getLogger(InMemoryCacheDecoratorFactory.class);
     private final boolean longLivingProcess;
     private final HeapProportionalCacheSizer cacheSizer = new HeapProportionalCacheSizer();
     private final CrossBuildInMemoryCache<String, CacheDetails> caches;
+    private final InMemoryCacheShrinker cacheShrinker;
 
     public InMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBuildInMemoryCacheFactory cacheFactory) {
+        this(longLivingProcess, cacheFactory, new InMemoryCacheShrinker());
+    }
+
+    public InMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBuildInMemoryCacheFactory cacheFactory, InMemoryCacheShrinker cacheShrinker) {
         this.longLivingProcess = longLivingProcess;
+        this.cacheShrinker = cacheShrinker;
         caches = cacheFactory.newCache();
     }
 
@@ -73,6 +83,7 @@ public class InMemoryCacheDecoratorFactory {
             public CacheDetails transform(String cacheId) {
                 Cache<Object, Object> entries = createInMemoryCache(cacheId, maxSize);
                 CacheDetails cacheDetails = new CacheDetails(cacheId, maxSize, entries, new AtomicReference<FileLock.State>(null));
+                cacheShrinker.register(cacheDetails);
                 LOG.debug("Creating in-memory store for cache {} (max size: {})", cacheId, maxSize);
                 return cacheDetails;
             }
@@ -125,7 +136,7 @@ public class InMemoryCacheDecoratorFactory {
         }
     }
 
-    private static class CacheDetails {
+    private static class CacheDetails implements ShrinkableCache {
         private final String cacheId;
         private final int maxEntries;
         private final Cache<Object, Object> entries;
@@ -137,5 +148,12 @@ public class InMemoryCacheDecoratorFactory {
             this.entries = entries;
             this.lockState = lockState;
         }
+
+        @Override
+        public long shrink(double fraction) {
+            long discarded = InMemoryCacheShrinker.discard(entries.asMap().keySet(), fraction);
+            LOG.debug("Discarded {} entries from in-memory store for cache {}", discarded, cacheId);
+            return discarded;
+        }
     }
 }
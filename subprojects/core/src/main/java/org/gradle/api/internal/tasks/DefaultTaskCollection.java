@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.tasks;
 
+import com.google.common.collect.Lists;
 import groovy.lang.Closure;
 import org.gradle.api.Action;
 import org.gradle.api.Task;
@@ -22,25 +23,33 @@ import org.gradle.api.UnknownDomainObjectException;
 import org.gradle.api.UnknownTaskException;
 import org.gradle.api.internal.DefaultNamedDomainObjectSet;
 import org.gradle.api.internal.collections.CollectionFilter;
+import org.gradle.api.internal.collections.FilteredCollection;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.specs.Specs;
 import org.gradle.api.tasks.TaskCollection;
+import org.gradle.internal.Cast;
 import org.gradle.internal.reflect.Instantiator;
 
+import java.util.Collection;
+import java.util.List;
+
 public class DefaultTaskCollection<T extends Task> extends DefaultNamedDomainObjectSet<T> implements TaskCollection<T> {
     private static final Task.Namer NAMER = new Task.Namer();
 
     protected final ProjectInternal project;
+    private final Collection<T> realizedTasks;
 
     public DefaultTaskCollection(Class<T> type, Instantiator instantiator, ProjectInternal project) {
         super(type, instantiator, NAMER);
         this.project = project;
+        this.realizedTasks = null;
     }
 
     public DefaultTaskCollection(DefaultTaskCollection<? super T> collection, CollectionFilter<T> filter, Instantiator instantiator, ProjectInternal project) {
         super(collection, filter, instantiator, NAMER);
         this.project = project;
+        this.realizedTasks = new FilteredCollection<Task, T>(Cast.<Collection<Task>>uncheckedCast(collection.getRealizedTasks()), filter);
     }
 
     protected <S extends T> DefaultTaskCollection<S> filtered(CollectionFilter<S> filter) {
@@ -62,6 +71,23 @@ public class DefaultTaskCollection<T extends Task> extends DefaultNamedDomainObj
         return matching(Specs.<T>convertClosureToSpec(spec));
     }
 
+    @Override
+    public void configureEach(Action<? super T> action) {
+        whenObjectAdded(action);
+        // copy in case the action adds tasks
+        List<T> realized = Lists.newArrayList(getRealizedTasks());
+        for (T task : realized) {
+            action.execute(task);
+        }
+    }
+
+    /**
+     * Returns the tasks in this collection that have already been created, without creating any tasks that have been registered but not yet required.
+     */
+    protected Collection<T> getRealizedTasks() {
+        return realizedTasks != null ? realizedTasks : getStore();
+    }
+
     public Action<? super T> whenTaskAdded(Action<? super T> action) {
         return whenObjectAdded(action);
     }
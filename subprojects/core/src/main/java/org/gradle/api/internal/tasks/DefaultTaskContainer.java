@@ -31,14 +31,22 @@ import org.gradle.api.Task;
 import org.gradle.api.UnknownTaskException;
 import org.gradle.api.internal.NamedDomainObjectContainerConfigureDelegate;
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.collections.CollectionFilter;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.taskfactory.ITaskFactory;
+import org.gradle.api.internal.provider.AbstractProvider;
 import org.gradle.api.tasks.TaskCollection;
+import org.gradle.api.tasks.TaskProvider;
 import org.gradle.api.tasks.TaskReference;
 import org.gradle.initialization.ProjectAccessListener;
 import org.gradle.internal.Cast;
+import org.gradle.internal.ImmutableActionSet;
 import org.gradle.internal.Transformers;
 import org.gradle.internal.metaobject.DynamicObject;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.model.internal.core.ModelActionRole;
 import org.gradle.model.internal.core.ModelNode;
@@ -52,11 +60,16 @@ import org.gradle.model.internal.type.ModelType;
 import org.gradle.util.ConfigureUtil;
 import org.gradle.util.GUtil;
 
+import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.SortedSet;
 
 @NonNullApi
@@ -73,13 +86,18 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
     private final MutableModelNode modelNode;
     private final ITaskFactory taskFactory;
     private final ProjectAccessListener projectAccessListener;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final TaskStatistics statistics;
     private final Set<String> placeholders = Sets.newHashSet();
+    private final Map<String, TaskCreatingProvider<?>> pendingTasks = Maps.newLinkedHashMap();
 
-    public DefaultTaskContainer(MutableModelNode modelNode, ProjectInternal project, Instantiator instantiator, ITaskFactory taskFactory, ProjectAccessListener projectAccessListener) {
+    public DefaultTaskContainer(MutableModelNode modelNode, ProjectInternal project, Instantiator instantiator, ITaskFactory taskFactory, ProjectAccessListener projectAccessListener, BuildOperationExecutor buildOperationExecutor, TaskStatistics statistics) {
         super(Task.class, instantiator, project);
         this.modelNode = modelNode;
         this.taskFactory = taskFactory;
         this.projectAccessListener = projectAccessListener;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.statistics = statistics;
     }
 
     public Task create(Map<String, ?> options) {
@@ -174,6 +192,15 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
             modelNode.removeLink(name);
         }
 
+        if (pendingTasks.containsKey(name)) {
+            if (replaceExisting) {
+                pendingTasks.remove(name);
+            } else {
+                throw new InvalidUserDataException(String.format(
+                    "Cannot add %s as a task with that name already exists.", task));
+            }
+        }
+
         Task existing = findByNameWithoutRules(name);
         if (existing != null) {
             if (replaceExisting) {
@@ -185,6 +212,7 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
         }
 
         add(task);
+        statistics.taskCreated();
 
         return task;
     }
@@ -258,6 +286,107 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
         return addTask(task, true);
     }
 
+    @Override
+    public TaskProvider<Task> register(String name) throws InvalidUserDataException {
+        return Cast.uncheckedCast(register(name, DefaultTask.class, null));
+    }
+
+    @Override
+    public TaskProvider<Task> register(String name, Action<? super Task> configurationAction) throws InvalidUserDataException {
+        return Cast.uncheckedCast(register(name, DefaultTask.class, configurationAction));
+    }
+
+    @Override
+    public <T extends Task> TaskProvider<T> register(String name, Class<T> type) throws InvalidUserDataException {
+        return register(name, type, null);
+    }
+
+    @Override
+    public <T extends Task> TaskProvider<T> register(String name, Class<T> type, @Nullable Action<? super T> configurationAction) throws InvalidUserDataException {
+        assertMutable();
+        if (!GUtil.isTrue(name)) {
+            throw new InvalidUserDataException("The task name must be provided.");
+        }
+        if (pendingTasks.containsKey(name) || super.findByNameWithoutRules(name) != null) {
+            throw new InvalidUserDataException(String.format("Cannot add task '%s' as a task with that name already exists.", name));
+        }
+        TaskCreatingProvider<T> provider = new TaskCreatingProvider<T>(name, type);
+        if (configurationAction != null) {
+            provider.configure(configurationAction);
+        }
+        pendingTasks.put(name, provider);
+        statistics.taskRegistered();
+        return provider;
+    }
+
+    /**
+     * Creates all tasks that have been registered but not yet created. A task may register further tasks when it is created, so keep going until there are none left.
+     */
+    private void realizePendingTasks() {
+        while (true) {
+            TaskCreatingProvider<?> next = null;
+            for (TaskCreatingProvider<?> pending : pendingTasks.values()) {
+                if (!pending.realizing) {
+                    next = pending;
+                    break;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            next.realize();
+        }
+    }
+
+    @Override
+    protected Task findByNameWithoutRules(String name) {
+        TaskCreatingProvider<?> pending = pendingTasks.get(name);
+        if (pending != null) {
+            pending.realize();
+        }
+        return super.findByNameWithoutRules(name);
+    }
+
+    @Override
+    public SortedMap<String, Task> getAsMap() {
+        realizePendingTasks();
+        return super.getAsMap();
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        realizePendingTasks();
+        return super.iterator();
+    }
+
+    @Override
+    public int size() {
+        realizePendingTasks();
+        return super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return pendingTasks.isEmpty() && super.isEmpty();
+    }
+
+    @Override
+    public void all(Action<? super Task> action) {
+        realizePendingTasks();
+        super.all(action);
+    }
+
+    @Override
+    protected <S extends Collection<? super Task>> S findAll(Closure cl, S matches) {
+        realizePendingTasks();
+        return super.findAll(cl, matches);
+    }
+
+    @Override
+    protected <S extends Task> Index<S> filteredIndex(CollectionFilter<S> filter) {
+        return new PendingTaskIndex<S>(super.filteredIndex(filter));
+    }
+
     public Task findByPath(String path) {
         if (Strings.isNullOrEmpty(path)) {
             throw new InvalidUserDataException("A path must be specified!");
@@ -317,7 +446,9 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
     }
 
     public SortedSet<String> getNames() {
-        return Sets.newTreeSet(modelNode.getLinkNames());
+        SortedSet<String> names = Sets.newTreeSet(modelNode.getLinkNames());
+        names.addAll(pendingTasks.keySet());
+        return names;
     }
 
     public void realize() {
@@ -417,4 +548,155 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
     public <S extends Task> TaskCollection<S> withType(Class<S> type) {
         return new RealizableTaskCollection<S>(type, super.withType(type), modelNode);
     }
+
+    /**
+     * An index for a filtered view of this container, which creates registered tasks before they are queried.
+     */
+    private class PendingTaskIndex<S extends Task> implements Index<S> {
+        private final Index<S> delegate;
+
+        PendingTaskIndex(Index<S> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void put(String name, S value) {
+            delegate.put(name, value);
+        }
+
+        @Override
+        public S get(String name) {
+            TaskCreatingProvider<?> pending = pendingTasks.get(name);
+            if (pending != null) {
+                pending.realize();
+            }
+            return delegate.get(name);
+        }
+
+        @Override
+        public void remove(String name) {
+            delegate.remove(name);
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+        }
+
+        @Override
+        public NavigableMap<String, S> asMap() {
+            realizePendingTasks();
+            return delegate.asMap();
+        }
+
+        @Override
+        public <U extends S> Index<U> filter(CollectionFilter<U> filter) {
+            return new PendingTaskIndex<U>(delegate.filter(filter));
+        }
+    }
+
+    private class TaskCreatingProvider<T extends Task> extends AbstractProvider<T> implements TaskProvider<T>, TaskDependencyContainer {
+        private final String name;
+        private final Class<T> type;
+        private ImmutableActionSet<T> onCreate = ImmutableActionSet.empty();
+        private T task;
+        private boolean realizing;
+        private RuntimeException failure;
+
+        TaskCreatingProvider(String name, Class<T> type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Class<T> getType() {
+            return type;
+        }
+
+        @Override
+        public void configure(Action<? super T> action) {
+            if (task != null) {
+                action.execute(task);
+            } else {
+                onCreate = onCreate.add(action);
+            }
+        }
+
+        @Override
+        public boolean isPresent() {
+            return task != null || pendingTasks.get(name) == this;
+        }
+
+        @Override
+        public T getOrNull() {
+            if (failure != null) {
+                throw failure;
+            }
+            if (task == null && pendingTasks.get(name) == this) {
+                realize();
+            }
+            return task;
+        }
+
+        @Override
+        public void visitDependencies(TaskDependencyResolveContext context) {
+            context.add(get());
+        }
+
+        /**
+         * Creates and configures the task. The task stays pending until it has been created, so that a failure is reported again
+         * by any later lookup rather than the task silently disappearing from the container.
+         */
+        void realize() {
+            if (failure != null) {
+                throw failure;
+            }
+            if (realizing || task != null) {
+                return;
+            }
+            realizing = true;
+            try {
+                doRealize();
+            } catch (RuntimeException e) {
+                failure = e;
+                throw e;
+            } finally {
+                realizing = false;
+            }
+        }
+
+        private void doRealize() {
+            buildOperationExecutor.run(new RunnableBuildOperation() {
+                @Override
+                public void run(BuildOperationContext context) {
+                    T created = createTask(name, type, NO_ARGS);
+                    task = created;
+                    pendingTasks.remove(name);
+                    addTask(created, false);
+                    statistics.registeredTaskRealized();
+                    ImmutableActionSet<T> actions = onCreate;
+                    onCreate = ImmutableActionSet.empty();
+                    actions.execute(created);
+                    context.setResult(RealizeTaskBuildOperationType.RESULT);
+                }
+
+                @Override
+                public BuildOperationDescriptor.Builder description() {
+                    String taskPath = project.getIdentityPath().child(name).getPath();
+                    return BuildOperationDescriptor.displayName("Realize task " + taskPath)
+                        .details(new RealizeTaskBuildOperationType.DetailsImpl(taskPath, project.getIdentityPath().getPath()));
+                }
+            });
+        }
+
+        @Override
+        public String toString() {
+            return String.format("provider(task '%s', %s)", name, type);
+        }
+    }
 }
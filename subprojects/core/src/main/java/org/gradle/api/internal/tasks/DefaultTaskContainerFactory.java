@@ -23,6 +23,7 @@ import org.gradle.api.tasks.TaskContainer;
 import org.gradle.initialization.ProjectAccessListener;
 import org.gradle.internal.BiAction;
 import org.gradle.internal.Factory;
+import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.model.collection.internal.BridgedCollections;
 import org.gradle.model.internal.core.ChildNodeInitializerStrategyAccessors;
@@ -45,13 +46,17 @@ public class DefaultTaskContainerFactory implements Factory<TaskContainerInterna
     private final ITaskFactory taskFactory;
     private Project project;
     public ProjectAccessListener projectAccessListener;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final TaskStatistics statistics;
 
-    public DefaultTaskContainerFactory(ModelRegistry modelRegistry, Instantiator instantiator, ITaskFactory taskFactory, Project project, ProjectAccessListener projectAccessListener) {
+    public DefaultTaskContainerFactory(ModelRegistry modelRegistry, Instantiator instantiator, ITaskFactory taskFactory, Project project, ProjectAccessListener projectAccessListener, BuildOperationExecutor buildOperationExecutor, TaskStatistics statistics) {
         this.modelRegistry = modelRegistry;
         this.instantiator = instantiator;
         this.taskFactory = taskFactory;
         this.project = project;
         this.projectAccessListener = projectAccessListener;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.statistics = statistics;
     }
 
     public TaskContainerInternal create() {
@@ -62,7 +67,7 @@ public class DefaultTaskContainerFactory implements Factory<TaskContainerInterna
             new Transformer<DefaultTaskContainer, MutableModelNode>() {
                 @Override
                 public DefaultTaskContainer transform(MutableModelNode mutableModelNode) {
-                    return instantiator.newInstance(DefaultTaskContainer.class, mutableModelNode, project, instantiator, taskFactory, projectAccessListener);
+                    return instantiator.newInstance(DefaultTaskContainer.class, mutableModelNode, project, instantiator, taskFactory, projectAccessListener, buildOperationExecutor, statistics);
                 }
             },
             new Task.Namer(),
@@ -97,6 +97,11 @@ public class RealizableTaskCollection<T extends Task> implements TaskCollection<
         delegate.whenTaskAdded(closure);
     }
 
+    @Override
+    public void configureEach(Action<? super T> action) {
+        delegate.configureEach(action);
+    }
+
     @Override
     public T getAt(String name) throws UnknownTaskException {
         return delegate.getAt(name);
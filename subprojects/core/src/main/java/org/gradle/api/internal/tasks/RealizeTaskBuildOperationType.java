@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks;
+
+import org.gradle.internal.operations.BuildOperationType;
+
+/**
+ * Creation and configuration of a task that was registered using {@link org.gradle.api.tasks.TaskContainer#register(String)}.
+ *
+ * @since 4.8
+ */
+public final class RealizeTaskBuildOperationType implements BuildOperationType<RealizeTaskBuildOperationType.Details, RealizeTaskBuildOperationType.Result> {
+
+    public interface Details {
+
+        String getTaskPath();
+
+        String getProjectPath();
+
+    }
+
+    public interface Result {
+
+    }
+
+    static class DetailsImpl implements Details {
+
+        private final String taskPath;
+        private final String projectPath;
+
+        DetailsImpl(String taskPath, String projectPath) {
+            this.taskPath = taskPath;
+            this.projectPath = projectPath;
+        }
+
+        public String getTaskPath() {
+            return taskPath;
+        }
+
+        public String getProjectPath() {
+            return projectPath;
+        }
+
+    }
+
+    final static Result RESULT = new Result() {
+    };
+
+    private RealizeTaskBuildOperationType() {
+    }
+
+}
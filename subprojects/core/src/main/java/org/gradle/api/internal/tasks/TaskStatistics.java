@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects counts of the tasks created during a build, so that the effect of registering tasks rather than creating them eagerly can be measured.
+ * The counts are logged at the end of the build when the {@value #COLLECT_STATISTICS} system property is set.
+ */
+public class TaskStatistics implements Closeable {
+    private static final Logger LOGGER = Logging.getLogger(TaskStatistics.class);
+    public static final String COLLECT_STATISTICS = "org.gradle.internal.tasks.stats";
+
+    private final boolean collectStatistics;
+    private final AtomicInteger createdTasks = new AtomicInteger();
+    private final AtomicInteger registeredTasks = new AtomicInteger();
+    private final AtomicInteger realizedTasks = new AtomicInteger();
+
+    public TaskStatistics() {
+        this.collectStatistics = Boolean.getBoolean(COLLECT_STATISTICS);
+    }
+
+    public void taskCreated() {
+        createdTasks.incrementAndGet();
+    }
+
+    public void taskRegistered() {
+        registeredTasks.incrementAndGet();
+    }
+
+    public void registeredTaskRealized() {
+        realizedTasks.incrementAndGet();
+    }
+
+    @Override
+    public void close() {
+        if (collectStatistics) {
+            int realized = realizedTasks.get();
+            LOGGER.lifecycle("Task counts: created {} (eager {}, registered and realized {}), registered but not realized {}",
+                createdTasks.get(), createdTasks.get() - realized, realized, registeredTasks.get() - realized);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import javax.annotation.Nullable;
 import java.lang.ref.SoftReference;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
@@ -36,13 +37,21 @@ import java.util.WeakHashMap;
  * Note that this implementation currently retains strong references to keys and values during the whole lifetime of a build session.
  *
  * Uses a simple algorithm to collect unused values, by retaining strong references to all keys and values used during the current build session, and the previous build session. All other values are referenced only by soft references.
+ *
+ * The caches are registered with the given {@link InMemoryCacheShrinker}. Shrinking a cache releases its strong references to values used during the previous build session.
  */
 @ThreadSafe
 public class CrossBuildInMemoryCacheFactory {
     private final ListenerManager listenerManager;
+    private final InMemoryCacheShrinker cacheShrinker;
 
     public CrossBuildInMemoryCacheFactory(ListenerManager listenerManager) {
+        this(listenerManager, new InMemoryCacheShrinker());
+    }
+
+    public CrossBuildInMemoryCacheFactory(ListenerManager listenerManager, InMemoryCacheShrinker cacheShrinker) {
         this.listenerManager = listenerManager;
+        this.cacheShrinker = cacheShrinker;
     }
 
     /**
@@ -53,6 +62,7 @@ public class CrossBuildInMemoryCacheFactory {
     public <K, V> CrossBuildInMemoryCache<K, V> newCache() {
         DefaultCrossBuildInMemoryCache<K, V> cache = new DefaultCrossBuildInMemoryCache<K, V>(new HashMap<K, SoftReference<V>>());
         listenerManager.addListener(cache);
+        cacheShrinker.register(cache);
         return cache;
     }
 
@@ -64,10 +74,11 @@ public class CrossBuildInMemoryCacheFactory {
     public <V> CrossBuildInMemoryCache<Class<?>, V> newClassCache() {
         DefaultCrossBuildInMemoryCache<Class<?>, V> cache = new DefaultCrossBuildInMemoryCache<Class<?>, V>(new WeakHashMap<Class<?>, SoftReference<V>>());
         listenerManager.addListener(cache);
+        cacheShrinker.register(cache);
         return cache;
     }
 
-    private static class DefaultCrossBuildInMemoryCache<K, V> implements CrossBuildInMemoryCache<K, V>, SessionLifecycleListener {
+    private static class DefaultCrossBuildInMemoryCache<K, V> implements CrossBuildInMemoryCache<K, V>, SessionLifecycleListener, ShrinkableCache {
         private final Object lock = new Object();
         private final Map<K, V> valuesForThisSession = new HashMap<K, V>();
         // This is used only to retain strong references to the values
@@ -101,6 +112,19 @@ public class CrossBuildInMemoryCacheFactory {
             }
         }
 
+        @Override
+        public long shrink(double fraction) {
+            synchronized (lock) {
+                // Values are still referenced by soft references, and are discarded only when the garbage collector needs the space
+                for (Iterator<SoftReference<V>> iterator = allValues.values().iterator(); iterator.hasNext();) {
+                    if (iterator.next().get() == null) {
+                        iterator.remove();
+                    }
+                }
+                return InMemoryCacheShrinker.discard(valuesForPreviousSession, fraction);
+            }
+        }
+
         @Nullable
         @Override
         public V get(K key) {
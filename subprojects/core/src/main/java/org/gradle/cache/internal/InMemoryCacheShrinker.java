@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import com.google.common.base.Preconditions;
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Discards entries from the in-memory caches of this process, so that a process that is running low on heap can continue with smaller caches.
+ *
+ * Registered caches are referenced using weak references, so registering a cache does not prevent it from being garbage collected.
+ */
+@ThreadSafe
+public class InMemoryCacheShrinker {
+    private static final Logger LOGGER = Logging.getLogger(InMemoryCacheShrinker.class);
+
+    private final Map<ShrinkableCache, Boolean> caches = new WeakHashMap<ShrinkableCache, Boolean>();
+
+    public void register(ShrinkableCache cache) {
+        synchronized (caches) {
+            caches.put(cache, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Discards the given fraction of the entries of each registered cache.
+     *
+     * @return The total number of entries discarded.
+     */
+    public long shrink(double fraction) {
+        Preconditions.checkArgument(fraction > 0 && fraction <= 1, "Fraction must be greater than 0 and at most 1");
+        List<ShrinkableCache> snapshot;
+        synchronized (caches) {
+            snapshot = new ArrayList<ShrinkableCache>(caches.keySet());
+        }
+        long discarded = 0;
+        for (ShrinkableCache cache : snapshot) {
+            discarded += cache.shrink(fraction);
+        }
+        LOGGER.info("Discarded {} entries from {} in-memory caches.", discarded, snapshot.size());
+        return discarded;
+    }
+
+    /**
+     * Removes the given fraction of the elements of the given collection, using its iterator.
+     *
+     * @return The number of elements removed.
+     */
+    public static int discard(Collection<?> entries, double fraction) {
+        int count = (int) Math.ceil(entries.size() * fraction);
+        int removed = 0;
+        Iterator<?> iterator = entries.iterator();
+        while (removed < count && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            removed++;
+        }
+        return removed;
+    }
+}
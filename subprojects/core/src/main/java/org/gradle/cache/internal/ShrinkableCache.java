@@ -0,0 +1,30 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+/**
+ * An in-memory cache that can discard some of its entries to reduce the heap used by the process. Discarded entries are recreated or reloaded when next requested.
+ */
+public interface ShrinkableCache {
+    /**
+     * Discards approximately the given fraction of the entries of this cache.
+     *
+     * @param fraction The fraction of the entries to discard, greater than 0 and at most 1.
+     * @return The number of entries discarded.
+     */
+    long shrink(double fraction);
+}
@@ -43,6 +43,7 @@ public class StartParameterBuildOptions {
         options.add(new RerunTasksOption());
         options.add(new RecompileScriptsOption());
         options.add(new ProfileOption());
+        options.add(new ProfileCompareOption());
         options.add(new ContinueOption());
         options.add(new OfflineOption());
         options.add(new RefreshDependenciesOption());
@@ -116,6 +117,17 @@ public class StartParameterBuildOptions {
         }
     }
 
+    public static class ProfileCompareOption extends EnabledOnlyBooleanBuildOption<StartParameterInternal> {
+        public ProfileCompareOption() {
+            super(null, CommandLineOptionConfiguration.create("profile-compare", "Compares the performance of the build with earlier builds of the same tasks run by the Gradle Daemon, and reports regressions.").incubating());
+        }
+
+        @Override
+        public void applyTo(StartParameterInternal settings, Origin origin) {
+            settings.setProfileCompare(true);
+        }
+    }
+
     public static class ContinueOption extends EnabledOnlyBooleanBuildOption<StartParameterInternal> {
         public static final String LONG_OPTION = "continue";
 
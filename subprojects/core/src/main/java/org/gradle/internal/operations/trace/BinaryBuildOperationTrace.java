@@ -0,0 +1,313 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.gradle.StartParameter;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.Factory;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.BuildOperationListenerManager;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.operations.OperationStartEvent;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes a compact binary trace of the build operation stream for a build.
+ * Can be enabled for any build with `-Dorg.gradle.internal.operations.binarytrace=«path-base»`, which creates the file «path-base»-trace.bin.
+ *
+ * Unlike {@link BuildOperationTrace}, which renders every event as JSON, this trace is intended to have low enough overhead to be left enabled.
+ * The build threads only capture the identity, timing, thread, display name and details, result and failure types of each event into a lock-free
+ * ring buffer. A background thread encodes the events and streams them to the file, so a trace of a build that did not finish is still readable.
+ *
+ * Use {@link BinaryBuildOperationTraceConverter} to convert a trace to the Chrome trace event format.
+ *
+ * The «path-base» param is optional.
+ * If invoked as `-Dorg.gradle.internal.operations.binarytrace`, a base value of "operations" will be used.
+ */
+public class BinaryBuildOperationTrace implements Stoppable {
+
+    public static final String SYSPROP = "org.gradle.internal.operations.binarytrace";
+
+    static final int MAGIC = 0x47424f54;
+    static final int VERSION = 1;
+    static final byte END = 0;
+    static final byte START = 1;
+    static final byte PROGRESS = 2;
+    static final byte FINISH = 3;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BinaryBuildOperationTrace.class);
+    private static final int BUFFER_CAPACITY = 64 * 1024;
+    private static final int ENCODER_BUFFER_SIZE = 64 * 1024;
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final BuildOperationListenerManager buildOperationListenerManager;
+    private final BuildOperationListener listener = new RecordingListener();
+    private final ConcurrentRingBuffer<Event> buffer;
+    private final ManagedExecutor executor;
+    private volatile boolean stopped;
+
+    public BinaryBuildOperationTrace(StartParameter startParameter, BuildOperationListenerManager buildOperationListenerManager, ExecutorFactory executorFactory) {
+        this(traceFile(basePath(startParameter)), buildOperationListenerManager, executorFactory);
+    }
+
+    @VisibleForTesting
+    BinaryBuildOperationTrace(File traceFile, BuildOperationListenerManager buildOperationListenerManager, ExecutorFactory executorFactory) {
+        this(traceFile, traceFile == null ? null : new TraceFileOutput(traceFile), buildOperationListenerManager, executorFactory);
+    }
+
+    @VisibleForTesting
+    BinaryBuildOperationTrace(File traceFile, Factory<? extends OutputStream> output, BuildOperationListenerManager buildOperationListenerManager, ExecutorFactory executorFactory) {
+        this.buildOperationListenerManager = buildOperationListenerManager;
+        if (output == null) {
+            this.buffer = null;
+            this.executor = null;
+            return;
+        }
+
+        this.buffer = new ConcurrentRingBuffer<Event>(BUFFER_CAPACITY);
+        this.executor = executorFactory.create("Build operation trace writer");
+        executor.execute(new Writer(traceFile, output, System.currentTimeMillis()));
+        buildOperationListenerManager.addListener(listener);
+    }
+
+    @Override
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        buildOperationListenerManager.removeListener(listener);
+        stopped = true;
+        executor.stop();
+    }
+
+    private static String basePath(StartParameter startParameter) {
+        String basePath = startParameter.getSystemPropertiesArgs().get(SYSPROP);
+        if (basePath == null) {
+            basePath = System.getProperty(SYSPROP);
+        }
+        return basePath;
+    }
+
+    private static File traceFile(String basePath) {
+        if (basePath == null || basePath.equals(Boolean.FALSE.toString())) {
+            return null;
+        }
+        return new File((basePath.trim().isEmpty() ? "operations" : basePath) + "-trace.bin").getAbsoluteFile();
+    }
+
+    private static class TraceFileOutput implements Factory<OutputStream> {
+        private final File traceFile;
+
+        TraceFileOutput(File traceFile) {
+            this.traceFile = traceFile;
+        }
+
+        @Override
+        public OutputStream create() {
+            GFileUtils.mkdirs(traceFile.getParentFile());
+            try {
+                return new FileOutputStream(traceFile);
+            } catch (FileNotFoundException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private class RecordingListener implements BuildOperationListener {
+        @Override
+        public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+            OperationIdentifier parentId = buildOperation.getParentId();
+            Object details = buildOperation.getDetails();
+            buffer.put(new Event(START, buildOperation.getId().getId(), parentId == null ? -1 : parentId.getId(), startEvent.getStartTime(),
+                Thread.currentThread().getId(), buildOperation.getDisplayName(), details == null ? null : details.getClass(), null));
+        }
+
+        @Override
+        public void progress(OperationIdentifier operationIdentifier, OperationProgressEvent progressEvent) {
+            Object details = progressEvent.getDetails();
+            buffer.put(new Event(PROGRESS, operationIdentifier.getId(), -1, progressEvent.getTime(),
+                Thread.currentThread().getId(), null, details == null ? null : details.getClass(), null));
+        }
+
+        @Override
+        public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+            Object result = finishEvent.getResult();
+            buffer.put(new Event(FINISH, buildOperation.getId().getId(), -1, finishEvent.getEndTime(),
+                Thread.currentThread().getId(), null, result == null ? null : result.getClass(), finishEvent.getFailure()));
+        }
+    }
+
+    private static class Event {
+        final byte kind;
+        final long id;
+        final long parentId;
+        final long time;
+        final long threadId;
+        final String displayName;
+        final Class<?> type;
+        final Throwable failure;
+
+        Event(byte kind, long id, long parentId, long time, long threadId, String displayName, Class<?> type, Throwable failure) {
+            this.kind = kind;
+            this.id = id;
+            this.parentId = parentId;
+            this.time = time;
+            this.threadId = threadId;
+            this.displayName = displayName;
+            this.type = type;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * Drains the ring buffer into the trace file. Events are written as:
+     *
+     * - start: id, parent id + 1 (0 when none), time, thread id, display name, details type
+     * - progress: id, time, details type
+     * - finish: id, time, result type, failure
+     *
+     * Times are relative to the start time in the header. Types are written in full the first time they appear and by index afterwards.
+     *
+     * This is the only consumer of the ring buffer, so every failure to write the trace is reported and the writer keeps draining the buffer.
+     * Otherwise the build threads would block once the buffer is full.
+     */
+    private class Writer implements Runnable {
+        private final File traceFile;
+        private final Factory<? extends OutputStream> output;
+        private final long startTime;
+        private final Map<Class<?>, Integer> types = new HashMap<Class<?>, Integer>();
+        private KryoBackedEncoder encoder;
+
+        Writer(File traceFile, Factory<? extends OutputStream> output, long startTime) {
+            this.traceFile = traceFile;
+            this.output = output;
+            this.startTime = startTime;
+        }
+
+        @Override
+        public void run() {
+            try {
+                encoder = new KryoBackedEncoder(output.create(), ENCODER_BUFFER_SIZE);
+                encoder.writeInt(MAGIC);
+                encoder.writeSmallInt(VERSION);
+                encoder.writeLong(startTime);
+            } catch (Exception e) {
+                failed(e);
+            }
+
+            boolean unflushed = false;
+            while (true) {
+                Event event = buffer.poll();
+                if (event != null) {
+                    if (encoder != null) {
+                        try {
+                            write(event);
+                        } catch (Exception e) {
+                            failed(e);
+                        }
+                    }
+                    unflushed = true;
+                } else if (stopped && buffer.isEmpty()) {
+                    break;
+                } else {
+                    if (unflushed && encoder != null) {
+                        try {
+                            encoder.flush();
+                        } catch (Exception e) {
+                            failed(e);
+                        }
+                    }
+                    unflushed = false;
+                    LockSupport.parkNanos(IDLE_WAIT_NANOS);
+                }
+            }
+
+            if (encoder != null) {
+                try {
+                    encoder.writeByte(END);
+                    encoder.close();
+                } catch (Exception e) {
+                    failed(e);
+                }
+            }
+        }
+
+        private void write(Event event) {
+            encoder.writeByte(event.kind);
+            encoder.writeSmallLong(event.id);
+            if (event.kind == START) {
+                encoder.writeSmallLong(event.parentId + 1);
+            }
+            encoder.writeSmallLong(event.time - startTime);
+            if (event.kind == START) {
+                encoder.writeSmallLong(event.threadId);
+                encoder.writeString(event.displayName);
+            }
+            writeType(event.type);
+            if (event.kind == FINISH) {
+                encoder.writeNullableString(event.failure == null ? null : event.failure.toString());
+            }
+        }
+
+        private void writeType(Class<?> type) {
+            if (type == null) {
+                encoder.writeSmallInt(0);
+                return;
+            }
+            Integer index = types.get(type);
+            if (index != null) {
+                encoder.writeSmallInt(index);
+                return;
+            }
+            index = types.size() + 1;
+            types.put(type, index);
+            encoder.writeSmallInt(index);
+            encoder.writeString(type.getName());
+        }
+
+        private void failed(Exception e) {
+            LOGGER.warn("Could not write build operation trace to {}.", traceFile, e);
+            if (encoder != null) {
+                try {
+                    encoder.close();
+                } catch (Exception ignored) {
+                    // Already failed
+                }
+            }
+            encoder = null;
+        }
+    }
+}
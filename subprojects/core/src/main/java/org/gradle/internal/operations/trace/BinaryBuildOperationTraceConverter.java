@@ -0,0 +1,200 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import com.google.common.base.Charsets;
+import groovy.json.JsonOutput;
+import org.gradle.internal.UncheckedException;
+
+import javax.annotation.Nullable;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts a trace written by {@link BinaryBuildOperationTrace} to the Chrome trace event format, which can be loaded into chrome://tracing.
+ *
+ * Usage: {@code BinaryBuildOperationTraceConverter <path>-trace.bin [<output.json>]}
+ */
+public class BinaryBuildOperationTraceConverter {
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: BinaryBuildOperationTraceConverter <trace.bin> [<output.json>]");
+            System.exit(1);
+        }
+        File traceFile = new File(args[0]);
+        File outputFile = args.length == 2 ? new File(args[1]) : new File(traceFile.getPath().replaceFirst("\\.bin$", "") + ".json");
+        if (!convert(traceFile, outputFile)) {
+            System.err.println("The trace is incomplete, operations that had not finished are reported up to the last event.");
+        }
+        System.out.println("Wrote " + outputFile);
+    }
+
+    /**
+     * Converts the given trace.
+     *
+     * @return true if the trace is complete, false if it ends early.
+     */
+    public static boolean convert(File traceFile, File outputFile) {
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile), Charsets.UTF_8));
+            try {
+                ChromeTraceWriter chromeTraceWriter = new ChromeTraceWriter(writer);
+                boolean complete = BinaryBuildOperationTraceReader.read(traceFile, chromeTraceWriter);
+                chromeTraceWriter.finish();
+                return complete;
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    /**
+     * Writes each operation as a complete event on the thread that started it, and each progress notification as an instant event.
+     * Times are in microseconds since the first event.
+     */
+    private static class ChromeTraceWriter implements BinaryBuildOperationTraceReader.Visitor {
+        private final Writer writer;
+        private final Map<Long, Start> running = new HashMap<Long, Start>();
+        private long origin = -1;
+        private long lastTime;
+        private boolean first = true;
+
+        ChromeTraceWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write("{\"traceEvents\":[\n");
+        }
+
+        @Override
+        public void started(long id, @Nullable Long parentId, long time, long threadId, String displayName, @Nullable String detailsType) {
+            running.put(id, new Start(parentId, time, threadId, displayName, detailsType));
+            seen(time);
+        }
+
+        @Override
+        public void progress(long id, long time, @Nullable String detailsType) {
+            seen(time);
+            Start start = running.get(id);
+            if (start == null) {
+                return;
+            }
+            StringBuilder event = new StringBuilder();
+            event.append("{\"name\":").append(JsonOutput.toJson(detailsType == null ? "progress" : detailsType));
+            event.append(",\"ph\":\"i\",\"s\":\"t\",\"ts\":").append(micros(time));
+            event.append(",\"pid\":1,\"tid\":").append(start.threadId);
+            event.append(",\"args\":{\"id\":").append(id).append("}}");
+            write(event);
+        }
+
+        @Override
+        public void finished(long id, long time, @Nullable String resultType, @Nullable String failure) {
+            seen(time);
+            Start start = running.remove(id);
+            if (start != null) {
+                complete(id, start, time, resultType, failure, false);
+            }
+        }
+
+        void finish() throws IOException {
+            for (Map.Entry<Long, Start> entry : running.entrySet()) {
+                complete(entry.getKey(), entry.getValue(), lastTime, null, null, true);
+            }
+            running.clear();
+            writer.write("\n]}\n");
+        }
+
+        private void complete(long id, Start start, long endTime, @Nullable String resultType, @Nullable String failure, boolean unfinished) {
+            StringBuilder event = new StringBuilder();
+            event.append("{\"name\":").append(JsonOutput.toJson(start.displayName));
+            if (start.detailsType != null) {
+                event.append(",\"cat\":").append(JsonOutput.toJson(simpleName(start.detailsType)));
+            }
+            event.append(",\"ph\":\"X\",\"ts\":").append(micros(start.time));
+            event.append(",\"dur\":").append(Math.max(0, endTime - start.time) * 1000);
+            event.append(",\"pid\":1,\"tid\":").append(start.threadId);
+            event.append(",\"args\":{\"id\":").append(id);
+            if (start.parentId != null) {
+                event.append(",\"parentId\":").append(start.parentId);
+            }
+            if (start.detailsType != null) {
+                event.append(",\"details\":").append(JsonOutput.toJson(start.detailsType));
+            }
+            if (resultType != null) {
+                event.append(",\"result\":").append(JsonOutput.toJson(resultType));
+            }
+            if (failure != null) {
+                event.append(",\"failure\":").append(JsonOutput.toJson(failure));
+            }
+            if (unfinished) {
+                event.append(",\"unfinished\":true");
+            }
+            event.append("}}");
+            write(event);
+        }
+
+        private void write(CharSequence event) {
+            try {
+                if (!first) {
+                    writer.write(",\n");
+                }
+                first = false;
+                writer.append(event);
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        private void seen(long time) {
+            if (origin < 0) {
+                origin = time;
+            }
+            lastTime = Math.max(lastTime, time);
+        }
+
+        private long micros(long time) {
+            return Math.max(0, time - origin) * 1000;
+        }
+
+        private static String simpleName(String typeName) {
+            return typeName.substring(typeName.lastIndexOf('.') + 1);
+        }
+    }
+
+    private static class Start {
+        final Long parentId;
+        final long time;
+        final long threadId;
+        final String displayName;
+        final String detailsType;
+
+        Start(@Nullable Long parentId, long time, long threadId, String displayName, @Nullable String detailsType) {
+            this.parentId = parentId;
+            this.time = time;
+            this.threadId = threadId;
+            this.displayName = displayName;
+            this.detailsType = detailsType;
+        }
+    }
+}
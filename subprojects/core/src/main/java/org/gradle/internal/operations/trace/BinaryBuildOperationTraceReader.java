@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+
+import javax.annotation.Nullable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a trace written by {@link BinaryBuildOperationTrace}.
+ */
+public class BinaryBuildOperationTraceReader {
+
+    public interface Visitor {
+        void started(long id, @Nullable Long parentId, long time, long threadId, String displayName, @Nullable String detailsType);
+
+        void progress(long id, long time, @Nullable String detailsType);
+
+        void finished(long id, long time, @Nullable String resultType, @Nullable String failure);
+    }
+
+    /**
+     * Visits the events of the given trace, in the order they were written.
+     *
+     * @return true if the trace is complete, false if it ends early, for example because the build was killed.
+     */
+    public static boolean read(File traceFile, Visitor visitor) {
+        try {
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(traceFile));
+            try {
+                return read(decoder, visitor);
+            } finally {
+                decoder.close();
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static boolean read(KryoBackedDecoder decoder, Visitor visitor) throws IOException {
+        if (decoder.readInt() != BinaryBuildOperationTrace.MAGIC) {
+            throw new IOException("Not a build operation trace.");
+        }
+        int version = decoder.readSmallInt();
+        if (version != BinaryBuildOperationTrace.VERSION) {
+            throw new IOException("Unsupported build operation trace version " + version + ".");
+        }
+        long startTime = decoder.readLong();
+        List<String> types = new ArrayList<String>();
+        try {
+            while (true) {
+                byte kind = decoder.readByte();
+                if (kind == BinaryBuildOperationTrace.END) {
+                    return true;
+                }
+                long id = decoder.readSmallLong();
+                switch (kind) {
+                    case BinaryBuildOperationTrace.START:
+                        long parentId = decoder.readSmallLong() - 1;
+                        long startedAt = startTime + decoder.readSmallLong();
+                        long threadId = decoder.readSmallLong();
+                        String displayName = decoder.readString();
+                        visitor.started(id, parentId < 0 ? null : parentId, startedAt, threadId, displayName, readType(decoder, types));
+                        break;
+                    case BinaryBuildOperationTrace.PROGRESS:
+                        long time = startTime + decoder.readSmallLong();
+                        visitor.progress(id, time, readType(decoder, types));
+                        break;
+                    case BinaryBuildOperationTrace.FINISH:
+                        long finishedAt = startTime + decoder.readSmallLong();
+                        String resultType = readType(decoder, types);
+                        visitor.finished(id, finishedAt, resultType, decoder.readNullableString());
+                        break;
+                    default:
+                        throw new IOException("Unexpected build operation trace event " + kind + ".");
+                }
+            }
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    @Nullable
+    private static String readType(KryoBackedDecoder decoder, List<String> types) throws IOException {
+        int index = decoder.readSmallInt();
+        if (index == 0) {
+            return null;
+        }
+        if (index == types.size() + 1) {
+            types.add(decoder.readString());
+        }
+        return types.get(index - 1);
+    }
+}
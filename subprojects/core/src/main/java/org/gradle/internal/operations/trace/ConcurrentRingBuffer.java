@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free queue with any number of producers and a single consumer.
+ *
+ * <p>A producer claims a slot by incrementing the tail sequence and then publishes its element into the slot. When the buffer is full, producers
+ * wait for the consumer to free a slot rather than dropping elements.</p>
+ */
+class ConcurrentRingBuffer<T> {
+    private final AtomicReferenceArray<T> slots;
+    private final int capacity;
+    private final int mask;
+    // The next sequence to claim, written by the producers
+    private final AtomicLong tail = new AtomicLong();
+    // The next sequence to consume, only written by the consumer
+    private final AtomicLong head = new AtomicLong();
+
+    ConcurrentRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two.");
+        }
+        this.slots = new AtomicReferenceArray<T>(capacity);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds an element to the buffer, waiting for space to become available when the buffer is full. Can be called by any thread.
+     */
+    void put(T element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        long sequence = tail.getAndIncrement();
+        while (sequence - head.get() >= capacity) {
+            Thread.yield();
+        }
+        slots.lazySet((int) sequence & mask, element);
+    }
+
+    /**
+     * Removes the next element from the buffer, or returns null when the next element has not been published yet. Must only be called by the consumer.
+     */
+    T poll() {
+        long sequence = head.get();
+        int index = (int) sequence & mask;
+        T element = slots.get(index);
+        if (element == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        head.lazySet(sequence + 1);
+        return element;
+    }
+
+    /**
+     * Returns true when all elements claimed by producers have been consumed.
+     */
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+}
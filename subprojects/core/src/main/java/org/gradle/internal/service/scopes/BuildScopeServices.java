@@ -61,6 +61,7 @@ import org.gradle.api.internal.project.taskfactory.DefaultTaskClassInfoStore;
 import org.gradle.api.internal.project.taskfactory.ITaskFactory;
 import org.gradle.api.internal.project.taskfactory.TaskClassInfoStore;
 import org.gradle.api.internal.project.taskfactory.TaskFactory;
+import org.gradle.api.internal.tasks.TaskStatistics;
 import org.gradle.api.internal.tasks.execution.statistics.TaskExecutionStatisticsEventAdapter;
 import org.gradle.api.internal.tasks.execution.statistics.TaskExecutionStatisticsListener;
 import org.gradle.api.internal.tasks.properties.DefaultPropertyMetadataStore;
@@ -249,6 +250,10 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         return new DefaultTaskClassInfoStore();
     }
 
+    protected TaskStatistics createTaskStatistics() {
+        return new TaskStatistics();
+    }
+
     protected ITaskFactory createITaskFactory(TaskClassInfoStore taskClassInfoStore) {
         return new AnnotationProcessingTaskFactory(
             taskClassInfoStore,
@@ -22,6 +22,7 @@ import org.gradle.api.execution.internal.TaskInputsListener;
 import org.gradle.api.internal.AsmBackedClassGenerator;
 import org.gradle.api.internal.ClassGenerator;
 import org.gradle.api.internal.ClassPathRegistry;
+import org.gradle.api.internal.CrossBuildGeneratedClassStore;
 import org.gradle.api.internal.DefaultClassPathProvider;
 import org.gradle.api.internal.DefaultClassPathRegistry;
 import org.gradle.api.internal.DefaultInstantiatorFactory;
@@ -52,6 +53,7 @@ import org.gradle.cache.FileLockManager;
 import org.gradle.cache.internal.CacheFactory;
 import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
 import org.gradle.cache.internal.DefaultCacheFactory;
+import org.gradle.cache.internal.InMemoryCacheShrinker;
 import org.gradle.cli.CommandLineConverter;
 import org.gradle.configuration.DefaultImportsReader;
 import org.gradle.configuration.ImportsReader;
@@ -235,20 +237,28 @@ public class GlobalScopeServices extends BasicGlobalScopeServices {
         return messagingServices.get(MessagingServer.class);
     }
 
-    ClassGenerator createClassGenerator() {
-        return new AsmBackedClassGenerator();
+    CrossBuildGeneratedClassStore createCrossBuildGeneratedClassStore() {
+        return new CrossBuildGeneratedClassStore();
+    }
+
+    ClassGenerator createClassGenerator(CrossBuildGeneratedClassStore generatedClassStore) {
+        return new AsmBackedClassGenerator(generatedClassStore);
     }
 
     Instantiator createInstantiator(InstantiatorFactory instantiatorFactory) {
         return instantiatorFactory.decorate();
     }
 
-    CrossBuildInMemoryCacheFactory createCrossBuildInMemoryCacheFactory(ListenerManager listenerManager) {
-        return new CrossBuildInMemoryCacheFactory(listenerManager);
+    InMemoryCacheShrinker createInMemoryCacheShrinker() {
+        return new InMemoryCacheShrinker();
+    }
+
+    CrossBuildInMemoryCacheFactory createCrossBuildInMemoryCacheFactory(ListenerManager listenerManager, InMemoryCacheShrinker cacheShrinker) {
+        return new CrossBuildInMemoryCacheFactory(listenerManager, cacheShrinker);
     }
 
-    InMemoryCacheDecoratorFactory createInMemoryTaskArtifactCache(CrossBuildInMemoryCacheFactory cacheFactory) {
-        return new InMemoryCacheDecoratorFactory(environment.isLongLivingProcess(), cacheFactory);
+    InMemoryCacheDecoratorFactory createInMemoryTaskArtifactCache(CrossBuildInMemoryCacheFactory cacheFactory, InMemoryCacheShrinker cacheShrinker) {
+        return new InMemoryCacheDecoratorFactory(environment.isLongLivingProcess(), cacheFactory, cacheShrinker);
     }
 
     DirectoryFileTreeFactory createDirectoryFileTreeFactory(Factory<PatternSet> patternSetFactory, FileSystem fileSystem) {
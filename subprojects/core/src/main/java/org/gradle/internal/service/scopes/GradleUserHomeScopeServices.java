@@ -19,6 +19,7 @@ package org.gradle.internal.service.scopes;
 import org.gradle.api.internal.ClassPathRegistry;
 import org.gradle.api.internal.DefaultClassPathProvider;
 import org.gradle.api.internal.DefaultClassPathRegistry;
+import org.gradle.api.internal.PersistentGeneratedClassStore;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.CachingFileHasher;
 import org.gradle.api.internal.changedetection.state.ClasspathSnapshotter;
@@ -122,6 +123,10 @@ public class GradleUserHomeScopeServices {
         return fileHasher;
     }
 
+    PersistentGeneratedClassStore createPersistentGeneratedClassStore(CacheRepository cacheRepository) {
+        return new PersistentGeneratedClassStore(cacheRepository);
+    }
+
     ScriptSourceHasher createScriptSourceHasher(FileHasher fileHasher, ContentHasherFactory contentHasherFactory) {
         return new DefaultScriptSourceHasher(fileHasher, contentHasherFactory);
     }
@@ -17,12 +17,16 @@
 package org.gradle.process.internal.worker;
 
 import org.gradle.api.logging.LogLevel;
+import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.classloader.ClasspathUtil;
 import org.gradle.internal.operations.CurrentBuildOperationRef;
+import org.gradle.internal.serialize.SerializerRegistry;
 import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.worker.request.Receiver;
+import org.gradle.process.internal.worker.request.Request;
 import org.gradle.process.internal.worker.request.RequestProtocol;
+import org.gradle.process.internal.worker.request.RequestSerializers;
 import org.gradle.process.internal.worker.request.ResponseProtocol;
 import org.gradle.process.internal.worker.request.WorkerAction;
 
@@ -38,6 +42,8 @@ class DefaultMultiRequestWorkerProcessBuilder<WORKER> implements MultiRequestWor
     private final Class<WORKER> workerType;
     private final Class<?> workerImplementation;
     private final DefaultWorkerProcessBuilder workerProcessBuilder;
+    private final WorkerAction workerAction;
+    private Class<? extends Factory<SerializerRegistry>> argumentSerializers;
 
     static {
         try {
@@ -52,7 +58,8 @@ class DefaultMultiRequestWorkerProcessBuilder<WORKER> implements MultiRequestWor
         this.workerType = workerType;
         this.workerImplementation = workerImplementation;
         this.workerProcessBuilder = workerProcessBuilder;
-        workerProcessBuilder.worker(new WorkerAction(workerImplementation));
+        this.workerAction = new WorkerAction(workerImplementation);
+        workerProcessBuilder.worker(workerAction);
         workerProcessBuilder.setImplementationClasspath(ClasspathUtil.getClasspath(workerImplementation.getClassLoader()).getAsURLs());
     }
 
@@ -111,11 +118,18 @@ class DefaultMultiRequestWorkerProcessBuilder<WORKER> implements MultiRequestWor
         return this;
     }
 
+    @Override
+    public void useArgumentSerializers(Class<? extends Factory<SerializerRegistry>> argumentSerializers) {
+        this.argumentSerializers = argumentSerializers;
+        workerAction.setArgumentSerializers(argumentSerializers);
+    }
+
     @Override
     public WORKER build() {
         // Always publish process info for multi-request workers
         workerProcessBuilder.enableJvmMemoryInfoPublishing(true);
         final WorkerProcess workerProcess = workerProcessBuilder.build();
+        final SerializerRegistry argumentSerializers = RequestSerializers.createArgumentSerializers(this.argumentSerializers);
 
         return workerType.cast(Proxy.newProxyInstance(workerType.getClassLoader(), new Class[]{workerType}, new InvocationHandler() {
             private Receiver receiver = new Receiver(getBaseName());
@@ -132,6 +146,7 @@ class DefaultMultiRequestWorkerProcessBuilder<WORKER> implements MultiRequestWor
                     }
                     workerProcess.getConnection().addIncoming(ResponseProtocol.class, receiver);
                     workerProcess.getConnection().useJavaSerializationForParameters(workerImplementation.getClassLoader());
+                    RequestSerializers.useFor(workerProcess.getConnection(), argumentSerializers, workerImplementation.getClassLoader());
                     requestProtocol = workerProcess.getConnection().addOutgoing(RequestProtocol.class);
                     workerProcess.getConnection().connect();
                     return workerProcess;
@@ -146,7 +161,7 @@ class DefaultMultiRequestWorkerProcessBuilder<WORKER> implements MultiRequestWor
                         requestProtocol = null;
                     }
                 }
-                requestProtocol.run(method.getName(), method.getParameterTypes(), args, CurrentBuildOperationRef.instance().get());
+                requestProtocol.run(new Request(method.getName(), method.getParameterTypes(), args, CurrentBuildOperationRef.instance().get()));
                 boolean hasResult = receiver.awaitNextResult();
                 if (!hasResult) {
                     try {
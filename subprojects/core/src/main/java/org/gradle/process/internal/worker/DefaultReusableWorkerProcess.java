@@ -0,0 +1,437 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker;
+
+import org.gradle.api.Action;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.dispatch.StreamCompletion;
+import org.gradle.internal.id.IdGenerator;
+import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.internal.remote.ConnectionAcceptor;
+import org.gradle.internal.remote.MessagingServer;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.internal.serialize.OutputStreamBackedEncoder;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.ExecException;
+import org.gradle.process.internal.health.memory.JvmMemoryStatus;
+import org.gradle.process.internal.worker.child.ApplicationClassesInSystemClassLoaderWorkerImplementationFactory;
+import org.gradle.process.internal.worker.child.WorkerLoggingProtocol;
+import org.gradle.process.internal.worker.child.WorkerSessionHost;
+import org.gradle.process.internal.worker.child.WorkerSessionHostProtocol;
+import org.gradle.process.internal.worker.child.WorkerSessionListener;
+import org.gradle.process.internal.worker.child.WorkerSessionSpec;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.String.format;
+
+/**
+ * A worker process running a {@link WorkerSessionHost}. Each worker created by this process connects back to this process on its own connection,
+ * as it would when running in a process of its own.
+ */
+public class DefaultReusableWorkerProcess implements ReusableWorkerProcess {
+    private static final Logger LOGGER = Logging.getLogger(DefaultReusableWorkerProcess.class);
+    private final Lock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private final WorkerProcess hostProcess;
+    private final MessagingServer server;
+    private final IdGenerator<?> idGenerator;
+    private final ApplicationClassesInSystemClassLoaderWorkerImplementationFactory workerImplementationFactory;
+    private final OutputEventListener outputEventListener;
+    private final long connectTimeout;
+    private WorkerSessionHostProtocol host;
+    private boolean running;
+    private boolean failed;
+    private Session currentSession;
+    private long nextSessionId;
+    private int uses;
+    private long retainedMemory;
+    private long maxMemory;
+
+    public DefaultReusableWorkerProcess(WorkerProcess hostProcess, MessagingServer server, IdGenerator<?> idGenerator, ApplicationClassesInSystemClassLoaderWorkerImplementationFactory workerImplementationFactory,
+                                        OutputEventListener outputEventListener, int connectTimeoutValue, TimeUnit connectTimeoutUnits) {
+        this.hostProcess = hostProcess;
+        this.server = server;
+        this.idGenerator = idGenerator;
+        this.workerImplementationFactory = workerImplementationFactory;
+        this.outputEventListener = outputEventListener;
+        this.connectTimeout = connectTimeoutUnits.toMillis(connectTimeoutValue);
+    }
+
+    public void start() {
+        hostProcess.start();
+        ObjectConnection connection = hostProcess.getConnection();
+        connection.addIncoming(WorkerSessionListener.class, new HostListener());
+        host = connection.addOutgoing(WorkerSessionHostProtocol.class);
+        connection.connect();
+        lock.lock();
+        try {
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public WorkerProcess createWorker(WorkerProcessBuilder builder) {
+        return new Session((DefaultWorkerProcessBuilder) builder);
+    }
+
+    @Override
+    public boolean isHealthy() {
+        lock.lock();
+        try {
+            return running && !failed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getUses() {
+        lock.lock();
+        try {
+            return uses;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getRetainedMemory() {
+        lock.lock();
+        try {
+            return retainedMemory;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getMaxMemory() {
+        lock.lock();
+        try {
+            return maxMemory;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void stop() {
+        boolean stopHost;
+        lock.lock();
+        try {
+            stopHost = running;
+        } finally {
+            lock.unlock();
+        }
+        if (stopHost) {
+            host.stop();
+        }
+        try {
+            hostProcess.waitForStop();
+        } catch (ExecException e) {
+            LOGGER.debug("{} did not stop cleanly.", hostProcess, e);
+        }
+    }
+
+    private void abort() {
+        lock.lock();
+        try {
+            failed = true;
+        } finally {
+            lock.unlock();
+        }
+        hostProcess.stopNow();
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultReusableWorkerProcess{"
+            + "hostProcess=" + hostProcess
+            + ", uses=" + uses
+            + '}';
+    }
+
+    private class HostListener implements WorkerSessionListener, StreamCompletion {
+        @Override
+        public void sessionCompleted(long sessionId, @Nullable String failure, long usedMemory, long maxMemory) {
+            lock.lock();
+            try {
+                DefaultReusableWorkerProcess.this.retainedMemory = usedMemory;
+                DefaultReusableWorkerProcess.this.maxMemory = maxMemory;
+                if (failure != null) {
+                    failed = true;
+                }
+                if (currentSession != null && currentSession.sessionId == sessionId) {
+                    currentSession.completed(failure);
+                    currentSession = null;
+                }
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void endStream() {
+            lock.lock();
+            try {
+                running = false;
+                if (currentSession != null) {
+                    currentSession.completed(format("Process '%s' stopped unexpectedly.", hostProcess));
+                    currentSession = null;
+                }
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private class Session implements WorkerProcess {
+        private final DefaultWorkerProcessBuilder builder;
+        private long sessionId;
+        private String displayName;
+        private ConnectionAcceptor acceptor;
+        private ObjectConnection connection;
+        private boolean aborted;
+        private boolean completed;
+        private String failure;
+
+        Session(DefaultWorkerProcessBuilder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public WorkerProcess start() {
+            lock.lock();
+            try {
+                if (!running) {
+                    throw new IllegalStateException(format("Cannot start a worker, as %s is not running.", hostProcess));
+                }
+                if (currentSession != null) {
+                    throw new IllegalStateException(format("Cannot start a worker, as %s is already running a worker.", hostProcess));
+                }
+                sessionId = nextSessionId++;
+                uses++;
+                currentSession = this;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                doStart();
+            } catch (Throwable t) {
+                if (!isCompleted()) {
+                    abort();
+                }
+                cleanup();
+                throw UncheckedException.throwAsUncheckedException(t);
+            }
+            return this;
+        }
+
+        private void doStart() {
+            acceptor = server.accept(new Action<ObjectConnection>() {
+                @Override
+                public void execute(ObjectConnection connection) {
+                    onConnect(connection);
+                }
+            });
+
+            Object id = idGenerator.generateId();
+            displayName = builder.getBaseName() + " " + id;
+            LOGGER.debug("Starting {} in {}", displayName, hostProcess);
+
+            ByteArrayOutputStream workerConfig = new ByteArrayOutputStream();
+            try {
+                OutputStreamBackedEncoder encoder = new OutputStreamBackedEncoder(workerConfig);
+                workerImplementationFactory.writeWorkerConfig(id, displayName, builder, acceptor.getAddress(), false, encoder);
+                encoder.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            host.startSession(new WorkerSessionSpec(sessionId, new ArrayList<File>(builder.getApplicationClasspath()), new ArrayList<String>(builder.getSharedPackages()),
+                new ArrayList<URL>(builder.getImplementationClassPath()), workerConfig.toByteArray()));
+
+            Date connectExpiry = new Date(System.currentTimeMillis() + connectTimeout);
+            lock.lock();
+            try {
+                while (connection == null && !completed) {
+                    try {
+                        if (!condition.awaitUntil(connectExpiry)) {
+                            throw new ExecException(format("Unable to connect to '%s' running in %s. The connection attempt hit a timeout after %.1f seconds.", displayName, hostProcess, ((double) connectTimeout) / 1000));
+                        }
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
+                if (connection == null) {
+                    throw new ExecException(format("Never received a connection from '%s'.%n%s", displayName, failure));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void onConnect(ObjectConnection connection) {
+            connection.useParameterSerializers(WorkerLoggingSerializer.create());
+            connection.addIncoming(WorkerLoggingProtocol.class, new DefaultWorkerLoggingProtocol(outputEventListener));
+            ConnectionAcceptor acceptor;
+            lock.lock();
+            try {
+                this.connection = connection;
+                if (aborted) {
+                    connection.abort();
+                }
+                condition.signalAll();
+                acceptor = this.acceptor;
+            } finally {
+                lock.unlock();
+            }
+            if (acceptor != null) {
+                acceptor.requestStop();
+            }
+        }
+
+        // Called while holding the lock
+        private void completed(@Nullable String failure) {
+            this.completed = true;
+            this.failure = failure;
+        }
+
+        private boolean isCompleted() {
+            lock.lock();
+            try {
+                return completed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public ObjectConnection getConnection() {
+            return connection;
+        }
+
+        @Override
+        public ExecResult waitForStop() {
+            String failure;
+            lock.lock();
+            try {
+                while (!completed) {
+                    try {
+                        condition.await();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
+                failure = this.failure;
+            } finally {
+                lock.unlock();
+                cleanup();
+            }
+            if (failure != null) {
+                throw new ExecException(format("'%s' running in %s failed.%n%s", displayName, hostProcess, failure));
+            }
+            return new SessionResult(displayName);
+        }
+
+        @Override
+        public JvmMemoryStatus getJvmMemoryStatus() {
+            return hostProcess.getJvmMemoryStatus();
+        }
+
+        @Override
+        public void stopNow() {
+            lock.lock();
+            try {
+                aborted = true;
+                if (connection != null) {
+                    connection.abort();
+                }
+            } finally {
+                lock.unlock();
+            }
+            // The worker cannot be stopped without stopping the process that runs it
+            abort();
+            cleanup();
+        }
+
+        private void cleanup() {
+            CompositeStoppable stoppable;
+            lock.lock();
+            try {
+                stoppable = CompositeStoppable.stoppable(acceptor, connection);
+            } finally {
+                this.connection = null;
+                this.acceptor = null;
+                lock.unlock();
+            }
+            stoppable.stop();
+        }
+
+        @Override
+        public String toString() {
+            return displayName + " in " + hostProcess;
+        }
+    }
+
+    private static class SessionResult implements ExecResult {
+        private final String displayName;
+
+        SessionResult(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public int getExitValue() {
+            return 0;
+        }
+
+        @Override
+        public ExecResult assertNormalExitValue() throws ExecException {
+            return this;
+        }
+
+        @Override
+        public ExecResult rethrowFailure() throws ExecException {
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "{exitValue=0, failure=null, displayName=" + displayName + "}";
+        }
+    }
+}
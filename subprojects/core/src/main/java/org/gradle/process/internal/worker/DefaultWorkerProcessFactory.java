@@ -25,11 +25,14 @@ import org.gradle.internal.id.IdGenerator;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.logging.events.OutputEventListener;
 import org.gradle.internal.remote.MessagingServer;
+import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.JavaExecHandleFactory;
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.worker.child.ApplicationClassesInSystemClassLoaderWorkerImplementationFactory;
+import org.gradle.process.internal.worker.child.WorkerSessionHost;
 
 import java.io.File;
+import java.util.concurrent.TimeUnit;
 
 public class DefaultWorkerProcessFactory implements WorkerProcessFactory {
 
@@ -78,6 +81,24 @@ public class DefaultWorkerProcessFactory implements WorkerProcessFactory {
         return new DefaultMultiRequestWorkerProcessBuilder<W>(workerType, workerImplementation, newWorkerProcessBuilder());
     }
 
+    @Override
+    public ReusableWorkerProcess startReusable(WorkerProcessSettings settings) {
+        DefaultWorkerProcessBuilder builder = newWorkerProcessBuilder();
+        builder.worker(new WorkerSessionHost());
+        builder.setImplementationClasspath(ClasspathUtil.getClasspath(WorkerSessionHost.class.getClassLoader()).getAsURLs());
+        builder.setBaseName(settings.getBaseName() + " Host");
+        JavaExecHandleBuilder sourceCommand = settings.getJavaCommand();
+        JavaExecHandleBuilder javaCommand = builder.getJavaCommand();
+        javaCommand.setExecutable(sourceCommand.getExecutable());
+        javaCommand.setWorkingDir(sourceCommand.getWorkingDir());
+        javaCommand.setEnvironment(sourceCommand.getEnvironment());
+        javaCommand.jvmArgs(sourceCommand.getAllJvmArgs());
+
+        DefaultReusableWorkerProcess workerProcess = new DefaultReusableWorkerProcess(builder.build(), server, idGenerator, workerImplementationFactory, outputEventListener, connectTimeoutSeconds, TimeUnit.SECONDS);
+        workerProcess.start();
+        return workerProcess;
+    }
+
     private DefaultWorkerProcessBuilder newWorkerProcessBuilder() {
         DefaultWorkerProcessBuilder builder = new DefaultWorkerProcessBuilder(execHandleFactory, server, idGenerator, workerImplementationFactory, outputEventListener, memoryManager);
         builder.setLogLevel(loggingManager.getLevel());
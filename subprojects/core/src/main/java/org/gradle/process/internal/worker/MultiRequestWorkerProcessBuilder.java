@@ -16,6 +16,9 @@
 
 package org.gradle.process.internal.worker;
 
+import org.gradle.internal.Factory;
+import org.gradle.internal.serialize.SerializerRegistry;
+
 /**
  * Configures and builds multi-request workers. A multi-request worker runs zero or more requests in a forked worker process.
  *
@@ -26,6 +29,11 @@ package org.gradle.process.internal.worker;
  * <p>The worker process must be explicitly started and stopped using the methods on {@link WorkerControl}.</p>
  */
 public interface MultiRequestWorkerProcessBuilder<T> extends WorkerProcessSettings {
+    /**
+     * Uses the serializers created by the given factory for the arguments and return values of the worker methods, in place of Java serialization. The factory is instantiated in both this process and the worker process, so it must have a public no-args constructor.
+     */
+    void useArgumentSerializers(Class<? extends Factory<SerializerRegistry>> argumentSerializers);
+
     /**
      * Creates a worker.
      *
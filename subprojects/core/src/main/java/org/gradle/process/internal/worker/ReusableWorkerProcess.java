@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker;
+
+/**
+ * A worker process that runs several workers, one at a time, so that the cost of starting and warming up a JVM is paid only once.
+ * Created using {@link WorkerProcessFactory#startReusable(WorkerProcessSettings)}.
+ */
+public interface ReusableWorkerProcess {
+    /**
+     * Creates a worker that runs in this process. The Java command of the given builder is ignored. The worker is not started until
+     * {@link WorkerProcess#start()} is called. This process can run a single worker at a time.
+     */
+    WorkerProcess createWorker(WorkerProcessBuilder builder);
+
+    /**
+     * Returns true when this process is running and every worker it has run completed successfully.
+     */
+    boolean isHealthy();
+
+    /**
+     * Returns the number of workers this process has started.
+     */
+    int getUses();
+
+    /**
+     * Returns the heap used by this process after the last worker finished, or 0 when no worker has finished yet.
+     */
+    long getRetainedMemory();
+
+    /**
+     * Returns the maximum heap of this process, or 0 when no worker has finished yet.
+     */
+    long getMaxMemory();
+
+    /**
+     * Stops this process, once the current worker has finished.
+     */
+    void stop();
+}
@@ -51,4 +51,11 @@ public interface WorkerProcessFactory {
     <P, W extends P> MultiRequestWorkerProcessBuilder<W> multiRequestWorker(Class<W> workerType,
                                                                             Class<P> protocolType,
                                                                             Class<? extends P> workerImplementation);
+
+    /**
+     * Starts a worker process that can run several workers, one at a time. The process is started using the base name and Java command of the given settings.
+     *
+     * @param settings The settings to start the process with. Workers to run in the process should use the same Java command.
+     */
+    ReusableWorkerProcess startReusable(WorkerProcessSettings settings);
 }
@@ -21,7 +21,6 @@ import org.gradle.api.JavaVersion;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.ClassPathRegistry;
 import org.gradle.api.internal.file.TemporaryFileProvider;
-import org.gradle.api.logging.LogLevel;
 import org.gradle.internal.classpath.ClassPath;
 import org.gradle.internal.io.StreamByteBuffer;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
@@ -29,6 +28,7 @@ import org.gradle.internal.process.ArgWriter;
 import org.gradle.internal.remote.Address;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddressSerializer;
+import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.OutputStreamBackedEncoder;
 import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.streams.EncodedStream;
@@ -83,7 +83,6 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
     @Override
     public void prepareJavaCommand(Object workerId, String displayName, DefaultWorkerProcessBuilder processBuilder, List<URL> implementationClassPath, Address serverAddress, JavaExecHandleBuilder execSpec, boolean publishProcessInfo) {
         Collection<File> applicationClasspath = processBuilder.getApplicationClasspath();
-        LogLevel logLevel = processBuilder.getLogLevel();
         Set<String> sharedPackages = processBuilder.getSharedPackages();
         Object requestedSecurityManager = execSpec.getSystemProperties().get("java.security.manager");
         ClassPath workerMainClassPath = classPathRegistry.getClassPath("WORKER_MAIN");
@@ -131,16 +130,7 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
 
             // Serialize the worker config, this is consumed by SystemApplicationClassLoaderWorker
             OutputStreamBackedEncoder encoder = new OutputStreamBackedEncoder(outstr);
-            encoder.writeSmallInt(logLevel.ordinal());
-            encoder.writeBoolean(publishProcessInfo);
-            encoder.writeString(gradleUserHomeDir.getAbsolutePath());
-            new MultiChoiceAddressSerializer().write(encoder, (MultiChoiceAddress) serverAddress);
-
-            // Serialize the worker, this is consumed by SystemApplicationClassLoaderWorker
-            ActionExecutionWorker worker = new ActionExecutionWorker(processBuilder.getWorker(), workerId, displayName, gradleUserHomeDir);
-            byte[] serializedWorker = GUtil.serialize(worker);
-            encoder.writeBinary(serializedWorker);
-
+            writeWorkerConfig(workerId, displayName, processBuilder, serverAddress, publishProcessInfo, encoder);
             encoder.flush();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -148,6 +138,21 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
         execSpec.setStandardInput(buffer.getInputStream());
     }
 
+    /**
+     * Serializes the worker configuration and the worker action, which are consumed by {@link SystemApplicationClassLoaderWorker}.
+     */
+    public void writeWorkerConfig(Object workerId, String displayName, DefaultWorkerProcessBuilder processBuilder, Address serverAddress, boolean publishProcessInfo, Encoder encoder) throws IOException {
+        encoder.writeSmallInt(processBuilder.getLogLevel().ordinal());
+        encoder.writeBoolean(publishProcessInfo);
+        encoder.writeString(gradleUserHomeDir.getAbsolutePath());
+        new MultiChoiceAddressSerializer().write(encoder, (MultiChoiceAddress) serverAddress);
+
+        // Serialize the worker, this is consumed by SystemApplicationClassLoaderWorker
+        ActionExecutionWorker worker = new ActionExecutionWorker(processBuilder.getWorker(), workerId, displayName, gradleUserHomeDir);
+        byte[] serializedWorker = GUtil.serialize(worker);
+        encoder.writeBinary(serializedWorker);
+    }
+
     private boolean shouldUseOptionsFile(JavaExecHandleBuilder execSpec) {
         JavaVersion executableVersion = jvmVersionDetector.getJavaVersion(execSpec.getExecutable());
         return executableVersion != null && executableVersion.isJava9Compatible();
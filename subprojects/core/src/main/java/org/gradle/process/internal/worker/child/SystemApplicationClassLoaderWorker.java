@@ -63,9 +63,19 @@ import java.util.concurrent.Callable;
  */
 public class SystemApplicationClassLoaderWorker implements Callable<Void> {
     private final DataInputStream configInputStream;
+    private final ClassLoader applicationClassLoader;
 
     public SystemApplicationClassLoaderWorker(DataInputStream configInputStream) {
+        this(configInputStream, ClassLoader.getSystemClassLoader());
+    }
+
+    /**
+     * Creates a worker whose application classes are loaded by the given ClassLoader, rather than the system ClassLoader. Used by
+     * {@link WorkerSessionHost} to run several workers in the same process.
+     */
+    public SystemApplicationClassLoaderWorker(DataInputStream configInputStream, ClassLoader applicationClassLoader) {
         this.configInputStream = configInputStream;
+        this.applicationClassLoader = applicationClassLoader;
     }
 
     public Void call() throws Exception {
@@ -118,7 +128,7 @@ public class SystemApplicationClassLoaderWorker implements Callable<Void> {
             final ObjectConnection serverConnection = connection;
             action.execute(new WorkerContext() {
                 public ClassLoader getApplicationClassLoader() {
-                    return ClassLoader.getSystemClassLoader();
+                    return applicationClassLoader;
                 }
 
                 @Override
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker.child;
+
+import org.gradle.api.Action;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.gradle.internal.classloader.FilteringClassLoader;
+import org.gradle.internal.dispatch.StreamCompletion;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.process.internal.worker.WorkerProcessContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.Serializable;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A worker action that runs other workers in its process, one after the other, so that the cost of starting a JVM and warming it up is paid only once.
+ *
+ * <p>Each worker is set up the same way as {@link org.gradle.process.internal.worker.GradleWorkerMain} would set it up in a fresh process, except
+ * that its application classes are loaded by an isolated ClassLoader rather than the system ClassLoader. The ClassLoaders and system properties
+ * of a worker are discarded once it has finished.</p>
+ */
+public class WorkerSessionHost implements Action<WorkerProcessContext>, Serializable {
+    private static final Logger LOGGER = Logging.getLogger(WorkerSessionHost.class);
+    private static final WorkerSessionSpec STOP = new WorkerSessionSpec(-1, null, null, null, null);
+
+    @Override
+    public void execute(WorkerProcessContext workerProcessContext) {
+        ClassLoaderUtils.disableUrlConnectionCaching();
+
+        BlockingQueue<WorkerSessionSpec> sessions = new LinkedBlockingQueue<WorkerSessionSpec>();
+        ObjectConnection connection = workerProcessContext.getServerConnection();
+        connection.addIncoming(WorkerSessionHostProtocol.class, new SessionReceiver(sessions));
+        WorkerSessionListener listener = connection.addOutgoing(WorkerSessionListener.class);
+        connection.connect();
+
+        while (true) {
+            WorkerSessionSpec spec;
+            try {
+                spec = sessions.take();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            if (spec == STOP) {
+                break;
+            }
+
+            String failure = null;
+            try {
+                runSession(spec);
+            } catch (Throwable t) {
+                LOGGER.debug("Worker session {} failed.", spec.getSessionId(), t);
+                failure = describe(t);
+            }
+
+            System.gc();
+            Runtime runtime = Runtime.getRuntime();
+            listener.sessionCompleted(spec.getSessionId(), failure, runtime.totalMemory() - runtime.freeMemory(), runtime.maxMemory());
+        }
+    }
+
+    private void runSession(WorkerSessionSpec spec) throws Exception {
+        URLClassLoader applicationClassLoader = new URLClassLoader(toUrls(spec.getApplicationClasspath()), ClassLoader.getSystemClassLoader());
+        FilteringClassLoader.Spec filteringClassLoaderSpec = new FilteringClassLoader.Spec();
+        for (String sharedPackage : spec.getSharedPackages()) {
+            filteringClassLoaderSpec.allowPackage(sharedPackage);
+        }
+        List<URL> implementationClasspath = spec.getImplementationClasspath();
+        URLClassLoader implementationClassLoader = new URLClassLoader(implementationClasspath.toArray(new URL[0]), new FilteringClassLoader(applicationClassLoader, filteringClassLoaderSpec));
+
+        Properties hostSystemProperties = System.getProperties();
+        Properties sessionSystemProperties = new Properties();
+        sessionSystemProperties.putAll(hostSystemProperties);
+        sessionSystemProperties.setProperty("java.class.path", toPath(spec.getApplicationClasspath()));
+        System.setProperties(sessionSystemProperties);
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            Class<? extends Callable> workerClass = implementationClassLoader.loadClass(SystemApplicationClassLoaderWorker.class.getName()).asSubclass(Callable.class);
+            DataInputStream configInputStream = new DataInputStream(new ByteArrayInputStream(spec.getWorkerConfig()));
+            Callable<?> worker = workerClass.getConstructor(DataInputStream.class, ClassLoader.class).newInstance(configInputStream, applicationClassLoader);
+            worker.call();
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+            System.setProperties(hostSystemProperties);
+            ClassLoaderUtils.tryClose(implementationClassLoader);
+            ClassLoaderUtils.tryClose(applicationClassLoader);
+        }
+    }
+
+    private static URL[] toUrls(List<File> files) throws Exception {
+        URL[] urls = new URL[files.size()];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = files.get(i).toURI().toURL();
+        }
+        return urls;
+    }
+
+    private static String toPath(List<File> files) {
+        StringBuilder path = new StringBuilder();
+        for (File file : files) {
+            if (path.length() > 0) {
+                path.append(File.pathSeparatorChar);
+            }
+            path.append(file.getAbsolutePath());
+        }
+        return path.toString();
+    }
+
+    private static String describe(Throwable failure) {
+        StringWriter writer = new StringWriter();
+        failure.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
+    }
+
+    private static class SessionReceiver implements WorkerSessionHostProtocol, StreamCompletion {
+        private final BlockingQueue<WorkerSessionSpec> sessions;
+
+        SessionReceiver(BlockingQueue<WorkerSessionSpec> sessions) {
+            this.sessions = sessions;
+        }
+
+        @Override
+        public void startSession(WorkerSessionSpec spec) {
+            sessions.add(spec);
+        }
+
+        @Override
+        public void stop() {
+            sessions.add(STOP);
+        }
+
+        @Override
+        public void endStream() {
+            sessions.add(STOP);
+        }
+    }
+}
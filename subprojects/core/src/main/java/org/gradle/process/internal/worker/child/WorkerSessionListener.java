@@ -0,0 +1,33 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker.child;
+
+import javax.annotation.Nullable;
+
+/**
+ * Notifications sent by a {@link WorkerSessionHost}.
+ */
+public interface WorkerSessionListener {
+    /**
+     * Called when a worker has finished.
+     *
+     * @param failure A description of the failure of the worker, or null when it completed successfully.
+     * @param usedMemory The heap used by the host after the worker has finished and a garbage collection has run.
+     * @param maxMemory The maximum heap of the host.
+     */
+    void sessionCompleted(long sessionId, @Nullable String failure, long usedMemory, long maxMemory);
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker.child;
+
+import java.io.File;
+import java.io.Serializable;
+import java.net.URL;
+import java.util.List;
+
+/**
+ * Describes a worker to run in a {@link WorkerSessionHost}.
+ */
+public class WorkerSessionSpec implements Serializable {
+    private final long sessionId;
+    private final List<File> applicationClasspath;
+    private final List<String> sharedPackages;
+    private final List<URL> implementationClasspath;
+    private final byte[] workerConfig;
+
+    public WorkerSessionSpec(long sessionId, List<File> applicationClasspath, List<String> sharedPackages, List<URL> implementationClasspath, byte[] workerConfig) {
+        this.sessionId = sessionId;
+        this.applicationClasspath = applicationClasspath;
+        this.sharedPackages = sharedPackages;
+        this.implementationClasspath = implementationClasspath;
+        this.workerConfig = workerConfig;
+    }
+
+    public long getSessionId() {
+        return sessionId;
+    }
+
+    public List<File> getApplicationClasspath() {
+        return applicationClasspath;
+    }
+
+    public List<String> getSharedPackages() {
+        return sharedPackages;
+    }
+
+    public List<URL> getImplementationClasspath() {
+        return implementationClasspath;
+    }
+
+    /**
+     * The configuration consumed by {@link SystemApplicationClassLoaderWorker}, as written by {@link ApplicationClassesInSystemClassLoaderWorkerImplementationFactory#writeWorkerConfig}.
+     */
+    public byte[] getWorkerConfig() {
+        return workerConfig;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.process.internal.worker.request;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Primitives;
+import org.gradle.internal.Factory;
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.DefaultBuildOperationRef;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.reflect.DirectInstantiator;
+import org.gradle.internal.remote.ObjectConnectionBuilder;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.DefaultSerializerRegistry;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Message;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.SerializerRegistry;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Serializers for the messages of {@link RequestProtocol} and {@link ResponseProtocol}.
+ *
+ * <p>The arguments and the results of the worker methods are encoded using the serializers of the worker, when it provides a serializer for their type, and using Java serialization otherwise.</p>
+ */
+public class RequestSerializers {
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES;
+
+    static {
+        ImmutableMap.Builder<String, Class<?>> builder = ImmutableMap.builder();
+        for (Class<?> type : Primitives.allPrimitiveTypes()) {
+            builder.put(type.getName(), type);
+        }
+        PRIMITIVE_TYPES = builder.build();
+    }
+
+    /**
+     * Creates the serializers for the arguments and results of a worker, using the given factory type.
+     */
+    public static SerializerRegistry createArgumentSerializers(@Nullable Class<? extends Factory<SerializerRegistry>> factoryType) {
+        if (factoryType == null) {
+            return new DefaultSerializerRegistry(false);
+        }
+        return DirectInstantiator.instantiate(factoryType).create();
+    }
+
+    /**
+     * Configures the given connection to use these serializers for the request and response messages.
+     *
+     * @param argumentSerializers The serializers for the arguments and the results of the worker methods.
+     * @param classLoader The ClassLoader to use to load the parameter types of the worker methods and the types of any values that use Java serialization.
+     */
+    public static void useFor(ObjectConnectionBuilder connection, SerializerRegistry argumentSerializers, ClassLoader classLoader) {
+        Serializer<Object> argumentSerializer = new ArgumentSerializer(argumentSerializers, classLoader);
+
+        DefaultSerializerRegistry messages = new DefaultSerializerRegistry(false);
+        messages.register(Request.class, new RequestSerializer(argumentSerializer, classLoader));
+        messages.register(Throwable.class, new ThrowableSerializer(classLoader));
+        connection.useParameterSerializers(messages);
+
+        DefaultSerializerRegistry results = new DefaultSerializerRegistry(false);
+        results.register(Object.class, argumentSerializer);
+        connection.useParameterSerializers(results);
+    }
+
+    private static class RequestSerializer implements Serializer<Request> {
+        private final Serializer<Object> argumentSerializer;
+        private final ClassLoader classLoader;
+        private final ConcurrentMap<String, Class<?>> paramTypes = new ConcurrentHashMap<String, Class<?>>();
+
+        RequestSerializer(Serializer<Object> argumentSerializer, ClassLoader classLoader) {
+            this.argumentSerializer = argumentSerializer;
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        public void write(Encoder encoder, Request value) throws Exception {
+            encoder.writeString(value.getMethodName());
+            Class<?>[] paramTypes = value.getParamTypes();
+            Object[] args = value.getArgs();
+            encoder.writeSmallInt(paramTypes.length);
+            for (int i = 0; i < paramTypes.length; i++) {
+                encoder.writeString(paramTypes[i].getName());
+                argumentSerializer.write(encoder, args[i]);
+            }
+            BuildOperationRef buildOperation = value.getBuildOperation();
+            encoder.writeBoolean(buildOperation != null);
+            if (buildOperation != null) {
+                writeId(encoder, buildOperation.getId());
+                writeId(encoder, buildOperation.getParentId());
+            }
+        }
+
+        @Override
+        public Request read(Decoder decoder) throws Exception {
+            String methodName = decoder.readString();
+            int paramCount = decoder.readSmallInt();
+            Class<?>[] paramTypes = new Class<?>[paramCount];
+            Object[] args = new Object[paramCount];
+            for (int i = 0; i < paramCount; i++) {
+                paramTypes[i] = paramType(decoder.readString());
+                args[i] = argumentSerializer.read(decoder);
+            }
+            BuildOperationRef buildOperation = null;
+            if (decoder.readBoolean()) {
+                buildOperation = new DefaultBuildOperationRef(readId(decoder), readId(decoder));
+            }
+            return new Request(methodName, paramTypes, args, buildOperation);
+        }
+
+        private Class<?> paramType(String name) throws ClassNotFoundException {
+            Class<?> type = paramTypes.get(name);
+            if (type == null) {
+                type = PRIMITIVE_TYPES.get(name);
+                if (type == null) {
+                    type = Class.forName(name, false, classLoader);
+                }
+                paramTypes.put(name, type);
+            }
+            return type;
+        }
+
+        private static void writeId(Encoder encoder, @Nullable OperationIdentifier id) throws Exception {
+            encoder.writeLong(id == null ? 0 : id.getId());
+        }
+
+        @Nullable
+        private static OperationIdentifier readId(Decoder decoder) throws Exception {
+            long id = decoder.readLong();
+            return id == 0 ? null : new OperationIdentifier(id);
+        }
+    }
+
+    private static class ArgumentSerializer implements Serializer<Object> {
+        private static final byte NULL = 0;
+        private static final byte REGISTERED = 1;
+        private static final byte JAVA_SERIALIZATION = 2;
+        private final SerializerRegistry registry;
+        private final ClassLoader classLoader;
+        private volatile Serializer<Object> registeredTypes;
+        private final ConcurrentMap<Class<?>, Boolean> canSerialize = new ConcurrentHashMap<Class<?>, Boolean>();
+
+        ArgumentSerializer(SerializerRegistry registry, ClassLoader classLoader) {
+            this.registry = registry;
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        public void write(Encoder encoder, Object value) throws Exception {
+            if (value == null) {
+                encoder.writeByte(NULL);
+            } else if (isRegistered(value.getClass())) {
+                encoder.writeByte(REGISTERED);
+                registeredTypes().write(encoder, value);
+            } else {
+                encoder.writeByte(JAVA_SERIALIZATION);
+                Message.send(value, encoder.getOutputStream());
+            }
+        }
+
+        @Override
+        public Object read(Decoder decoder) throws Exception {
+            byte tag = decoder.readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case REGISTERED:
+                    return registeredTypes().read(decoder);
+                case JAVA_SERIALIZATION:
+                    return Message.receive(decoder.getInputStream(), classLoader);
+                default:
+                    throw new IllegalArgumentException(String.format("Unexpected value tag %d found.", tag));
+            }
+        }
+
+        private Serializer<Object> registeredTypes() {
+            // Built on first use, as the registry cannot build a serializer when it is empty
+            if (registeredTypes == null) {
+                registeredTypes = registry.build(Object.class);
+            }
+            return registeredTypes;
+        }
+
+        private boolean isRegistered(Class<?> type) {
+            Boolean registered = canSerialize.get(type);
+            if (registered == null) {
+                registered = registry.canSerialize(type);
+                canSerialize.put(type, registered);
+            }
+            return registered;
+        }
+    }
+
+    private static class ThrowableSerializer implements Serializer<Throwable> {
+        private final ClassLoader classLoader;
+
+        ThrowableSerializer(ClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        public void write(Encoder encoder, Throwable value) throws Exception {
+            Message.send(value, encoder.getOutputStream());
+        }
+
+        @Override
+        public Throwable read(Decoder decoder) throws Exception {
+            return (Throwable) Message.receive(decoder.getInputStream(), classLoader);
+        }
+    }
+}
@@ -21,12 +21,14 @@ import org.gradle.api.internal.AsmBackedClassGenerator;
 import org.gradle.api.internal.DefaultInstantiatorFactory;
 import org.gradle.api.internal.InstantiatorFactory;
 import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
+import org.gradle.internal.Cast;
+import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.event.DefaultListenerManager;
 import org.gradle.internal.operations.CurrentBuildOperationRef;
-import org.gradle.internal.operations.BuildOperationRef;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.internal.remote.internal.hub.StreamFailureHandler;
+import org.gradle.internal.serialize.SerializerRegistry;
 import org.gradle.process.internal.worker.WorkerProcessContext;
 
 import java.io.Serializable;
@@ -36,6 +38,7 @@ import java.util.concurrent.CountDownLatch;
 
 public class WorkerAction implements Action<WorkerProcessContext>, Serializable, RequestProtocol, StreamFailureHandler {
     private final String workerImplementationName;
+    private String argumentSerializersName;
     private transient CountDownLatch completed;
     private transient ResponseProtocol responder;
     private transient Throwable failure;
@@ -47,15 +50,26 @@ public class WorkerAction implements Action<WorkerProcessContext>, Serializable,
         this.workerImplementationName = workerImplementation.getName();
     }
 
+    /**
+     * Uses the serializers created by the given factory for the arguments and results of the worker methods.
+     */
+    public void setArgumentSerializers(Class<? extends Factory<SerializerRegistry>> argumentSerializers) {
+        this.argumentSerializersName = argumentSerializers.getName();
+    }
+
     @Override
     public void execute(WorkerProcessContext workerProcessContext) {
         completed = new CountDownLatch(1);
+        SerializerRegistry argumentSerializers = RequestSerializers.createArgumentSerializers(null);
         try {
             if (instantiatorFactory == null) {
                 instantiatorFactory = new DefaultInstantiatorFactory(new AsmBackedClassGenerator(), new CrossBuildInMemoryCacheFactory(new DefaultListenerManager()));
             }
             workerImplementation = Class.forName(workerImplementationName);
             implementation = instantiatorFactory.inject(workerProcessContext.getServiceRegistry()).newInstance(workerImplementation);
+            if (argumentSerializersName != null) {
+                argumentSerializers = RequestSerializers.createArgumentSerializers(Cast.<Class<? extends Factory<SerializerRegistry>>>uncheckedCast(Class.forName(argumentSerializersName)));
+            }
         } catch (Throwable e) {
             failure = e;
         }
@@ -63,6 +77,7 @@ public class WorkerAction implements Action<WorkerProcessContext>, Serializable,
         ObjectConnection connection = workerProcessContext.getServerConnection();
         connection.addIncoming(RequestProtocol.class, this);
         responder = connection.addOutgoing(ResponseProtocol.class);
+        RequestSerializers.useFor(connection, argumentSerializers, getClass().getClassLoader());
         connection.connect();
 
         try {
@@ -79,26 +94,26 @@ public class WorkerAction implements Action<WorkerProcessContext>, Serializable,
     }
 
     @Override
-    public void runThenStop(String methodName, Class<?>[] paramTypes, Object[] args, BuildOperationRef buildOperation) {
+    public void runThenStop(Request request) {
         try {
-            run(methodName, paramTypes, args, buildOperation);
+            run(request);
         } finally {
             stop();
         }
     }
 
     @Override
-    public void run(String methodName, Class<?>[] paramTypes, Object[] args, BuildOperationRef buildOperation) {
+    public void run(Request request) {
         if (failure != null) {
             responder.infrastructureFailed(failure);
             return;
         }
         try {
-            Method method = workerImplementation.getDeclaredMethod(methodName, paramTypes);
-            CurrentBuildOperationRef.instance().set(buildOperation);
+            Method method = workerImplementation.getDeclaredMethod(request.getMethodName(), request.getParamTypes());
+            CurrentBuildOperationRef.instance().set(request.getBuildOperation());
             Object result;
             try {
-                result = method.invoke(implementation, args);
+                result = method.invoke(implementation, request.getArgs());
             } catch (InvocationTargetException e) {
                 Throwable failure = e.getCause();
                 if (failure instanceof NoClassDefFoundError) {
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal
+
+import org.gradle.internal.hash.HashCode
+import spock.lang.Specification
+
+class AsmBackedClassGeneratorStoreTest extends Specification {
+    def store = Mock(GeneratedClassStore)
+    def generator = new AsmBackedClassGenerator(store)
+
+    def "adds generated class to store"() {
+        HashCode key = null
+
+        when:
+        def type = generator.generate(StoredBean)
+
+        then:
+        type.name == StoredBean.name + "_Decorated"
+        1 * store.get(_ as HashCode) >> { HashCode k -> key = k; null }
+        1 * store.put({ it == key }, { byte[] bytes -> bytes.length > 0 })
+        0 * store._
+    }
+
+    def "generates class when stored class cannot be defined"() {
+        when:
+        def type = generator.generate(InvalidStoredBean)
+
+        then:
+        type.name == InvalidStoredBean.name + "_Decorated"
+        1 * store.get(_ as HashCode) >> ([1, 2, 3] as byte[])
+        1 * store.put(_ as HashCode, _)
+        0 * store._
+    }
+
+    def "does not use store for classes that have already been generated"() {
+        given:
+        def type = new AsmBackedClassGenerator().generate(PreviouslyGeneratedBean)
+
+        when:
+        def result = generator.generate(PreviouslyGeneratedBean)
+
+        then:
+        result == type
+        0 * store._
+    }
+
+    static class StoredBean {
+        String prop
+    }
+
+    static class InvalidStoredBean {
+        String prop
+    }
+
+    static class PreviouslyGeneratedBean {
+        String prop
+    }
+}
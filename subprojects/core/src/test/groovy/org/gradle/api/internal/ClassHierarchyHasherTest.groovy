@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal
+
+import org.gradle.api.provider.Property
+import spock.lang.Specification
+
+class ClassHierarchyHasherTest extends Specification {
+    def hasher = new ClassHierarchyHasher("test")
+
+    def "hash is stable for a type"() {
+        expect:
+        hasher.hash(Bean) != null
+        hasher.hash(Bean) == hasher.hash(Bean)
+        hasher.hash(Bean) == new ClassHierarchyHasher("test").hash(Bean)
+    }
+
+    def "hash differs for different types"() {
+        expect:
+        hasher.hash(Bean) != hasher.hash(SubBean)
+        hasher.hash(Bean) != hasher.hash(OtherBean)
+    }
+
+    def "hash differs for different generator versions"() {
+        expect:
+        hasher.hash(Bean) != new ClassHierarchyHasher("other").hash(Bean)
+    }
+
+    def "cannot hash type without a class file"() {
+        def type = new AsmBackedClassGenerator().generate(Bean)
+
+        expect:
+        hasher.hash(type) == null
+    }
+
+    static class Bean {
+        String prop
+    }
+
+    static class SubBean extends Bean {
+    }
+
+    static class OtherBean {
+        Property<String> prop
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal
+
+import org.gradle.internal.Factory
+import org.gradle.internal.hash.HashCode
+import spock.lang.Specification
+
+class CrossBuildGeneratedClassStoreTest extends Specification {
+    def key = HashCode.fromInt(123)
+    def attached = Mock(GeneratedClassStore)
+    def factory = Mock(Factory)
+    def store = new CrossBuildGeneratedClassStore()
+
+    def "does nothing when no store is attached"() {
+        expect:
+        store.get(key) == null
+        store.put(key, [1] as byte[])
+    }
+
+    def "creates attached store on first use only"() {
+        when:
+        store.attach(factory)
+
+        then:
+        0 * factory._
+
+        when:
+        def result1 = store.get(key)
+        def result2 = store.get(key)
+
+        then:
+        result1 == null
+        result2 == null
+        1 * factory.create() >> attached
+        2 * attached.get(key) >> null
+        0 * _
+
+        when:
+        store.put(key, [1] as byte[])
+
+        then:
+        1 * attached.put(key, [1] as byte[])
+        0 * _
+    }
+
+    def "does not use store once detached"() {
+        given:
+        store.attach(factory)
+
+        when:
+        store.detach(factory)
+        def result = store.get(key)
+
+        then:
+        result == null
+        0 * _
+    }
+}
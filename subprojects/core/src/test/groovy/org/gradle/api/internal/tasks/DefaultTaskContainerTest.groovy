@@ -27,8 +27,10 @@ import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.project.taskfactory.ITaskFactory
 import org.gradle.api.tasks.TaskDependency
 import org.gradle.initialization.ProjectAccessListener
+import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.internal.reflect.DirectInstantiator
 import org.gradle.model.internal.registry.DefaultModelRegistry
+import org.gradle.util.Path
 import spock.lang.Specification
 
 import static java.util.Collections.singletonMap
@@ -39,10 +41,12 @@ public class DefaultTaskContainerTest extends Specification {
     def modelRegistry = new DefaultModelRegistry(null, null)
     private project = Mock(ProjectInternal, name: "<project>") {
         getModelRegistry() >> modelRegistry
+        getIdentityPath() >> Path.path(":project")
     }
     private taskCount = 1;
     private accessListener = Mock(ProjectAccessListener)
-    private container = new DefaultTaskContainerFactory(modelRegistry, DirectInstantiator.INSTANCE, taskFactory, project, accessListener).create()
+    private buildOperationExecutor = new TestBuildOperationExecutor()
+    private container = new DefaultTaskContainerFactory(modelRegistry, DirectInstantiator.INSTANCE, taskFactory, project, accessListener, buildOperationExecutor, new TaskStatistics()).create()
 
     void 'cannot create task with no name'() {
         when:
@@ -480,6 +484,235 @@ public class DefaultTaskContainerTest extends Specification {
         container.maybeCreate("task", CustomTask) == task
     }
 
+    void "registered task is not created until it is required"() {
+        def action = Mock(Action)
+        def task = task("task", CustomTask)
+
+        when:
+        def provider = container.register("task", CustomTask, action)
+
+        then:
+        0 * taskFactory._
+        0 * action._
+        provider.name == "task"
+        provider.present
+        container.names.contains("task")
+        !container.empty
+
+        when:
+        def result = provider.get()
+
+        then:
+        result == task
+        1 * taskFactory.create("task", CustomTask) >> task
+        1 * action.execute(task)
+        container.getByName("task") == task
+        buildOperationExecutor.log.mostRecentDetails(RealizeTaskBuildOperationType).taskPath == ":project:task"
+    }
+
+    void "registered task is created when located by name"() {
+        def task = task("task")
+        container.register("task")
+
+        when:
+        def result = container.findByName("task")
+
+        then:
+        result == task
+        1 * taskFactory.create("task", DefaultTask) >> task
+    }
+
+    void "registered tasks are created when the container is iterated"() {
+        def task1 = task("a")
+        def task2 = task("b", CustomTask)
+        container.register("a")
+        container.register("b", CustomTask)
+        taskFactory.create("a", DefaultTask) >> task1
+        taskFactory.create("b", CustomTask) >> task2
+
+        expect:
+        container.withType(CustomTask).toList() == [task2]
+        container.toList() == [task1, task2]
+    }
+
+    void "configure actions are applied to registered task in order when created"() {
+        def task = task("task")
+        def registerAction = Mock(Action)
+        def configureAction = Mock(Action)
+        def provider = container.register("task", registerAction)
+        provider.configure(configureAction)
+
+        when:
+        provider.get()
+
+        then:
+        1 * taskFactory.create("task", DefaultTask) >> task
+
+        then:
+        1 * registerAction.execute(task)
+
+        then:
+        1 * configureAction.execute(task)
+    }
+
+    void "configure action is applied immediately to task that has already been created"() {
+        def task = task("task")
+        def action = Mock(Action)
+        taskFactory.create("task", DefaultTask) >> task
+        def provider = container.register("task")
+        provider.get()
+
+        when:
+        provider.configure(action)
+
+        then:
+        1 * action.execute(task)
+    }
+
+    void "configureEach does not create registered tasks"() {
+        def task1 = addTask("a")
+        def task2 = task("b")
+        def action = Mock(Action)
+        container.register("b")
+
+        when:
+        container.configureEach(action)
+
+        then:
+        1 * action.execute(task1)
+        0 * taskFactory._
+        0 * action._
+
+        when:
+        container.getByName("b")
+
+        then:
+        1 * taskFactory.create("b", DefaultTask) >> task2
+        1 * action.execute(task2)
+    }
+
+    void "configureEach on filtered collection does not create registered tasks"() {
+        def task1 = addTask("a", CustomTask)
+        def task2 = task("b", CustomTask)
+        def action = Mock(Action)
+        container.register("b", CustomTask)
+
+        when:
+        container.withType(CustomTask).configureEach(action)
+
+        then:
+        1 * action.execute(task1)
+        0 * taskFactory._
+        0 * action._
+
+        when:
+        container.getByName("b")
+
+        then:
+        1 * taskFactory.create("b", CustomTask) >> task2
+        1 * action.execute(task2)
+    }
+
+    void "cannot register task with name of existing task"() {
+        addTask("a")
+        container.register("b")
+
+        when:
+        container.register("a")
+
+        then:
+        InvalidUserDataException e = thrown()
+        e.message == "Cannot add task 'a' as a task with that name already exists."
+
+        when:
+        container.register("b")
+
+        then:
+        e = thrown()
+        e.message == "Cannot add task 'b' as a task with that name already exists."
+    }
+
+    void "cannot create task with name of registered task"() {
+        def task = task("a")
+        taskFactory.create("a", DefaultTask) >> task
+        container.register("a")
+
+        when:
+        container.create("a")
+
+        then:
+        InvalidUserDataException e = thrown()
+        e.message == "Cannot add ${task} as a task with that name already exists."
+    }
+
+    void "can replace registered task"() {
+        def task = task("a")
+        container.register("a")
+
+        when:
+        def result = container.replace("a")
+
+        then:
+        1 * taskFactory.create("a", DefaultTask) >> task
+        result == task
+        container.getByName("a") == task
+    }
+
+    void "registered task whose creation fails is reported by later lookups"() {
+        def failure = new RuntimeException("broken")
+        def provider = container.register("task")
+
+        when:
+        container.findByName("task")
+
+        then:
+        1 * taskFactory.create("task", DefaultTask) >> { throw failure }
+        RuntimeException e = thrown()
+        e == failure
+
+        when:
+        container.findByName("task")
+
+        then:
+        0 * taskFactory._
+        e = thrown()
+        e == failure
+
+        when:
+        provider.get()
+
+        then:
+        0 * taskFactory._
+        e = thrown()
+        e == failure
+
+        when:
+        container.toList()
+
+        then:
+        0 * taskFactory._
+        e = thrown()
+        e == failure
+        container.names.contains("task")
+    }
+
+    void "registered task that is located while it is being created is created once"() {
+        def task = task("task")
+        def provider = container.register("task")
+
+        when:
+        def result = provider.get()
+
+        then:
+        1 * taskFactory.create("task", DefaultTask) >> {
+            assert container.findByName("task") == null
+            assert container.toList() == []
+            task
+        }
+        result == task
+        container.getByName("task") == task
+    }
+
     private ProjectInternal expectTaskLookupInOtherProject(final String projectPath, final String taskName, def task) {
         def otherProject = Mock(ProjectInternal)
         def otherTaskContainer = Mock(TaskContainerInternal)
@@ -147,6 +147,31 @@ class CrossBuildInMemoryCacheFactoryTest extends ConcurrentSpec {
         0 * transformer._
     }
 
+    def "shrinking the cache releases strong references to values from the previous session"() {
+        def cacheShrinker = new InMemoryCacheShrinker()
+        def factory = new CrossBuildInMemoryCacheFactory(listenerManager, cacheShrinker)
+        def a = new Object()
+        def b = new Object()
+        def transformer = Mock(Transformer)
+
+        given:
+        transformer.transform("a") >> a
+        transformer.transform("b") >> b
+        def cache = factory.newCache()
+        cache.get("a", transformer)
+        cache.get("b", transformer)
+        listenerManager.getBroadcaster(SessionLifecycleListener).beforeComplete()
+
+        when:
+        def discarded = cacheShrinker.shrink(1)
+
+        then:
+        discarded == 2
+
+        cache.get("a") == a
+        cacheShrinker.shrink(1) == 0
+    }
+
     def "creates a cache whose keys are classes"() {
         def a = new Object()
         def b = new Object()
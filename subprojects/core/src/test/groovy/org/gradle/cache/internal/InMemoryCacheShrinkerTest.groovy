@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import spock.lang.Specification
+
+class InMemoryCacheShrinkerTest extends Specification {
+    def shrinker = new InMemoryCacheShrinker()
+
+    def "shrinks each registered cache by the given fraction"() {
+        def cache1 = Mock(ShrinkableCache)
+        def cache2 = Mock(ShrinkableCache)
+
+        given:
+        shrinker.register(cache1)
+        shrinker.register(cache2)
+
+        when:
+        def discarded = shrinker.shrink(0.5)
+
+        then:
+        discarded == 5
+        1 * cache1.shrink(0.5) >> 2
+        1 * cache2.shrink(0.5) >> 3
+        0 * _
+    }
+
+    def "discards nothing when no caches are registered"() {
+        expect:
+        shrinker.shrink(1) == 0
+    }
+
+    def "does not accept fraction outside of range"() {
+        when:
+        shrinker.shrink(fraction)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        fraction << [0, -1, 1.5]
+    }
+
+    def "discards fraction of collection"() {
+        def entries = new HashSet(1..10)
+
+        expect:
+        InMemoryCacheShrinker.discard(entries, 0.25) == 3
+        entries.size() == 7
+        InMemoryCacheShrinker.discard(entries, 1) == 7
+        entries.empty
+        InMemoryCacheShrinker.discard(entries, 0.5) == 0
+    }
+}
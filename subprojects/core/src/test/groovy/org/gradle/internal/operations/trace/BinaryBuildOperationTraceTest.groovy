@@ -0,0 +1,226 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace
+
+import groovy.json.JsonSlurper
+import org.gradle.StartParameter
+import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.BuildOperationListenerManager
+import org.gradle.internal.operations.DefaultBuildOperationListenerManager
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationProgressEvent
+import org.gradle.internal.operations.OperationStartEvent
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Timeout
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class BinaryBuildOperationTraceTest extends ConcurrentSpec {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def listenerManager = new DefaultBuildOperationListenerManager()
+    def broadcaster = listenerManager.broadcaster
+    // The writer runs until the trace is stopped, so it cannot be tracked as a test thread
+    def writerExecutorFactory = new DefaultExecutorFactory()
+    def traceFile = tmpDir.file("operations-trace.bin")
+
+    def cleanup() {
+        writerExecutorFactory.stop()
+    }
+
+    def "writes build operation events to trace file"() {
+        def trace = new BinaryBuildOperationTrace(traceFile, listenerManager, writerExecutorFactory)
+        def root = descriptor(1, null, "Run build", null)
+        def child = descriptor(2, 1, "Configure build", new Details())
+        def events = []
+
+        when:
+        broadcaster.started(root, new OperationStartEvent(100))
+        broadcaster.started(child, new OperationStartEvent(110))
+        broadcaster.progress(child.id, new OperationProgressEvent(115, new Details()))
+        broadcaster.finished(child, new OperationFinishEvent(110, 150, new RuntimeException("broken"), null))
+        broadcaster.finished(root, new OperationFinishEvent(100, 200, null, new Details()))
+        trace.stop()
+        def complete = BinaryBuildOperationTraceReader.read(traceFile, recorder(events))
+
+        then:
+        complete
+        events == [
+            ["started", 1, null, 100, Thread.currentThread().id, "Run build", null],
+            ["started", 2, 1, 110, Thread.currentThread().id, "Configure build", Details.name],
+            ["progress", 2, 115, Details.name],
+            ["finished", 2, 150, null, "java.lang.RuntimeException: broken"],
+            ["finished", 1, 200, Details.name, null]
+        ]
+    }
+
+    def "records events from multiple threads"() {
+        def trace = new BinaryBuildOperationTrace(traceFile, listenerManager, writerExecutorFactory)
+        def events = []
+
+        when:
+        async {
+            10.times { thread ->
+                start {
+                    1000.times {
+                        def descriptor = descriptor(thread * 1000 + it + 1, null, "op", null)
+                        broadcaster.started(descriptor, new OperationStartEvent(it))
+                        broadcaster.finished(descriptor, new OperationFinishEvent(it, it + 1, null, null))
+                    }
+                }
+            }
+        }
+        trace.stop()
+        BinaryBuildOperationTraceReader.read(traceFile, recorder(events))
+
+        then:
+        events.size() == 20000
+        events.findAll { it[0] == "started" }*.get(1) as Set == (1..10000) as Set
+        events.findAll { it[0] == "finished" }*.get(1) as Set == (1..10000) as Set
+    }
+
+    def "reads truncated trace"() {
+        def trace = new BinaryBuildOperationTrace(traceFile, listenerManager, writerExecutorFactory)
+        def events = []
+
+        given:
+        def root = descriptor(1, null, "Run build", null)
+        broadcaster.started(root, new OperationStartEvent(100))
+        broadcaster.finished(root, new OperationFinishEvent(100, 200, null, null))
+        trace.stop()
+        def bytes = traceFile.bytes
+        traceFile.bytes = bytes[0..<(bytes.length - 3)] as byte[]
+
+        expect:
+        !BinaryBuildOperationTraceReader.read(traceFile, recorder(events))
+        events == [["started", 1, null, 100, Thread.currentThread().id, "Run build", null]]
+    }
+
+    @Timeout(60)
+    def "keeps draining events when the trace cannot be written"() {
+        def writeAttempted = new CountDownLatch(1)
+        def output = new OutputStream() {
+            @Override
+            void write(int b) {
+                write([b] as byte[], 0, 1)
+            }
+
+            @Override
+            void write(byte[] b, int off, int len) {
+                writeAttempted.countDown()
+                throw new IOException("No space left on device")
+            }
+        }
+        def trace = new BinaryBuildOperationTrace(traceFile, { output } as Factory, listenerManager, writerExecutorFactory)
+        def root = descriptor(1, null, "Run build", null)
+
+        given:
+        // Let the writer go idle, so that it fails when flushing
+        broadcaster.started(root, new OperationStartEvent(100))
+        assert writeAttempted.await(10, TimeUnit.SECONDS)
+
+        when:
+        // More events than the buffer can hold
+        100000.times {
+            def descriptor = descriptor(it + 2, 1, "op", null)
+            broadcaster.started(descriptor, new OperationStartEvent(it))
+            broadcaster.finished(descriptor, new OperationFinishEvent(it, it + 1, null, null))
+        }
+        broadcaster.finished(root, new OperationFinishEvent(100, 200, null, null))
+        trace.stop()
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "does not trace when not enabled"() {
+        def listenerManager = Mock(BuildOperationListenerManager)
+
+        when:
+        def trace = new BinaryBuildOperationTrace(new StartParameter(), listenerManager, writerExecutorFactory)
+        trace.stop()
+
+        then:
+        0 * listenerManager._
+    }
+
+    def "converts trace to chrome trace format"() {
+        def trace = new BinaryBuildOperationTrace(traceFile, listenerManager, writerExecutorFactory)
+        def outputFile = tmpDir.file("trace.json")
+        def root = descriptor(1, null, "Run build", null)
+        def child = descriptor(2, 1, "Configure build", new Details())
+        def unfinished = descriptor(3, 1, "Execute tasks", null)
+
+        given:
+        broadcaster.started(root, new OperationStartEvent(100))
+        broadcaster.started(child, new OperationStartEvent(110))
+        broadcaster.progress(child.id, new OperationProgressEvent(115, null))
+        broadcaster.finished(child, new OperationFinishEvent(110, 150, null, null))
+        broadcaster.started(unfinished, new OperationStartEvent(160))
+        broadcaster.finished(root, new OperationFinishEvent(100, 200, null, null))
+        trace.stop()
+
+        when:
+        def complete = BinaryBuildOperationTraceConverter.convert(traceFile, outputFile)
+        def events = new JsonSlurper().parse(outputFile).traceEvents
+
+        then:
+        complete
+        events.size() == 4
+        def configure = events.find { it.name == "Configure build" }
+        configure.ph == "X"
+        configure.ts == 10000
+        configure.dur == 40000
+        configure.cat == "BinaryBuildOperationTraceTest\$Details"
+        configure.args.parentId == 1
+        events.find { it.ph == "i" }.ts == 15000
+        events.find { it.name == "Run build" }.dur == 100000
+        events.find { it.name == "Execute tasks" }.args.unfinished
+    }
+
+    private static BuildOperationDescriptor descriptor(long id, Long parentId, String displayName, Object details) {
+        return BuildOperationDescriptor.displayName(displayName).details(details).build(new OperationIdentifier(id), parentId == null ? null : new OperationIdentifier(parentId))
+    }
+
+    private static BinaryBuildOperationTraceReader.Visitor recorder(List events) {
+        return new BinaryBuildOperationTraceReader.Visitor() {
+            @Override
+            void started(long id, Long parentId, long time, long threadId, String displayName, String detailsType) {
+                events << ["started", id, parentId, time, threadId, displayName, detailsType]
+            }
+
+            @Override
+            void progress(long id, long time, String detailsType) {
+                events << ["progress", id, time, detailsType]
+            }
+
+            @Override
+            void finished(long id, long time, String resultType, String failure) {
+                events << ["finished", id, time, resultType, failure]
+            }
+        }
+    }
+
+    static class Details {
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace
+
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+class ConcurrentRingBufferTest extends ConcurrentSpec {
+
+    def "returns elements in the order they were added"() {
+        def buffer = new ConcurrentRingBuffer<String>(4)
+
+        expect:
+        buffer.isEmpty()
+        buffer.poll() == null
+
+        when:
+        buffer.put("a")
+        buffer.put("b")
+        buffer.put("c")
+
+        then:
+        !buffer.isEmpty()
+        buffer.poll() == "a"
+        buffer.poll() == "b"
+
+        when:
+        buffer.put("d")
+        buffer.put("e")
+        buffer.put("f")
+
+        then:
+        buffer.poll() == "c"
+        buffer.poll() == "d"
+        buffer.poll() == "e"
+        buffer.poll() == "f"
+        buffer.poll() == null
+        buffer.isEmpty()
+    }
+
+    def "producer waits for space when buffer is full"() {
+        def buffer = new ConcurrentRingBuffer<String>(2)
+        buffer.put("a")
+        buffer.put("b")
+
+        when:
+        async {
+            start {
+                buffer.put("c")
+                instant.added
+            }
+            thread.block()
+            instant.polled
+            assert buffer.poll() == "a"
+        }
+
+        then:
+        instant.added > instant.polled
+        buffer.poll() == "b"
+        buffer.poll() == "c"
+    }
+
+    def "delivers all elements added concurrently by multiple producers"() {
+        def buffer = new ConcurrentRingBuffer<Integer>(16)
+        def received = []
+
+        when:
+        async {
+            4.times { producer ->
+                start {
+                    1000.times { buffer.put(producer * 1000 + it) }
+                }
+            }
+            start {
+                while (received.size() < 4000) {
+                    def element = buffer.poll()
+                    if (element != null) {
+                        received << element
+                    }
+                }
+            }
+        }
+
+        then:
+        received.size() == 4000
+        received as Set == (0..<4000) as Set
+        (0..<4).every { producer -> received.findAll { it.intdiv(1000) == producer } == (producer * 1000..<(producer + 1) * 1000).toList() }
+        buffer.isEmpty()
+    }
+
+    def "capacity must be a power of two"() {
+        when:
+        new ConcurrentRingBuffer<String>(3)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.process.internal.worker.request
+
+import org.gradle.internal.Factory
+import org.gradle.internal.operations.DefaultBuildOperationRef
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.remote.ObjectConnectionBuilder
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.internal.serialize.DefaultSerializerRegistry
+import org.gradle.internal.serialize.SerializerRegistry
+import org.gradle.internal.serialize.SerializerSpec
+
+class RequestSerializersTest extends SerializerSpec {
+    def registries = []
+    def connection = Stub(ObjectConnectionBuilder) {
+        useParameterSerializers(_) >> { SerializerRegistry registry -> registries << registry }
+    }
+
+    def setup() {
+        RequestSerializers.useFor(connection, RequestSerializers.createArgumentSerializers(TestArgumentSerializers), getClass().classLoader)
+    }
+
+    def "serializes request"() {
+        def request = new Request("execute", [String, File, int, List] as Class[], ["value", new File("file"), 12, null] as Object[], new DefaultBuildOperationRef(new OperationIdentifier(12), new OperationIdentifier(3)))
+
+        when:
+        def result = serialize(request, serializerFor(Request))
+
+        then:
+        result.methodName == "execute"
+        result.paramTypes == [String, File, int, List] as Class[]
+        result.args == ["value", new File("file"), 12, null] as Object[]
+        result.buildOperation.id == new OperationIdentifier(12)
+        result.buildOperation.parentId == new OperationIdentifier(3)
+    }
+
+    def "serializes request for method without parameters"() {
+        def request = new Request("stop", [] as Class[], null, null)
+
+        when:
+        def result = serialize(request, serializerFor(Request))
+
+        then:
+        result.methodName == "stop"
+        result.paramTypes.length == 0
+        result.args.length == 0
+        result.buildOperation == null
+    }
+
+    def "serializes request for root build operation"() {
+        def request = new Request("execute", [] as Class[], null, new DefaultBuildOperationRef(new OperationIdentifier(12), null))
+
+        when:
+        def result = serialize(request, serializerFor(Request))
+
+        then:
+        result.buildOperation.id == new OperationIdentifier(12)
+        result.buildOperation.parentId == null
+    }
+
+    def "uses the serializers of the worker for values of the registered types"() {
+        def serializer = serializerFor(Object)
+
+        expect:
+        toBytes("value", serializer).length < toBytes(new StringBuilder("value"), serializer).length
+        serialize("value", serializer) == "value"
+        serialize(new StringBuilder("value"), serializer).toString() == "value"
+        serialize(null, serializer) == null
+    }
+
+    def "serializes failure"() {
+        def failure = new RuntimeException("broken")
+
+        when:
+        def result = serialize(failure, serializerFor(Throwable))
+
+        then:
+        result instanceof RuntimeException
+        result.message == "broken"
+    }
+
+    def "uses Java serialization for all values when worker has no serializers"() {
+        def registries = []
+        def connection = Stub(ObjectConnectionBuilder) {
+            useParameterSerializers(_) >> { SerializerRegistry registry -> registries << registry }
+        }
+        RequestSerializers.useFor(connection, RequestSerializers.createArgumentSerializers(null), getClass().classLoader)
+
+        expect:
+        serialize("value", registries[1].build(Object)) == "value"
+    }
+
+    private serializerFor(Class<?> type) {
+        def registry = registries.find { it.canSerialize(type) }
+        return registry.build(type)
+    }
+
+    static class TestArgumentSerializers implements Factory<SerializerRegistry> {
+        @Override
+        SerializerRegistry create() {
+            def registry = new DefaultSerializerRegistry(false)
+            registry.register(String, BaseSerializerFactory.STRING_SERIALIZER)
+            registry.register(File, BaseSerializerFactory.FILE_SERIALIZER)
+            return registry
+        }
+    }
+}
@@ -84,6 +84,7 @@ import org.gradle.api.internal.project.ProjectRegistry;
 import org.gradle.api.internal.runtimeshaded.RuntimeShadedJarFactory;
 import org.gradle.authentication.Authentication;
 import org.gradle.cache.internal.GeneratedGradleJarCache;
+import org.gradle.cache.internal.InMemoryCacheShrinker;
 import org.gradle.cache.internal.ProducerGuard;
 import org.gradle.initialization.BuildIdentity;
 import org.gradle.initialization.ProjectAccessListener;
@@ -171,20 +172,25 @@ class DependencyManagementBuildScopeServices {
     }
 
     ModuleRepositoryCacheProvider createModuleRepositoryCacheProvider(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, ImmutableModuleIdentifierFactory moduleIdentifierFactory,
-                                                                      ArtifactCacheMetadata artifactCacheMetadata, AttributeContainerSerializer attributeContainerSerializer, MavenMutableModuleMetadataFactory mavenMetadataFactory, IvyMutableModuleMetadataFactory ivyMetadataFactory) {
+                                                                      ArtifactCacheMetadata artifactCacheMetadata, AttributeContainerSerializer attributeContainerSerializer, MavenMutableModuleMetadataFactory mavenMetadataFactory, IvyMutableModuleMetadataFactory ivyMetadataFactory,
+                                                                      InMemoryCacheShrinker cacheShrinker) {
+        DefaultModuleMetadataCache moduleMetadataCache = new DefaultModuleMetadataCache(
+            timeProvider,
+            cacheLockingManager,
+            artifactCacheMetadata,
+            moduleIdentifierFactory,
+            attributeContainerSerializer,
+            mavenMetadataFactory,
+            ivyMetadataFactory);
+        InMemoryModuleMetadataCache inMemoryModuleMetadataCache = new InMemoryModuleMetadataCache(timeProvider);
+        cacheShrinker.register(moduleMetadataCache);
+        cacheShrinker.register(inMemoryModuleMetadataCache);
         ModuleRepositoryCaches caches = new ModuleRepositoryCaches(
             new DefaultModuleVersionsCache(
                 timeProvider,
                 cacheLockingManager,
                 moduleIdentifierFactory),
-            new DefaultModuleMetadataCache(
-                timeProvider,
-                cacheLockingManager,
-                artifactCacheMetadata,
-                moduleIdentifierFactory,
-                attributeContainerSerializer,
-                mavenMetadataFactory,
-                ivyMetadataFactory),
+            moduleMetadataCache,
             new DefaultModuleArtifactsCache(
                 timeProvider,
                 cacheLockingManager
@@ -197,7 +203,7 @@ class DependencyManagementBuildScopeServices {
         );
         ModuleRepositoryCaches inMemoryCaches = new ModuleRepositoryCaches(
             new InMemoryModuleVersionsCache(timeProvider),
-            new InMemoryModuleMetadataCache(timeProvider),
+            inMemoryModuleMetadataCache,
             new InMemoryModuleArtifactsCache(timeProvider),
             new InMemoryModuleArtifactCache(timeProvider)
         );
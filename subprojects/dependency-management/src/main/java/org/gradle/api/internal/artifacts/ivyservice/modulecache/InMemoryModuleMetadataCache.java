@@ -18,6 +18,8 @@ package org.gradle.api.internal.artifacts.ivyservice.modulecache;
 import com.google.common.collect.Maps;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
+import org.gradle.cache.internal.InMemoryCacheShrinker;
+import org.gradle.cache.internal.ShrinkableCache;
 import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
 import org.gradle.util.BuildCommencedTimeProvider;
 import org.slf4j.Logger;
@@ -25,7 +27,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Map;
 
-public class InMemoryModuleMetadataCache implements ModuleMetadataCache {
+public class InMemoryModuleMetadataCache implements ModuleMetadataCache, ShrinkableCache {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultModuleMetadataCache.class);
     protected final BuildCommencedTimeProvider timeProvider;
     private Map<ModuleComponentAtRepositoryKey, CachedMetadata> inMemoryCache =  Maps.newConcurrentMap();
@@ -65,6 +67,11 @@ public class InMemoryModuleMetadataCache implements ModuleMetadataCache {
         inMemoryCache.put(key, cachedMetaData);
     }
 
+    @Override
+    public long shrink(double fraction) {
+        return InMemoryCacheShrinker.discard(inMemoryCache.keySet(), fraction);
+    }
+
     private ModuleComponentAtRepositoryKey createKey(ModuleComponentRepository repository, ModuleComponentIdentifier id) {
         return new ModuleComponentAtRepositoryKey(repository.getId(), id);
     }
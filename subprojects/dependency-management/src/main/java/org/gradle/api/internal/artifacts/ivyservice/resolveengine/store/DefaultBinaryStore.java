@@ -42,7 +42,7 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
     public void write(WriteAction write) {
         if (encoder == null) {
             try {
-                encoder = new KryoBackedEncoder(new FileOutputStream(file));
+                encoder = new KryoBackedEncoder(new FileOutputStream(file).getChannel());
             } catch (FileNotFoundException e) {
                 throw throwAsUncheckedException(e);
             }
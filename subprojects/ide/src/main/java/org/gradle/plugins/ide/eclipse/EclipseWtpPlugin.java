@@ -332,7 +332,7 @@ public class EclipseWtpPlugin extends IdePlugin {
         Action<Object> action = new Action<Object>() {
             @Override
             public void execute(Object ignored) {
-                project.getTasks().withType(GenerateEclipseProject.class, new Action<GenerateEclipseProject>() {
+                project.getTasks().withType(GenerateEclipseProject.class).configureEach(new Action<GenerateEclipseProject>() {
                     @Override
                     public void execute(GenerateEclipseProject task) {
                         task.getProjectModel().buildCommand("org.eclipse.wst.common.project.facet.core.builder");
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental.sourceparser;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Compares the regex backed and the lexing source parsers on generated headers that resemble large library headers:
+ * mostly declarations, comments and inline code, with include directives and macros scattered through them.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class CSourceParserBenchmark {
+
+    @Param({"100", "10000"})
+    int linesPerHeader;
+
+    @Param({"50"})
+    int headerCount;
+
+    File tempDir;
+    File[] headers;
+
+    final CSourceParser regexParser = new RegexBackedCSourceParser();
+    final CSourceParser lexingParser = new LexingCSourceParser();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tempDir = File.createTempFile("headers", "");
+        tempDir.delete();
+        tempDir.mkdirs();
+        headers = new File[headerCount];
+        for (int i = 0; i < headerCount; i++) {
+            headers[i] = new File(tempDir, "header" + i + ".h");
+            FileUtils.writeStringToFile(headers[i], generateHeader(i), Charset.defaultCharset());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(tempDir);
+    }
+
+    @Benchmark
+    public void regexBackedParser(Blackhole blackhole) {
+        for (File header : headers) {
+            blackhole.consume(regexParser.parseSource(header));
+        }
+    }
+
+    @Benchmark
+    public void lexingParser(Blackhole blackhole) {
+        for (File header : headers) {
+            blackhole.consume(lexingParser.parseSource(header));
+        }
+    }
+
+    private String generateHeader(int index) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("#ifndef HEADER_").append(index).append("_H\n");
+        builder.append("#define HEADER_").append(index).append("_H\n");
+        for (int line = 0; line < linesPerHeader; line += 10) {
+            builder.append("/*\n * Documentation for function_").append(line).append(".\n * #include \"commented.h\"\n */\n");
+            builder.append("#include \"detail/header_").append(line).append(".h\"\n");
+            builder.append("#include <vector> // standard library\n");
+            builder.append("#define MACRO_").append(line).append("(x, y) ((x) + (y))\n");
+            builder.append("template <typename T> inline T function_").append(line).append("(const T& value) {\n");
+            builder.append("    return value * 2; // \"#include\" in a comment\n");
+            builder.append("}\n");
+        }
+        builder.append("#endif\n");
+        return builder.toString();
+    }
+}
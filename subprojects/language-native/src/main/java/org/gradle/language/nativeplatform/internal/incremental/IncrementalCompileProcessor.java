@@ -21,6 +21,7 @@ import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.operations.CallableBuildOperation;
 import org.gradle.internal.operations.BuildOperationDescriptor;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Collection;
 
@@ -28,11 +29,20 @@ public class IncrementalCompileProcessor {
     private final PersistentStateCache<CompilationState> previousCompileStateCache;
     private final IncrementalCompileFilesFactory incrementalCompileFilesFactory;
     private final BuildOperationExecutor buildOperationExecutor;
+    private final ParallelSourceIncludesParser parallelSourceIncludesParser;
 
     public IncrementalCompileProcessor(PersistentStateCache<CompilationState> previousCompileStateCache, IncrementalCompileFilesFactory incrementalCompileFilesFactory, BuildOperationExecutor buildOperationExecutor) {
+        this(previousCompileStateCache, incrementalCompileFilesFactory, buildOperationExecutor, null);
+    }
+
+    /**
+     * @param parallelSourceIncludesParser Parses the files that have changed since the previous compilation ahead of processing the source files, or null to parse each file as it is processed.
+     */
+    public IncrementalCompileProcessor(PersistentStateCache<CompilationState> previousCompileStateCache, IncrementalCompileFilesFactory incrementalCompileFilesFactory, BuildOperationExecutor buildOperationExecutor, @Nullable ParallelSourceIncludesParser parallelSourceIncludesParser) {
         this.previousCompileStateCache = previousCompileStateCache;
         this.incrementalCompileFilesFactory = incrementalCompileFilesFactory;
         this.buildOperationExecutor = buildOperationExecutor;
+        this.parallelSourceIncludesParser = parallelSourceIncludesParser;
     }
 
     public IncrementalCompilation processSourceFiles(final Collection<File> sourceFiles) {
@@ -40,6 +50,9 @@ public class IncrementalCompileProcessor {
             @Override
             public IncrementalCompilation call(BuildOperationContext context) {
                 CompilationState previousCompileState = previousCompileStateCache.get();
+                if (parallelSourceIncludesParser != null) {
+                    parallelSourceIncludesParser.parseChanged(sourceFiles, previousCompileState);
+                }
                 IncementalCompileSourceProcessor processor = incrementalCompileFilesFactory.filesFor(previousCompileState);
                 for (File sourceFile : sourceFiles) {
                     processor.processSource(sourceFile);
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental;
+
+import com.google.common.collect.Lists;
+import org.gradle.api.Action;
+import org.gradle.api.internal.changedetection.state.FileSnapshot;
+import org.gradle.api.internal.changedetection.state.FileSystemSnapshotter;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.language.nativeplatform.internal.Include;
+import org.gradle.language.nativeplatform.internal.IncludeDirectives;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A {@link SourceIncludesParser} that can parse a set of source files, and the header files they include, in parallel ahead of the include graph being traversed.
+ *
+ * <p>The include graph has to be traversed sequentially, as the macros visible at each include directive depend on the order the files are included in.
+ * Parsing the files does not, so this parser discovers the files reachable through quoted and system includes in waves, parsing each wave in parallel
+ * on the build operation thread pool. Files only reachable through macro includes are parsed later, when the traversal encounters them.</p>
+ *
+ * <p>Only the files that have changed since the previous compilation are parsed ahead. Files whose content is unchanged are parsed when the traversal
+ * encounters them, where the parse result is usually already cached.</p>
+ */
+public class ParallelSourceIncludesParser implements SourceIncludesParser {
+    private static final int BATCH_SIZE = 50;
+
+    private final SourceIncludesParser delegate;
+    private final List<File> includePaths;
+    private final FileSystemSnapshotter fileSystemSnapshotter;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final Map<File, IncludeDirectives> parsed = new ConcurrentHashMap<File, IncludeDirectives>();
+
+    public ParallelSourceIncludesParser(SourceIncludesParser delegate, List<File> includePaths, FileSystemSnapshotter fileSystemSnapshotter, BuildOperationExecutor buildOperationExecutor) {
+        this.delegate = delegate;
+        this.includePaths = includePaths;
+        this.fileSystemSnapshotter = fileSystemSnapshotter;
+        this.buildOperationExecutor = buildOperationExecutor;
+    }
+
+    @Override
+    public IncludeDirectives parseIncludes(File sourceFile) {
+        IncludeDirectives includeDirectives = parsed.get(sourceFile);
+        if (includeDirectives != null) {
+            return includeDirectives;
+        }
+        return delegate.parseIncludes(sourceFile);
+    }
+
+    /**
+     * Parses the given source files and the header files reachable from them without macro expansion, skipping the files whose content is the
+     * same as in the given previous compilation state. Header files recorded in the previous compilation state whose content has changed are
+     * parsed as well, as they may only be reachable through unchanged files.
+     */
+    public void parseChanged(Collection<File> sourceFiles, @Nullable CompilationState previousCompileState) {
+        Map<File, HashCode> previousHashes = previousHashesOf(previousCompileState);
+        Set<File> seen = new HashSet<File>();
+        List<File> wave = new ArrayList<File>();
+        for (File sourceFile : sourceFiles) {
+            if (seen.add(sourceFile) && isChanged(sourceFile, previousHashes)) {
+                wave.add(sourceFile);
+            }
+        }
+        for (File includeFile : previousHashes.keySet()) {
+            if (seen.add(includeFile) && isChanged(includeFile, previousHashes)) {
+                wave.add(includeFile);
+            }
+        }
+        while (!wave.isEmpty()) {
+            final ConcurrentLinkedQueue<File> discovered = new ConcurrentLinkedQueue<File>();
+            final List<List<File>> batches = Lists.partition(wave, BATCH_SIZE);
+            buildOperationExecutor.runAll(new Action<BuildOperationQueue<ParseFiles>>() {
+                @Override
+                public void execute(BuildOperationQueue<ParseFiles> queue) {
+                    for (List<File> batch : batches) {
+                        queue.add(new ParseFiles(batch, discovered));
+                    }
+                }
+            });
+            wave = new ArrayList<File>();
+            for (File file : discovered) {
+                if (seen.add(file) && isChanged(file, previousHashes)) {
+                    wave.add(file);
+                }
+            }
+        }
+    }
+
+    private static Map<File, HashCode> previousHashesOf(@Nullable CompilationState previousCompileState) {
+        if (previousCompileState == null) {
+            return Collections.emptyMap();
+        }
+        Map<File, HashCode> previousHashes = new HashMap<File, HashCode>();
+        for (Map.Entry<File, SourceFileState> entry : previousCompileState.getFileStates().entrySet()) {
+            previousHashes.put(entry.getKey(), entry.getValue().getHash());
+            for (IncludeFileState includeFileState : entry.getValue().getResolvedIncludes()) {
+                previousHashes.put(includeFileState.getIncludeFile(), includeFileState.getHash());
+            }
+        }
+        return previousHashes;
+    }
+
+    /**
+     * Returns true when the given file exists and its content differs from the previous compilation, or it was not part of the previous compilation.
+     */
+    private boolean isChanged(File file, Map<File, HashCode> previousHashes) {
+        FileSnapshot snapshot = fileSystemSnapshotter.snapshotSelf(file);
+        if (snapshot.getType() != FileType.RegularFile) {
+            return false;
+        }
+        HashCode previousHash = previousHashes.get(file);
+        return previousHash == null || !previousHash.equals(snapshot.getContent().getContentMd5());
+    }
+
+    private class ParseFiles implements RunnableBuildOperation {
+        private final List<File> files;
+        private final Collection<File> discovered;
+
+        ParseFiles(List<File> files, Collection<File> discovered) {
+            this.files = files;
+            this.discovered = discovered;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            for (File file : files) {
+                IncludeDirectives includeDirectives = delegate.parseIncludes(file);
+                parsed.put(file, includeDirectives);
+                for (Include include : includeDirectives.getQuotedIncludes()) {
+                    locate(include.getValue(), file.getParentFile());
+                }
+                for (Include include : includeDirectives.getSystemIncludes()) {
+                    locate(include.getValue(), null);
+                }
+            }
+        }
+
+        private void locate(String include, File sourceDir) {
+            if (sourceDir != null && locateIn(sourceDir, include)) {
+                return;
+            }
+            for (File includePath : includePaths) {
+                if (locateIn(includePath, include)) {
+                    return;
+                }
+            }
+        }
+
+        private boolean locateIn(File searchDir, String include) {
+            File candidate = new File(searchDir, include);
+            if (fileSystemSnapshotter.snapshotSelf(candidate).getType() == FileType.RegularFile) {
+                discovered.add(candidate);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Parse include directives of " + files.size() + " files");
+        }
+    }
+}
@@ -27,7 +27,7 @@ public class CachingCSourceParser implements CSourceParser {
     private final FileContentCache<IncludeDirectives> cache;
 
     public CachingCSourceParser(FileContentCacheFactory cacheFactory) {
-        final RegexBackedCSourceParser parser = new RegexBackedCSourceParser();
+        final CSourceParser parser = new LexingCSourceParser();
         cache = cacheFactory.newCache("parsedCSource", 40000, new FileContentCacheFactory.Calculator<IncludeDirectives>() {
             @Override
             public IncludeDirectives calculate(File file, FileType fileType) {
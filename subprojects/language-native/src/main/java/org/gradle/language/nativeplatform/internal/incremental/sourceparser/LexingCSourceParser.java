@@ -0,0 +1,363 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental.sourceparser;
+
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.GradleException;
+import org.gradle.language.nativeplatform.internal.IncludeDirectives;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * A {@link CSourceParser} that produces the same results as {@link RegexBackedCSourceParser}, but scans the bytes of the source file in a single pass rather than
+ * decoding the file and building a string for every line.
+ *
+ * <p>The scanner removes comments and line continuations in the same way as {@link PreprocessingReader}. Characters are only collected for lines that start with a
+ * {@code #define}, {@code #include} or {@code #import} directive, and these lines are then handed to the same directive parser used by {@link RegexBackedCSourceParser}.
+ * Every other line is skipped without allocating.</p>
+ *
+ * <p>This relies on the file being encoded with an ASCII compatible charset, which is checked against the default charset used by {@link RegexBackedCSourceParser}.
+ * When the default charset is not ASCII compatible, parsing is delegated to {@link RegexBackedCSourceParser}.</p>
+ */
+public class LexingCSourceParser implements CSourceParser {
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+    private static final ThreadLocal<byte[]> FILE_BUFFER = new ThreadLocal<byte[]>();
+
+    private final Charset charset;
+    private final RegexBackedCSourceParser fallback;
+
+    public LexingCSourceParser() {
+        this(Charset.defaultCharset());
+    }
+
+    LexingCSourceParser(Charset charset) {
+        this.charset = charset;
+        this.fallback = isAsciiCompatible(charset) ? null : new RegexBackedCSourceParser();
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        if (charset.name().equals("UTF-8") || charset.name().equals("US-ASCII")) {
+            return true;
+        }
+        if (charset.newEncoder().maxBytesPerChar() != 1.0f) {
+            return false;
+        }
+        byte[] bytes = "\t\n\r \"#*/\\_azAZ09(),<>".getBytes(charset);
+        return new String(bytes, Charset.forName("US-ASCII")).equals("\t\n\r \"#*/\\_azAZ09(),<>");
+    }
+
+    @Override
+    public IncludeDirectives parseSource(File sourceFile) {
+        if (fallback != null) {
+            return fallback.parseSource(sourceFile);
+        }
+        try {
+            byte[] buffer = FILE_BUFFER.get();
+            if (buffer == null) {
+                buffer = new byte[8192];
+            }
+            int length;
+            InputStream inputStream = new FileInputStream(sourceFile);
+            try {
+                long expectedLength = sourceFile.length();
+                if (expectedLength >= buffer.length && expectedLength < Integer.MAX_VALUE) {
+                    buffer = new byte[(int) expectedLength + 1];
+                }
+                length = 0;
+                while (true) {
+                    int read = inputStream.read(buffer, length, buffer.length - length);
+                    if (read < 0) {
+                        break;
+                    }
+                    length += read;
+                    if (length == buffer.length) {
+                        byte[] larger = new byte[buffer.length * 2];
+                        System.arraycopy(buffer, 0, larger, 0, length);
+                        buffer = larger;
+                    }
+                }
+            } finally {
+                IOUtils.closeQuietly(inputStream);
+            }
+            if (buffer.length <= MAX_RETAINED_BUFFER_SIZE) {
+                FILE_BUFFER.set(buffer);
+            }
+            return new Scanner(buffer, length, charset).scan();
+        } catch (Exception e) {
+            throw new GradleException(String.format("Could not extract includes from source file %s.", sourceFile), e);
+        }
+    }
+
+    /**
+     * Scans a file for directive lines. The comment and line continuation handling is a port of {@link PreprocessingReader} that works on bytes.
+     */
+    private static class Scanner {
+        private static final int LEADING_WHITESPACE = 0;
+        private static final int AFTER_HASH = 1;
+        private static final int KEYWORD = 2;
+        private static final int DIRECTIVE = 3;
+        private static final int SKIP = 4;
+
+        private static final byte[] DEFINE = {'d', 'e', 'f', 'i', 'n', 'e'};
+        private static final byte[] INCLUDE = {'i', 'n', 'c', 'l', 'u', 'd', 'e'};
+        private static final byte[] IMPORT = {'i', 'm', 'p', 'o', 'r', 't'};
+
+        private final byte[] content;
+        private final int length;
+        private final Charset charset;
+        private final RegexBackedCSourceParser.DirectivesCollector directives = new RegexBackedCSourceParser.DirectivesCollector();
+        private int pos;
+        private int readAhead0 = -1;
+        private int readAhead1 = -1;
+        private boolean inString;
+        private boolean quoted;
+
+        // The current line
+        private int lineState;
+        private int keywordStart;
+        private boolean nonAscii;
+        private byte[] line = new byte[256];
+        private int lineLength;
+
+        Scanner(byte[] content, int length, Charset charset) {
+            this.content = content;
+            this.length = length;
+            this.charset = charset;
+        }
+
+        IncludeDirectives scan() {
+            while (readNextLine()) {
+                if (lineState == DIRECTIVE) {
+                    StringBuilder builder = directives.startLine();
+                    if (nonAscii) {
+                        builder.append(new String(line, 0, lineLength, charset));
+                    } else {
+                        for (int i = 0; i < lineLength; i++) {
+                            builder.append((char) line[i]);
+                        }
+                    }
+                    directives.endLine();
+                }
+            }
+            return directives.toIncludeDirectives();
+        }
+
+        private boolean readNextLine() {
+            lineState = LEADING_WHITESPACE;
+            lineLength = 0;
+            nonAscii = false;
+            int ch;
+            boolean read = false;
+            while ((ch = read()) >= 0) {
+                if (ch == '\n') {
+                    return true;
+                }
+                if (ch == '\r') {
+                    int next = next();
+                    if (next != '\n') {
+                        pushBack(next);
+                    }
+                    return true;
+                }
+                append(ch);
+                read = true;
+            }
+            return read;
+        }
+
+        private void append(int ch) {
+            switch (lineState) {
+                case LEADING_WHITESPACE:
+                    if (ch == '#') {
+                        add(ch);
+                        lineState = AFTER_HASH;
+                    } else if (ch >= 0x80) {
+                        add(ch);
+                        lineState = DIRECTIVE;
+                    } else if (isWhitespace(ch)) {
+                        add(ch);
+                    } else {
+                        lineState = SKIP;
+                    }
+                    break;
+                case AFTER_HASH:
+                    add(ch);
+                    if (ch >= 0x80) {
+                        lineState = DIRECTIVE;
+                    } else if (!isWhitespace(ch)) {
+                        keywordStart = lineLength - 1;
+                        lineState = KEYWORD;
+                        checkKeyword();
+                    }
+                    break;
+                case KEYWORD:
+                    add(ch);
+                    if (ch >= 0x80) {
+                        lineState = DIRECTIVE;
+                    } else {
+                        checkKeyword();
+                    }
+                    break;
+                case DIRECTIVE:
+                    add(ch);
+                    break;
+                default:
+                    // Not interested in this line
+            }
+        }
+
+        /**
+         * Decides whether the current line can be a directive of interest, based on the keyword characters seen so far.
+         */
+        private void checkKeyword() {
+            int keywordLength = lineLength - keywordStart;
+            boolean define = matches(DEFINE, keywordLength);
+            boolean include = matches(INCLUDE, keywordLength);
+            boolean importDirective = matches(IMPORT, keywordLength);
+            if (!define && !include && !importDirective) {
+                lineState = SKIP;
+            } else if ((define && keywordLength == DEFINE.length) || (include && keywordLength == INCLUDE.length) || (importDirective && keywordLength == IMPORT.length)) {
+                lineState = DIRECTIVE;
+            }
+        }
+
+        private boolean matches(byte[] keyword, int keywordLength) {
+            if (keywordLength > keyword.length) {
+                return false;
+            }
+            for (int i = 0; i < keywordLength; i++) {
+                if (line[keywordStart + i] != keyword[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isWhitespace(int ch) {
+            return ch == 0 || Character.isWhitespace((char) ch);
+        }
+
+        private void add(int ch) {
+            if (lineLength == line.length) {
+                byte[] larger = new byte[line.length * 2];
+                System.arraycopy(line, 0, larger, 0, lineLength);
+                line = larger;
+            }
+            line[lineLength++] = (byte) ch;
+            if (ch >= 0x80) {
+                nonAscii = true;
+            }
+        }
+
+        /**
+         * Returns the next character with comments replaced by a single space and line continuations removed.
+         */
+        private int read() {
+            int ch = next();
+
+            if (ch == '\\') {
+                if (discardNewLine()) {
+                    return read();
+                }
+            }
+
+            if (ch == '"' && !quoted) {
+                inString = !inString;
+                quoted = false;
+            } else if (ch == '\\') {
+                quoted = !quoted;
+            } else {
+                quoted = false;
+                if (!inString) {
+                    if (ch == '/') {
+                        ch = next();
+                        if (ch == '/') {
+                            while (ch != '\n' && ch != -1 && ch != '\r') {
+                                ch = next();
+                            }
+                        } else if (ch == '*') {
+                            while (ch != -1) {
+                                ch = next();
+                                if (ch == '*') {
+                                    ch = next();
+                                    while (ch == '*') {
+                                        ch = next();
+                                    }
+
+                                    if (ch == '/') {
+                                        ch = ' ';
+                                        break;
+                                    }
+                                }
+                            }
+                        } else {
+                            pushBack(ch);
+                            ch = '/';
+                        }
+                    }
+                }
+            }
+
+            return ch;
+        }
+
+        private boolean discardNewLine() {
+            int nextChar = next();
+            if (nextChar == '\n') {
+                return true;
+            } else if (nextChar == '\r') {
+                int followingChar = next();
+                if (followingChar == '\n') {
+                    return true;
+                }
+                pushBack(nextChar);
+                pushBack(followingChar);
+                return false;
+            } else {
+                pushBack(nextChar);
+                return false;
+            }
+        }
+
+        private int next() {
+            if (readAhead0 != -1) {
+                int ch = readAhead0;
+                readAhead0 = readAhead1;
+                readAhead1 = -1;
+                return ch;
+            }
+            if (pos < length) {
+                return content[pos++] & 0xFF;
+            }
+            return -1;
+        }
+
+        private void pushBack(int ch) {
+            if (readAhead1 != -1) {
+                throw new IllegalStateException();
+            }
+            if (readAhead0 != -1) {
+                readAhead1 = ch;
+            } else {
+                readAhead0 = ch;
+            }
+        }
+    }
+}
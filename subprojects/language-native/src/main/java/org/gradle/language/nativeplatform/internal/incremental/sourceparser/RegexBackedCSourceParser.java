@@ -61,20 +61,39 @@ public class RegexBackedCSourceParser implements CSourceParser {
     }
 
     protected IncludeDirectives parseSource(Reader sourceReader) throws IOException {
-        Set<Include> includes = Sets.newLinkedHashSet();
-        List<Macro> macros = Lists.newArrayList();
-        List<MacroFunction> macroFunctions = Lists.newArrayList();
+        DirectivesCollector directives = new DirectivesCollector();
         BufferedReader reader = new BufferedReader(sourceReader);
         PreprocessingReader lineReader = new PreprocessingReader(reader);
-        Buffer buffer = new Buffer();
-        while (true) {
+        while (lineReader.readNextLine(directives.startLine())) {
+            directives.endLine();
+        }
+        return directives.toIncludeDirectives();
+    }
+
+    /**
+     * Collects the directives from the lines of a source file, after comments and line continuations have been removed from each line.
+     */
+    static class DirectivesCollector {
+        private final Set<Include> includes = Sets.newLinkedHashSet();
+        private final List<Macro> macros = Lists.newArrayList();
+        private final List<MacroFunction> macroFunctions = Lists.newArrayList();
+        private final Buffer buffer = new Buffer();
+
+        /**
+         * Starts a new line, returning the buffer to collect its content into.
+         */
+        StringBuilder startLine() {
             buffer.reset();
-            if (!lineReader.readNextLine(buffer.value)) {
-                break;
-            }
+            return buffer.value;
+        }
+
+        /**
+         * Parses the content of the current line.
+         */
+        void endLine() {
             buffer.consumeWhitespace();
             if (!buffer.consume('#')) {
-                continue;
+                return;
             }
             buffer.consumeWhitespace();
             if (buffer.consume("define")) {
@@ -85,13 +104,16 @@ public class RegexBackedCSourceParser implements CSourceParser {
                 parseIncludeOrImportDirectiveBody(buffer, true, includes);
             }
         }
-        return new DefaultIncludeDirectives(ImmutableList.copyOf(includes), ImmutableList.copyOf(macros), ImmutableList.copyOf(macroFunctions));
+
+        IncludeDirectives toIncludeDirectives() {
+            return new DefaultIncludeDirectives(ImmutableList.copyOf(includes), ImmutableList.copyOf(macros), ImmutableList.copyOf(macroFunctions));
+        }
     }
 
     /**
      * Parses an #include/#import directive body. Consumes all input.
      */
-    private void parseIncludeOrImportDirectiveBody(Buffer buffer, boolean isImport, Collection<Include> includes) {
+    private static void parseIncludeOrImportDirectiveBody(Buffer buffer, boolean isImport, Collection<Include> includes) {
         if (!buffer.hasAny()) {
             // No include expression, ignore
             return;
@@ -117,7 +139,7 @@ public class RegexBackedCSourceParser implements CSourceParser {
     /**
      * Parses a #define directive body. Consumes all input.
      */
-    private void parseDefineDirectiveBody(Buffer buffer, Collection<Macro> macros, Collection<MacroFunction> macroFunctions) {
+    private static void parseDefineDirectiveBody(Buffer buffer, Collection<Macro> macros, Collection<MacroFunction> macroFunctions) {
         if (!buffer.consumeWhitespace()) {
             // No separating whitespace between the #define and the name
             return;
@@ -139,7 +161,7 @@ public class RegexBackedCSourceParser implements CSourceParser {
     /**
      * Parse an "object-like" macro directive body. Consumes all input.
      */
-    private void parseMacroObjectDirectiveBody(Buffer buffer, String macroName, Collection<Macro> macros) {
+    private static void parseMacroObjectDirectiveBody(Buffer buffer, String macroName, Collection<Macro> macros) {
         Expression expression = parseDirectiveBodyExpression(buffer);
         expression = expression.asMacroExpansion();
         if (!expression.getArguments().isEmpty()) {
@@ -157,7 +179,7 @@ public class RegexBackedCSourceParser implements CSourceParser {
     /**
      * Parse a "function-like" macro directive body. Consumes all input.
      */
-    private void parseMacroFunctionDirectiveBody(Buffer buffer, String macroName, Collection<MacroFunction> macroFunctions) {
+    private static void parseMacroFunctionDirectiveBody(Buffer buffer, String macroName, Collection<MacroFunction> macroFunctions) {
         buffer.consumeWhitespace();
         List<String> paramNames = new ArrayList<String>();
         consumeParameterList(buffer, paramNames);
@@ -216,7 +238,7 @@ public class RegexBackedCSourceParser implements CSourceParser {
         macroFunctions.add(new UnresolveableMacroFunction(macroName, paramNames.size()));
     }
 
-    private boolean mapArgs(List<String> paramNames, Expression expression, List<Integer> argsMap) {
+    private static boolean mapArgs(List<String> paramNames, Expression expression, List<Integer> argsMap) {
         boolean usesParameters = false;
         for (int i = 0; i < expression.getArguments().size(); i++) {
             Expression argument = expression.getArguments().get(i);
@@ -253,7 +275,7 @@ public class RegexBackedCSourceParser implements CSourceParser {
         return usesParameters;
     }
 
-    private void consumeParameterList(Buffer buffer, List<String> paramNames) {
+    private static void consumeParameterList(Buffer buffer, List<String> paramNames) {
         String paramName = buffer.readIdentifier();
         while (paramName != null) {
             paramNames.add(paramName);
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental
+
+import com.google.common.collect.ImmutableMap
+import com.google.common.collect.ImmutableSet
+import org.gradle.api.internal.changedetection.state.TestFileSnapshotter
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.RegexBackedCSourceParser
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+
+@UsesNativeServices
+class ParallelSourceIncludesParserTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def includeDir = tmpDir.createDir("headers")
+    def sourceDir = tmpDir.createDir("src")
+    def delegate = Spy(DefaultSourceIncludesParser, constructorArgs: [new RegexBackedCSourceParser(), true])
+    def buildOperationExecutor = new TestBuildOperationExecutor()
+    def snapshotter = new TestFileSnapshotter()
+    def parser = new ParallelSourceIncludesParser(delegate, [includeDir], snapshotter, buildOperationExecutor)
+
+    def "parses source files and the headers reachable from them once"() {
+        def source1 = sourceDir.file("a.cpp") << """
+            #include "local.h"
+            #include <one.h>
+        """
+        def source2 = sourceDir.file("b.cpp") << """
+            #include <one.h>
+        """
+        def local = sourceDir.file("local.h") << ""
+        def one = includeDir.file("one.h") << """
+            #include "two.h"
+        """
+        def two = includeDir.file("two.h") << ""
+
+        when:
+        parser.parseChanged([source1, source2], null)
+
+        then:
+        1 * delegate.parseIncludes(source1)
+        1 * delegate.parseIncludes(source2)
+        1 * delegate.parseIncludes(local)
+        1 * delegate.parseIncludes(one)
+        1 * delegate.parseIncludes(two)
+        0 * delegate._
+
+        when:
+        def result = parser.parseIncludes(one)
+
+        then:
+        result.quotedIncludes*.value == ["two.h"]
+        0 * delegate._
+    }
+
+    def "does not follow macro includes or missing headers"() {
+        def source = sourceDir.file("a.cpp") << """
+            #define HEADER "macro.h"
+            #include HEADER
+            #include "missing.h"
+        """
+        def macroHeader = includeDir.file("macro.h") << ""
+
+        when:
+        parser.parseChanged([source], null)
+
+        then:
+        1 * delegate.parseIncludes(source)
+        0 * delegate._
+
+        when:
+        parser.parseIncludes(macroHeader)
+
+        then:
+        1 * delegate.parseIncludes(macroHeader)
+    }
+
+    def "does not parse files that have not changed since the previous compilation"() {
+        def unchanged = sourceDir.file("a.cpp") << """
+            #include "unchanged.h"
+            #include "changed.h"
+        """
+        def changed = sourceDir.file("b.cpp") << """
+            #include "new.h"
+            #include "unchanged.h"
+        """
+        def unchangedHeader = sourceDir.file("unchanged.h") << ""
+        def changedHeader = sourceDir.file("changed.h") << "// changed"
+        def newHeader = sourceDir.file("new.h") << ""
+        def previousState = new CompilationState(ImmutableMap.of(
+            unchanged, new SourceFileState(hash(unchanged), ImmutableSet.of(new IncludeFileState(hash(unchangedHeader), unchangedHeader), new IncludeFileState(HashCode.fromInt(1), changedHeader))),
+            changed, new SourceFileState(HashCode.fromInt(2), ImmutableSet.of())))
+
+        when:
+        parser.parseChanged([unchanged, changed], previousState)
+
+        then:
+        1 * delegate.parseIncludes(changed)
+        1 * delegate.parseIncludes(changedHeader)
+        1 * delegate.parseIncludes(newHeader)
+        0 * delegate._
+
+        when:
+        parser.parseIncludes(unchanged)
+
+        then:
+        1 * delegate.parseIncludes(unchanged)
+    }
+
+    def "ignores source files that do not exist"() {
+        when:
+        parser.parseChanged([sourceDir.file("missing.cpp")], null)
+
+        then:
+        0 * delegate._
+    }
+
+    HashCode hash(File file) {
+        snapshotter.snapshotSelf(file).content.contentMd5
+    }
+}
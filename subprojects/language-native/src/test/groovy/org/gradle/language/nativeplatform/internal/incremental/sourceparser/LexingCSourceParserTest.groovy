@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental.sourceparser
+
+import java.nio.charset.Charset
+
+class LexingCSourceParserTest extends RegexBackedCSourceParserTest {
+    def setup() {
+        parser = new LexingCSourceParser()
+    }
+
+    def "produces the same result as the regex backed parser for a file with mixed content"() {
+        given:
+        sourceFile << """
+/* A comment
+#include "commented.h"
+*/
+#include "a.h" // trailing comment
+  #  include <b.h>
+#inc\\
+lude "continued.h"
+#ifdef FOO
+#import "c.h"
+#endif
+#includes "not-a-directive.h"
+#define HEADER "d.h"
+#define FUNC(X) X
+#include HEADER
+const char* s = "#include \\"in-string.h\\"";
+#include "café.h"\r
+#include "last.h\""""
+
+        expect:
+        new LexingCSourceParser().parseSource(sourceFile) == new RegexBackedCSourceParser().parseSource(sourceFile)
+    }
+
+    def "delegates to the regex backed parser when the charset is not ASCII compatible"() {
+        given:
+        sourceFile << '#include "a.h"'
+
+        expect:
+        new LexingCSourceParser(Charset.forName("UTF-16")).parseSource(sourceFile).includesOnly.value == ['a.h']
+    }
+}
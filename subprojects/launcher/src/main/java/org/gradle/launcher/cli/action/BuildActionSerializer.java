@@ -106,6 +106,7 @@ public class BuildActionSerializer {
             encoder.writeBoolean(startParameter.isDryRun());
             encoder.writeBoolean(startParameter.isRerunTasks());
             encoder.writeBoolean(startParameter.isProfile());
+            encoder.writeBoolean(startParameter.isProfileCompare());
             encoder.writeBoolean(startParameter.isContinueOnFailure());
             encoder.writeBoolean(startParameter.isOffline());
             encoder.writeBoolean(startParameter.isRefreshDependencies());
@@ -175,6 +176,7 @@ public class BuildActionSerializer {
             startParameter.setDryRun(decoder.readBoolean());
             startParameter.setRerunTasks(decoder.readBoolean());
             startParameter.setProfile(decoder.readBoolean());
+            startParameter.setProfileCompare(decoder.readBoolean());
             startParameter.setContinueOnFailure(decoder.readBoolean());
             startParameter.setOffline(decoder.readBoolean());
             startParameter.setRefreshDependencies(decoder.readBoolean());
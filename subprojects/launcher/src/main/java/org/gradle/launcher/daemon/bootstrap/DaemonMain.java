@@ -31,11 +31,14 @@ import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.service.scopes.GradleUserHomeScopeServiceRegistry;
 import org.gradle.launcher.bootstrap.EntryPoint;
 import org.gradle.launcher.bootstrap.ExecutionListener;
+import org.gradle.launcher.daemon.configuration.ClassDataSharingArchive;
 import org.gradle.launcher.daemon.configuration.DaemonServerConfiguration;
 import org.gradle.launcher.daemon.configuration.DefaultDaemonServerConfiguration;
 import org.gradle.launcher.daemon.context.DaemonContext;
 import org.gradle.launcher.daemon.logging.DaemonMessages;
+import org.gradle.launcher.daemon.server.ClassDataSharingArchiveGenerator;
 import org.gradle.launcher.daemon.server.Daemon;
+import org.gradle.launcher.daemon.server.DaemonPrewarmer;
 import org.gradle.launcher.daemon.server.DaemonServices;
 import org.gradle.launcher.daemon.server.MasterExpirationStrategy;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationStrategy;
@@ -78,6 +81,10 @@ public class DaemonMain extends EntryPoint {
         int idleTimeoutMs;
         int periodicCheckIntervalMs;
         boolean singleUse;
+        boolean warmStandby;
+        boolean spare;
+        boolean concurrentBuilds;
+        File classDataSharingArchive;
         String daemonUid;
         List<File> additionalClassPath;
 
@@ -88,6 +95,11 @@ public class DaemonMain extends EntryPoint {
             idleTimeoutMs = decoder.readSmallInt();
             periodicCheckIntervalMs = decoder.readSmallInt();
             singleUse = decoder.readBoolean();
+            warmStandby = decoder.readBoolean();
+            spare = decoder.readBoolean();
+            concurrentBuilds = decoder.readBoolean();
+            String classDataSharingArchivePath = decoder.readString();
+            classDataSharingArchive = classDataSharingArchivePath.isEmpty() ? null : new File(classDataSharingArchivePath);
             daemonUid = decoder.readString();
             int argCount = decoder.readSmallInt();
             startupOpts = new ArrayList<String>(argCount);
@@ -104,7 +116,7 @@ public class DaemonMain extends EntryPoint {
         }
 
         NativeServices.initialize(gradleHomeDir);
-        DaemonServerConfiguration parameters = new DefaultDaemonServerConfiguration(daemonUid, daemonBaseDir, idleTimeoutMs, periodicCheckIntervalMs, singleUse, startupOpts);
+        DaemonServerConfiguration parameters = new DefaultDaemonServerConfiguration(daemonUid, daemonBaseDir, idleTimeoutMs, periodicCheckIntervalMs, singleUse, warmStandby, spare, concurrentBuilds, classDataSharingArchive, startupOpts);
         LoggingServiceRegistry loggingRegistry = LoggingServiceRegistry.newCommandLineProcessLogging();
         LoggingManagerInternal loggingManager = loggingRegistry.newInstance(LoggingManagerInternal.class);
 
@@ -126,7 +138,13 @@ public class DaemonMain extends EntryPoint {
         try {
             DaemonContext daemonContext = daemonServices.get(DaemonContext.class);
             Long pid = daemonContext.getPid();
-            daemonStarted(pid, daemon.getUid(), daemon.getAddress(), daemonLog);
+            daemonStarted(pid, daemon.getUid(), daemon.getAddress(), daemonLog, ClassDataSharingArchive.isUsedByCurrentJvm());
+            if (parameters.isSpare()) {
+                // A spare daemon starts busy, so that no client uses it before it has warmed up
+                daemonServices.get(DaemonPrewarmer.class).run();
+                daemon.advertiseIdle();
+            }
+            daemonServices.get(ClassDataSharingArchiveGenerator.class).generateIfMissing(parameters.getClassDataSharingArchive());
             DaemonExpirationStrategy expirationStrategy = daemonServices.get(MasterExpirationStrategy.class);
             daemon.stopOnExpiration(expirationStrategy, parameters.getPeriodicCheckIntervalMs());
         } finally {
@@ -142,9 +160,9 @@ public class DaemonMain extends EntryPoint {
         System.exit(1);
     }
 
-    protected void daemonStarted(Long pid, String uid, Address address, File daemonLog) {
+    protected void daemonStarted(Long pid, String uid, Address address, File daemonLog, boolean classDataSharing) {
         //directly printing to the stream to avoid log level filtering.
-        new DaemonStartupCommunication().printDaemonStarted(originalOut, pid, uid, address, daemonLog);
+        new DaemonStartupCommunication().printDaemonStarted(originalOut, pid, uid, address, daemonLog, classDataSharing);
         try {
             originalOut.close();
             originalErr.close();
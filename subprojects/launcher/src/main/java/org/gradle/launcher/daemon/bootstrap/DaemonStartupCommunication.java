@@ -37,7 +37,7 @@ public class DaemonStartupCommunication {
 
     private static final Logger LOGGER = Logging.getLogger(DaemonStartupCommunication.class);
 
-    public void printDaemonStarted(PrintStream target, Long pid, String uid, Address address, File daemonLog) {
+    public void printDaemonStarted(PrintStream target, Long pid, String uid, Address address, File daemonLog, boolean classDataSharing) {
         target.print(daemonGreeting());
 
         // Encode as ascii
@@ -49,6 +49,7 @@ public class DaemonStartupCommunication {
             MultiChoiceAddress multiChoiceAddress = (MultiChoiceAddress) address;
             new MultiChoiceAddressSerializer().write(encoder, multiChoiceAddress);
             encoder.writeString(daemonLog.getPath());
+            encoder.writeBoolean(classDataSharing);
             encoder.flush();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -77,7 +78,8 @@ public class DaemonStartupCommunication {
             Long pid = pidString == null ? null : Long.valueOf(pidString);
             Address address = new MultiChoiceAddressSerializer().read(decoder);
             File daemonLog = new File(decoder.readString());
-            return new DaemonStartupInfo(uid, address, new DaemonDiagnostics(daemonLog, pid));
+            boolean classDataSharing = decoder.readBoolean();
+            return new DaemonStartupInfo(uid, address, new DaemonDiagnostics(daemonLog, pid), classDataSharing);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -15,11 +15,14 @@
  */
 package org.gradle.launcher.daemon.client;
 
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.launcher.daemon.configuration.DaemonParameters;
 import org.gradle.launcher.daemon.context.DaemonContextBuilder;
 import org.gradle.launcher.daemon.registry.DaemonDir;
+import org.gradle.launcher.daemon.registry.DaemonRegistry;
 import org.gradle.launcher.daemon.registry.DaemonRegistryServices;
+import org.gradle.process.internal.health.memory.DefaultOsMemoryInfo;
 
 import java.io.InputStream;
 
@@ -39,6 +42,10 @@ public class DaemonClientServices extends DaemonClientServicesSupport {
         return new DefaultDaemonStarter(daemonDir, daemonParameters, daemonGreeter, jvmVersionValidator);
     }
 
+    SpareDaemonStarter createSpareDaemonStarter(DaemonRegistry daemonRegistry, DaemonStarter daemonStarter, DaemonParameters daemonParameters, ExecutorFactory executorFactory) {
+        return new SpareDaemonStarter(daemonRegistry, daemonStarter, daemonParameters, new DefaultOsMemoryInfo(), executorFactory);
+    }
+
     protected void configureDaemonContextBuilder(DaemonContextBuilder builder) {
         builder.setDaemonRegistryDir(get(DaemonDir.class).getBaseDir());
         builder.useDaemonParameters(daemonParameters);
@@ -19,4 +19,9 @@ import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
 
 public interface DaemonStarter {
     DaemonStartupInfo startDaemon(boolean singleRun);
+
+    /**
+     * Starts a spare daemon, which warms itself up and then waits idle for a build.
+     */
+    DaemonStartupInfo startSpareDaemon();
 }
@@ -25,6 +25,8 @@ public class DaemonStartupMessage {
     public static final String STARTING_DAEMON_MESSAGE = "Starting a Gradle Daemon";
     public static final String SUBSEQUENT_BUILDS_WILL_BE_FASTER = "(subsequent builds will be faster)";
     public static final String NOT_REUSED_MESSAGE = " could not be reused, use --status for details";
+    public static final String WITH_CLASS_DATA_SHARING = "with class data sharing archive";
+    public static final String WITHOUT_CLASS_DATA_SHARING = "without class data sharing archive";
 
     public static String generate(final int numBusy, final int numIncompatible, final int numStopped) {
         final int totalUnavailableDaemons = numBusy + numIncompatible + numStopped;
@@ -47,4 +49,8 @@ public class DaemonStartupMessage {
             return STARTING_DAEMON_MESSAGE + " " + SUBSEQUENT_BUILDS_WILL_BE_FASTER;
         }
     }
+
+    public static String startupTime(String elapsed, boolean classDataSharing) {
+        return "An attempt to start the daemon took " + elapsed + " (" + (classDataSharing ? WITH_CLASS_DATA_SHARING : WITHOUT_CLASS_DATA_SHARING) + ").";
+    }
 }
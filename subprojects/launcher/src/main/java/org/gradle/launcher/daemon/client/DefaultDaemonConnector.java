@@ -44,6 +44,7 @@ import org.gradle.launcher.daemon.registry.DaemonStopEvents;
 import org.gradle.launcher.daemon.server.api.DaemonStateControl;
 import org.gradle.util.CollectionUtils;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Date;
 import java.util.LinkedList;
@@ -66,10 +67,16 @@ public class DefaultDaemonConnector implements DaemonConnector {
     private final DaemonStartListener startListener;
     private final ProgressLoggerFactory progressLoggerFactory;
     private final Serializer<Message> serializer;
+    private final SpareDaemonStarter spareDaemonStarter;
     private long connectTimeout = DefaultDaemonConnector.DEFAULT_CONNECT_TIMEOUT;
 
     public DefaultDaemonConnector(DaemonRegistry daemonRegistry, OutgoingConnector connector, DaemonStarter daemonStarter, DaemonStartListener startListener, ProgressLoggerFactory progressLoggerFactory, Serializer<Message> serializer) {
+        this(daemonRegistry, connector, daemonStarter, startListener, progressLoggerFactory, serializer, null);
+    }
+
+    public DefaultDaemonConnector(DaemonRegistry daemonRegistry, OutgoingConnector connector, DaemonStarter daemonStarter, DaemonStartListener startListener, ProgressLoggerFactory progressLoggerFactory, Serializer<Message> serializer, @Nullable SpareDaemonStarter spareDaemonStarter) {
         this.serializer = serializer;
+        this.spareDaemonStarter = spareDaemonStarter;
         Preconditions.checkNotNull(daemonRegistry);
         Preconditions.checkNotNull(connector);
         Preconditions.checkNotNull(daemonStarter);
@@ -109,6 +116,14 @@ public class DefaultDaemonConnector implements DaemonConnector {
     }
 
     public DaemonClientConnection connect(ExplainingSpec<DaemonContext> constraint) {
+        DaemonClientConnection connection = doConnect(constraint);
+        if (spareDaemonStarter != null) {
+            spareDaemonStarter.buildStarted(constraint, connection.getDaemon());
+        }
+        return connection;
+    }
+
+    private DaemonClientConnection doConnect(ExplainingSpec<DaemonContext> constraint) {
         final Pair<Collection<DaemonInfo>, Collection<DaemonInfo>> idleBusy = partitionByState(daemonRegistry.getAll(), Idle);
         final Collection<DaemonInfo> idleDaemons = idleBusy.getLeft();
         final Collection<DaemonInfo> busyDaemons = idleBusy.getRight();
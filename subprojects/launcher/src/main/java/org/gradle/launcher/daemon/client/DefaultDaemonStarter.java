@@ -34,6 +34,7 @@ import org.gradle.internal.time.Timer;
 import org.gradle.launcher.daemon.DaemonExecHandleBuilder;
 import org.gradle.launcher.daemon.bootstrap.DaemonOutputConsumer;
 import org.gradle.launcher.daemon.bootstrap.GradleDaemon;
+import org.gradle.launcher.daemon.configuration.ClassDataSharingArchive;
 import org.gradle.launcher.daemon.configuration.DaemonParameters;
 import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
 import org.gradle.launcher.daemon.registry.DaemonDir;
@@ -68,6 +69,15 @@ public class DefaultDaemonStarter implements DaemonStarter {
     }
 
     public DaemonStartupInfo startDaemon(boolean singleUse) {
+        return startDaemon(singleUse, false);
+    }
+
+    @Override
+    public DaemonStartupInfo startSpareDaemon() {
+        return startDaemon(false, true);
+    }
+
+    private DaemonStartupInfo startDaemon(boolean singleUse, boolean spare) {
         String daemonUid = UUID.randomUUID().toString();
 
         GradleInstallation gradleInstallation = CurrentGradleInstallation.get();
@@ -93,10 +103,20 @@ public class DefaultDaemonStarter implements DaemonStarter {
         versionValidator.validate(daemonParameters);
 
         List<String> daemonArgs = new ArrayList<String>();
-        daemonArgs.add(daemonParameters.getEffectiveJvm().getJavaExecutable().getAbsolutePath());
+        File javaExecutable = daemonParameters.getEffectiveJvm().getJavaExecutable();
+        daemonArgs.add(javaExecutable.getAbsolutePath());
 
         List<String> daemonOpts = daemonParameters.getEffectiveJvmArgs();
         daemonArgs.addAll(daemonOpts);
+
+        // The archive is not part of the daemon opts, so that it does not affect daemon compatibility
+        ClassDataSharingArchive classDataSharingArchive = null;
+        if (daemonParameters.isClassDataSharing()) {
+            classDataSharingArchive = ClassDataSharingArchive.forDaemon(daemonDir.getVersionedDir(), javaExecutable, classpath.getAsFiles());
+            if (classDataSharingArchive.exists()) {
+                daemonArgs.addAll(classDataSharingArchive.getJvmArgs());
+            }
+        }
         daemonArgs.add("-cp");
         daemonArgs.add(CollectionUtils.join(File.pathSeparator, classpath.getAsFiles()));
 
@@ -118,6 +138,10 @@ public class DefaultDaemonStarter implements DaemonStarter {
             encoder.writeSmallInt(daemonParameters.getIdleTimeout());
             encoder.writeSmallInt(daemonParameters.getPeriodicCheckInterval());
             encoder.writeBoolean(singleUse);
+            encoder.writeBoolean(daemonParameters.isWarmStandby());
+            encoder.writeBoolean(spare);
+            encoder.writeBoolean(daemonParameters.isConcurrentBuilds());
+            encoder.writeString(classDataSharingArchive == null ? "" : classDataSharingArchive.getArchiveFile().getAbsolutePath());
             encoder.writeString(daemonUid);
             encoder.writeSmallInt(daemonOpts.size());
             for (String daemonOpt : daemonOpts) {
@@ -139,6 +163,7 @@ public class DefaultDaemonStarter implements DaemonStarter {
     private DaemonStartupInfo startProcess(List<String> args, File workingDir, InputStream stdInput) {
         LOGGER.debug("Starting daemon process: workingDir = {}, daemonArgs: {}", workingDir, args);
         Timer clock = Time.startTimer();
+        DaemonStartupInfo startupInfo = null;
         try {
             GFileUtils.mkdirs(workingDir);
 
@@ -157,13 +182,18 @@ public class DefaultDaemonStarter implements DaemonStarter {
                 execActionFactory.stop();
             }
 
-            return daemonGreeter.parseDaemonOutput(outputConsumer.getProcessOutput());
+            startupInfo = daemonGreeter.parseDaemonOutput(outputConsumer.getProcessOutput());
+            return startupInfo;
         } catch (GradleException e) {
             throw e;
         } catch (Exception e) {
             throw new GradleException("Could not start Gradle daemon.", e);
         } finally {
-            LOGGER.info("An attempt to start the daemon took {}.", clock.getElapsed());
+            if (startupInfo == null) {
+                LOGGER.info("An attempt to start the daemon took {}.", clock.getElapsed());
+            } else {
+                LOGGER.info(DaemonStartupMessage.startupTime(clock.getElapsed(), startupInfo.isClassDataSharing()));
+            }
         }
     }
 
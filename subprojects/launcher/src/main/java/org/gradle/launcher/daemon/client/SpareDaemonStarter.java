@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.client;
+
+import org.gradle.api.internal.specs.ExplainingSpec;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.launcher.daemon.configuration.DaemonParameters;
+import org.gradle.launcher.daemon.context.DaemonConnectDetails;
+import org.gradle.launcher.daemon.context.DaemonContext;
+import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
+import org.gradle.launcher.daemon.registry.DaemonInfo;
+import org.gradle.launcher.daemon.registry.DaemonRegistry;
+import org.gradle.process.internal.health.memory.MaximumHeapHelper;
+import org.gradle.process.internal.health.memory.MemoryAmount;
+import org.gradle.process.internal.health.memory.OsMemoryInfo;
+import org.gradle.process.internal.health.memory.OsMemoryStatus;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts a spare daemon in the background when warm standby is enabled, so that a warmed up daemon is available for the next build.
+ *
+ * <p>A spare is started at most once per client, only when no other compatible daemon is idle, and only when the OS has enough free memory
+ * for the spare's maximum heap plus a safety margin. The spare is started while the build runs. {@link #stop()} waits a limited time for it to be
+ * started, so that a short build is not held up by a slow spare.</p>
+ */
+public class SpareDaemonStarter implements Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(SpareDaemonStarter.class);
+    static final long MEMORY_MARGIN = MemoryAmount.parseNotation("256m");
+    static final int STOP_TIMEOUT_MILLIS = 5000;
+    private static final String XMX_PREFIX = "-Xmx";
+
+    private final DaemonRegistry daemonRegistry;
+    private final DaemonStarter daemonStarter;
+    private final DaemonParameters daemonParameters;
+    private final OsMemoryInfo memoryInfo;
+    private final ExecutorFactory executorFactory;
+    private final int stopTimeoutMillis;
+    private ManagedExecutor executor;
+
+    public SpareDaemonStarter(DaemonRegistry daemonRegistry, DaemonStarter daemonStarter, DaemonParameters daemonParameters, OsMemoryInfo memoryInfo, ExecutorFactory executorFactory) {
+        this(daemonRegistry, daemonStarter, daemonParameters, memoryInfo, executorFactory, STOP_TIMEOUT_MILLIS);
+    }
+
+    SpareDaemonStarter(DaemonRegistry daemonRegistry, DaemonStarter daemonStarter, DaemonParameters daemonParameters, OsMemoryInfo memoryInfo, ExecutorFactory executorFactory, int stopTimeoutMillis) {
+        this.daemonRegistry = daemonRegistry;
+        this.daemonStarter = daemonStarter;
+        this.daemonParameters = daemonParameters;
+        this.memoryInfo = memoryInfo;
+        this.executorFactory = executorFactory;
+        this.stopTimeoutMillis = stopTimeoutMillis;
+    }
+
+    /**
+     * Called when a build is about to run in the given daemon. Starts a spare daemon compatible with the given constraint, when required.
+     */
+    public synchronized void buildStarted(ExplainingSpec<DaemonContext> constraint, DaemonConnectDetails daemon) {
+        if (executor != null || !daemonParameters.isEnabled() || !daemonParameters.isWarmStandby()) {
+            return;
+        }
+        if (hasOtherIdleDaemon(constraint, daemon)) {
+            LOGGER.debug("Not starting a spare daemon, as another compatible daemon is idle.");
+            return;
+        }
+        if (!hasMemoryForSpare()) {
+            return;
+        }
+        executor = executorFactory.create("Spare daemon starter");
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    DaemonStartupInfo startupInfo = daemonStarter.startSpareDaemon();
+                    LOGGER.info("Started spare Gradle daemon {}", startupInfo);
+                } catch (Exception e) {
+                    LOGGER.info("Could not start a spare Gradle daemon.", e);
+                }
+            }
+        });
+    }
+
+    private boolean hasOtherIdleDaemon(ExplainingSpec<DaemonContext> constraint, DaemonConnectDetails daemon) {
+        for (DaemonInfo daemonInfo : daemonRegistry.getIdle()) {
+            if (!daemonInfo.getUid().equals(daemon.getUid()) && constraint.isSatisfiedBy(daemonInfo.getContext())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasMemoryForSpare() {
+        OsMemoryStatus memoryStatus;
+        try {
+            memoryStatus = memoryInfo.getOsSnapshot();
+        } catch (UnsupportedOperationException e) {
+            LOGGER.debug("Not starting a spare daemon, as the free memory cannot be determined.", e);
+            return false;
+        }
+        long required = getMaximumHeapSize(memoryStatus.getTotalPhysicalMemory()) + MEMORY_MARGIN;
+        if (memoryStatus.getFreePhysicalMemory() < required) {
+            LOGGER.debug("Not starting a spare daemon, as only {} bytes of memory are free and {} bytes are required.", memoryStatus.getFreePhysicalMemory(), required);
+            return false;
+        }
+        return true;
+    }
+
+    private long getMaximumHeapSize(long totalMemory) {
+        String maxHeapSize = null;
+        for (String arg : daemonParameters.getEffectiveJvmArgs()) {
+            if (arg.startsWith(XMX_PREFIX)) {
+                maxHeapSize = arg.substring(XMX_PREFIX.length());
+            }
+        }
+        long bytes = MemoryAmount.parseNotation(maxHeapSize);
+        return bytes > 0 ? bytes : new MaximumHeapHelper().getDefaultMaximumHeapSize(totalMemory);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            try {
+                executor.stop(stopTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (IllegalStateException e) {
+                LOGGER.info("Gave up waiting for the spare Gradle daemon to start after {} ms.", stopTimeoutMillis);
+            }
+        }
+    }
+}
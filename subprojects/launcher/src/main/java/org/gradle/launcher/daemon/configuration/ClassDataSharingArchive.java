@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.configuration;
+
+import org.gradle.internal.hash.HashUtil;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A class data sharing archive for the bootstrap classpath of the daemon. The archive is keyed by the Java executable and by the path, size and
+ * modification time of each classpath entry, so that a new archive is used when either the JVM or the Gradle distribution changes.
+ */
+public class ClassDataSharingArchive {
+    private static final String SHARED_ARCHIVE_FILE_ARG = "-XX:SharedArchiveFile=";
+
+    private final File archiveFile;
+
+    public ClassDataSharingArchive(File archiveFile) {
+        this.archiveFile = archiveFile;
+    }
+
+    /**
+     * Returns the archive to use for a daemon started with the given Java executable and classpath.
+     */
+    public static ClassDataSharingArchive forDaemon(File daemonVersionedDir, File javaExecutable, List<File> classpath) {
+        StringBuilder key = new StringBuilder();
+        appendKey(key, javaExecutable);
+        for (File file : classpath) {
+            appendKey(key, file);
+        }
+        return new ClassDataSharingArchive(new File(new File(daemonVersionedDir, "cds"), HashUtil.createCompactMD5(key.toString()) + ".jsa"));
+    }
+
+    private static void appendKey(StringBuilder key, File file) {
+        key.append(file.getAbsolutePath()).append(':').append(file.length()).append(':').append(file.lastModified()).append('\n');
+    }
+
+    public File getArchiveFile() {
+        return archiveFile;
+    }
+
+    public boolean exists() {
+        return archiveFile.isFile();
+    }
+
+    /**
+     * Returns the JVM arguments that make a process use this archive. The JVM silently ignores an archive that does not match the JVM or the classpath.
+     */
+    public List<String> getJvmArgs() {
+        return Arrays.asList(SHARED_ARCHIVE_FILE_ARG + archiveFile.getAbsolutePath(), "-Xshare:auto");
+    }
+
+    /**
+     * Returns true when the current JVM was started with a class data sharing archive and actually uses it. A JVM started with {@code -Xshare:auto}
+     * disables sharing when it cannot map the archive, so the arguments alone do not tell whether the archive is used.
+     */
+    public static boolean isUsedByCurrentJvm() {
+        boolean archiveRequested = false;
+        for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (arg.startsWith(SHARED_ARCHIVE_FILE_ARG)) {
+                archiveRequested = true;
+            }
+        }
+        return archiveRequested && isSharingEnabled();
+    }
+
+    private static boolean isSharingEnabled() {
+        try {
+            // Only available on HotSpot based JVMs
+            CompositeData option = (CompositeData) ManagementFactory.getPlatformMBeanServer().invoke(new ObjectName("com.sun.management:type=HotSpotDiagnostic"),
+                "getVMOption", new Object[]{"UseSharedSpaces"}, new String[]{String.class.getName()});
+            return "true".equals(option.get("value"));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
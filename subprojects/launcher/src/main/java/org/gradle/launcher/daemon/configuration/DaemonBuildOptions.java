@@ -46,6 +46,9 @@ public class DaemonBuildOptions {
         options.add(new JavaHomeOption());
         options.add(new DebugOption());
         options.add(new DaemonOption());
+        options.add(new WarmStandbyOption());
+        options.add(new ClassDataSharingOption());
+        options.add(new ConcurrentBuildsOption());
         options.add(new ForegroundOption());
         options.add(new StopOption());
         options.add(new StatusOption());
@@ -169,6 +172,45 @@ public class DaemonBuildOptions {
         }
     }
 
+    public static class WarmStandbyOption extends BooleanBuildOption<DaemonParameters> {
+        public static final String GRADLE_PROPERTY = "org.gradle.daemon.warmstandby";
+
+        public WarmStandbyOption() {
+            super(GRADLE_PROPERTY);
+        }
+
+        @Override
+        public void applyTo(boolean value, DaemonParameters settings, Origin origin) {
+            settings.setWarmStandby(value);
+        }
+    }
+
+    public static class ClassDataSharingOption extends BooleanBuildOption<DaemonParameters> {
+        public static final String GRADLE_PROPERTY = "org.gradle.daemon.classdatasharing";
+
+        public ClassDataSharingOption() {
+            super(GRADLE_PROPERTY);
+        }
+
+        @Override
+        public void applyTo(boolean value, DaemonParameters settings, Origin origin) {
+            settings.setClassDataSharing(value);
+        }
+    }
+
+    public static class ConcurrentBuildsOption extends BooleanBuildOption<DaemonParameters> {
+        public static final String GRADLE_PROPERTY = "org.gradle.daemon.concurrentbuilds";
+
+        public ConcurrentBuildsOption() {
+            super(GRADLE_PROPERTY);
+        }
+
+        @Override
+        public void applyTo(boolean value, DaemonParameters settings, Origin origin) {
+            settings.setConcurrentBuilds(value);
+        }
+    }
+
     public static class ForegroundOption extends EnabledOnlyBooleanBuildOption<DaemonParameters> {
         public ForegroundOption() {
             super(null, CommandLineOptionConfiguration.create("foreground", "Starts the Gradle Daemon in the foreground.").incubating());
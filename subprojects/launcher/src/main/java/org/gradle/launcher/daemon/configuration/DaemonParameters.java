@@ -52,6 +52,9 @@ public class DaemonParameters {
     private boolean foreground;
     private boolean stop;
     private boolean status;
+    private boolean warmStandby;
+    private boolean classDataSharing = true;
+    private boolean concurrentBuilds;
     private boolean interactive = ConsoleStateUtil.isInteractive();
     private JavaInfo jvm = Jvm.current();
 
@@ -204,6 +207,30 @@ public class DaemonParameters {
         this.status = status;
     }
 
+    public boolean isWarmStandby() {
+        return warmStandby;
+    }
+
+    public void setWarmStandby(boolean warmStandby) {
+        this.warmStandby = warmStandby;
+    }
+
+    public boolean isConcurrentBuilds() {
+        return concurrentBuilds;
+    }
+
+    public void setConcurrentBuilds(boolean concurrentBuilds) {
+        this.concurrentBuilds = concurrentBuilds;
+    }
+
+    public boolean isClassDataSharing() {
+        return classDataSharing;
+    }
+
+    public void setClassDataSharing(boolean classDataSharing) {
+        this.classDataSharing = classDataSharing;
+    }
+
     public Map<String, String> getEnvironmentVariables() {
         return envVariables;
     }
@@ -16,6 +16,7 @@
 
 package org.gradle.launcher.daemon.configuration;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.List;
 
@@ -32,4 +33,25 @@ public interface DaemonServerConfiguration {
     List<String> getJvmOptions();
 
     boolean isSingleUse();
+
+    /**
+     * Returns true when a spare daemon is kept available for the next build.
+     */
+    boolean isWarmStandby();
+
+    /**
+     * Returns true when this daemon was started as a spare, rather than to run a build.
+     */
+    boolean isSpare();
+
+    /**
+     * Returns true when the daemon may run builds of different root directories, or read-only model queries, concurrently.
+     */
+    boolean isConcurrentBuilds();
+
+    /**
+     * Returns the class data sharing archive that the daemon should create when missing, or null when class data sharing is disabled.
+     */
+    @Nullable
+    File getClassDataSharingArchive();
 }
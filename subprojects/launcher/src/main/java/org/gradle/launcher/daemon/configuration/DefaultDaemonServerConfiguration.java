@@ -16,6 +16,7 @@
 
 package org.gradle.launcher.daemon.configuration;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.List;
 
@@ -27,14 +28,26 @@ public class DefaultDaemonServerConfiguration implements DaemonServerConfigurati
     private final int periodicCheckIntervalMs;
     private final boolean singleUse;
     private final List<String> jvmOptions;
+    private final boolean warmStandby;
+    private final boolean spare;
+    private final boolean concurrentBuilds;
+    private final File classDataSharingArchive;
 
     public DefaultDaemonServerConfiguration(String daemonUid, File daemonBaseDir, int idleTimeoutMs, int periodicCheckIntervalMs, boolean singleUse, List<String> jvmOptions) {
+        this(daemonUid, daemonBaseDir, idleTimeoutMs, periodicCheckIntervalMs, singleUse, false, false, false, null, jvmOptions);
+    }
+
+    public DefaultDaemonServerConfiguration(String daemonUid, File daemonBaseDir, int idleTimeoutMs, int periodicCheckIntervalMs, boolean singleUse, boolean warmStandby, boolean spare, boolean concurrentBuilds, @Nullable File classDataSharingArchive, List<String> jvmOptions) {
         this.daemonUid = daemonUid;
         this.daemonBaseDir = daemonBaseDir;
         this.idleTimeoutMs = idleTimeoutMs;
         this.periodicCheckIntervalMs = periodicCheckIntervalMs;
         this.singleUse = singleUse;
         this.jvmOptions = jvmOptions;
+        this.warmStandby = warmStandby;
+        this.spare = spare;
+        this.concurrentBuilds = concurrentBuilds;
+        this.classDataSharingArchive = classDataSharingArchive;
     }
 
     @Override
@@ -66,4 +79,25 @@ public class DefaultDaemonServerConfiguration implements DaemonServerConfigurati
     public boolean isSingleUse() {
         return singleUse;
     }
+
+    @Override
+    public boolean isWarmStandby() {
+        return warmStandby;
+    }
+
+    @Override
+    public boolean isSpare() {
+        return spare;
+    }
+
+    @Override
+    public boolean isConcurrentBuilds() {
+        return concurrentBuilds;
+    }
+
+    @Nullable
+    @Override
+    public File getClassDataSharingArchive() {
+        return classDataSharingArchive;
+    }
 }
@@ -22,11 +22,17 @@ public class DaemonStartupInfo {
     private final String uid;
     private final Address address;
     private final DaemonDiagnostics diagnostics;
+    private final boolean classDataSharing;
 
     public DaemonStartupInfo(String uid, Address address, DaemonDiagnostics diagnostics) {
+        this(uid, address, diagnostics, false);
+    }
+
+    public DaemonStartupInfo(String uid, Address address, DaemonDiagnostics diagnostics, boolean classDataSharing) {
         this.uid = uid;
         this.address = address;
         this.diagnostics = diagnostics;
+        this.classDataSharing = classDataSharing;
     }
 
     public String getUid() {
@@ -48,6 +54,13 @@ public class DaemonStartupInfo {
         return diagnostics;
     }
 
+    /**
+     * Whether the daemon confirmed that it uses a class data sharing archive.
+     */
+    public boolean isClassDataSharing() {
+        return classDataSharing;
+    }
+
     @Override
     public String toString() {
         return String.format("DaemonStartupInfo{pid=%s, uid=%s, address=%s, diagnostics=%s}", diagnostics.getPid(), uid, address, diagnostics);
@@ -50,12 +50,16 @@ import org.gradle.internal.serialize.Serializer;
 import org.gradle.launcher.daemon.diagnostics.DaemonDiagnostics;
 import org.gradle.launcher.exec.BuildActionParameters;
 import org.gradle.launcher.exec.DefaultBuildActionParameters;
+import org.gradle.tooling.internal.provider.BuildActionResult;
+import org.gradle.tooling.internal.provider.serialization.SerializedPayload;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import static org.gradle.internal.serialize.BaseSerializerFactory.BYTE_ARRAY_SERIALIZER;
 import static org.gradle.internal.serialize.BaseSerializerFactory.FILE_SERIALIZER;
 import static org.gradle.internal.serialize.BaseSerializerFactory.NO_NULL_STRING_MAP_SERIALIZER;
 
@@ -75,6 +79,11 @@ public class DaemonMessageSerializer {
         registry.register(Success.class, new SuccessSerializer());
         registry.register(Finished.class, new FinishedSerializer());
 
+        // Daemon control messages
+        registry.register(Stop.class, new StopSerializer());
+        registry.register(StopWhenIdle.class, new StopWhenIdleSerializer());
+        registry.register(ReportStatus.class, new ReportStatusSerializer());
+
         // Build events
         registry.register(BuildEvent.class, new BuildEventSerializer());
 
@@ -93,33 +102,134 @@ public class DaemonMessageSerializer {
         registry.register(LogLevelChangeEvent.class, new LogLevelChangeEventSerializer(logLevelSerializer));
         registry.register(OutputMessage.class, new OutputMessageSerializer(registry.build(OutputEvent.class)));
 
-        // Default for everything else
+        // Default for everything else, including the payloads of build events
         registry.useJavaSerialization(Message.class);
 
         return registry.build(Message.class);
     }
 
     private static class SuccessSerializer implements Serializer<Success> {
+        private static final byte NULL_VALUE = 0;
+        private static final byte BUILD_ACTION_RESULT = 1;
+        private static final byte STATUS = 2;
+        private static final byte OTHER_VALUE = 3;
+
+        private final Serializer<BuildActionResult> buildActionResultSerializer = new BuildActionResultSerializer();
+        private final Serializer<Status> statusSerializer = new StatusSerializer();
         private final Serializer<Object> payloadSerializer = new DefaultSerializer<Object>();
 
         @Override
         public void write(Encoder encoder, Success success) throws Exception {
-            if (success.getValue() == null) {
+            Object value = success.getValue();
+            if (value == null) {
+                encoder.writeByte(NULL_VALUE);
+            } else if (value instanceof BuildActionResult) {
+                encoder.writeByte(BUILD_ACTION_RESULT);
+                buildActionResultSerializer.write(encoder, (BuildActionResult) value);
+            } else if (value instanceof Status) {
+                encoder.writeByte(STATUS);
+                statusSerializer.write(encoder, (Status) value);
+            } else {
+                encoder.writeByte(OTHER_VALUE);
+                payloadSerializer.write(encoder, value);
+            }
+        }
+
+        @Override
+        public Success read(Decoder decoder) throws Exception {
+            byte tag = decoder.readByte();
+            switch (tag) {
+                case NULL_VALUE:
+                    return new Success(null);
+                case BUILD_ACTION_RESULT:
+                    return new Success(buildActionResultSerializer.read(decoder));
+                case STATUS:
+                    return new Success(statusSerializer.read(decoder));
+                case OTHER_VALUE:
+                    return new Success(payloadSerializer.read(decoder));
+                default:
+                    throw new IllegalArgumentException("Unexpected payload type " + tag);
+            }
+        }
+    }
+
+    private static class BuildActionResultSerializer implements Serializer<BuildActionResult> {
+        private final Serializer<SerializedPayload> payloadSerializer = new SerializedPayloadSerializer();
+
+        @Override
+        public void write(Encoder encoder, BuildActionResult result) throws Exception {
+            writeNullable(encoder, result.result);
+            writeNullable(encoder, result.failure);
+        }
+
+        @Override
+        public BuildActionResult read(Decoder decoder) throws Exception {
+            SerializedPayload result = readNullable(decoder);
+            SerializedPayload failure = readNullable(decoder);
+            return new BuildActionResult(result, failure);
+        }
+
+        private void writeNullable(Encoder encoder, @Nullable SerializedPayload payload) throws Exception {
+            if (payload == null) {
                 encoder.writeBoolean(false);
             } else {
                 encoder.writeBoolean(true);
-                payloadSerializer.write(encoder, success.getValue());
+                payloadSerializer.write(encoder, payload);
+            }
+        }
+
+        @Nullable
+        private SerializedPayload readNullable(Decoder decoder) throws Exception {
+            if (decoder.readBoolean()) {
+                return payloadSerializer.read(decoder);
             }
+            return null;
         }
+    }
+
+    /**
+     * Writes the serialized model as raw bytes. The header describes the ClassLoaders of the model, and is still Java serialized.
+     */
+    private static class SerializedPayloadSerializer implements Serializer<SerializedPayload> {
+        private final Serializer<Object> headerSerializer = new DefaultSerializer<Object>();
+        private final Serializer<List<byte[]>> modelSerializer = new ListSerializer<byte[]>(BYTE_ARRAY_SERIALIZER);
 
         @Override
-        public Success read(Decoder decoder) throws Exception {
-            boolean notNull = decoder.readBoolean();
-            if (notNull) {
-                return new Success(payloadSerializer.read(decoder));
+        public void write(Encoder encoder, SerializedPayload payload) throws Exception {
+            headerSerializer.write(encoder, payload.getHeader());
+            modelSerializer.write(encoder, payload.getSerializedModel());
+        }
+
+        @Override
+        public SerializedPayload read(Decoder decoder) throws Exception {
+            Object header = headerSerializer.read(decoder);
+            List<byte[]> serializedModel = modelSerializer.read(decoder);
+            return new SerializedPayload(header, serializedModel);
+        }
+    }
+
+    private static class StatusSerializer implements Serializer<Status> {
+        @Override
+        public void write(Encoder encoder, Status status) throws Exception {
+            if (status.getPid() == null) {
+                encoder.writeBoolean(false);
             } else {
-                return new Success(null);
+                encoder.writeBoolean(true);
+                encoder.writeLong(status.getPid());
             }
+            encoder.writeString(status.getVersion());
+            encoder.writeString(status.getStatus());
+        }
+
+        @Override
+        public Status read(Decoder decoder) throws Exception {
+            Long pid = null;
+            if (decoder.readBoolean()) {
+                pid = decoder.readLong();
+            }
+            String version = decoder.readString();
+            String status = decoder.readString();
+            return new Status(pid, version, status);
         }
     }
 
@@ -320,4 +430,43 @@ public class DaemonMessageSerializer {
         public void write(Encoder encoder, Finished value) {
         }
     }
+
+    private abstract static class CommandSerializer<T extends Command> implements Serializer<T> {
+        @Override
+        public void write(Encoder encoder, T command) throws Exception {
+            encoder.writeLong(command.getIdentifier().getMostSignificantBits());
+            encoder.writeLong(command.getIdentifier().getLeastSignificantBits());
+            encoder.writeBinary(command.getToken());
+        }
+
+        @Override
+        public T read(Decoder decoder) throws Exception {
+            UUID identifier = new UUID(decoder.readLong(), decoder.readLong());
+            byte[] token = decoder.readBinary();
+            return create(identifier, token);
+        }
+
+        protected abstract T create(UUID identifier, byte[] token);
+    }
+
+    private static class StopSerializer extends CommandSerializer<Stop> {
+        @Override
+        protected Stop create(UUID identifier, byte[] token) {
+            return new Stop(identifier, token);
+        }
+    }
+
+    private static class StopWhenIdleSerializer extends CommandSerializer<StopWhenIdle> {
+        @Override
+        protected StopWhenIdle create(UUID identifier, byte[] token) {
+            return new StopWhenIdle(identifier, token);
+        }
+    }
+
+    private static class ReportStatusSerializer extends CommandSerializer<ReportStatus> {
+        @Override
+        protected ReportStatus create(UUID identifier, byte[] token) {
+            return new ReportStatus(identifier, token);
+        }
+    }
 }
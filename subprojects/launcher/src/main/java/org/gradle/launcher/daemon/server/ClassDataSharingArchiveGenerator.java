@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server;
+
+import org.gradle.api.JavaVersion;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.jvm.Jvm;
+import org.gradle.internal.time.Time;
+import org.gradle.internal.time.Timer;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.ExecAction;
+import org.gradle.process.internal.ExecActionFactory;
+import org.gradle.util.GFileUtils;
+
+import javax.annotation.Nullable;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Creates the class data sharing archive for the bootstrap classpath of the daemon, when it does not exist yet. The archive is then used by daemons
+ * started later on with the same JVM and Gradle distribution.
+ *
+ * <p>The archive contains the classes of the JDK default class list and the classes of the daemon bootstrap classpath. The Gradle runtime itself is
+ * loaded by Gradle class loaders, and cannot be archived.</p>
+ */
+public class ClassDataSharingArchiveGenerator {
+    private static final Logger LOGGER = Logging.getLogger(ClassDataSharingArchiveGenerator.class);
+
+    private final ExecActionFactory execActionFactory;
+
+    public ClassDataSharingArchiveGenerator(ExecActionFactory execActionFactory) {
+        this.execActionFactory = execActionFactory;
+    }
+
+    public void generateIfMissing(@Nullable File archiveFile) {
+        // Dynamic archives of the application classpath are not supported prior to Java 11 without additional unlock flags
+        if (archiveFile == null || archiveFile.isFile() || !JavaVersion.current().isJava11Compatible()) {
+            return;
+        }
+        Timer timer = Time.startTimer();
+        File archiveDir = archiveFile.getParentFile();
+        GFileUtils.mkdirs(archiveDir);
+        File classList = new File(archiveDir, archiveFile.getName() + ".classlist");
+        File tmpArchive = new File(archiveDir, archiveFile.getName() + "." + System.nanoTime() + ".tmp");
+        try {
+            String classPath = System.getProperty("java.class.path");
+            writeClassList(classPath, classList);
+            if (dump(classPath, classList, tmpArchive) && tmpArchive.renameTo(archiveFile)) {
+                LOGGER.info("Created class data sharing archive {} in {}.", archiveFile, timer.getElapsed());
+            }
+        } catch (Exception e) {
+            LOGGER.info("Could not create class data sharing archive {}.", archiveFile, e);
+        } finally {
+            GFileUtils.deleteQuietly(classList);
+            GFileUtils.deleteQuietly(tmpArchive);
+        }
+    }
+
+    private boolean dump(String classPath, File classList, File archive) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ExecAction execAction = execActionFactory.newExecAction();
+        execAction.executable(Jvm.current().getJavaExecutable());
+        execAction.setWorkingDir(archive.getParentFile());
+        execAction.args("-Xshare:dump", "-XX:SharedClassListFile=" + classList.getAbsolutePath(), "-XX:SharedArchiveFile=" + archive.getAbsolutePath(), "-cp", classPath);
+        execAction.setStandardOutput(output);
+        execAction.setErrorOutput(output);
+        execAction.setIgnoreExitValue(true);
+        ExecResult result = execAction.execute();
+        if (result.getExitValue() != 0) {
+            LOGGER.info("Could not create class data sharing archive {}, java exited with {}:{}{}", archive, result.getExitValue(), System.getProperty("line.separator"), output);
+            return false;
+        }
+        return archive.isFile();
+    }
+
+    private static void writeClassList(String classPath, File classList) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(classList), "UTF-8"));
+        try {
+            File jdkClassList = new File(System.getProperty("java.home"), "lib/classlist");
+            if (jdkClassList.isFile()) {
+                writer.write(GFileUtils.readFile(jdkClassList, "UTF-8"));
+            }
+            for (String entry : classPath.split(File.pathSeparator)) {
+                File file = new File(entry);
+                if (file.isFile()) {
+                    writeClassNames(file, writer);
+                }
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void writeClassNames(File jar, Writer writer) throws IOException {
+        ZipFile zipFile = new ZipFile(jar);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.endsWith(".class") && !name.startsWith("META-INF/") && !name.endsWith("module-info.class")) {
+                    writer.write(name.substring(0, name.length() - ".class".length()));
+                    writer.write('\n');
+                }
+            }
+        } finally {
+            zipFile.close();
+        }
+    }
+}
@@ -31,16 +31,25 @@ import java.util.Collection;
 public class CompatibleDaemonExpirationStrategy implements DaemonExpirationStrategy {
     private final Daemon daemon;
     private final ExplainingSpec<DaemonContext> compatibilitySpec;
+    private final int maxIdleDaemons;
 
     public static final String EXPIRATION_REASON = "other compatible daemons were started";
 
-    CompatibleDaemonExpirationStrategy(Daemon daemon, ExplainingSpec<DaemonContext> compatibilitySpec) {
+    CompatibleDaemonExpirationStrategy(Daemon daemon, ExplainingSpec<DaemonContext> compatibilitySpec, int maxIdleDaemons) {
         this.daemon = daemon;
         this.compatibilitySpec = compatibilitySpec;
+        this.maxIdleDaemons = maxIdleDaemons;
+    }
+
+    CompatibleDaemonExpirationStrategy(Daemon daemon, ExplainingSpec<DaemonContext> compatibilitySpec) {
+        this(daemon, compatibilitySpec, 1);
     }
 
-    CompatibleDaemonExpirationStrategy(Daemon daemon) {
-        this(daemon, new DaemonCompatibilitySpec(daemon.getDaemonContext()));
+    /**
+     * @param maxIdleDaemons the number of compatible idle daemons, including this one, that are tolerated before this daemon expires.
+     */
+    CompatibleDaemonExpirationStrategy(Daemon daemon, int maxIdleDaemons) {
+        this(daemon, new DaemonCompatibilitySpec(daemon.getDaemonContext()), maxIdleDaemons);
     }
 
     @Override
@@ -53,7 +62,7 @@ public class CompatibleDaemonExpirationStrategy implements DaemonExpirationStrat
         };
         Collection<DaemonInfo> compatibleIdleDaemons = CollectionUtils.filter(daemon.getDaemonRegistry().getIdle(), spec);
 
-        if (compatibleIdleDaemons.size() > 1) {
+        if (compatibleIdleDaemons.size() > maxIdleDaemons) {
             return new DaemonExpirationResult(DaemonExpirationStatus.GRACEFUL_EXPIRE, EXPIRATION_REASON);
         } else {
             return DaemonExpirationResult.NOT_TRIGGERED;
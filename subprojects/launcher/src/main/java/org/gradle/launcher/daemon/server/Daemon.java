@@ -59,6 +59,7 @@ public class Daemon implements Stoppable {
     private final ScheduledExecutorService scheduledExecutorService;
     private final ExecutorFactory executorFactory;
     private final ListenerManager listenerManager;
+    private final boolean concurrentBuilds;
 
     private DaemonStateCoordinator stateCoordinator;
 
@@ -75,6 +76,15 @@ public class Daemon implements Stoppable {
      * @param daemonRegistry The registry that this daemon should advertise itself in
      */
     public Daemon(DaemonServerConnector connector, DaemonRegistry daemonRegistry, DaemonContext daemonContext, DaemonCommandExecuter commandExecuter, ExecutorFactory executorFactory, ListenerManager listenerManager) {
+        this(connector, daemonRegistry, daemonContext, commandExecuter, executorFactory, listenerManager, false);
+    }
+
+    /**
+     * Creates a new daemon instance.
+     *
+     * @param concurrentBuilds Whether the daemon may run multiple builds at the same time. Such a daemon remains advertised as idle in the registry while running builds.
+     */
+    public Daemon(DaemonServerConnector connector, DaemonRegistry daemonRegistry, DaemonContext daemonContext, DaemonCommandExecuter commandExecuter, ExecutorFactory executorFactory, ListenerManager listenerManager, boolean concurrentBuilds) {
         this.connector = connector;
         this.daemonRegistry = daemonRegistry;
         this.daemonContext = daemonContext;
@@ -82,6 +92,7 @@ public class Daemon implements Stoppable {
         this.executorFactory = executorFactory;
         this.scheduledExecutorService = executorFactory.createScheduled("Daemon periodic checks", 1);
         this.listenerManager = listenerManager;
+        this.concurrentBuilds = concurrentBuilds;
     }
 
     public String getUid() {
@@ -134,7 +145,9 @@ public class Daemon implements Stoppable {
             Runnable onStartCommand = new Runnable() {
                 @Override
                 public void run() {
-                    registryUpdater.onStartActivity();
+                    if (!concurrentBuilds) {
+                        registryUpdater.onStartActivity();
+                    }
                 }
             };
 
@@ -148,7 +161,9 @@ public class Daemon implements Stoppable {
             Runnable onCancelCommand = new Runnable() {
                 @Override
                 public void run() {
-                    registryUpdater.onCancel();
+                    if (!concurrentBuilds) {
+                        registryUpdater.onCancel();
+                    }
                 }
             };
 
@@ -158,7 +173,7 @@ public class Daemon implements Stoppable {
             // 3. start accepting incoming connections
             // 4. advertise presence in registry
 
-            stateCoordinator = new DaemonStateCoordinator(executorFactory, onStartCommand, onFinishCommand, onCancelCommand);
+            stateCoordinator = new DaemonStateCoordinator(executorFactory, onStartCommand, onFinishCommand, onCancelCommand, concurrentBuilds);
             connectionHandler = new DefaultIncomingConnectionHandler(commandExecuter, daemonContext, stateCoordinator, executorFactory, token);
             Runnable connectionErrorHandler = new Runnable() {
                 @Override
@@ -176,6 +191,23 @@ public class Daemon implements Stoppable {
         LOGGER.lifecycle(DaemonMessages.PROCESS_STARTED);
     }
 
+    /**
+     * Advertises this daemon as idle in the registry, so that clients can use it before it has run a build.
+     *
+     * @throws IllegalStateException if this daemon has not been started.
+     */
+    public void advertiseIdle() {
+        lifecycleLock.lock();
+        try {
+            if (stateCoordinator == null) {
+                throw new IllegalStateException("cannot advertise daemon as idle as it has not been started.");
+            }
+            registryUpdater.onCompleteActivity();
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
     /**
      * Stops the daemon, blocking until any current requests/connections have been satisfied.
      * <p>
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.configuration.ImportsReader;
+import org.gradle.initialization.ClassLoaderRegistry;
+import org.gradle.internal.time.Time;
+import org.gradle.internal.time.Timer;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Warms up a spare daemon before it is advertised as idle, by doing some of the work that the first build in a daemon would otherwise do:
+ * creating the class loaders for the Gradle runtime and the built-in plugins, reading the default imports and loading the classes used by every build.
+ */
+public class DaemonPrewarmer implements Runnable {
+    private static final Logger LOGGER = Logging.getLogger(DaemonPrewarmer.class);
+
+    private static final List<String> RUNTIME_CLASSES = Arrays.asList(
+        "org.gradle.initialization.DefaultGradleLauncherFactory",
+        "org.gradle.initialization.DefaultGradleLauncher",
+        "org.gradle.initialization.DefaultSettingsLoader",
+        "org.gradle.internal.service.scopes.GradleUserHomeScopeServices",
+        "org.gradle.internal.service.scopes.BuildSessionScopeServices",
+        "org.gradle.internal.service.scopes.BuildScopeServices",
+        "org.gradle.internal.service.scopes.SettingsScopeServices",
+        "org.gradle.internal.service.scopes.GradleScopeServices",
+        "org.gradle.internal.service.scopes.ProjectScopeServices",
+        "org.gradle.internal.service.scopes.TaskExecutionServices",
+        "org.gradle.configuration.DefaultScriptPluginFactory",
+        "org.gradle.groovy.scripts.internal.DefaultScriptCompilationHandler",
+        "org.gradle.api.internal.project.DefaultProject",
+        "org.gradle.api.internal.tasks.DefaultTaskContainer",
+        "org.gradle.api.internal.AbstractTask",
+        "org.gradle.execution.taskgraph.DefaultTaskExecutionPlan"
+    );
+
+    private static final List<String> PLUGIN_CLASSES = Arrays.asList(
+        "org.gradle.api.plugins.BasePlugin",
+        "org.gradle.api.plugins.JavaPlugin",
+        "org.gradle.api.internal.artifacts.dsl.dependencies.DefaultDependencyHandler"
+    );
+
+    private final ClassLoaderRegistry classLoaderRegistry;
+    private final ImportsReader importsReader;
+
+    public DaemonPrewarmer(ClassLoaderRegistry classLoaderRegistry, ImportsReader importsReader) {
+        this.classLoaderRegistry = classLoaderRegistry;
+        this.importsReader = importsReader;
+    }
+
+    @Override
+    public void run() {
+        Timer timer = Time.startTimer();
+        importsReader.getSimpleNameToFullClassNamesMapping();
+        int loaded = load(RUNTIME_CLASSES, classLoaderRegistry.getRuntimeClassLoader()) + load(PLUGIN_CLASSES, classLoaderRegistry.getPluginsClassLoader());
+        LOGGER.info("Warmed up spare daemon in {}, loaded {} classes.", timer.getElapsed(), loaded);
+    }
+
+    private static int load(List<String> classNames, ClassLoader classLoader) {
+        int loaded = 0;
+        for (String className : classNames) {
+            try {
+                Class.forName(className, true, classLoader);
+                loaded++;
+            } catch (ClassNotFoundException e) {
+                LOGGER.debug("Could not load {} while warming up the daemon.", className, e);
+            } catch (LinkageError e) {
+                LOGGER.debug("Could not load {} while warming up the daemon.", className, e);
+            }
+        }
+        return loaded;
+    }
+}
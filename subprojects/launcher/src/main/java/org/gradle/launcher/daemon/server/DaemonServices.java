@@ -18,13 +18,20 @@ package org.gradle.launcher.daemon.server;
 import com.google.common.collect.ImmutableList;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.internal.InMemoryCacheShrinker;
+import org.gradle.configuration.ImportsReader;
+import org.gradle.initialization.ClassLoaderRegistry;
+import org.gradle.initialization.layout.BuildLayoutFactory;
 import org.gradle.internal.classpath.ClassPath;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.invocation.BuildAction;
 import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.nativeintegration.ProcessEnvironment;
+import org.gradle.internal.nativeintegration.filesystem.Chmod;
 import org.gradle.internal.nativeintegration.services.NativeServices;
+import org.gradle.internal.operations.BuildOperationListenerManager;
 import org.gradle.internal.remote.internal.inet.InetAddressFactory;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.service.DefaultServiceRegistry;
@@ -42,6 +49,7 @@ import org.gradle.launcher.daemon.registry.DaemonRegistryServices;
 import org.gradle.launcher.daemon.server.api.DaemonCommandAction;
 import org.gradle.launcher.daemon.server.api.HandleReportStatus;
 import org.gradle.launcher.daemon.server.api.HandleStop;
+import org.gradle.launcher.daemon.server.exec.ConcurrentBuildPolicy;
 import org.gradle.launcher.daemon.server.exec.DaemonCommandExecuter;
 import org.gradle.launcher.daemon.server.exec.EstablishBuildEnvironment;
 import org.gradle.launcher.daemon.server.exec.ExecuteBuild;
@@ -49,6 +57,7 @@ import org.gradle.launcher.daemon.server.exec.ForwardClientInput;
 import org.gradle.launcher.daemon.server.exec.HandleCancel;
 import org.gradle.launcher.daemon.server.exec.LogAndCheckHealth;
 import org.gradle.launcher.daemon.server.exec.LogToClient;
+import org.gradle.launcher.daemon.server.exec.RecordBuildPerformance;
 import org.gradle.launcher.daemon.server.exec.RequestStopIfSingleUsedDaemon;
 import org.gradle.launcher.daemon.server.exec.ResetDeprecationLogger;
 import org.gradle.launcher.daemon.server.exec.ReturnResult;
@@ -60,8 +69,10 @@ import org.gradle.launcher.daemon.server.health.DaemonMemoryStatus;
 import org.gradle.launcher.daemon.server.health.HealthExpirationStrategy;
 import org.gradle.launcher.daemon.server.scaninfo.DaemonScanInfo;
 import org.gradle.launcher.daemon.server.scaninfo.DefaultDaemonScanInfo;
+import org.gradle.launcher.daemon.server.stats.BuildPerformanceHistory;
 import org.gradle.launcher.daemon.server.stats.DaemonRunningStats;
 import org.gradle.launcher.exec.BuildExecuter;
+import org.gradle.process.internal.ExecFactory;
 
 import java.io.File;
 import java.util.UUID;
@@ -123,15 +134,27 @@ public class DaemonServices extends DefaultServiceRegistry {
         return new MasterExpirationStrategy(daemon, configuration, healthExpirationStrategy, listenerManager);
     }
 
-    protected HealthExpirationStrategy createHealthExpirationStrategy(DaemonMemoryStatus memoryStatus) {
-        return new HealthExpirationStrategy(memoryStatus);
+    protected DaemonPrewarmer createDaemonPrewarmer(ClassLoaderRegistry classLoaderRegistry, ImportsReader importsReader) {
+        return new DaemonPrewarmer(classLoaderRegistry, importsReader);
+    }
+
+    protected ClassDataSharingArchiveGenerator createClassDataSharingArchiveGenerator(ExecFactory execFactory) {
+        return new ClassDataSharingArchiveGenerator(execFactory);
+    }
+
+    protected HealthExpirationStrategy createHealthExpirationStrategy(DaemonMemoryStatus memoryStatus, InMemoryCacheShrinker cacheShrinker) {
+        return new HealthExpirationStrategy(memoryStatus, cacheShrinker);
+    }
+
+    protected BuildPerformanceHistory createBuildPerformanceHistory(DaemonDir daemonDir, FileLockManager fileLockManager, Chmod chmod) {
+        return new BuildPerformanceHistory(new File(daemonDir.getVersionedDir(), "build-performance.bin"), fileLockManager, chmod);
     }
 
     protected DaemonHealthStats createDaemonHealthStats(DaemonRunningStats runningStats, ExecutorFactory executorFactory) {
         return new DaemonHealthStats(runningStats, executorFactory);
     }
 
-    protected ImmutableList<DaemonCommandAction> createDaemonCommandActions(DaemonContext daemonContext, ProcessEnvironment processEnvironment, DaemonHealthStats healthStats, DaemonHealthCheck healthCheck, BuildExecuter buildActionExecuter, DaemonRunningStats runningStats) {
+    protected ImmutableList<DaemonCommandAction> createDaemonCommandActions(DaemonContext daemonContext, ProcessEnvironment processEnvironment, DaemonHealthStats healthStats, DaemonHealthCheck healthCheck, BuildExecuter buildActionExecuter, DaemonRunningStats runningStats, BuildOperationListenerManager buildOperationListenerManager, BuildPerformanceHistory buildPerformanceHistory) {
         File daemonLog = getDaemonLogFile();
         DaemonDiagnostics daemonDiagnostics = new DaemonDiagnostics(daemonLog, daemonContext.getPid());
         return ImmutableList.of(
@@ -139,7 +162,7 @@ public class DaemonServices extends DefaultServiceRegistry {
             new HandleCancel(),
             new HandleReportStatus(),
             new ReturnResult(),
-            new StartBuildOrRespondWithBusy(daemonDiagnostics), // from this point down, the daemon is 'busy'
+            new StartBuildOrRespondWithBusy(daemonDiagnostics, configuration.isConcurrentBuilds() ? new ConcurrentBuildPolicy(get(BuildLayoutFactory.class)) : null), // from this point down, the daemon is 'busy'
             new EstablishBuildEnvironment(processEnvironment),
             new LogToClient(loggingManager, daemonDiagnostics), // from this point down, logging is sent back to the client
             new LogAndCheckHealth(healthStats, healthCheck),
@@ -147,6 +170,7 @@ public class DaemonServices extends DefaultServiceRegistry {
             new RequestStopIfSingleUsedDaemon(),
             new ResetDeprecationLogger(),
             new WatchForDisconnection(),
+            new RecordBuildPerformance(buildOperationListenerManager, buildPerformanceHistory),
             new ExecuteBuild(buildActionExecuter, runningStats, this)
         );
 
@@ -167,7 +191,8 @@ public class DaemonServices extends DefaultServiceRegistry {
             get(DaemonContext.class),
             new DaemonCommandExecuter(configuration, actions),
             get(ExecutorFactory.class),
-            get(ListenerManager.class)
+            get(ListenerManager.class),
+            configuration.isConcurrentBuilds()
         );
     }
 }
@@ -31,6 +31,8 @@ import org.gradle.launcher.daemon.server.api.DaemonStateControl;
 import org.gradle.launcher.daemon.server.api.DaemonStoppedException;
 import org.gradle.launcher.daemon.server.api.DaemonUnavailableException;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
@@ -41,6 +43,9 @@ import java.util.concurrent.locks.ReentrantLock;
  *
  * This class has no knowledge of the Daemon's internals and is designed to be used internally by the daemon to coordinate itself and allow worker threads to control the daemon's busy/idle status.
  *
+ * By default, the daemon runs a single command at a time. When concurrent commands are enabled, the daemon accepts new commands while busy. Each command then
+ * has its own cancellation token and result, which are accessed through the {@link DaemonStateControl} returned by {@link #newCommandControl()}.
+ *
  * This is not exposed to clients of the daemon.
  */
 public class DaemonStateCoordinator implements Stoppable, DaemonStateControl {
@@ -54,10 +59,10 @@ public class DaemonStateCoordinator implements Stoppable, DaemonStateControl {
 
     private State state = State.Idle;
     private final Timer idleTimer;
-    private String currentCommandExecution;
-    private Object result;
+    private final List<CommandControl> runningCommands = new ArrayList<CommandControl>();
     private String stopReason;
     private volatile DefaultBuildCancellationToken cancellationToken;
+    private final boolean concurrentCommands;
 
     private final ManagedExecutor executor;
     private final Runnable onStartCommand;
@@ -65,17 +70,34 @@ public class DaemonStateCoordinator implements Stoppable, DaemonStateControl {
     private final Runnable onCancelCommand;
 
     public DaemonStateCoordinator(ExecutorFactory executorFactory, Runnable onStartCommand, Runnable onFinishCommand, Runnable onCancelCommand) {
-        this(executorFactory, onStartCommand, onFinishCommand, onCancelCommand, 10 * 1000L);
+        this(executorFactory, onStartCommand, onFinishCommand, onCancelCommand, false);
+    }
+
+    public DaemonStateCoordinator(ExecutorFactory executorFactory, Runnable onStartCommand, Runnable onFinishCommand, Runnable onCancelCommand, boolean concurrentCommands) {
+        this(executorFactory, onStartCommand, onFinishCommand, onCancelCommand, 10 * 1000L, concurrentCommands);
     }
 
     DaemonStateCoordinator(ExecutorFactory executorFactory, Runnable onStartCommand, Runnable onFinishCommand, Runnable onCancelCommand, long cancelTimeoutMs) {
+        this(executorFactory, onStartCommand, onFinishCommand, onCancelCommand, cancelTimeoutMs, false);
+    }
+
+    DaemonStateCoordinator(ExecutorFactory executorFactory, Runnable onStartCommand, Runnable onFinishCommand, Runnable onCancelCommand, long cancelTimeoutMs, boolean concurrentCommands) {
         executor = executorFactory.create("Daemon worker");
         this.onStartCommand = onStartCommand;
         this.onFinishCommand = onFinishCommand;
         this.onCancelCommand = onCancelCommand;
         this.cancelTimeoutMs = cancelTimeoutMs;
+        this.concurrentCommands = concurrentCommands;
         idleTimer = Time.startTimer();
-        updateCancellationToken();
+        cancellationToken = newCancellationToken();
+    }
+
+    /**
+     * Creates the state control for a single command. The cancellation methods of the returned control only affect the command run using this control,
+     * whereas the cancellation methods of this coordinator affect all running commands.
+     */
+    public DaemonStateControl newCommandControl() {
+        return new CommandControl();
     }
 
     private void setState(State state) {
@@ -196,17 +218,35 @@ public class DaemonStateCoordinator implements Stoppable, DaemonStateControl {
         return cancellationToken;
     }
 
-    private void updateCancellationToken() {
-        cancellationToken = new DefaultBuildCancellationToken();
+    private DefaultBuildCancellationToken newCancellationToken() {
+        DefaultBuildCancellationToken cancellationToken = new DefaultBuildCancellationToken();
         cancellationToken.addCallback(onCancelCommand);
+        return cancellationToken;
     }
 
     @Override
     public void requestCancel() {
         lock.lock();
         try {
-            if (state == State.Busy) {
-                setState(State.Canceled);
+            for (CommandControl command : new ArrayList<CommandControl>(runningCommands)) {
+                requestCancel(command);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void requestCancel(CommandControl command) {
+        lock.lock();
+        try {
+            if (!runningCommands.contains(command)) {
+                return;
+            }
+            if (state == State.Busy || state == State.Canceled) {
+                if (!command.cancelRequested) {
+                    command.cancelRequested = true;
+                    setState(State.Canceled);
+                }
             } else if (state == State.StopRequested) {
                 requestForcefulStop("the build was canceled after a stop was requested");
             }
@@ -244,14 +284,53 @@ public class DaemonStateCoordinator implements Stoppable, DaemonStateControl {
         }
     }
 
+    private void cancelBuild(CommandControl command) {
+        requestCancel(command);
+
+        lock.lock();
+        try {
+            while (runningCommands.contains(command)) {
+                try {
+                    switch (state) {
+                        case Stopped:
+                            return;
+                        case Broken:
+                            throw new IllegalStateException("This daemon is in a broken state.");
+                        default:
+                            condition.await();
+                    }
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     private void cancelNow() {
         CountdownTimer timer = Time.startCountdownTimer(cancelTimeoutMs);
 
-        LOGGER.debug("Cancel requested: will wait for daemon to become idle.");
+        List<CommandControl> canceledCommands = new ArrayList<CommandControl>();
+        lock.lock();
         try {
-            cancellationToken.cancel();
-        } catch (Exception ex) {
-            LOGGER.error("Cancel processing failed. Will continue.", ex);
+            for (CommandControl command : runningCommands) {
+                if (command.cancelRequested && !command.cancelStarted) {
+                    command.cancelStarted = true;
+                    canceledCommands.add(command);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        LOGGER.debug("Cancel requested: will wait for daemon to become idle.");
+        for (CommandControl command : canceledCommands) {
+            try {
+                command.cancellationToken.cancel();
+            } catch (Exception ex) {
+                LOGGER.error("Cancel processing failed. Will continue.", ex);
+            }
         }
 
         lock.lock();
@@ -265,6 +344,11 @@ public class DaemonStateCoordinator implements Stoppable, DaemonStateControl {
                         case Busy:
                         case Canceled:
                         case StopRequested:
+                            if (!isAnyRunning(canceledCommands)) {
+                                LOGGER.debug("Cancel: canceled commands have completed, other commands are still running.");
+                                resumeIfNoCommandIsCanceled();
+                                return;
+                            }
                             LOGGER.debug("Cancel: daemon is busy, sleeping until state changes.");
                             condition.await(timer.getRemainingMillis(), TimeUnit.MILLISECONDS);
                             break;
@@ -285,41 +369,66 @@ public class DaemonStateCoordinator implements Stoppable, DaemonStateControl {
         }
     }
 
+    private boolean isAnyRunning(List<CommandControl> commands) {
+        for (CommandControl command : commands) {
+            if (runningCommands.contains(command)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void resumeIfNoCommandIsCanceled() {
+        if (state != State.Canceled) {
+            return;
+        }
+        for (CommandControl command : runningCommands) {
+            if (command.cancelRequested) {
+                return;
+            }
+        }
+        setState(State.Busy);
+    }
+
     @Override
-    public void runCommand(final Runnable command, String commandDisplayName) throws DaemonUnavailableException {
-        onStartCommand(commandDisplayName);
+    public void runCommand(Runnable command, String commandDisplayName) throws DaemonUnavailableException {
+        new CommandControl().runCommand(command, commandDisplayName);
+    }
+
+    private void runCommand(final CommandControl commandControl, final Runnable command, String commandDisplayName) throws DaemonUnavailableException {
+        onStartCommand(commandControl, commandDisplayName);
         try {
             executor.execute(new Runnable() {
                 public void run() {
                     try {
                         command.run();
-                        onCommandSuccessful();
+                        onCommandSuccessful(commandControl);
                     } catch (Throwable t) {
-                        onCommandFailed(t);
+                        onCommandFailed(commandControl, t);
                     }
                 }
             });
-            waitForCommandCompletion();
+            waitForCommandCompletion(commandControl);
         } finally {
-            onFinishCommand();
+            onFinishCommand(commandControl);
         }
     }
 
-    private void waitForCommandCompletion() {
+    private void waitForCommandCompletion(CommandControl command) {
         lock.lock();
         try {
-            while ((state == State.Busy || state == State.Canceled || state == State.StopRequested) && result == null) {
+            while ((state == State.Busy || state == State.Canceled || state == State.StopRequested) && command.result == null) {
                 try {
                     condition.await();
                 } catch (InterruptedException e) {
                     throw UncheckedException.throwAsUncheckedException(e);
                 }
             }
-            LOGGER.debug("Command execution: finished waiting for {}. Result {} with state {}", currentCommandExecution, result, state);
-            if (result instanceof Throwable) {
-                throw UncheckedException.throwAsUncheckedException((Throwable) result);
+            LOGGER.debug("Command execution: finished waiting for {}. Result {} with state {}", command.displayName, command.result, state);
+            if (command.result instanceof Throwable) {
+                throw UncheckedException.throwAsUncheckedException((Throwable) command.result);
             }
-            if (result != null) {
+            if (command.result != null) {
                 return;
             }
             switch (state) {
@@ -335,27 +444,27 @@ public class DaemonStateCoordinator implements Stoppable, DaemonStateControl {
         }
     }
 
-    private void onCommandFailed(Throwable failure) {
+    private void onCommandFailed(CommandControl command, Throwable failure) {
         lock.lock();
         try {
-            result = failure;
+            command.result = failure;
             condition.signalAll();
         } finally {
             lock.unlock();
         }
     }
 
-    private void onCommandSuccessful() {
+    private void onCommandSuccessful(CommandControl command) {
         lock.lock();
         try {
-            result = this;
+            command.result = this;
             condition.signalAll();
         } finally {
             lock.unlock();
         }
     }
 
-    private void onStartCommand(String commandDisplayName) {
+    private void onStartCommand(CommandControl command, String commandDisplayName) {
         lock.lock();
         try {
             switch (state) {
@@ -367,17 +476,29 @@ public class DaemonStateCoordinator implements Stoppable, DaemonStateControl {
                     throw new DaemonUnavailableException("This daemon has stopped.");
                 case Busy:
                 case Canceled:
-                    throw new DaemonUnavailableException(String.format("This daemon is currently executing: %s", currentCommandExecution));
+                    if (!concurrentCommands) {
+                        throw new DaemonUnavailableException(String.format("This daemon is currently executing: %s", runningCommands.get(0).displayName));
+                    }
             }
 
-            LOGGER.error("Command execution: started {} after {} minutes of idle", commandDisplayName, getIdleMinutes());
+            if (runningCommands.isEmpty()) {
+                LOGGER.error("Command execution: started {} after {} minutes of idle", commandDisplayName, getIdleMinutes());
+            } else {
+                LOGGER.error("Command execution: started {} while executing {} other commands", commandDisplayName, runningCommands.size());
+            }
             try {
-                setState(State.Busy);
-                onStartCommand.run();
-                currentCommandExecution = commandDisplayName;
-                result = null;
+                if (state == State.Idle) {
+                    setState(State.Busy);
+                    onStartCommand.run();
+                }
+                command.displayName = commandDisplayName;
+                command.result = null;
+                command.cancelRequested = false;
+                command.cancelStarted = false;
+                command.cancellationToken = newCancellationToken();
+                cancellationToken = command.cancellationToken;
+                runningCommands.add(command);
                 updateActivityTimestamp();
-                updateCancellationToken();
                 condition.signalAll();
             } catch (Throwable throwable) {
                 setState(State.Broken);
@@ -388,14 +509,19 @@ public class DaemonStateCoordinator implements Stoppable, DaemonStateControl {
         }
     }
 
-    private void onFinishCommand() {
+    private void onFinishCommand(CommandControl command) {
         lock.lock();
         try {
-            LOGGER.debug("Command execution: completed {}", currentCommandExecution);
-            currentCommandExecution = null;
-            result = null;
-            stopReason = null;
+            LOGGER.debug("Command execution: completed {}", command.displayName);
+            runningCommands.remove(command);
+            command.result = null;
             updateActivityTimestamp();
+            if (!runningCommands.isEmpty()) {
+                resumeIfNoCommandIsCanceled();
+                condition.signalAll();
+                return;
+            }
+            stopReason = null;
             switch (state) {
                 case Idle:
                 case Busy:
@@ -451,4 +577,47 @@ public class DaemonStateCoordinator implements Stoppable, DaemonStateControl {
     public State getState() {
         return state;
     }
+
+    private class CommandControl implements DaemonStateControl {
+        private String displayName;
+        private Object result;
+        private volatile DefaultBuildCancellationToken cancellationToken = newCancellationToken();
+        private boolean cancelRequested;
+        private boolean cancelStarted;
+
+        @Override
+        public void requestStop(String reason) {
+            DaemonStateCoordinator.this.requestStop(reason);
+        }
+
+        @Override
+        public void requestForcefulStop(String reason) {
+            DaemonStateCoordinator.this.requestForcefulStop(reason);
+        }
+
+        @Override
+        public State getState() {
+            return state;
+        }
+
+        @Override
+        public void requestCancel() {
+            DaemonStateCoordinator.this.requestCancel(this);
+        }
+
+        @Override
+        public void cancelBuild() {
+            DaemonStateCoordinator.this.cancelBuild(this);
+        }
+
+        @Override
+        public BuildCancellationToken getCancellationToken() {
+            return cancellationToken;
+        }
+
+        @Override
+        public void runCommand(Runnable command, String commandDisplayName) throws DaemonUnavailableException, DaemonStoppedException {
+            DaemonStateCoordinator.this.runCommand(this, command, commandDisplayName);
+        }
+    }
 }
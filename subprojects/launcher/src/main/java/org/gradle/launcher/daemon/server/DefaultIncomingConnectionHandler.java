@@ -30,7 +30,6 @@ import org.gradle.launcher.daemon.protocol.Command;
 import org.gradle.launcher.daemon.protocol.Failure;
 import org.gradle.launcher.daemon.protocol.Message;
 import org.gradle.launcher.daemon.server.api.DaemonConnection;
-import org.gradle.launcher.daemon.server.api.DaemonStateControl;
 import org.gradle.launcher.daemon.server.exec.DaemonCommandExecuter;
 
 import java.util.Arrays;
@@ -47,16 +46,16 @@ public class DefaultIncomingConnectionHandler implements IncomingConnectionHandl
     private final byte[] token;
     private final DaemonContext daemonContext;
     private final DaemonCommandExecuter commandExecuter;
-    private final DaemonStateControl daemonStateControl;
+    private final DaemonStateCoordinator daemonStateCoordinator;
     private final ExecutorFactory executorFactory;
     private final Lock lock = new ReentrantLock();
     private final Condition condition = lock.newCondition();
     private final Set<Connection<?>> inProgress = new HashSet<Connection<?>>();
 
-    public DefaultIncomingConnectionHandler(DaemonCommandExecuter commandExecuter, DaemonContext daemonContext, DaemonStateControl daemonStateControl, ExecutorFactory executorFactory, byte[] token) {
+    public DefaultIncomingConnectionHandler(DaemonCommandExecuter commandExecuter, DaemonContext daemonContext, DaemonStateCoordinator daemonStateCoordinator, ExecutorFactory executorFactory, byte[] token) {
         this.commandExecuter = commandExecuter;
         this.daemonContext = daemonContext;
-        this.daemonStateControl = daemonStateControl;
+        this.daemonStateCoordinator = daemonStateCoordinator;
         this.executorFactory = executorFactory;
         workers = executorFactory.create("Daemon");
         this.token = token;
@@ -67,7 +66,7 @@ public class DefaultIncomingConnectionHandler implements IncomingConnectionHandl
         onStartHandling(connection);
 
         //we're spinning a thread to do work to avoid blocking the connection
-        //This means that the Daemon potentially can do multiple things but we only allows a single build at a time
+        //This means that the Daemon potentially can do multiple things but we only allows a single build at a time, unless concurrent builds are enabled
 
         workers.execute(new ConnectionWorker(connection));
     }
@@ -157,7 +156,7 @@ public class DefaultIncomingConnectionHandler implements IncomingConnectionHandl
                 if (!Arrays.equals(command.getToken(), token)) {
                     throw new BadlyFormedRequestException(String.format("Unexpected authentication token in command %s received from %s", command, connection));
                 }
-                commandExecuter.executeCommand(daemonConnection, command, daemonContext, daemonStateControl);
+                commandExecuter.executeCommand(daemonConnection, command, daemonContext, daemonStateCoordinator.newCommandControl());
             } catch (Throwable e) {
                 LOGGER.warn(String.format("Unable to execute command %s from %s. Dispatching the failure to the daemon client", command, connection), e);
                 daemonConnection.completed(new Failure(e));
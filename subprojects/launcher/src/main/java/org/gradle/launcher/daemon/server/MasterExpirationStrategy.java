@@ -39,9 +39,9 @@ public class MasterExpirationStrategy implements DaemonExpirationStrategy {
         // Expire under high JVM memory or GC pressure
         strategies.add(healthExpirationStrategy);
 
-        // Expire compatible, idle, not recently used Daemons after a short time
+        // Expire compatible, idle, not recently used Daemons after a short time, keeping one spare Daemon when warm standby is enabled
         strategies.add(new AllDaemonExpirationStrategy(ImmutableList.of(
-            new CompatibleDaemonExpirationStrategy(daemon),
+            new CompatibleDaemonExpirationStrategy(daemon, params.isWarmStandby() ? 2 : 1),
             new DaemonIdleTimeoutExpirationStrategy(daemon, DUPLICATE_DAEMON_GRACE_PERIOD_MS, TimeUnit.MILLISECONDS),
             new NotMostRecentlyUsedDaemonExpirationStrategy(daemon)
         )));
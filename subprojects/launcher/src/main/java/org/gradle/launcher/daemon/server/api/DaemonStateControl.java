@@ -63,7 +63,7 @@ public interface DaemonStateControl {
     BuildCancellationToken getCancellationToken();
 
     /**
-     * Runs the given long running command. No more than 1 command may be running at any given time.
+     * Runs the given long running command. No more than 1 command may be running at any given time, unless the daemon runs concurrent builds.
      *
      * @param command The command to run
      * @param commandDisplayName The command's display name, used for logging and error messages.
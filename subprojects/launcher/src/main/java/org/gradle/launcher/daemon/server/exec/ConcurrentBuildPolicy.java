@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.exec;
+
+import com.google.common.collect.ImmutableSet;
+import org.gradle.initialization.layout.BuildLayoutConfiguration;
+import org.gradle.initialization.layout.BuildLayoutFactory;
+import org.gradle.internal.invocation.BuildAction;
+import org.gradle.launcher.daemon.protocol.Build;
+import org.gradle.launcher.daemon.server.api.DaemonUnavailableException;
+import org.gradle.launcher.exec.BuildQueryAction;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides whether a build can run while other builds are running in the same daemon.
+ *
+ * <p>Builds can run concurrently when they are for different root directories, or when they only read the build, such as tooling model queries.
+ * As the working directory, the environment variables and the system properties of the daemon process are shared by all running builds, concurrent
+ * builds must also have the same working directory, environment variables and system properties. A build is also not accepted once the running builds
+ * have changed the system properties of the daemon process.</p>
+ */
+public class ConcurrentBuildPolicy {
+    // Maintained by the shell for each invocation, and not expected to be used by builds
+    private static final Set<String> INVOCATION_ENVIRONMENT_VARIABLES = ImmutableSet.of("PWD", "OLDPWD", "_");
+
+    private final BuildLayoutFactory buildLayoutFactory;
+    private final List<RunningBuild> runningBuilds = new ArrayList<RunningBuild>();
+    private Map<String, String> establishedSystemProperties;
+
+    public ConcurrentBuildPolicy(BuildLayoutFactory buildLayoutFactory) {
+        this.buildLayoutFactory = buildLayoutFactory;
+    }
+
+    /**
+     * Records that the given build is starting.
+     *
+     * @throws DaemonUnavailableException when the build cannot run alongside the builds that are already running.
+     */
+    public synchronized void buildStarted(Build build) throws DaemonUnavailableException {
+        RunningBuild candidate = new RunningBuild(build, rootDirOf(build.getAction()), build.getParameters().getCurrentDir(), isReadOnly(build.getAction()), environmentOf(build), systemPropertiesOf(build));
+        if (runningBuilds.isEmpty()) {
+            // The system properties that the process will have once the environment of the build has been established
+            establishedSystemProperties = currentSystemProperties();
+            establishedSystemProperties.putAll(candidate.systemProperties);
+        } else {
+            for (RunningBuild runningBuild : runningBuilds) {
+                checkCompatible(candidate, runningBuild);
+            }
+            if (!currentSystemProperties().equals(establishedSystemProperties)) {
+                throw new DaemonUnavailableException("This daemon is currently executing a build that has changed the system properties of the daemon.");
+            }
+        }
+        runningBuilds.add(candidate);
+    }
+
+    /**
+     * Records that the given build has completed.
+     */
+    public synchronized void buildFinished(Build build) {
+        for (int i = 0; i < runningBuilds.size(); i++) {
+            if (runningBuilds.get(i).build == build) {
+                runningBuilds.remove(i);
+                if (runningBuilds.isEmpty()) {
+                    establishedSystemProperties = null;
+                }
+                return;
+            }
+        }
+    }
+
+    private static void checkCompatible(RunningBuild candidate, RunningBuild runningBuild) {
+        if (candidate.rootDir.equals(runningBuild.rootDir) && !(candidate.readOnly && runningBuild.readOnly)) {
+            throw new DaemonUnavailableException(String.format("This daemon is currently executing a build for root directory %s.", runningBuild.rootDir));
+        }
+        if (!candidate.currentDir.equals(runningBuild.currentDir)) {
+            throw new DaemonUnavailableException(String.format("This daemon is currently executing a build with working directory %s.", runningBuild.currentDir));
+        }
+        if (!candidate.environment.equals(runningBuild.environment)) {
+            throw new DaemonUnavailableException("This daemon is currently executing a build with different environment variables.");
+        }
+        if (!candidate.systemProperties.equals(runningBuild.systemProperties)) {
+            throw new DaemonUnavailableException("This daemon is currently executing a build with different system properties.");
+        }
+    }
+
+    private File rootDirOf(BuildAction action) {
+        return buildLayoutFactory.getLayoutFor(new BuildLayoutConfiguration(action.getStartParameter())).getRootDirectory();
+    }
+
+    private static boolean isReadOnly(BuildAction action) {
+        return action instanceof BuildQueryAction && !((BuildQueryAction) action).isRunTasks();
+    }
+
+    private static Map<String, String> environmentOf(Build build) {
+        Map<String, String> environment = new HashMap<String, String>(build.getParameters().getEnvVariables());
+        environment.keySet().removeAll(INVOCATION_ENVIRONMENT_VARIABLES);
+        return environment;
+    }
+
+    private static Map<String, String> systemPropertiesOf(Build build) {
+        Map<String, String> systemProperties = new HashMap<String, String>();
+        for (Map.Entry<String, String> entry : build.getParameters().getSystemProperties().entrySet()) {
+            if (EstablishBuildEnvironment.isBuildSpecific(entry.getKey())) {
+                systemProperties.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return systemProperties;
+    }
+
+    private static Map<String, String> currentSystemProperties() {
+        Map<String, String> systemProperties = new HashMap<String, String>();
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (EstablishBuildEnvironment.isBuildSpecific(name)) {
+                systemProperties.put(name, System.getProperty(name));
+            }
+        }
+        return systemProperties;
+    }
+
+    private static class RunningBuild {
+        private final Build build;
+        private final File rootDir;
+        private final File currentDir;
+        private final boolean readOnly;
+        private final Map<String, String> environment;
+        private final Map<String, String> systemProperties;
+
+        RunningBuild(Build build, File rootDir, File currentDir, boolean readOnly, Map<String, String> environment, Map<String, String> systemProperties) {
+            this.build = build;
+            this.rootDir = rootDir;
+            this.currentDir = currentDir;
+            this.readOnly = readOnly;
+            this.environment = environment;
+            this.systemProperties = systemProperties;
+        }
+    }
+}
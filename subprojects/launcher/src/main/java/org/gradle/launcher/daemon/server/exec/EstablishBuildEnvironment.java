@@ -32,34 +32,59 @@ import java.util.Properties;
 
 /**
  * Aims to make the local environment the same as the client's environment.
+ *
+ * <p>The environment is shared by all builds running in the daemon. When builds run concurrently, the environment is established by the first build and
+ * restored once the last build has completed. The other builds use the environment as it is, as {@link ConcurrentBuildPolicy} only lets builds with
+ * the same working directory, environment variables and system properties run concurrently.</p>
  */
 public class EstablishBuildEnvironment extends BuildCommandOnly {
     private final static Logger LOGGER = Logging.getLogger(EstablishBuildEnvironment.class);
 
     private final ProcessEnvironment processEnvironment;
 
+    private final Object lock = new Object();
+    private int activeBuilds;
+    private Properties originalSystemProperties;
+    private Map<String, String> originalEnv;
+    private File originalProcessDir;
+    private Locale originalLocale;
+
     public EstablishBuildEnvironment(ProcessEnvironment processEnvironment) {
         this.processEnvironment = processEnvironment;
     }
 
     protected void doBuild(DaemonCommandExecution execution, Build build) {
-        Properties originalSystemProperties = new Properties();
+        synchronized (lock) {
+            if (activeBuilds == 0) {
+                establishEnvironment(build);
+            } else {
+                LOGGER.debug("Sharing the environment with {} running builds.", activeBuilds);
+            }
+            activeBuilds++;
+        }
+
+        try {
+            execution.proceed();
+        } finally {
+            synchronized (lock) {
+                activeBuilds--;
+                if (activeBuilds == 0) {
+                    restoreEnvironment();
+                }
+            }
+        }
+    }
+
+    private void establishEnvironment(Build build) {
+        originalSystemProperties = new Properties();
         originalSystemProperties.putAll(System.getProperties());
-        Map<String, String> originalEnv = new HashMap<String, String>(System.getenv());
-        File originalProcessDir = FileUtils.canonicalize(new File("."));
+        originalEnv = new HashMap<String, String>(System.getenv());
+        originalProcessDir = FileUtils.canonicalize(new File("."));
 
         for (Map.Entry<String, String> entry : build.getParameters().getSystemProperties().entrySet()) {
-            if (SystemProperties.getInstance().getStandardProperties().contains(entry.getKey())) {
-                continue;
-            }
-            if (SystemProperties.getInstance().getNonStandardImportantProperties().contains(entry.getKey())) {
-                continue;
-            }
-            if (entry.getKey().startsWith("sun.") || entry.getKey().startsWith("awt.")
-                    || entry.getKey().contains(".awt.")) {
-                continue;
+            if (isBuildSpecific(entry.getKey())) {
+                System.setProperty(entry.getKey(), entry.getValue());
             }
-            System.setProperty(entry.getKey(), entry.getValue());
         }
 
         LOGGER.debug("Configuring env variables: {}", build.getParameters().getEnvVariables());
@@ -76,15 +101,30 @@ public class EstablishBuildEnvironment extends BuildCommandOnly {
         processEnvironment.maybeSetProcessDir(build.getParameters().getCurrentDir());
 
         // Capture and restore this in case the build code calls Locale.setDefault()
-        Locale locale = Locale.getDefault();
+        originalLocale = Locale.getDefault();
+    }
 
-        try {
-            execution.proceed();
-        } finally {
-            System.setProperties(originalSystemProperties);
-            processEnvironment.maybeSetEnvironment(originalEnv);
-            processEnvironment.maybeSetProcessDir(originalProcessDir);
-            Locale.setDefault(locale);
+    private void restoreEnvironment() {
+        System.setProperties(originalSystemProperties);
+        processEnvironment.maybeSetEnvironment(originalEnv);
+        processEnvironment.maybeSetProcessDir(originalProcessDir);
+        Locale.setDefault(originalLocale);
+        originalSystemProperties = null;
+        originalEnv = null;
+        originalProcessDir = null;
+        originalLocale = null;
+    }
+
+    /**
+     * Returns true when the given system property of the client is applied to the daemon for the build.
+     */
+    static boolean isBuildSpecific(String propertyName) {
+        if (SystemProperties.getInstance().getStandardProperties().contains(propertyName)) {
+            return false;
+        }
+        if (SystemProperties.getInstance().getNonStandardImportantProperties().contains(propertyName)) {
+            return false;
         }
+        return !(propertyName.startsWith("sun.") || propertyName.startsWith("awt.") || propertyName.contains(".awt."));
     }
 }
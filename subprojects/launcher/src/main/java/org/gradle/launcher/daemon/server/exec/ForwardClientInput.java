@@ -29,14 +29,33 @@ import java.io.IOException;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Listens for ForwardInput commands during the execution and sends that to a piped input stream that we install.
+ *
+ * The stdin of the daemon process can only be replaced for one build at a time. When builds run concurrently, the input of the clients of the other builds
+ * is not forwarded.
  */
 public class ForwardClientInput implements DaemonCommandAction {
     private static final Logger LOGGER = Logging.getLogger(ForwardClientInput.class);
 
-    public void execute(final DaemonCommandExecution execution) {
+    private final AtomicBoolean stdinInUse = new AtomicBoolean();
+
+    public void execute(DaemonCommandExecution execution) {
+        if (!stdinInUse.compareAndSet(false, true)) {
+            LOGGER.info("The daemon's stdin is used by another build. Client input will not be forwarded.");
+            execution.proceed();
+            return;
+        }
+        try {
+            forwardInput(execution);
+        } finally {
+            stdinInUse.set(false);
+        }
+    }
+
+    private void forwardInput(final DaemonCommandExecution execution) {
         final PipedOutputStream inputSource = new PipedOutputStream();
         final PipedInputStream replacementStdin;
         try {
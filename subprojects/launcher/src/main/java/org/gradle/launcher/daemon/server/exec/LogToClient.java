@@ -24,16 +24,32 @@ import org.gradle.internal.logging.events.OutputEventListener;
 import org.gradle.internal.logging.events.ProgressCompleteEvent;
 import org.gradle.internal.logging.events.ProgressEvent;
 import org.gradle.internal.logging.events.ProgressStartEvent;
+import org.gradle.internal.logging.events.RenderableOutputEvent;
+import org.gradle.internal.operations.OperationIdentifier;
 import org.gradle.launcher.daemon.diagnostics.DaemonDiagnostics;
 import org.gradle.launcher.daemon.logging.DaemonMessages;
 import org.gradle.launcher.daemon.protocol.Build;
 import org.gradle.launcher.daemon.server.api.DaemonCommandExecution;
 import org.gradle.launcher.daemon.server.api.DaemonConnection;
 
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 
+/**
+ * Relays the daemon's log output to the clients of the builds that are running.
+ *
+ * <p>When several builds run at the same time, each event is sent to the client of the build that produced it. The owning build is found from the
+ * progress and build operation the event belongs to, or otherwise from the thread that runs the build. Events whose build cannot be determined are
+ * sent to all clients.</p>
+ */
 public class LogToClient extends BuildCommandOnly {
 
     public static final String DISABLE_OUTPUT = "org.gradle.daemon.disable-output";
@@ -42,7 +58,16 @@ public class LogToClient extends BuildCommandOnly {
     private final LoggingOutputInternal loggingOutput;
     private final DaemonDiagnostics diagnostics;
 
-    private volatile AsynchronousLogDispatcher dispatcher;
+    private final Object registrationLock = new Object();
+    private final List<AsynchronousLogDispatcher> dispatchers = new CopyOnWriteArrayList<AsynchronousLogDispatcher>();
+    private final ThreadLocal<AsynchronousLogDispatcher> buildThreadDispatcher = new ThreadLocal<AsynchronousLogDispatcher>();
+    private final Map<OperationIdentifier, ProgressOwner> progressOwners = new ConcurrentHashMap<OperationIdentifier, ProgressOwner>();
+    private final Map<OperationIdentifier, AsynchronousLogDispatcher> buildOperationOwners = new ConcurrentHashMap<OperationIdentifier, AsynchronousLogDispatcher>();
+    private final OutputEventListener router = new OutputEventListener() {
+        public void onOutput(OutputEvent event) {
+            route(event);
+        }
+    };
 
     public LogToClient(LoggingOutputInternal loggingOutput, DaemonDiagnostics diagnostics) {
         this.loggingOutput = loggingOutput;
@@ -55,48 +80,138 @@ public class LogToClient extends BuildCommandOnly {
             return;
         }
 
-        dispatcher = new AsynchronousLogDispatcher(execution.getConnection(), build.getParameters().getLogLevel());
+        AsynchronousLogDispatcher dispatcher = new AsynchronousLogDispatcher(execution.getConnection(), build.getParameters().getLogLevel());
+        register(dispatcher);
         LOGGER.info("{}{}). The daemon log file: {}", DaemonMessages.STARTED_RELAYING_LOGS, diagnostics.getPid(), diagnostics.getDaemonLog());
         dispatcher.start();
         try {
             execution.proceed();
         } finally {
+            unregister(dispatcher);
             dispatcher.waitForCompletion();
         }
     }
 
+    private void register(AsynchronousLogDispatcher dispatcher) {
+        buildThreadDispatcher.set(dispatcher);
+        synchronized (registrationLock) {
+            dispatchers.add(dispatcher);
+            if (dispatchers.size() == 1) {
+                LOGGER.debug(DaemonMessages.ABOUT_TO_START_RELAYING_LOGS);
+                loggingOutput.addOutputEventListener(router);
+            }
+        }
+    }
+
+    private void unregister(AsynchronousLogDispatcher dispatcher) {
+        buildThreadDispatcher.remove();
+        synchronized (registrationLock) {
+            dispatchers.remove(dispatcher);
+            if (dispatchers.isEmpty()) {
+                loggingOutput.removeOutputEventListener(router);
+            }
+        }
+        for (Iterator<ProgressOwner> iterator = progressOwners.values().iterator(); iterator.hasNext();) {
+            if (iterator.next().dispatcher == dispatcher) {
+                iterator.remove();
+            }
+        }
+        buildOperationOwners.values().removeAll(Collections.singleton(dispatcher));
+    }
+
+    private void route(OutputEvent event) {
+        AsynchronousLogDispatcher owner = ownerOf(event);
+        if (owner != null) {
+            owner.onOutput(event);
+            return;
+        }
+        for (AsynchronousLogDispatcher dispatcher : dispatchers) {
+            dispatcher.onOutput(event);
+        }
+    }
+
+    @Nullable
+    private AsynchronousLogDispatcher ownerOf(OutputEvent event) {
+        if (event instanceof ProgressStartEvent) {
+            ProgressStartEvent startEvent = (ProgressStartEvent) event;
+            AsynchronousLogDispatcher owner = null;
+            if (startEvent.getParentProgressOperationId() != null) {
+                ProgressOwner parent = progressOwners.get(startEvent.getParentProgressOperationId());
+                owner = parent == null ? null : parent.dispatcher;
+            }
+            if (owner == null && startEvent.getParentBuildOperationId() != null) {
+                owner = buildOperationOwners.get(startEvent.getParentBuildOperationId());
+            }
+            if (owner == null) {
+                owner = buildThreadDispatcher.get();
+            }
+            if (owner != null) {
+                progressOwners.put(startEvent.getProgressOperationId(), new ProgressOwner(owner, startEvent.getBuildOperationId()));
+                if (startEvent.getBuildOperationId() != null) {
+                    buildOperationOwners.put(startEvent.getBuildOperationId(), owner);
+                }
+            }
+            return owner;
+        }
+        if (event instanceof ProgressCompleteEvent) {
+            ProgressOwner owner = progressOwners.remove(((ProgressCompleteEvent) event).getProgressOperationId());
+            if (owner == null) {
+                return null;
+            }
+            if (owner.buildOperationId != null) {
+                buildOperationOwners.remove(owner.buildOperationId);
+            }
+            return owner.dispatcher;
+        }
+        if (event instanceof ProgressEvent) {
+            ProgressOwner owner = progressOwners.get(((ProgressEvent) event).getProgressOperationId());
+            return owner == null ? null : owner.dispatcher;
+        }
+        if (event instanceof RenderableOutputEvent && ((RenderableOutputEvent) event).getBuildOperationId() != null) {
+            AsynchronousLogDispatcher owner = buildOperationOwners.get(((RenderableOutputEvent) event).getBuildOperationId());
+            if (owner != null) {
+                return owner;
+            }
+        }
+        return buildThreadDispatcher.get();
+    }
+
+    private static class ProgressOwner {
+        private final AsynchronousLogDispatcher dispatcher;
+        private final OperationIdentifier buildOperationId;
+
+        ProgressOwner(AsynchronousLogDispatcher dispatcher, @Nullable OperationIdentifier buildOperationId) {
+            this.dispatcher = dispatcher;
+            this.buildOperationId = buildOperationId;
+        }
+    }
+
     private class AsynchronousLogDispatcher extends Thread {
         private final CountDownLatch completionLock = new CountDownLatch(1);
         private final Queue<OutputEvent> eventQueue = new ConcurrentLinkedQueue<OutputEvent>();
         private final DaemonConnection connection;
-        private final OutputEventListener listener;
+        private final LogLevel buildLogLevel;
         private volatile boolean shouldStop;
         private boolean unableToSend;
 
-        private AsynchronousLogDispatcher(DaemonConnection conn, final LogLevel buildLogLevel) {
+        private AsynchronousLogDispatcher(DaemonConnection conn, LogLevel buildLogLevel) {
             super("Asynchronous log dispatcher for " + conn);
             this.connection = conn;
-            this.listener = new OutputEventListener() {
-                public void onOutput(OutputEvent event) {
-                    if (dispatcher != null && (isMatchingBuildLogLevel(event) || isProgressEvent(event))) {
-                        dispatcher.submit(event);
-                    }
-                }
+            this.buildLogLevel = buildLogLevel;
+        }
 
-                private boolean isProgressEvent(OutputEvent event) {
-                    return event instanceof ProgressStartEvent || event instanceof ProgressEvent || event instanceof ProgressCompleteEvent;
-                }
+        public void onOutput(OutputEvent event) {
+            if (isMatchingBuildLogLevel(event) || isProgressEvent(event)) {
+                eventQueue.add(event);
+            }
+        }
 
-                private boolean isMatchingBuildLogLevel(OutputEvent event) {
-                    return event.getLogLevel() != null && event.getLogLevel().compareTo(buildLogLevel) >= 0;
-                }
-            };
-            LOGGER.debug(DaemonMessages.ABOUT_TO_START_RELAYING_LOGS);
-            loggingOutput.addOutputEventListener(listener);
+        private boolean isProgressEvent(OutputEvent event) {
+            return event instanceof ProgressStartEvent || event instanceof ProgressEvent || event instanceof ProgressCompleteEvent;
         }
 
-        public void submit(OutputEvent event) {
-            eventQueue.add(event);
+        private boolean isMatchingBuildLogLevel(OutputEvent event) {
+            return event.getLogLevel() != null && event.getLogLevel().compareTo(buildLogLevel) >= 0;
         }
 
         @Override
@@ -142,7 +257,6 @@ public class LogToClient extends BuildCommandOnly {
         }
 
         public void waitForCompletion() {
-            loggingOutput.removeOutputEventListener(listener);
             shouldStop = true;
             try {
                 completionLock.await();
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.exec;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import org.gradle.api.internal.StartParameterInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.operations.BuildOperationListenerManager;
+import org.gradle.internal.time.Clock;
+import org.gradle.internal.time.Time;
+import org.gradle.launcher.daemon.protocol.Build;
+import org.gradle.launcher.daemon.server.api.DaemonCommandExecution;
+import org.gradle.launcher.daemon.server.stats.BuildPerformanceCollector;
+import org.gradle.launcher.daemon.server.stats.BuildPerformanceHistory;
+import org.gradle.launcher.daemon.server.stats.BuildPerformanceProfile;
+import org.gradle.launcher.daemon.server.stats.BuildPerformanceReport;
+
+import java.util.List;
+
+/**
+ * Records the performance profile of each successful build, and reports how it compares with earlier builds of the same invocation when requested.
+ */
+public class RecordBuildPerformance extends BuildCommandOnly {
+    static final int COMPARED_BUILDS = 5;
+
+    private static final Logger LOGGER = Logging.getLogger(RecordBuildPerformance.class);
+
+    private final BuildOperationListenerManager buildOperationListenerManager;
+    private final BuildPerformanceHistory history;
+    private final BuildPerformanceReport report;
+    private final Clock clock;
+
+    public RecordBuildPerformance(BuildOperationListenerManager buildOperationListenerManager, BuildPerformanceHistory history) {
+        this(buildOperationListenerManager, history, new BuildPerformanceReport(), Time.clock());
+    }
+
+    @VisibleForTesting
+    RecordBuildPerformance(BuildOperationListenerManager buildOperationListenerManager, BuildPerformanceHistory history, BuildPerformanceReport report, Clock clock) {
+        this.buildOperationListenerManager = buildOperationListenerManager;
+        this.history = history;
+        this.report = report;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doBuild(DaemonCommandExecution execution, Build build) {
+        if (build.getParameters().isContinuous()) {
+            // Each change triggers a new build, which would all be profiled together
+            execution.proceed();
+            return;
+        }
+
+        BuildPerformanceCollector collector = new BuildPerformanceCollector(clock.getCurrentTime());
+        buildOperationListenerManager.addListener(collector);
+        try {
+            execution.proceed();
+        } finally {
+            buildOperationListenerManager.removeListener(collector);
+        }
+        if (execution.getException() != null) {
+            return;
+        }
+
+        StartParameterInternal startParameter = build.getAction().getStartParameter();
+        BuildPerformanceProfile profile = collector.toProfile(invocationOf(startParameter), clock.getCurrentTime());
+        List<BuildPerformanceProfile> previous;
+        try {
+            previous = history.record(profile, COMPARED_BUILDS);
+        } catch (RuntimeException e) {
+            LOGGER.info("Could not record the performance profile of the build.", e);
+            return;
+        }
+        if (startParameter.isProfileCompare()) {
+            LOGGER.lifecycle(report.render(profile, previous));
+        }
+    }
+
+    static String invocationOf(StartParameterInternal startParameter) {
+        return startParameter.getCurrentDir().getAbsolutePath() + " " + Joiner.on(' ').join(startParameter.getTaskNames());
+    }
+}
@@ -27,6 +27,8 @@ import org.gradle.launcher.daemon.server.api.DaemonStateControl;
 import org.gradle.launcher.daemon.server.api.DaemonStoppedException;
 import org.gradle.launcher.daemon.server.api.DaemonUnavailableException;
 
+import javax.annotation.Nullable;
+
 /**
  * Updates the daemon idle/busy status, sending a DaemonUnavailable result back to the client if the daemon is busy.
  */
@@ -34,9 +36,18 @@ public class StartBuildOrRespondWithBusy extends BuildCommandOnly {
     
     private static final Logger LOGGER = Logging.getLogger(StartBuildOrRespondWithBusy.class);
     private final DaemonDiagnostics diagnostics;
+    private final ConcurrentBuildPolicy concurrentBuildPolicy;
 
     public StartBuildOrRespondWithBusy(DaemonDiagnostics diagnostics) {
+        this(diagnostics, null);
+    }
+
+    /**
+     * @param concurrentBuildPolicy The policy that decides whether the build may run alongside other builds, or null when the daemon runs a single build at a time.
+     */
+    public StartBuildOrRespondWithBusy(DaemonDiagnostics diagnostics, @Nullable ConcurrentBuildPolicy concurrentBuildPolicy) {
         this.diagnostics = diagnostics;
+        this.concurrentBuildPolicy = concurrentBuildPolicy;
     }
 
     protected void doBuild(final DaemonCommandExecution execution, final Build build) {
@@ -51,7 +62,16 @@ public class StartBuildOrRespondWithBusy extends BuildCommandOnly {
                 }
             };
 
-            stateCoordinator.runCommand(command, execution.toString());
+            if (concurrentBuildPolicy == null) {
+                stateCoordinator.runCommand(command, execution.toString());
+            } else {
+                concurrentBuildPolicy.buildStarted(build);
+                try {
+                    stateCoordinator.runCommand(command, execution.toString());
+                } finally {
+                    concurrentBuildPolicy.buildFinished(build);
+                }
+            }
         } catch (DaemonUnavailableException e) {
             LOGGER.info("Daemon will not handle the command {} because is unavailable: {}", build, e.getMessage());
             execution.getConnection().daemonUnavailable(new DaemonUnavailable(e.getMessage()));
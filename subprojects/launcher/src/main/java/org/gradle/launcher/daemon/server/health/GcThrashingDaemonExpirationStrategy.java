@@ -18,6 +18,7 @@ package org.gradle.launcher.daemon.server.health;
 
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.cache.internal.InMemoryCacheShrinker;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationResult;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationStrategy;
 
@@ -25,17 +26,23 @@ import static org.gradle.launcher.daemon.server.expiry.DaemonExpirationStatus.IM
 
 public class GcThrashingDaemonExpirationStrategy implements DaemonExpirationStrategy {
     private final DaemonMemoryStatus status;
+    private final LowMemoryCacheShrinker cacheShrinker;
     private static final Logger LOG = Logging.getLogger(GcThrashingDaemonExpirationStrategy.class);
 
     public static final String EXPIRATION_REASON = "JVM garbage collector thrashing";
 
     public GcThrashingDaemonExpirationStrategy(DaemonMemoryStatus status) {
+        this(status, new LowMemoryCacheShrinker(new InMemoryCacheShrinker()));
+    }
+
+    public GcThrashingDaemonExpirationStrategy(DaemonMemoryStatus status, LowMemoryCacheShrinker cacheShrinker) {
         this.status = status;
+        this.cacheShrinker = cacheShrinker;
     }
 
     @Override
     public DaemonExpirationResult checkExpiration() {
-        if (status.isThrashing()) {
+        if (status.isThrashing() && !cacheShrinker.relieveMemoryPressure("JVM garbage collector is thrashing")) {
             LOG.info("JVM garbage collector is thrashing. Daemon will be stopped immediately");
             return new DaemonExpirationResult(IMMEDIATE_EXPIRE, EXPIRATION_REASON);
         } else {
@@ -17,6 +17,7 @@
 package org.gradle.launcher.daemon.server.health;
 
 import com.google.common.collect.ImmutableList;
+import org.gradle.cache.internal.InMemoryCacheShrinker;
 import org.gradle.launcher.daemon.server.expiry.AnyDaemonExpirationStrategy;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationResult;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationStrategy;
@@ -25,10 +26,11 @@ public class HealthExpirationStrategy implements DaemonExpirationStrategy {
 
     private final DaemonExpirationStrategy strategy;
 
-    public HealthExpirationStrategy(DaemonMemoryStatus memoryStatus) {
+    public HealthExpirationStrategy(DaemonMemoryStatus memoryStatus, InMemoryCacheShrinker cacheShrinker) {
+        LowMemoryCacheShrinker lowMemoryCacheShrinker = new LowMemoryCacheShrinker(cacheShrinker);
         this.strategy = new AnyDaemonExpirationStrategy(ImmutableList.of(
-            new GcThrashingDaemonExpirationStrategy(memoryStatus),
-            new LowTenuredSpaceDaemonExpirationStrategy(memoryStatus),
+            new GcThrashingDaemonExpirationStrategy(memoryStatus, lowMemoryCacheShrinker),
+            new LowTenuredSpaceDaemonExpirationStrategy(memoryStatus, lowMemoryCacheShrinker),
             new LowPermGenDaemonExpirationStrategy(memoryStatus)
         ));
     }
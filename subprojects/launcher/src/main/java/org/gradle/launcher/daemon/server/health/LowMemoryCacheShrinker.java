@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.cache.internal.InMemoryCacheShrinker;
+import org.gradle.internal.time.Clock;
+import org.gradle.internal.time.Time;
+
+/**
+ * Shrinks the in-memory caches of the daemon when it runs low on memory, so that the daemon is expired only when shrinking the caches does not help.
+ *
+ * Each attempt discards half of the entries of every cache. The garbage collection statistics take some time to reflect the memory that has been freed,
+ * so the daemon is given some time to settle after each attempt. The daemon should be expired once the caches are empty or after several attempts in a row.
+ */
+public class LowMemoryCacheShrinker {
+    private static final Logger LOG = Logging.getLogger(LowMemoryCacheShrinker.class);
+
+    @VisibleForTesting
+    static final double SHRINK_FRACTION = 0.5;
+    @VisibleForTesting
+    static final int MAX_ATTEMPTS = 3;
+    @VisibleForTesting
+    static final long SETTLE_PERIOD_MS = 30 * 1000L;
+    @VisibleForTesting
+    static final long RESET_PERIOD_MS = 10 * 60 * 1000L;
+
+    private final InMemoryCacheShrinker cacheShrinker;
+    private final Clock clock;
+    private int attempts;
+    private long lastAttempt;
+
+    public LowMemoryCacheShrinker(InMemoryCacheShrinker cacheShrinker) {
+        this(cacheShrinker, Time.clock());
+    }
+
+    @VisibleForTesting
+    LowMemoryCacheShrinker(InMemoryCacheShrinker cacheShrinker, Clock clock) {
+        this.cacheShrinker = cacheShrinker;
+        this.clock = clock;
+    }
+
+    /**
+     * Attempts to relieve the memory pressure by shrinking the in-memory caches.
+     *
+     * @param reason A description of the memory pressure, used for logging.
+     * @return true when the daemon should keep running, or false when it should be expired.
+     */
+    public synchronized boolean relieveMemoryPressure(String reason) {
+        long now = clock.getCurrentTime();
+        if (attempts > 0 && now - lastAttempt < SETTLE_PERIOD_MS) {
+            return true;
+        }
+        if (attempts > 0 && now - lastAttempt >= RESET_PERIOD_MS) {
+            attempts = 0;
+        }
+        if (attempts >= MAX_ATTEMPTS) {
+            return false;
+        }
+        long discarded = cacheShrinker.shrink(SHRINK_FRACTION);
+        if (discarded == 0) {
+            return false;
+        }
+        attempts++;
+        lastAttempt = now;
+        LOG.info("{}. Discarded {} entries from in-memory caches instead of expiring the daemon.", reason, discarded);
+        return true;
+    }
+}
@@ -18,6 +18,7 @@ package org.gradle.launcher.daemon.server.health;
 
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.cache.internal.InMemoryCacheShrinker;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationResult;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationStrategy;
 
@@ -25,18 +26,24 @@ import static org.gradle.launcher.daemon.server.expiry.DaemonExpirationStatus.GR
 
 public class LowTenuredSpaceDaemonExpirationStrategy implements DaemonExpirationStrategy {
     private final DaemonMemoryStatus status;
+    private final LowMemoryCacheShrinker cacheShrinker;
     private static final Logger LOG = Logging.getLogger(LowTenuredSpaceDaemonExpirationStrategy.class);
 
     public static final String EXPIRATION_REASON = "after running out of JVM memory";
     public static final String EXPIRE_DAEMON_MESSAGE = "Expiring Daemon because JVM Tenured space is exhausted";
 
     public LowTenuredSpaceDaemonExpirationStrategy(DaemonMemoryStatus status) {
+        this(status, new LowMemoryCacheShrinker(new InMemoryCacheShrinker()));
+    }
+
+    public LowTenuredSpaceDaemonExpirationStrategy(DaemonMemoryStatus status, LowMemoryCacheShrinker cacheShrinker) {
         this.status = status;
+        this.cacheShrinker = cacheShrinker;
     }
 
     @Override
     public DaemonExpirationResult checkExpiration() {
-        if (status.isTenuredSpaceExhausted()) {
+        if (status.isTenuredSpaceExhausted() && !cacheShrinker.relieveMemoryPressure("JVM Tenured space is exhausted")) {
             LOG.warn(EXPIRE_DAEMON_MESSAGE);
             return new DaemonExpirationResult(GRACEFUL_EXPIRE, EXPIRATION_REASON);
         } else {
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.stats;
+
+import org.gradle.api.internal.artifacts.configurations.ResolveConfigurationDependenciesBuildOperationType;
+import org.gradle.api.internal.tasks.SnapshotTaskInputsBuildOperationType;
+import org.gradle.initialization.ConfigureBuildBuildOperationType;
+import org.gradle.internal.execution.ExecuteTaskBuildOperationType;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.operations.OperationStartEvent;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.gradle.launcher.daemon.server.stats.BuildPerformanceProfile.Metric;
+
+/**
+ * Collects the performance metrics of a single build from the build operations it executes.
+ *
+ * <p>Only the operations of the build started by the thread that created the collector are considered, so that builds running concurrently in the
+ * same daemon are profiled separately. Durations of operations of the same kind are summed, so they can exceed the build time when operations
+ * run in parallel. The garbage collection time covers the whole daemon process.</p>
+ */
+public class BuildPerformanceCollector implements BuildOperationListener {
+    private final Thread buildThread = Thread.currentThread();
+    private final Set<OperationIdentifier> buildOperations = Collections.newSetFromMap(new ConcurrentHashMap<OperationIdentifier, Boolean>());
+    private final AtomicLongArray values = new AtomicLongArray(Metric.values().length);
+    private final long startTime;
+    private final long gcTimeAtStart;
+
+    public BuildPerformanceCollector(long startTime) {
+        this.startTime = startTime;
+        this.gcTimeAtStart = totalGcTime();
+    }
+
+    @Override
+    public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+        OperationIdentifier parentId = buildOperation.getParentId();
+        if (parentId == null ? Thread.currentThread() == buildThread : buildOperations.contains(parentId)) {
+            buildOperations.add(buildOperation.getId());
+        }
+    }
+
+    @Override
+    public void progress(OperationIdentifier operationIdentifier, OperationProgressEvent progressEvent) {
+    }
+
+    @Override
+    public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+        if (!buildOperations.remove(buildOperation.getId())) {
+            return;
+        }
+        Object details = buildOperation.getDetails();
+        long duration = finishEvent.getEndTime() - finishEvent.getStartTime();
+        if (details instanceof ExecuteTaskBuildOperationType.Details) {
+            add(Metric.TASK_EXECUTION_TIME, duration);
+            taskFinished(finishEvent.getResult());
+        } else if (details instanceof SnapshotTaskInputsBuildOperationType.Details) {
+            add(Metric.SNAPSHOTTING_TIME, duration);
+        } else if (details instanceof ConfigureBuildBuildOperationType.Details) {
+            add(Metric.CONFIGURATION_TIME, duration);
+        } else if (details instanceof ResolveConfigurationDependenciesBuildOperationType.Details) {
+            add(Metric.RESOLUTION_TIME, duration);
+        }
+    }
+
+    private void taskFinished(Object result) {
+        if (!(result instanceof ExecuteTaskBuildOperationType.Result)) {
+            return;
+        }
+        ExecuteTaskBuildOperationType.Result taskResult = (ExecuteTaskBuildOperationType.Result) result;
+        String skipMessage = taskResult.getSkipMessage();
+        if (skipMessage == null) {
+            add(Metric.EXECUTED_TASKS, 1);
+            if (taskResult.isActionable() && taskResult.getCachingDisabledReasonCategory() == null) {
+                add(Metric.CACHE_MISSES, 1);
+            }
+        } else if (skipMessage.equals("UP-TO-DATE")) {
+            add(Metric.UP_TO_DATE_TASKS, 1);
+        } else if (skipMessage.equals("FROM-CACHE")) {
+            add(Metric.CACHE_HITS, 1);
+        }
+    }
+
+    private void add(Metric metric, long value) {
+        values.addAndGet(metric.ordinal(), value);
+    }
+
+    /**
+     * Returns the profile of the build, which finished at the given time.
+     */
+    public BuildPerformanceProfile toProfile(String invocation, long endTime) {
+        long[] profileValues = new long[values.length()];
+        for (int i = 0; i < profileValues.length; i++) {
+            profileValues[i] = values.get(i);
+        }
+        profileValues[Metric.BUILD_TIME.ordinal()] = endTime - startTime;
+        profileValues[Metric.GC_TIME.ordinal()] = Math.max(0, totalGcTime() - gcTimeAtStart);
+        return new BuildPerformanceProfile(invocation, startTime, profileValues);
+    }
+
+    private static long totalGcTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean garbageCollector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, garbageCollector.getCollectionTime());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.stats;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.PersistentStateCache;
+import org.gradle.cache.internal.FileIntegrityViolationSuppressingPersistentStateCacheDecorator;
+import org.gradle.cache.internal.OnDemandFileAccess;
+import org.gradle.cache.internal.SimpleStateCache;
+import org.gradle.internal.nativeintegration.filesystem.Chmod;
+import org.gradle.internal.serialize.ListSerializer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A rolling log of the performance profiles of the most recent builds, shared by the daemons of the same Gradle version.
+ */
+public class BuildPerformanceHistory {
+    public static final int MAX_PROFILES = 200;
+
+    private final PersistentStateCache<List<BuildPerformanceProfile>> cache;
+    private final int maxProfiles;
+
+    public BuildPerformanceHistory(File historyFile, FileLockManager fileLockManager, Chmod chmod) {
+        this(new FileIntegrityViolationSuppressingPersistentStateCacheDecorator<List<BuildPerformanceProfile>>(
+            new SimpleStateCache<List<BuildPerformanceProfile>>(
+                historyFile,
+                new OnDemandFileAccess(
+                    historyFile,
+                    "daemon build performance history",
+                    fileLockManager),
+                new ListSerializer<BuildPerformanceProfile>(BuildPerformanceProfile.SERIALIZER),
+                chmod
+            )), MAX_PROFILES);
+    }
+
+    @VisibleForTesting
+    BuildPerformanceHistory(PersistentStateCache<List<BuildPerformanceProfile>> cache, int maxProfiles) {
+        this.cache = cache;
+        this.maxProfiles = maxProfiles;
+    }
+
+    /**
+     * Adds the given profile to the log, discarding the oldest profiles when the log is full.
+     *
+     * @return the profiles of at most {@code previousCount} earlier builds of the same invocation, oldest first.
+     */
+    public List<BuildPerformanceProfile> record(final BuildPerformanceProfile profile, final int previousCount) {
+        final List<BuildPerformanceProfile> previous = new ArrayList<BuildPerformanceProfile>(previousCount);
+        cache.update(new PersistentStateCache.UpdateAction<List<BuildPerformanceProfile>>() {
+            @Override
+            public List<BuildPerformanceProfile> update(List<BuildPerformanceProfile> oldValue) {
+                List<BuildPerformanceProfile> profiles = oldValue == null ? new ArrayList<BuildPerformanceProfile>() : new ArrayList<BuildPerformanceProfile>(oldValue);
+                previous.addAll(latest(profiles, profile.getInvocation(), previousCount));
+                profiles.add(profile);
+                if (profiles.size() > maxProfiles) {
+                    profiles.subList(0, profiles.size() - maxProfiles).clear();
+                }
+                return profiles;
+            }
+        });
+        return previous;
+    }
+
+    /**
+     * Returns the profiles of at most {@code count} of the most recent builds of the given invocation, oldest first.
+     */
+    public List<BuildPerformanceProfile> getProfiles(String invocation, int count) {
+        List<BuildPerformanceProfile> profiles = cache.get();
+        if (profiles == null) {
+            return Collections.emptyList();
+        }
+        return latest(profiles, invocation, count);
+    }
+
+    private static List<BuildPerformanceProfile> latest(List<BuildPerformanceProfile> profiles, String invocation, int count) {
+        List<BuildPerformanceProfile> matching = new ArrayList<BuildPerformanceProfile>(count);
+        for (int i = profiles.size() - 1; i >= 0 && matching.size() < count; i--) {
+            BuildPerformanceProfile candidate = profiles.get(i);
+            if (candidate.getInvocation().equals(invocation)) {
+                matching.add(candidate);
+            }
+        }
+        Collections.reverse(matching);
+        return matching;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.stats;
+
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+
+import java.util.Arrays;
+
+/**
+ * Compact performance metrics of a single build executed by the daemon.
+ */
+public class BuildPerformanceProfile {
+    public static final org.gradle.internal.serialize.Serializer<BuildPerformanceProfile> SERIALIZER = new Serializer();
+
+    public enum Metric {
+        BUILD_TIME("Build time", true),
+        CONFIGURATION_TIME("Configuration time", true),
+        TASK_EXECUTION_TIME("Task execution time", true),
+        SNAPSHOTTING_TIME("Input snapshotting time", true),
+        RESOLUTION_TIME("Dependency resolution time", true),
+        GC_TIME("Garbage collection time", true),
+        EXECUTED_TASKS("Executed tasks", false),
+        UP_TO_DATE_TASKS("Up-to-date tasks", false),
+        CACHE_HITS("Build cache hits", false),
+        CACHE_MISSES("Build cache misses", false);
+
+        private final String displayName;
+        private final boolean duration;
+
+        Metric(String displayName, boolean duration) {
+            this.displayName = displayName;
+            this.duration = duration;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        /**
+         * Returns true when the values of this metric are durations in milliseconds, false when they are counts.
+         */
+        public boolean isDuration() {
+            return duration;
+        }
+    }
+
+    private final String invocation;
+    private final long timestamp;
+    private final long[] values;
+
+    /**
+     * @param invocation Identifies the invocation the build was executed for, so that builds of the same invocation can be compared.
+     * @param timestamp The time the build started.
+     * @param values The value of each metric, indexed by the metric's ordinal.
+     */
+    public BuildPerformanceProfile(String invocation, long timestamp, long[] values) {
+        if (values.length != Metric.values().length) {
+            throw new IllegalArgumentException("A value is required for each metric.");
+        }
+        this.invocation = invocation;
+        this.timestamp = timestamp;
+        this.values = values;
+    }
+
+    public String getInvocation() {
+        return invocation;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long get(Metric metric) {
+        return values[metric.ordinal()];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        BuildPerformanceProfile other = (BuildPerformanceProfile) o;
+        return timestamp == other.timestamp
+            && invocation.equals(other.invocation)
+            && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = invocation.hashCode();
+        result = 31 * result + (int) (timestamp ^ (timestamp >>> 32));
+        result = 31 * result + Arrays.hashCode(values);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("BuildPerformanceProfile{invocation=").append(invocation);
+        for (Metric metric : Metric.values()) {
+            builder.append(", ").append(metric.name().toLowerCase()).append('=').append(get(metric));
+        }
+        return builder.append('}').toString();
+    }
+
+    private static class Serializer implements org.gradle.internal.serialize.Serializer<BuildPerformanceProfile> {
+        @Override
+        public BuildPerformanceProfile read(Decoder decoder) throws Exception {
+            String invocation = decoder.readString();
+            long timestamp = decoder.readLong();
+            int count = decoder.readSmallInt();
+            long[] values = new long[Metric.values().length];
+            for (int i = 0; i < count; i++) {
+                long value = decoder.readSmallLong();
+                // Ignore metrics added by later versions
+                if (i < values.length) {
+                    values[i] = value;
+                }
+            }
+            return new BuildPerformanceProfile(invocation, timestamp, values);
+        }
+
+        @Override
+        public void write(Encoder encoder, BuildPerformanceProfile value) throws Exception {
+            encoder.writeString(value.invocation);
+            encoder.writeLong(value.timestamp);
+            encoder.writeSmallInt(value.values.length);
+            for (long metricValue : value.values) {
+                encoder.writeSmallLong(metricValue);
+            }
+        }
+    }
+}
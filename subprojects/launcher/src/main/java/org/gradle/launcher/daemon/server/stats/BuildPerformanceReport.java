@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.stats;
+
+import org.gradle.internal.SystemProperties;
+
+import java.util.List;
+
+import static org.gradle.launcher.daemon.server.stats.BuildPerformanceProfile.Metric;
+
+/**
+ * Renders a comparison of the performance of a build with the performance of earlier builds of the same invocation.
+ */
+public class BuildPerformanceReport {
+    // A duration is considered a regression when it is this much larger than the mean of the earlier builds, and by at least MIN_REGRESSION_MS
+    static final double REGRESSION_FACTOR = 1.2;
+    static final long MIN_REGRESSION_MS = 100;
+
+    public String render(BuildPerformanceProfile current, List<BuildPerformanceProfile> previous) {
+        String eol = SystemProperties.getInstance().getLineSeparator();
+        StringBuilder report = new StringBuilder();
+        if (previous.isEmpty()) {
+            report.append("Build performance (no earlier builds of this invocation to compare with):").append(eol);
+            for (Metric metric : Metric.values()) {
+                report.append(String.format("  %-28s %10s", metric.getDisplayName(), format(metric, current.get(metric)))).append(eol);
+            }
+            return report.toString();
+        }
+
+        report.append(String.format("Build performance compared with the mean of the previous %d build%s:", previous.size(), previous.size() == 1 ? "" : "s")).append(eol);
+        report.append(String.format("  %-28s %10s %10s %8s", "", "this build", "mean", "change")).append(eol);
+        for (Metric metric : Metric.values()) {
+            long value = current.get(metric);
+            long mean = mean(previous, metric);
+            report.append(String.format("  %-28s %10s %10s %8s", metric.getDisplayName(), format(metric, value), format(metric, mean), change(value, mean)));
+            if (isRegression(metric, value, mean)) {
+                report.append("  REGRESSION");
+            }
+            report.append(eol);
+        }
+        return report.toString();
+    }
+
+    static boolean isRegression(Metric metric, long value, long mean) {
+        return metric.isDuration() && value - mean >= MIN_REGRESSION_MS && value > mean * REGRESSION_FACTOR;
+    }
+
+    private static long mean(List<BuildPerformanceProfile> profiles, Metric metric) {
+        long total = 0;
+        for (BuildPerformanceProfile profile : profiles) {
+            total += profile.get(metric);
+        }
+        return Math.round((double) total / profiles.size());
+    }
+
+    private static String change(long value, long mean) {
+        if (mean == 0) {
+            return value == 0 ? "0%" : "";
+        }
+        return String.format("%+.0f%%", 100.0 * (value - mean) / mean);
+    }
+
+    private static String format(Metric metric, long value) {
+        if (metric.isDuration()) {
+            return String.format("%.3fs", value / 1000.0);
+        }
+        return String.valueOf(value);
+    }
+}
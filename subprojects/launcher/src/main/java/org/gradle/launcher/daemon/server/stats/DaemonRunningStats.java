@@ -26,9 +26,10 @@ public class DaemonRunningStats {
     private final Timer currentBuildTimer = Time.startTimer();
 
     private int buildCount;
+    private int runningBuilds;
     private long allBuildsTime;
 
-    public int getBuildCount() {
+    public synchronized int getBuildCount() {
         return buildCount;
     }
 
@@ -40,19 +41,25 @@ public class DaemonRunningStats {
         return startTime;
     }
 
-    public long getAllBuildsTime() {
+    public synchronized long getAllBuildsTime() {
         return allBuildsTime;
     }
 
     // TODO: these should be moved off to a separate type
 
-    public void buildStarted() {
+    // When builds run concurrently, the time during which at least one build was running is counted once
+
+    public synchronized void buildStarted() {
         ++buildCount;
-        currentBuildTimer.reset();
+        if (runningBuilds++ == 0) {
+            currentBuildTimer.reset();
+        }
     }
 
-    public void buildFinished() {
-        long buildTime = Math.max(currentBuildTimer.getElapsedMillis(), 1);
-        allBuildsTime += buildTime;
+    public synchronized void buildFinished() {
+        if (--runningBuilds == 0) {
+            long buildTime = Math.max(currentBuildTimer.getElapsedMillis(), 1);
+            allBuildsTime += buildTime;
+        }
     }
 }
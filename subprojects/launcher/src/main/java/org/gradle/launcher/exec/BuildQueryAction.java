@@ -0,0 +1,29 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.exec;
+
+import org.gradle.internal.invocation.BuildAction;
+
+/**
+ * A build action that queries the build, for example to build a tooling model, and that may or may not also run tasks.
+ */
+public interface BuildQueryAction extends BuildAction {
+    /**
+     * Returns true when this action runs tasks. An action that does not run tasks only reads the build.
+     */
+    boolean isRunTasks();
+}
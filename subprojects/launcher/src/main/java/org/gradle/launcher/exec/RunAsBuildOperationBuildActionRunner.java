@@ -23,13 +23,18 @@ import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.launcher.daemon.configuration.ClassDataSharingArchive;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * An {@link BuildActionRunner} that wraps all work in a build operation.
  */
 public class RunAsBuildOperationBuildActionRunner implements BuildActionRunner {
     private final BuildActionRunner delegate;
-    private static final RunBuildBuildOperationType.Details DETAILS = new RunBuildBuildOperationType.Details() {};
+    private static final AtomicBoolean FIRST_BUILD = new AtomicBoolean(true);
+    private static final boolean CLASS_DATA_SHARING = ClassDataSharingArchive.isUsedByCurrentJvm();
     private static final RunBuildBuildOperationType.Result RESULT = new RunBuildBuildOperationType.Result() {};
 
     public RunAsBuildOperationBuildActionRunner(BuildActionRunner delegate) {
@@ -39,6 +44,7 @@ public class RunAsBuildOperationBuildActionRunner implements BuildActionRunner {
     @Override
     public void run(final BuildAction action, final BuildController buildController) {
         BuildOperationExecutor buildOperationExecutor = buildController.getGradle().getServices().get(BuildOperationExecutor.class);
+        final Long timeToFirstBuild = FIRST_BUILD.getAndSet(false) ? ManagementFactory.getRuntimeMXBean().getUptime() : null;
         buildOperationExecutor.run(new RunnableBuildOperation() {
             @Override
             public void run(BuildOperationContext context) {
@@ -48,7 +54,17 @@ public class RunAsBuildOperationBuildActionRunner implements BuildActionRunner {
 
             @Override
             public BuildOperationDescriptor.Builder description() {
-                return BuildOperationDescriptor.displayName("Run build").details(DETAILS);
+                return BuildOperationDescriptor.displayName("Run build").details(new RunBuildBuildOperationType.Details() {
+                    @Override
+                    public Long getTimeToFirstBuildMillis() {
+                        return timeToFirstBuild;
+                    }
+
+                    @Override
+                    public boolean isClassDataSharing() {
+                        return CLASS_DATA_SHARING;
+                    }
+                });
             }
         });
     }
@@ -19,9 +19,25 @@ package org.gradle.launcher.exec;
 import org.gradle.internal.operations.BuildOperationType;
 import org.gradle.internal.scan.UsedByScanPlugin;
 
+import javax.annotation.Nullable;
+
 @UsedByScanPlugin
 public final class RunBuildBuildOperationType implements BuildOperationType<RunBuildBuildOperationType.Details, RunBuildBuildOperationType.Result> {
     public interface Details {
+        /**
+         * The time from the start of the JVM to the start of this build, when this is the first build run by the JVM. Null for later builds.
+         *
+         * @since 4.8
+         */
+        @Nullable
+        Long getTimeToFirstBuildMillis();
+
+        /**
+         * Whether the JVM running this build was started with a class data sharing archive.
+         *
+         * @since 4.8
+         */
+        boolean isClassDataSharing();
     }
 
     public interface Result {
@@ -16,9 +16,10 @@
 package org.gradle.tooling.internal.provider;
 
 import org.gradle.api.internal.StartParameterInternal;
+import org.gradle.launcher.exec.BuildQueryAction;
 import org.gradle.tooling.internal.protocol.ModelIdentifier;
 
-public class BuildModelAction extends SubscribableBuildAction {
+public class BuildModelAction extends SubscribableBuildAction implements BuildQueryAction {
     private final StartParameterInternal startParameter;
     private final String modelName;
     private final boolean runTasks;
@@ -39,6 +40,7 @@ public class BuildModelAction extends SubscribableBuildAction {
         return modelName;
     }
 
+    @Override
     public boolean isRunTasks() {
         return runTasks;
     }
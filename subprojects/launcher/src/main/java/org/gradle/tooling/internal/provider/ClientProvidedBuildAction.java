@@ -17,9 +17,10 @@
 package org.gradle.tooling.internal.provider;
 
 import org.gradle.api.internal.StartParameterInternal;
+import org.gradle.launcher.exec.BuildQueryAction;
 import org.gradle.tooling.internal.provider.serialization.SerializedPayload;
 
-public class ClientProvidedBuildAction extends SubscribableBuildAction {
+public class ClientProvidedBuildAction extends SubscribableBuildAction implements BuildQueryAction {
     private final StartParameterInternal startParameter;
     private final SerializedPayload action;
     private final boolean runTasks;
@@ -40,6 +41,7 @@ public class ClientProvidedBuildAction extends SubscribableBuildAction {
         return action;
     }
 
+    @Override
     public boolean isRunTasks() {
         return runTasks;
     }
@@ -17,8 +17,11 @@
 package org.gradle.tooling.internal.provider;
 
 import org.gradle.StartParameter;
+import org.gradle.api.internal.CrossBuildGeneratedClassStore;
+import org.gradle.api.internal.PersistentGeneratedClassStore;
 import org.gradle.initialization.BuildRequestContext;
 import org.gradle.initialization.SessionLifecycleListener;
+import org.gradle.internal.Factory;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.ListenerManager;
@@ -44,6 +47,15 @@ public class ServicesSetupBuildActionExecuter implements BuildExecuter {
     public Object execute(BuildAction action, BuildRequestContext requestContext, BuildActionParameters actionParameters, ServiceRegistry contextServices) {
         StartParameter startParameter = action.getStartParameter();
         final ServiceRegistry userHomeServices = userHomeServiceRegistry.getServicesFor(startParameter.getGradleUserHomeDir());
+        // Reuse the decorated classes generated by earlier builds that used the same user home directory
+        final CrossBuildGeneratedClassStore generatedClassStore = userHomeServices.get(CrossBuildGeneratedClassStore.class);
+        final Factory<PersistentGeneratedClassStore> persistentGeneratedClassStore = new Factory<PersistentGeneratedClassStore>() {
+            @Override
+            public PersistentGeneratedClassStore create() {
+                return userHomeServices.get(PersistentGeneratedClassStore.class);
+            }
+        };
+        generatedClassStore.attach(persistentGeneratedClassStore);
         CrossBuildSessionScopeServices crossBuildSessionScopeServices = new CrossBuildSessionScopeServices(contextServices, startParameter);
 
         try {
@@ -69,6 +81,7 @@ public class ServicesSetupBuildActionExecuter implements BuildExecuter {
             new CompositeStoppable().add(new Stoppable() {
                 @Override
                 public void stop() {
+                    generatedClassStore.detach(persistentGeneratedClassStore);
                     userHomeServiceRegistry.release(userHomeServices);
                 }
             }, crossBuildSessionScopeServices).stop();
@@ -38,6 +38,7 @@ class BuildActionSerializerTest extends SerializerSpec {
     def "serializes ExecuteBuildAction with non-defaults"() {
         def startParameter = new StartParameterInternal()
         startParameter.taskNames = ['a', 'b']
+        startParameter.profileCompare = true
         startParameter.addDeprecation('warning 1')
         startParameter.addDeprecation('warning 2')
         def action = new ExecuteBuildAction(startParameter)
@@ -46,6 +47,7 @@ class BuildActionSerializerTest extends SerializerSpec {
         def result = serialize(action, BuildActionSerializer.create())
         result instanceof ExecuteBuildAction
         result.startParameter.taskNames == ['a', 'b']
+        result.startParameter.profileCompare
         result.startParameter.deprecations == ['warning 1', 'warning 2'] as Set
     }
 
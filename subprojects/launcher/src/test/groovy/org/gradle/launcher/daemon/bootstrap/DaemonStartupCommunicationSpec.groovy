@@ -38,6 +38,17 @@ class DaemonStartupCommunicationSpec extends Specification {
         startupInfo.pid == 123
         startupInfo.diagnostics.pid == 123
         startupInfo.diagnostics.daemonLog == dummyFile
+        !startupInfo.classDataSharing
+    }
+
+    def "communicates whether the daemon uses a class data sharing archive"() {
+        when:
+        def message = message(123, "1234", uuid, 123, addresses, dummyFile, true)
+        def startupInfo = comm.readDiagnostics(message)
+
+        then:
+        startupInfo.classDataSharing
+        startupInfo.diagnostics.daemonLog == dummyFile
     }
 
     def "null pid is supported"() {
@@ -61,11 +72,11 @@ class DaemonStartupCommunicationSpec extends Specification {
         thrown(IllegalArgumentException)
     }
 
-    def message(Long pid, String daemonId, UUID addressId, int port, List<InetAddress> addresses, File logFile) {
+    def message(Long pid, String daemonId, UUID addressId, int port, List<InetAddress> addresses, File logFile, boolean classDataSharing = false) {
         def outputStream = new ByteArrayOutputStream()
         def printStream = new PrintStream(outputStream)
         def address = new MultiChoiceAddress(addressId, port, addresses)
-        comm.printDaemonStarted(printStream, pid, daemonId, address, logFile)
+        comm.printDaemonStarted(printStream, pid, daemonId, address, logFile, classDataSharing)
         return new String(outputStream.toByteArray())
     }
 }
@@ -47,4 +47,10 @@ class DaemonStartupMessageTest extends Specification {
         message.contains(DaemonStartupMessage.STARTING_DAEMON_MESSAGE)
         message.contains(DaemonStartupMessage.SUBSEQUENT_BUILDS_WILL_BE_FASTER)
     }
+
+    def "startup time message reports whether the class data sharing archive was used"() {
+        expect:
+        DaemonStartupMessage.startupTime("1.2 secs", true) == "An attempt to start the daemon took 1.2 secs (with class data sharing archive)."
+        DaemonStartupMessage.startupTime("1.2 secs", false) == "An attempt to start the daemon took 1.2 secs (without class data sharing archive)."
+    }
 }
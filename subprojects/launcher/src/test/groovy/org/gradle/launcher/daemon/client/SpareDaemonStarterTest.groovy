@@ -0,0 +1,182 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.client
+
+import org.gradle.api.internal.specs.ExplainingSpec
+import org.gradle.initialization.BuildLayoutParameters
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.remote.Address
+import org.gradle.launcher.daemon.configuration.DaemonParameters
+import org.gradle.launcher.daemon.context.DaemonContext
+import org.gradle.launcher.daemon.context.DefaultDaemonContext
+import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo
+import org.gradle.launcher.daemon.registry.DaemonInfo
+import org.gradle.launcher.daemon.registry.EmbeddedDaemonRegistry
+import org.gradle.process.internal.health.memory.OsMemoryInfo
+import org.gradle.process.internal.health.memory.OsMemoryStatusSnapshot
+import spock.lang.Specification
+import spock.lang.Timeout
+
+import java.util.concurrent.CountDownLatch
+
+import static org.gradle.launcher.daemon.server.api.DaemonStateControl.State.Busy
+import static org.gradle.launcher.daemon.server.api.DaemonStateControl.State.Idle
+
+class SpareDaemonStarterTest extends Specification {
+    static final long GB = 1024 * 1024 * 1024
+
+    def registry = new EmbeddedDaemonRegistry()
+    def daemonStarter = Mock(DaemonStarter)
+    def memoryInfo = Stub(OsMemoryInfo)
+    def executorFactory = new DefaultExecutorFactory()
+    def parameters = new DaemonParameters(new BuildLayoutParameters())
+    def compatible = { DaemonContext context -> !context.uid.startsWith("incompatible") } as ExplainingSpec<DaemonContext>
+    def spareStarter = new SpareDaemonStarter(registry, daemonStarter, parameters, memoryInfo, executorFactory)
+    def daemonCounter = 0
+
+    def setup() {
+        parameters.warmStandby = true
+        parameters.jvmArgs = ["-Xmx1g"]
+        memoryInfo.osSnapshot >> new OsMemoryStatusSnapshot(16 * GB, 8 * GB)
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "starts a spare daemon when no other compatible daemon is idle"() {
+        def daemon = registerDaemon("daemon", Idle)
+        registerDaemon("busy", Busy)
+        registerDaemon("incompatible", Idle)
+
+        when:
+        spareStarter.buildStarted(compatible, daemon)
+        spareStarter.stop()
+
+        then:
+        1 * daemonStarter.startSpareDaemon() >> new DaemonStartupInfo("spare", null, null)
+    }
+
+    def "does not start a spare daemon when another compatible daemon is idle"() {
+        def daemon = registerDaemon("daemon", Idle)
+        registerDaemon("other", Idle)
+
+        when:
+        spareStarter.buildStarted(compatible, daemon)
+        spareStarter.stop()
+
+        then:
+        0 * daemonStarter._
+    }
+
+    def "does not start a spare daemon when warm standby is disabled"() {
+        def daemon = registerDaemon("daemon", Idle)
+        parameters.warmStandby = false
+
+        when:
+        spareStarter.buildStarted(compatible, daemon)
+        spareStarter.stop()
+
+        then:
+        0 * daemonStarter._
+    }
+
+    def "does not start a spare daemon when there is not enough free memory"() {
+        def memoryInfo = Stub(OsMemoryInfo) {
+            getOsSnapshot() >> new OsMemoryStatusSnapshot(16 * GB, GB)
+        }
+        def spareStarter = new SpareDaemonStarter(registry, daemonStarter, parameters, memoryInfo, executorFactory)
+        def daemon = registerDaemon("daemon", Idle)
+
+        when:
+        spareStarter.buildStarted(compatible, daemon)
+        spareStarter.stop()
+
+        then:
+        0 * daemonStarter._
+    }
+
+    def "does not start a spare daemon when free memory is unknown"() {
+        def memoryInfo = Stub(OsMemoryInfo) {
+            getOsSnapshot() >> { throw new UnsupportedOperationException() }
+        }
+        def spareStarter = new SpareDaemonStarter(registry, daemonStarter, parameters, memoryInfo, executorFactory)
+        def daemon = registerDaemon("daemon", Idle)
+
+        when:
+        spareStarter.buildStarted(compatible, daemon)
+        spareStarter.stop()
+
+        then:
+        0 * daemonStarter._
+    }
+
+    def "starts at most one spare daemon and ignores failures to start it"() {
+        def daemon = registerDaemon("daemon", Idle)
+
+        when:
+        spareStarter.buildStarted(compatible, daemon)
+        spareStarter.buildStarted(compatible, daemon)
+        spareStarter.stop()
+
+        then:
+        1 * daemonStarter.startSpareDaemon() >> { throw new RuntimeException("broken") }
+        noExceptionThrown()
+    }
+
+    @Timeout(30)
+    def "does not wait for a slow spare daemon to start for longer than the stop timeout"() {
+        given:
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def spareStarter = new SpareDaemonStarter(registry, daemonStarter, parameters, memoryInfo, executorFactory, 100)
+        def daemon = registerDaemon("daemon", Idle)
+        daemonStarter.startSpareDaemon() >> {
+            started.countDown()
+            release.await()
+            return new DaemonStartupInfo("spare", null, null)
+        }
+        spareStarter.buildStarted(compatible, daemon)
+        started.await()
+
+        when:
+        spareStarter.stop()
+
+        then:
+        noExceptionThrown()
+
+        cleanup:
+        release.countDown()
+    }
+
+    def registerDaemon(String name, state) {
+        def num = daemonCounter++
+        def uid = "$name-$num".toString()
+        def context = new DefaultDaemonContext(uid, new File("java"), new File("registry"), num, 1000, [])
+        def info = new DaemonInfo(createAddress(num), context, "password".bytes, state)
+        registry.store(info)
+        return info
+    }
+
+    def createAddress(int i) {
+        new Address() {
+            int getNum() { i }
+
+            String getDisplayName() { getNum() }
+        }
+    }
+}
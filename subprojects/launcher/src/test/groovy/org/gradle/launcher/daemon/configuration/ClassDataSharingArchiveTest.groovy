@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.configuration
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ClassDataSharingArchiveTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def versionedDir = tmpDir.file("daemon/4.8")
+    def java = tmpDir.file("jdk/bin/java").createFile()
+    def launcherJar = tmpDir.file("lib/gradle-launcher.jar").createFile()
+
+    def "archive is located in the versioned daemon dir"() {
+        when:
+        def archive = ClassDataSharingArchive.forDaemon(versionedDir, java, [launcherJar])
+
+        then:
+        archive.archiveFile.parentFile == new File(versionedDir, "cds")
+        archive.archiveFile.name.endsWith(".jsa")
+        !archive.exists()
+    }
+
+    def "uses the same archive for the same jvm and classpath"() {
+        expect:
+        ClassDataSharingArchive.forDaemon(versionedDir, java, [launcherJar]).archiveFile == ClassDataSharingArchive.forDaemon(versionedDir, java, [launcherJar]).archiveFile
+    }
+
+    def "uses a different archive when the classpath changes"() {
+        given:
+        def archive = ClassDataSharingArchive.forDaemon(versionedDir, java, [launcherJar])
+
+        when:
+        launcherJar << "changed"
+
+        then:
+        ClassDataSharingArchive.forDaemon(versionedDir, java, [launcherJar]).archiveFile != archive.archiveFile
+        ClassDataSharingArchive.forDaemon(versionedDir, java, [tmpDir.file("lib/other.jar")]).archiveFile != archive.archiveFile
+    }
+
+    def "uses a different archive for a different jvm"() {
+        def otherJava = tmpDir.file("other-jdk/bin/java").createFile()
+
+        expect:
+        ClassDataSharingArchive.forDaemon(versionedDir, otherJava, [launcherJar]).archiveFile != ClassDataSharingArchive.forDaemon(versionedDir, java, [launcherJar]).archiveFile
+    }
+
+    def "jvm args reference the archive"() {
+        def archive = ClassDataSharingArchive.forDaemon(versionedDir, java, [launcherJar])
+
+        when:
+        archive.archiveFile.parentFile.mkdirs()
+        archive.archiveFile.createNewFile()
+
+        then:
+        archive.exists()
+        archive.jvmArgs == ["-XX:SharedArchiveFile=${archive.archiveFile.absolutePath}".toString(), "-Xshare:auto"]
+    }
+}
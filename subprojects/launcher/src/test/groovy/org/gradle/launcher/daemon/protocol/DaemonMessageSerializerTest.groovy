@@ -31,6 +31,8 @@ import org.gradle.launcher.cli.action.BuildActionSerializer
 import org.gradle.launcher.cli.action.ExecuteBuildAction
 import org.gradle.launcher.daemon.diagnostics.DaemonDiagnostics
 import org.gradle.launcher.exec.DefaultBuildActionParameters
+import org.gradle.tooling.internal.provider.BuildActionResult
+import org.gradle.tooling.internal.provider.serialization.SerializedPayload
 
 class DaemonMessageSerializerTest extends SerializerSpec {
     def serializer = DaemonMessageSerializer.create(BuildActionSerializer.create())
@@ -64,6 +66,39 @@ class DaemonMessageSerializerTest extends SerializerSpec {
         result2.value == null
     }
 
+    def "can serialize Success message with build action result"() {
+        expect:
+        def payload = new SerializedPayload("header", [[1, 2] as byte[], [3] as byte[]])
+        def message = new Success(new BuildActionResult(payload, null))
+        def result = serialize(message, serializer)
+        result instanceof Success
+        result.value instanceof BuildActionResult
+        result.value.result.header == "header"
+        result.value.result.serializedModel*.toList() == [[1, 2], [3]]
+        result.value.failure == null
+
+        def message2 = new Success(new BuildActionResult(null, payload))
+        def result2 = serialize(message2, serializer)
+        result2.value.result == null
+        result2.value.failure.header == "header"
+    }
+
+    def "can serialize Success message with daemon status"() {
+        expect:
+        def message = new Success(new Status(123L, "4.8", "IDLE"))
+        def result = serialize(message, serializer)
+        result instanceof Success
+        result.value instanceof Status
+        result.value.pid == 123L
+        result.value.version == "4.8"
+        result.value.status == "IDLE"
+
+        def message2 = new Success(new Status(null, "4.8", "BUSY"))
+        def result2 = serialize(message2, serializer)
+        result2.value.pid == null
+        result2.value.status == "BUSY"
+    }
+
     def "can serialize Failure messages"() {
         expect:
         def failure = new RuntimeException()
@@ -168,10 +203,12 @@ class DaemonMessageSerializerTest extends SerializerSpec {
         result2.diagnostics.pid == null
     }
 
-    def "can serialize other messages"() {
+    def "can serialize daemon control messages"() {
         expect:
         def messageResult = serialize(message, serializer)
         messageResult.class == message.class
+        messageResult.identifier == message.identifier
+        messageResult.token == message.token
 
         where:
         message                                                  | _
@@ -72,7 +72,28 @@ class CompatibleDaemonExpirationStrategyTest extends DaemonExpirationStrategyTes
         !wouldExpire(d1)
     }
 
-    boolean wouldExpire(DaemonInfo info, Boolean timeoutReached = true) {
+    def "tolerates the given number of compatible idle daemons"() {
+        given:
+        DaemonInfo d1 = registerDaemon(Idle)
+        DaemonInfo d2 = registerDaemon(Idle)
+
+        when:
+        compatible = [ d1, d2 ]
+
+        then:
+        !wouldExpire(d1, true, 2)
+        !wouldExpire(d2, true, 2)
+
+        when:
+        DaemonInfo d3 = registerDaemon(Idle)
+        compatible = [ d1, d2, d3 ]
+
+        then:
+        wouldExpire(d1, true, 2)
+        wouldExpire(d3, true, 2)
+    }
+
+    boolean wouldExpire(DaemonInfo info, Boolean timeoutReached = true, int maxIdleDaemons = 1) {
         Daemon daemon = Mock(Daemon) {
             1 * getDaemonRegistry() >> { registry }
             _ * getDaemonContext() >> { info.getContext() }
@@ -88,6 +109,6 @@ class CompatibleDaemonExpirationStrategyTest extends DaemonExpirationStrategyTes
             compatibleWithCurrent = []
         }
 
-        return new CompatibleDaemonExpirationStrategy(daemon, compatibilitySpec).checkExpiration().status == GRACEFUL_EXPIRE
+        return new CompatibleDaemonExpirationStrategy(daemon, compatibilitySpec, maxIdleDaemons).checkExpiration().status == GRACEFUL_EXPIRE
     }
 }
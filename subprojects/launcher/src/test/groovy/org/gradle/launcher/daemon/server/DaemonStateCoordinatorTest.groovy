@@ -622,6 +622,76 @@ class DaemonStateCoordinatorTest extends ConcurrentSpec {
         0 * _._
     }
 
+    def "can run commands concurrently when enabled"() {
+        def coordinator = new DaemonStateCoordinator(executorFactory, onStartCommand, onFinishCommand, onCancelCommand, 2000, true)
+        def command2Run = false
+        def command2 = {
+            assert coordinator.state == Busy
+            command2Run = true
+        } as Runnable
+        def command1 = {
+            coordinator.newCommandControl().runCommand(command2, "command2")
+            assert coordinator.state == Busy
+        } as Runnable
+
+        when:
+        coordinator.newCommandControl().runCommand(command1, "command1")
+
+        then:
+        command2Run
+        coordinator.state == Idle
+
+        and:
+        1 * onStartCommand.run()
+        1 * onFinishCommand.run()
+        0 * _._
+    }
+
+    def "canceling a command does not cancel other running commands"() {
+        def coordinator = new DaemonStateCoordinator(executorFactory, onStartCommand, onFinishCommand, onCancelCommand, 2000, true)
+        def control1 = coordinator.newCommandControl()
+        def control2 = coordinator.newCommandControl()
+        def command1 = {
+            instant.running1
+            thread.blockUntil.canceled
+            assert coordinator.state == Busy
+            assert !control1.cancellationToken.cancellationRequested
+        } as Runnable
+        def command2 = {
+            instant.running2
+            thread.block()
+        } as Runnable
+
+        when:
+        async {
+            start {
+                coordinator.awaitStop()
+            }
+            start {
+                control1.runCommand(command1, "command1")
+                coordinator.stop()
+            }
+            start {
+                thread.blockUntil.running1
+                control2.runCommand(command2, "command2")
+            }
+            start {
+                thread.blockUntil.running2
+                control2.cancelBuild()
+                instant.canceled
+            }
+        }
+
+        then:
+        canceled
+        control2.cancellationToken.cancellationRequested
+
+        and:
+        1 * onStartCommand.run()
+        1 * onFinishCommand.run()
+        0 * _._
+    }
+
     def "idle millis is 0 if daemon is busy"() {
         given:
         Runnable command = Mock()
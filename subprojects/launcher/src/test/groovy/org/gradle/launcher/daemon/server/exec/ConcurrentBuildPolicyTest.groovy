@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.exec
+
+import org.gradle.api.internal.StartParameterInternal
+import org.gradle.initialization.BuildClientMetaData
+import org.gradle.initialization.layout.BuildLayoutFactory
+import org.gradle.internal.invocation.BuildAction
+import org.gradle.launcher.daemon.protocol.Build
+import org.gradle.launcher.daemon.server.api.DaemonUnavailableException
+import org.gradle.launcher.exec.BuildActionParameters
+import org.gradle.launcher.exec.BuildQueryAction
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ConcurrentBuildPolicyTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def policy = new ConcurrentBuildPolicy(new BuildLayoutFactory())
+
+    def "accepts builds for different root directories"() {
+        def build1 = build(rootDir("a"))
+        def build2 = build(rootDir("b"))
+
+        when:
+        policy.buildStarted(build1)
+        policy.buildStarted(build2)
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "rejects build for the same root directory"() {
+        def rootDir = rootDir("a")
+        def subproject = rootDir.createDir("sub")
+
+        given:
+        policy.buildStarted(build(rootDir))
+
+        when:
+        policy.buildStarted(build(subproject))
+
+        then:
+        DaemonUnavailableException e = thrown()
+        e.message == "This daemon is currently executing a build for root directory ${rootDir}."
+    }
+
+    def "accepts read-only builds for the same root directory"() {
+        def rootDir = rootDir("a")
+
+        when:
+        policy.buildStarted(build(rootDir, false))
+        policy.buildStarted(build(rootDir, false))
+
+        then:
+        noExceptionThrown()
+
+        when:
+        policy.buildStarted(build(rootDir, true))
+
+        then:
+        thrown(DaemonUnavailableException)
+    }
+
+    def "accepts build for the same root directory once the running build has finished"() {
+        def rootDir = rootDir("a")
+        def build1 = build(rootDir)
+
+        given:
+        policy.buildStarted(build1)
+        policy.buildFinished(build1)
+
+        when:
+        policy.buildStarted(build(rootDir))
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "rejects build with different environment variables"() {
+        given:
+        policy.buildStarted(build(rootDir("a"), null, [JAVA_HOME: "jdk1", PWD: "a"]))
+
+        when:
+        policy.buildStarted(build(rootDir("b"), null, [JAVA_HOME: "jdk1", PWD: "b"]))
+
+        then:
+        noExceptionThrown()
+
+        when:
+        policy.buildStarted(build(rootDir("c"), null, [JAVA_HOME: "jdk2", PWD: "c"]))
+
+        then:
+        DaemonUnavailableException e = thrown()
+        e.message == "This daemon is currently executing a build with different environment variables."
+    }
+
+    def "rejects build with different system properties"() {
+        def sysProps = ["org.gradle.test.some": "1", "org.gradle.test.other": "2"]
+
+        given:
+        policy.buildStarted(build(rootDir("a"), null, [:], sysProps))
+        establishSystemProperties(sysProps)
+
+        when:
+        policy.buildStarted(build(rootDir("b"), null, [:], sysProps))
+
+        then:
+        noExceptionThrown()
+
+        when:
+        policy.buildStarted(build(rootDir("c"), null, [:], ["org.gradle.test.some": "1"]))
+
+        then:
+        DaemonUnavailableException e = thrown()
+        e.message == "This daemon is currently executing a build with different system properties."
+
+        cleanup:
+        sysProps.keySet().each { System.clearProperty(it) }
+    }
+
+    def "rejects build from a different working directory"() {
+        given:
+        policy.buildStarted(build(rootDir("a")))
+
+        when:
+        policy.buildStarted(build(rootDir("b"), null, [:], [:], tmpDir.createDir("other")))
+
+        then:
+        DaemonUnavailableException e = thrown()
+        e.message == "This daemon is currently executing a build with working directory ${tmpDir.testDirectory}."
+    }
+
+    def "rejects build once a running build has changed the system properties of the daemon"() {
+        def build1 = build(rootDir("a"))
+
+        given:
+        policy.buildStarted(build1)
+        System.setProperty("org.gradle.test.concurrentBuildPolicy", "changed")
+
+        when:
+        policy.buildStarted(build(rootDir("b")))
+
+        then:
+        DaemonUnavailableException e = thrown()
+        e.message == "This daemon is currently executing a build that has changed the system properties of the daemon."
+
+        when:
+        policy.buildFinished(build1)
+        policy.buildStarted(build(rootDir("b")))
+
+        then:
+        noExceptionThrown()
+
+        cleanup:
+        System.clearProperty("org.gradle.test.concurrentBuildPolicy")
+    }
+
+    // Simulates EstablishBuildEnvironment
+    static void establishSystemProperties(Map<String, String> sysProps) {
+        sysProps.each { key, value -> System.setProperty(key, value) }
+    }
+
+    def rootDir(String name) {
+        def dir = tmpDir.createDir(name)
+        dir.createFile("settings.gradle")
+        return dir
+    }
+
+    Build build(File projectDir, Boolean runTasks = null, Map<String, String> env = [:], Map<String, String> sysProps = [:], File workingDir = tmpDir.testDirectory) {
+        def startParameter = new StartParameterInternal()
+        startParameter.currentDir = projectDir
+        def action
+        if (runTasks == null) {
+            action = Stub(BuildAction) {
+                getStartParameter() >> startParameter
+            }
+        } else {
+            action = Stub(BuildQueryAction) {
+                getStartParameter() >> startParameter
+                isRunTasks() >> runTasks
+            }
+        }
+        def parameters = Stub(BuildActionParameters) {
+            getEnvVariables() >> env
+            getSystemProperties() >> sysProps
+            getCurrentDir() >> workingDir
+        }
+        return new Build(UUID.randomUUID(), [] as byte[], action, Stub(BuildClientMetaData), 0, parameters)
+    }
+}
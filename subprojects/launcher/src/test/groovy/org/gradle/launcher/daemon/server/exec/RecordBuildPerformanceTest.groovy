@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.exec
+
+import org.gradle.api.internal.StartParameterInternal
+import org.gradle.initialization.BuildClientMetaData
+import org.gradle.initialization.ReportedException
+import org.gradle.internal.invocation.BuildAction
+import org.gradle.internal.operations.BuildOperationListenerManager
+import org.gradle.internal.time.Clock
+import org.gradle.launcher.daemon.protocol.Build
+import org.gradle.launcher.daemon.server.api.DaemonCommandExecution
+import org.gradle.launcher.daemon.server.stats.BuildPerformanceCollector
+import org.gradle.launcher.daemon.server.stats.BuildPerformanceHistory
+import org.gradle.launcher.daemon.server.stats.BuildPerformanceProfile
+import org.gradle.launcher.daemon.server.stats.BuildPerformanceReport
+import org.gradle.launcher.exec.BuildActionParameters
+import spock.lang.Specification
+
+class RecordBuildPerformanceTest extends Specification {
+    def listenerManager = Mock(BuildOperationListenerManager)
+    def history = Mock(BuildPerformanceHistory)
+    def report = Mock(BuildPerformanceReport)
+    def clock = Stub(Clock) {
+        getCurrentTime() >>> [1000, 3000]
+    }
+    def execution = Mock(DaemonCommandExecution)
+    def startParameter = new StartParameterInternal()
+    def action = new RecordBuildPerformance(listenerManager, history, report, clock)
+
+    def setup() {
+        startParameter.currentDir = new File("project").absoluteFile
+        startParameter.taskNames = ["clean", "build"]
+    }
+
+    def "records the profile of a successful build"() {
+        when:
+        action.execute(execution)
+
+        then:
+        _ * execution.command >> build()
+        1 * listenerManager.addListener(_ as BuildPerformanceCollector)
+
+        then:
+        1 * execution.proceed()
+
+        then:
+        1 * listenerManager.removeListener(_ as BuildPerformanceCollector)
+        1 * history.record({ BuildPerformanceProfile profile ->
+            profile.invocation == "${startParameter.currentDir.absolutePath} clean build" && profile.timestamp == 1000 && profile.get(BuildPerformanceProfile.Metric.BUILD_TIME) == 2000
+        }, RecordBuildPerformance.COMPARED_BUILDS) >> []
+        0 * report._
+    }
+
+    def "reports the comparison with earlier builds when requested"() {
+        def previous = [Stub(BuildPerformanceProfile)]
+        startParameter.profileCompare = true
+
+        when:
+        action.execute(execution)
+
+        then:
+        _ * execution.command >> build()
+        1 * history.record(_, RecordBuildPerformance.COMPARED_BUILDS) >> previous
+        1 * report.render(_, previous) >> "report"
+    }
+
+    def "does not record the profile of a failed build"() {
+        when:
+        action.execute(execution)
+
+        then:
+        _ * execution.command >> build()
+        _ * execution.exception >> new ReportedException(new RuntimeException())
+        1 * execution.proceed()
+        1 * listenerManager.removeListener(_)
+        0 * history._
+        0 * report._
+    }
+
+    def "does not profile continuous builds"() {
+        when:
+        action.execute(execution)
+
+        then:
+        _ * execution.command >> build(true)
+        1 * execution.proceed()
+        0 * listenerManager._
+        0 * history._
+    }
+
+    def "does not fail the build when the profile cannot be recorded"() {
+        startParameter.profileCompare = true
+
+        when:
+        action.execute(execution)
+
+        then:
+        _ * execution.command >> build()
+        1 * history.record(_, _) >> { throw new RuntimeException("broken") }
+        0 * report._
+        noExceptionThrown()
+    }
+
+    Build build(boolean continuous = false) {
+        def buildAction = Stub(BuildAction) {
+            getStartParameter() >> startParameter
+        }
+        def parameters = Stub(BuildActionParameters) {
+            isContinuous() >> continuous
+        }
+        return new Build(UUID.randomUUID(), [] as byte[], buildAction, Stub(BuildClientMetaData), 0, parameters)
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health
+
+import org.gradle.cache.internal.InMemoryCacheShrinker
+import org.gradle.cache.internal.ShrinkableCache
+import org.gradle.internal.time.Clock
+import spock.lang.Specification
+
+import static org.gradle.launcher.daemon.server.health.LowMemoryCacheShrinker.MAX_ATTEMPTS
+import static org.gradle.launcher.daemon.server.health.LowMemoryCacheShrinker.RESET_PERIOD_MS
+import static org.gradle.launcher.daemon.server.health.LowMemoryCacheShrinker.SETTLE_PERIOD_MS
+import static org.gradle.launcher.daemon.server.health.LowMemoryCacheShrinker.SHRINK_FRACTION
+
+class LowMemoryCacheShrinkerTest extends Specification {
+    def cache = Mock(ShrinkableCache)
+    def cacheShrinker = new InMemoryCacheShrinker()
+    long currentTime = 1000
+    def clock = Stub(Clock) {
+        getCurrentTime() >> { currentTime }
+    }
+    def lowMemoryCacheShrinker = new LowMemoryCacheShrinker(cacheShrinker, clock)
+
+    def setup() {
+        cacheShrinker.register(cache)
+    }
+
+    def "shrinks caches instead of expiring the daemon"() {
+        when:
+        def keepRunning = lowMemoryCacheShrinker.relieveMemoryPressure("low memory")
+
+        then:
+        keepRunning
+        1 * cache.shrink(SHRINK_FRACTION) >> 10
+    }
+
+    def "expires the daemon when caches are empty"() {
+        when:
+        def keepRunning = lowMemoryCacheShrinker.relieveMemoryPressure("low memory")
+
+        then:
+        !keepRunning
+        1 * cache.shrink(SHRINK_FRACTION) >> 0
+    }
+
+    def "waits for the daemon to settle before shrinking caches again"() {
+        given:
+        cache.shrink(_) >> 10
+        lowMemoryCacheShrinker.relieveMemoryPressure("low memory")
+
+        when:
+        currentTime += SETTLE_PERIOD_MS - 1
+        def keepRunning = lowMemoryCacheShrinker.relieveMemoryPressure("low memory")
+
+        then:
+        keepRunning
+        0 * cache._
+
+        when:
+        currentTime += 1
+        keepRunning = lowMemoryCacheShrinker.relieveMemoryPressure("low memory")
+
+        then:
+        keepRunning
+        1 * cache.shrink(SHRINK_FRACTION) >> 10
+    }
+
+    def "expires the daemon after several attempts in a row"() {
+        given:
+        cache.shrink(_) >> 10
+        MAX_ATTEMPTS.times {
+            assert lowMemoryCacheShrinker.relieveMemoryPressure("low memory")
+            currentTime += SETTLE_PERIOD_MS
+        }
+
+        when:
+        def keepRunning = lowMemoryCacheShrinker.relieveMemoryPressure("low memory")
+
+        then:
+        !keepRunning
+        0 * cache._
+
+        when:
+        currentTime += RESET_PERIOD_MS
+        keepRunning = lowMemoryCacheShrinker.relieveMemoryPressure("low memory")
+
+        then:
+        keepRunning
+        1 * cache.shrink(SHRINK_FRACTION) >> 10
+    }
+}
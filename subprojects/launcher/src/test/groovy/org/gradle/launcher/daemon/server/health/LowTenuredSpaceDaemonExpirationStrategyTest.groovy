@@ -50,4 +50,19 @@ class LowTenuredSpaceDaemonExpirationStrategyTest extends Specification {
         and:
         result == DaemonExpirationResult.NOT_TRIGGERED
     }
+
+    def "daemon is not expired when tenured space is low and in-memory caches can be shrunk" () {
+        def cacheShrinker = Mock(LowMemoryCacheShrinker)
+        LowTenuredSpaceDaemonExpirationStrategy strategy = new LowTenuredSpaceDaemonExpirationStrategy(status, cacheShrinker)
+
+        when:
+        DaemonExpirationResult result = strategy.checkExpiration()
+
+        then:
+        1 * status.isTenuredSpaceExhausted() >> true
+        1 * cacheShrinker.relieveMemoryPressure(_) >> true
+
+        and:
+        result == DaemonExpirationResult.NOT_TRIGGERED
+    }
 }
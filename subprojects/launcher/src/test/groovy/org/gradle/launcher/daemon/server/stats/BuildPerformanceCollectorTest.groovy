@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.stats
+
+import org.gradle.api.internal.artifacts.configurations.ResolveConfigurationDependenciesBuildOperationType
+import org.gradle.api.internal.tasks.SnapshotTaskInputsBuildOperationType
+import org.gradle.initialization.ConfigureBuildBuildOperationType
+import org.gradle.internal.execution.ExecuteTaskBuildOperationType
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationStartEvent
+import spock.lang.Specification
+
+import static org.gradle.launcher.daemon.server.stats.BuildPerformanceProfile.Metric.*
+
+class BuildPerformanceCollectorTest extends Specification {
+    def collector = new BuildPerformanceCollector(1000)
+    def nextId = 1
+
+    def "sums the durations of the build operations of each kind"() {
+        def root = start(null, null)
+
+        when:
+        def configure = start(root, Stub(ConfigureBuildBuildOperationType.Details))
+        finish(configure, 100, 400)
+        def resolve = start(root, Stub(ResolveConfigurationDependenciesBuildOperationType.Details))
+        finish(resolve, 400, 450)
+        def task = start(root, Stub(ExecuteTaskBuildOperationType.Details))
+        def snapshot = start(task, Stub(SnapshotTaskInputsBuildOperationType.Details))
+        finish(snapshot, 500, 520)
+        finish(task, 500, 700)
+        def otherTask = start(root, Stub(ExecuteTaskBuildOperationType.Details))
+        finish(otherTask, 700, 750)
+        finish(root, 0, 1000)
+        def profile = collector.toProfile("invocation", 3000)
+
+        then:
+        profile.invocation == "invocation"
+        profile.timestamp == 1000
+        profile.get(BUILD_TIME) == 2000
+        profile.get(CONFIGURATION_TIME) == 300
+        profile.get(RESOLUTION_TIME) == 50
+        profile.get(TASK_EXECUTION_TIME) == 250
+        profile.get(SNAPSHOTTING_TIME) == 20
+        profile.get(GC_TIME) >= 0
+    }
+
+    def "counts task outcomes"() {
+        def root = start(null, null)
+
+        when:
+        finish(start(root, Stub(ExecuteTaskBuildOperationType.Details)), 0, 1, taskResult(null, true, null))
+        finish(start(root, Stub(ExecuteTaskBuildOperationType.Details)), 0, 1, taskResult(null, true, "NOT_CACHEABLE"))
+        finish(start(root, Stub(ExecuteTaskBuildOperationType.Details)), 0, 1, taskResult("UP-TO-DATE", true, null))
+        finish(start(root, Stub(ExecuteTaskBuildOperationType.Details)), 0, 1, taskResult("FROM-CACHE", true, null))
+        finish(start(root, Stub(ExecuteTaskBuildOperationType.Details)), 0, 1, taskResult("FROM-CACHE", true, null))
+        finish(start(root, Stub(ExecuteTaskBuildOperationType.Details)), 0, 1, taskResult("NO-SOURCE", true, null))
+        def profile = collector.toProfile("invocation", 1000)
+
+        then:
+        profile.get(EXECUTED_TASKS) == 2
+        profile.get(CACHE_MISSES) == 1
+        profile.get(UP_TO_DATE_TASKS) == 1
+        profile.get(CACHE_HITS) == 2
+    }
+
+    def "ignores build operations of builds started by other threads"() {
+        def otherRoot = null
+
+        when:
+        def thread = new Thread({ otherRoot = start(null, null) })
+        thread.start()
+        thread.join()
+        def task = start(otherRoot, Stub(ExecuteTaskBuildOperationType.Details))
+        finish(task, 0, 100)
+        def profile = collector.toProfile("invocation", 1000)
+
+        then:
+        profile.get(TASK_EXECUTION_TIME) == 0
+    }
+
+    private BuildOperationDescriptor start(BuildOperationDescriptor parent, Object details) {
+        def descriptor = BuildOperationDescriptor.displayName("operation").details(details).build(new OperationIdentifier(nextId++), parent?.id)
+        collector.started(descriptor, new OperationStartEvent(0))
+        return descriptor
+    }
+
+    private void finish(BuildOperationDescriptor descriptor, long startTime, long endTime, Object result = null) {
+        collector.finished(descriptor, new OperationFinishEvent(startTime, endTime, null, result))
+    }
+
+    private ExecuteTaskBuildOperationType.Result taskResult(String skipMessage, boolean actionable, String cachingDisabledReasonCategory) {
+        return Stub(ExecuteTaskBuildOperationType.Result) {
+            getSkipMessage() >> skipMessage
+            isActionable() >> actionable
+            getCachingDisabledReasonCategory() >> cachingDisabledReasonCategory
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.stats
+
+import org.gradle.cache.PersistentStateCache
+import org.gradle.internal.serialize.ListSerializer
+import org.gradle.internal.serialize.SerializerSpec
+
+import static org.gradle.launcher.daemon.server.stats.BuildPerformanceProfile.Metric
+
+class BuildPerformanceHistoryTest extends SerializerSpec {
+    def cache = new SerializingStateCache()
+    def history = new BuildPerformanceHistory(cache, 4)
+
+    def "serializes profiles"() {
+        def profile = profile("invocation", 12, 1000)
+
+        expect:
+        def result = serialize(profile, BuildPerformanceProfile.SERIALIZER)
+        result == profile
+        Metric.values().every { result.get(it) == profile.get(it) }
+    }
+
+    def "returns earlier profiles of the same invocation when recording a profile"() {
+        expect:
+        history.record(profile("a", 1), 2).empty
+        history.record(profile("b", 2), 2).empty
+        history.record(profile("a", 3), 2)*.timestamp == [1]
+        history.record(profile("a", 4), 2)*.timestamp == [1, 3]
+        history.record(profile("a", 5), 2)*.timestamp == [3, 4]
+        history.getProfiles("a", 10)*.timestamp == [3, 4, 5]
+        history.getProfiles("b", 10)*.timestamp == [2]
+    }
+
+    def "discards the oldest profiles when the history is full"() {
+        when:
+        (1..6).each { history.record(profile(it % 2 == 0 ? "a" : "b", it), 1) }
+
+        then:
+        cache.get()*.timestamp == [3, 4, 5, 6]
+        history.getProfiles("a", 10)*.timestamp == [4, 6]
+    }
+
+    def "returns no profiles when nothing has been recorded"() {
+        expect:
+        history.getProfiles("a", 5).empty
+    }
+
+    static BuildPerformanceProfile profile(String invocation, long timestamp, long value = 0) {
+        def values = new long[Metric.values().length]
+        Arrays.fill(values, value)
+        return new BuildPerformanceProfile(invocation, timestamp, values)
+    }
+
+    class SerializingStateCache implements PersistentStateCache<List<BuildPerformanceProfile>> {
+        def serializer = new ListSerializer<BuildPerformanceProfile>(BuildPerformanceProfile.SERIALIZER)
+        List<BuildPerformanceProfile> value
+
+        @Override
+        List<BuildPerformanceProfile> get() {
+            return value
+        }
+
+        @Override
+        void set(List<BuildPerformanceProfile> newValue) {
+            value = serialize(newValue, serializer)
+        }
+
+        @Override
+        List<BuildPerformanceProfile> update(PersistentStateCache.UpdateAction<List<BuildPerformanceProfile>> updateAction) {
+            def newValue = updateAction.update(get())
+            set(newValue)
+            return newValue
+        }
+
+        @Override
+        List<BuildPerformanceProfile> maybeUpdate(PersistentStateCache.UpdateAction<List<BuildPerformanceProfile>> updateAction) {
+            return update(updateAction)
+        }
+    }
+}
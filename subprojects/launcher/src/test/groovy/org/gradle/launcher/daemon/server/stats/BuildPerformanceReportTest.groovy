@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.stats
+
+import spock.lang.Specification
+
+import static org.gradle.launcher.daemon.server.stats.BuildPerformanceProfile.Metric
+import static org.gradle.launcher.daemon.server.stats.BuildPerformanceProfile.Metric.*
+
+class BuildPerformanceReportTest extends Specification {
+    def report = new BuildPerformanceReport()
+
+    def "reports the metrics of the build when there are no earlier builds"() {
+        when:
+        def output = report.render(profile((BUILD_TIME): 1500, (CACHE_HITS): 7), [])
+
+        then:
+        output.contains("no earlier builds")
+        lines(output).find { it.contains(BUILD_TIME.displayName) }.contains("1")
+        lines(output).find { it.contains(CACHE_HITS.displayName) }.endsWith("7")
+        !output.contains("REGRESSION")
+    }
+
+    def "compares the metrics of the build with the mean of the earlier builds"() {
+        def previous = [
+            profile((BUILD_TIME): 1000, (TASK_EXECUTION_TIME): 500, (CONFIGURATION_TIME): 200, (EXECUTED_TASKS): 2),
+            profile((BUILD_TIME): 1200, (TASK_EXECUTION_TIME): 700, (CONFIGURATION_TIME): 200, (EXECUTED_TASKS): 4)
+        ]
+
+        when:
+        def output = report.render(profile((BUILD_TIME): 1150, (TASK_EXECUTION_TIME): 900, (CONFIGURATION_TIME): 150, (EXECUTED_TASKS): 9), previous)
+
+        then:
+        output.contains("previous 2 builds")
+        def taskLine = lines(output).find { it.contains(TASK_EXECUTION_TIME.displayName) }
+        taskLine.contains("+50%")
+        taskLine.endsWith("REGRESSION")
+        !lines(output).find { it.contains(BUILD_TIME.displayName) }.contains("REGRESSION")
+        lines(output).find { it.contains(CONFIGURATION_TIME.displayName) }.contains("-25%")
+        !lines(output).find { it.contains(EXECUTED_TASKS.displayName) }.contains("REGRESSION")
+    }
+
+    def "flags durations that are significantly larger than the mean as regressions"() {
+        expect:
+        BuildPerformanceReport.isRegression(metric, value, mean) == regression
+
+        where:
+        metric              | value | mean | regression
+        BUILD_TIME          | 2000  | 1000 | true
+        BUILD_TIME          | 1100  | 1000 | false
+        BUILD_TIME          | 150   | 100  | false
+        BUILD_TIME          | 300   | 100  | true
+        GC_TIME             | 100   | 0    | true
+        TASK_EXECUTION_TIME | 500   | 1000 | false
+        EXECUTED_TASKS      | 2000  | 1000 | false
+    }
+
+    private static BuildPerformanceProfile profile(Map<Metric, Long> values) {
+        def array = new long[Metric.values().length]
+        values.each { metric, value -> array[metric.ordinal()] = value }
+        return new BuildPerformanceProfile("invocation", 0, array)
+    }
+
+    private static List<String> lines(String output) {
+        return output.readLines()
+    }
+}
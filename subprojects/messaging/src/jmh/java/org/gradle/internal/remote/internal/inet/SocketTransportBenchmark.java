@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.api.Action;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.id.UUIDGenerator;
+import org.gradle.internal.remote.ConnectionAcceptor;
+import org.gradle.internal.remote.internal.ConnectCompletion;
+import org.gradle.internal.remote.internal.RemoteConnection;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Serializers;
+import org.gradle.internal.serialize.StatefulSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the round trip latency and the throughput of a connection over loopback, using either the blocking socket transport or the event loop transport.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class SocketTransportBenchmark {
+    private static final String SYNC = "sync";
+    private static final StatefulSerializer<String> SERIALIZER = Serializers.stateful(BaseSerializerFactory.STRING_SERIALIZER);
+
+    @Param({"blocking", "event-loop"})
+    String transport;
+
+    @Param({"1024"})
+    int messageSize;
+
+    @Param({"1000"})
+    int messagesPerSync;
+
+    DefaultExecutorFactory executorFactory;
+    ConnectionAcceptor acceptor;
+    RemoteConnection<String> connection;
+    String message;
+
+    @Setup(Level.Trial)
+    public void connect() {
+        executorFactory = new DefaultExecutorFactory();
+        TcpIncomingConnector incomingConnector = new TcpIncomingConnector(executorFactory, new InetAddressFactory(), new UUIDGenerator());
+        acceptor = incomingConnector.accept(new Action<ConnectCompletion>() {
+            @Override
+            public void execute(ConnectCompletion completion) {
+                acknowledgeSyncMessages(completion.create(SERIALIZER));
+            }
+        }, false);
+        TcpOutgoingConnector outgoingConnector = new TcpOutgoingConnector(SocketEventLoop.getInstance(), transport.equals("event-loop"));
+        connection = outgoingConnector.connect(acceptor.getAddress()).create(SERIALIZER);
+
+        StringBuilder builder = new StringBuilder(messageSize);
+        for (int i = 0; i < messageSize; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        message = builder.toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void disconnect() {
+        connection.stop();
+        acceptor.stop();
+        executorFactory.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String roundTrip() {
+        connection.dispatch(SYNC);
+        connection.flush();
+        return connection.receive();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public String throughput() {
+        for (int i = 0; i < messagesPerSync; i++) {
+            connection.dispatch(message);
+        }
+        connection.dispatch(SYNC);
+        connection.flush();
+        return connection.receive();
+    }
+
+    private static void acknowledgeSyncMessages(RemoteConnection<String> connection) {
+        try {
+            String received;
+            while ((received = connection.receive()) != null) {
+                if (received.equals(SYNC)) {
+                    connection.dispatch(SYNC);
+                    connection.flush();
+                }
+            }
+        } finally {
+            connection.stop();
+        }
+    }
+}
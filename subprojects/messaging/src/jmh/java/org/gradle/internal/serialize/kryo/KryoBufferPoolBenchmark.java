@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.serialize.kryo;
+
+import org.gradle.internal.io.StreamByteBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of encoding and decoding typical cache entries, either allocating new buffers for each entry, as the persistent caches used to do,
+ * or taking the buffers from the buffer pool and returning them when done. Run with {@code -prof gc} to also measure the allocation rate.
+ *
+ * <p>{@link #cacheEntry()} encodes an entry into an in-memory buffer and decodes it again, the way the persistent caches do. {@link #fileEntries()} writes a number of entries to a file,
+ * either through a file output stream or straight to the file's channel.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class KryoBufferPoolBenchmark {
+    private static final int ENTRIES_PER_FILE = 100;
+
+    @Param({"allocated", "pooled"})
+    String buffers;
+
+    @Param({"64", "1024", "16384"})
+    int entrySize;
+
+    boolean pooled;
+    byte[] entry;
+    File file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        pooled = buffers.equals("pooled");
+        entry = new byte[entrySize];
+        new Random(entrySize).nextBytes(entry);
+        file = File.createTempFile("entries", ".bin");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public byte[] cacheEntry() throws Exception {
+        StreamByteBuffer buffer = StreamByteBuffer.createWithChunkSizeInDefaultRange(entrySize);
+        KryoBackedEncoder encoder = new KryoBackedEncoder(buffer.getOutputStream());
+        writeEntry(encoder);
+        if (pooled) {
+            encoder.close();
+        } else {
+            encoder.flush();
+        }
+
+        KryoBackedDecoder decoder = new KryoBackedDecoder(buffer.getInputStream());
+        decoder.readLong();
+        byte[] result = decoder.readBinary();
+        if (pooled) {
+            decoder.close();
+            buffer.release();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int fileEntries() throws Exception {
+        FileOutputStream outputStream = new FileOutputStream(file);
+        KryoBackedEncoder encoder = pooled ? new KryoBackedEncoder(outputStream.getChannel()) : new KryoBackedEncoder(outputStream);
+        for (int i = 0; i < ENTRIES_PER_FILE; i++) {
+            writeEntry(encoder);
+        }
+        encoder.close();
+        return encoder.getWritePosition();
+    }
+
+    private void writeEntry(KryoBackedEncoder encoder) throws IOException {
+        encoder.writeLong(entrySize);
+        encoder.writeBinary(entry);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal;
+
+/**
+ * A {@link RemoteConnection} that can push incoming messages to a receiver as they arrive, rather than requiring a thread to block in {@link #receive()}.
+ */
+public interface AsyncRemoteConnection<T> extends RemoteConnection<T> {
+    /**
+     * Starts passing incoming messages to the given receiver. Can be called at most once, and cannot be combined with {@link #receive()}.
+     *
+     * <p>The receiver is notified by at most one thread at a time, and must not block.</p>
+     */
+    void receiveAsync(Receiver<? super T> receiver);
+
+    interface Receiver<T> {
+        /**
+         * Called when a message has been received.
+         */
+        void messageReceived(T message);
+
+        /**
+         * Called when a message could not be received. When the failure is a {@link RecoverableMessageIOException}, further messages may be received. Otherwise, {@link #endOfStream()}
+         * is called next.
+         */
+        void receiveFailed(MessageIOException failure);
+
+        /**
+         * Called when no further messages will be received, because the peer has closed the connection or this connection has been stopped.
+         */
+        void endOfStream();
+    }
+}
@@ -22,7 +22,9 @@ import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.dispatch.BoundedDispatch;
 import org.gradle.internal.dispatch.Dispatch;
+import org.gradle.internal.remote.internal.AsyncRemoteConnection;
 import org.gradle.internal.remote.internal.Connection;
+import org.gradle.internal.remote.internal.MessageIOException;
 import org.gradle.internal.remote.internal.RecoverableMessageIOException;
 import org.gradle.internal.remote.internal.RemoteConnection;
 import org.gradle.internal.remote.internal.hub.protocol.*;
@@ -30,6 +32,7 @@ import org.gradle.internal.remote.internal.hub.queue.EndPointQueue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -49,6 +52,8 @@ public class MessageHub implements AsyncStoppable {
     private final String displayName;
     private final Action<? super Throwable> errorHandler;
     private final Lock lock = new ReentrantLock();
+    private final Condition asyncReceiveFinished = lock.newCondition();
+    private int asyncReceivesInProgress;
     private State state = State.Running;
     private final IncomingQueue incomingQueue = new IncomingQueue(lock);
     private final OutgoingQueue outgoingQueue = new OutgoingQueue(incomingQueue, lock);
@@ -138,6 +143,8 @@ public class MessageHub implements AsyncStoppable {
      * Adds a connection to some other message hub. Outgoing messages are forwarded to this connection, and incoming messages are received from it.
      *
      * <p>Does not cleanup connections on stop or disconnect. It is the caller's responsibility to manage the connection lifecycle.</p>
+     *
+     * <p>When the connection is an {@link AsyncRemoteConnection}, incoming messages are pushed to this hub by the connection, rather than received using a worker thread.</p>
      */
     public void addConnection(RemoteConnection<InterHubMessage> connection) {
         lock.lock();
@@ -145,7 +152,12 @@ public class MessageHub implements AsyncStoppable {
             assertRunning("add connection");
             ConnectionState connectionState = connections.add(connection);
             workers.execute(new ConnectionDispatch(connectionState));
-            workers.execute(new ConnectionReceive(connectionState));
+            if (connection instanceof AsyncRemoteConnection) {
+                asyncReceivesInProgress++;
+                ((AsyncRemoteConnection<InterHubMessage>) connection).receiveAsync(new AsyncConnectionReceive(connectionState));
+            } else {
+                workers.execute(new ConnectionReceive(connectionState));
+            }
         } finally {
             lock.unlock();
         }
@@ -219,6 +231,7 @@ public class MessageHub implements AsyncStoppable {
                 lock.unlock();
             }
             workers.stop();
+            awaitAsyncReceives();
         } finally {
             lock.lock();
             try {
@@ -229,6 +242,17 @@ public class MessageHub implements AsyncStoppable {
         }
     }
 
+    private void awaitAsyncReceives() {
+        lock.lock();
+        try {
+            while (asyncReceivesInProgress > 0) {
+                asyncReceiveFinished.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     private static class Discard implements BoundedDispatch<Object>, RejectedMessageListener, StreamFailureHandler {
         public void dispatch(Object message) {
         }
@@ -284,6 +308,59 @@ public class MessageHub implements AsyncStoppable {
         }
     }
 
+    private class AsyncConnectionReceive implements AsyncRemoteConnection.Receiver<InterHubMessage> {
+        private final ConnectionState connectionState;
+        private boolean finished;
+
+        AsyncConnectionReceive(ConnectionState connectionState) {
+            this.connectionState = connectionState;
+        }
+
+        @Override
+        public void messageReceived(InterHubMessage message) {
+            if (finished) {
+                return;
+            }
+            if (message instanceof EndOfStream) {
+                endOfStream();
+                return;
+            }
+            addToIncoming(message);
+        }
+
+        @Override
+        public void receiveFailed(MessageIOException failure) {
+            if (finished) {
+                return;
+            }
+            if (failure instanceof RecoverableMessageIOException) {
+                addToIncoming(new StreamFailureMessage(failure));
+            } else {
+                errorHandler.execute(failure);
+            }
+        }
+
+        @Override
+        public void endOfStream() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            try {
+                lock.lock();
+                try {
+                    connectionState.receiveFinished();
+                } finally {
+                    asyncReceivesInProgress--;
+                    asyncReceiveFinished.signalAll();
+                    lock.unlock();
+                }
+            } catch (Throwable e) {
+                errorHandler.execute(e);
+            }
+        }
+    }
+
     private void addToIncoming(InterHubMessage message) {
         lock.lock();
         try {
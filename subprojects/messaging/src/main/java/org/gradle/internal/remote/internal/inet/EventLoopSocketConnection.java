@@ -0,0 +1,582 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.internal.Cast;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.io.BufferPool;
+import org.gradle.internal.remote.internal.AsyncRemoteConnection;
+import org.gradle.internal.remote.internal.MessageIOException;
+import org.gradle.internal.remote.internal.MessageSerializer;
+import org.gradle.internal.remote.internal.RecoverableMessageIOException;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.FlushableEncoder;
+import org.gradle.internal.serialize.ObjectReader;
+import org.gradle.internal.serialize.ObjectWriter;
+import org.gradle.internal.serialize.StatefulSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectStreamException;
+import java.io.StreamCorruptedException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A socket connection that does not need a thread of its own to receive messages. When messages are received using {@link #receiveAsync(Receiver)}, incoming data is read and
+ * decoded by a {@link SocketEventLoop} thread. When messages are received using {@link #receive()}, the receiving thread reads the data itself, as there is then no thread to save.
+ *
+ * <p>Each message is sent as a frame made up of the length of the encoded message followed by the encoded message, so that the event loop only needs to decode complete messages
+ * and never blocks waiting for the remainder of a message.</p>
+ */
+public class EventLoopSocketConnection<T> implements AsyncRemoteConnection<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventLoopSocketConnection.class);
+    private static final BufferPool WRITE_BUFFERS = BufferPool.shared();
+    private static final int FLUSH_THRESHOLD = 32 * 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_READS_PER_EVENT = 16;
+    private static final int PULL_READ_BUFFER_SIZE = 8 * 1024;
+    private static final Object END_OF_STREAM = new Object();
+
+    private final SocketChannel socket;
+    private final SocketInetAddress localAddress;
+    private final SocketInetAddress remoteAddress;
+    private final SocketEventLoop.Registration registration;
+    private final FrameOutputStream outstr = new FrameOutputStream();
+    private final FlushableEncoder encoder;
+    private final ObjectWriter<T> objectWriter;
+    private final FrameInputStream instr = new FrameInputStream();
+    private final Decoder decoder;
+    private final ObjectReader<T> objectReader;
+    private boolean writable;
+    private boolean stopped;
+    private Receiver<? super T> receiver;
+    private boolean ended;
+
+    // Used when receiving using receive()
+    private final Object pullLock = new Object();
+    private QueueingReceiver pullReceiver;
+    private Selector readSelector;
+    private ByteBuffer pullBuffer;
+
+    // Read state, only accessed by the thread currently receiving messages
+    private int header;
+    private int headerBytes;
+    private int frameLength = -1;
+    private byte[] frame = new byte[4096];
+    private int frameBytes;
+
+    public EventLoopSocketConnection(SocketChannel socket, SocketEventLoop eventLoop, MessageSerializer streamSerializer, StatefulSerializer<T> messageSerializer) {
+        this.socket = socket;
+        InetSocketAddress localSocketAddress = (InetSocketAddress) socket.socket().getLocalSocketAddress();
+        localAddress = new SocketInetAddress(localSocketAddress.getAddress(), localSocketAddress.getPort());
+        InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
+        remoteAddress = new SocketInetAddress(remoteSocketAddress.getAddress(), remoteSocketAddress.getPort());
+        encoder = streamSerializer.newEncoder(outstr);
+        objectWriter = messageSerializer.newWriter(encoder);
+        decoder = streamSerializer.newDecoder(instr);
+        objectReader = messageSerializer.newReader(decoder);
+        registration = eventLoop.register(socket, new EventHandler());
+    }
+
+    @Override
+    public String toString() {
+        return "socket connection from " + localAddress + " to " + remoteAddress;
+    }
+
+    @Override
+    public void receiveAsync(Receiver<? super T> receiver) {
+        boolean alreadyStopped;
+        synchronized (this) {
+            setReceiver(receiver);
+            alreadyStopped = stopped;
+        }
+        if (alreadyStopped) {
+            endOfStream();
+        } else {
+            registration.interestIn(SelectionKey.OP_READ);
+        }
+    }
+
+    private void setReceiver(Receiver<? super T> receiver) {
+        if (this.receiver != null) {
+            throw new IllegalStateException(String.format("Already receiving messages from %s.", this));
+        }
+        this.receiver = receiver;
+    }
+
+    @Override
+    public T receive() throws MessageIOException {
+        synchronized (pullLock) {
+            synchronized (this) {
+                if (pullReceiver == null) {
+                    pullReceiver = new QueueingReceiver();
+                    setReceiver(pullReceiver);
+                }
+            }
+            while (true) {
+                Object next = pullReceiver.messages.poll();
+                if (next == END_OF_STREAM) {
+                    pullReceiver.messages.add(END_OF_STREAM);
+                    return null;
+                }
+                if (next instanceof MessageIOException) {
+                    throw (MessageIOException) next;
+                }
+                if (next != null) {
+                    return Cast.uncheckedCast(next);
+                }
+                pullFromSocket();
+            }
+        }
+    }
+
+    private void pullFromSocket() {
+        Selector selector;
+        synchronized (this) {
+            if (stopped) {
+                endOfStream();
+                return;
+            }
+            if (readSelector == null) {
+                try {
+                    readSelector = Selector.open();
+                    socket.register(readSelector, SelectionKey.OP_READ);
+                } catch (IOException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+                pullBuffer = ByteBuffer.allocateDirect(PULL_READ_BUFFER_SIZE);
+            }
+            selector = readSelector;
+        }
+        try {
+            selector.select();
+            selector.selectedKeys().clear();
+        } catch (ClosedSelectorException e) {
+            endOfStream();
+            return;
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        readFromSocket(pullBuffer);
+    }
+
+    @Override
+    public void dispatch(T message) throws MessageIOException {
+        try {
+            writeFrame(message);
+            if (outstr.size() >= FLUSH_THRESHOLD) {
+                writeToSocket();
+            }
+        } catch (ObjectStreamException e) {
+            throw new RecoverableMessageIOException(String.format("Could not write message %s to '%s'.", message, remoteAddress), e);
+        } catch (ClassNotFoundException e) {
+            throw new RecoverableMessageIOException(String.format("Could not write message %s to '%s'.", message, remoteAddress), e);
+        } catch (IOException e) {
+            throw new RecoverableMessageIOException(String.format("Could not write message %s to '%s'.", message, remoteAddress), e);
+        } catch (Exception e) {
+            throw new MessageIOException(String.format("Could not write message %s to '%s'.", message, remoteAddress), e);
+        }
+    }
+
+    private void writeFrame(T message) throws Exception {
+        int frameStart = outstr.startFrame();
+        try {
+            objectWriter.write(message);
+            encoder.flush();
+        } catch (Exception e) {
+            try {
+                encoder.flush();
+            } catch (Exception ignored) {
+                // Ignore, as the frame is discarded anyway
+            }
+            outstr.discardFrame(frameStart);
+            throw e;
+        }
+        outstr.endFrame(frameStart);
+    }
+
+    @Override
+    public void flush() throws MessageIOException {
+        try {
+            writeToSocket();
+        } catch (Exception e) {
+            throw new MessageIOException(String.format("Could not write '%s'.", remoteAddress), e);
+        }
+    }
+
+    private void writeToSocket() throws IOException {
+        int count = outstr.size();
+        if (count == 0) {
+            return;
+        }
+        byte[] bytes = outstr.buffer();
+        ByteBuffer buffer = WRITE_BUFFERS.acquireDirect();
+        try {
+            int offset = 0;
+            while (offset < count) {
+                int chunk = Math.min(buffer.capacity(), count - offset);
+                buffer.clear();
+                buffer.put(bytes, offset, chunk);
+                buffer.flip();
+                offset += chunk;
+                while (buffer.hasRemaining()) {
+                    if (socket.write(buffer) == 0) {
+                        waitUntilWritable();
+                    }
+                }
+            }
+        } finally {
+            WRITE_BUFFERS.releaseDirect(buffer);
+            outstr.clear();
+        }
+    }
+
+    private void waitUntilWritable() {
+        synchronized (this) {
+            writable = false;
+        }
+        registration.interestIn(SelectionKey.OP_WRITE);
+        synchronized (this) {
+            // When the connection has been stopped, return and let the write fail
+            while (!writable && !stopped) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        CompositeStoppable.stoppable(new Closeable() {
+            @Override
+            public void close() {
+                flush();
+            }
+        }, new Closeable() {
+            @Override
+            public void close() throws IOException {
+                Selector selector;
+                synchronized (EventLoopSocketConnection.this) {
+                    stopped = true;
+                    selector = readSelector;
+                }
+                registration.cancel();
+                if (selector != null) {
+                    selector.close();
+                }
+            }
+        }, socket).stop();
+    }
+
+    private void pushFromSocket() {
+        ByteBuffer buffer = registration.getReadBuffer();
+        for (int i = 0; i < MAX_READS_PER_EVENT; i++) {
+            int nread = readFromSocket(buffer);
+            if (nread < 0) {
+                return;
+            }
+            if (nread < buffer.capacity()) {
+                break;
+            }
+        }
+        registration.interestIn(SelectionKey.OP_READ);
+    }
+
+    /**
+     * Reads whatever is available from the socket and passes any complete messages to the receiver. Returns the number of bytes read, or -1 when no further messages should be read.
+     */
+    private int readFromSocket(ByteBuffer buffer) {
+        buffer.clear();
+        int nread;
+        try {
+            nread = socket.read(buffer);
+        } catch (ClosedChannelException e) {
+            nread = -1;
+        } catch (IOException e) {
+            if (SocketConnection.isEndOfStream(e)) {
+                nread = -1;
+            } else {
+                receiveFailed(new MessageIOException(String.format("Could not read message from '%s'.", remoteAddress), e));
+                return -1;
+            }
+        }
+        if (nread < 0) {
+            endOfStream();
+            return -1;
+        }
+        buffer.flip();
+        if (!readFrames(buffer)) {
+            return -1;
+        }
+        return nread;
+    }
+
+    /**
+     * Returns false when no further messages should be read.
+     */
+    private boolean readFrames(ByteBuffer buffer) {
+        while (buffer.hasRemaining()) {
+            if (frameLength < 0) {
+                while (headerBytes < 4 && buffer.hasRemaining()) {
+                    header = (header << 8) | (buffer.get() & 0xff);
+                    headerBytes++;
+                }
+                if (headerBytes < 4) {
+                    return true;
+                }
+                frameLength = header;
+                header = 0;
+                headerBytes = 0;
+                if (frameLength < 0) {
+                    receiveFailed(new MessageIOException(String.format("Could not read message from '%s'.", remoteAddress), new StreamCorruptedException("Invalid message length " + frameLength + ".")));
+                    return false;
+                }
+                if (frame.length < frameLength) {
+                    frame = new byte[Math.max(frameLength, frame.length * 2)];
+                } else if (frame.length > MAX_RETAINED_BUFFER_SIZE && frameLength <= MAX_RETAINED_BUFFER_SIZE) {
+                    frame = new byte[MAX_RETAINED_BUFFER_SIZE];
+                }
+                frameBytes = 0;
+            }
+            int count = Math.min(buffer.remaining(), frameLength - frameBytes);
+            buffer.get(frame, frameBytes, count);
+            frameBytes += count;
+            if (frameBytes == frameLength) {
+                frameLength = -1;
+                if (!decodeFrame(frameBytes)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean decodeFrame(int length) {
+        instr.reset(frame, length);
+        T message;
+        try {
+            message = objectReader.read();
+        } catch (EOFException e) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Discarding EOFException: {}", e.toString());
+            }
+            endOfStream();
+            return false;
+        } catch (ObjectStreamException e) {
+            return recoverableReceiveFailure(e);
+        } catch (ClassNotFoundException e) {
+            return recoverableReceiveFailure(e);
+        } catch (IOException e) {
+            return recoverableReceiveFailure(e);
+        } catch (Exception e) {
+            receiveFailed(new MessageIOException(String.format("Could not read message from '%s'.", remoteAddress), e));
+            return false;
+        }
+        receiver.messageReceived(message);
+        return true;
+    }
+
+    private boolean recoverableReceiveFailure(Exception failure) {
+        // Discard whatever is left of the message, so that the next message can be read
+        instr.discard();
+        try {
+            decoder.skipBytes(Long.MAX_VALUE);
+        } catch (EOFException e) {
+            // Expected
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        receiver.receiveFailed(new RecoverableMessageIOException(String.format("Could not read message from '%s'.", remoteAddress), failure));
+        return true;
+    }
+
+    private void receiveFailed(MessageIOException failure) {
+        receiver.receiveFailed(failure);
+        endOfStream();
+    }
+
+    private void endOfStream() {
+        Receiver<? super T> receiver;
+        synchronized (this) {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            receiver = this.receiver;
+        }
+        receiver.endOfStream();
+    }
+
+    private class EventHandler implements SocketEventLoop.Handler {
+        @Override
+        public void ready(int readyOps) {
+            if ((readyOps & SelectionKey.OP_WRITE) != 0) {
+                synchronized (EventLoopSocketConnection.this) {
+                    writable = true;
+                    EventLoopSocketConnection.this.notifyAll();
+                }
+            }
+            if ((readyOps & SelectionKey.OP_READ) != 0) {
+                pushFromSocket();
+            }
+        }
+
+        @Override
+        public void cancelled() {
+            boolean pushing;
+            synchronized (EventLoopSocketConnection.this) {
+                stopped = true;
+                EventLoopSocketConnection.this.notifyAll();
+                pushing = receiver != null && receiver != pullReceiver;
+            }
+            if (pushing) {
+                endOfStream();
+            }
+        }
+    }
+
+    private static class QueueingReceiver implements Receiver<Object> {
+        private final Queue<Object> messages = new ConcurrentLinkedQueue<Object>();
+
+        @Override
+        public void messageReceived(Object message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void receiveFailed(MessageIOException failure) {
+            messages.add(failure);
+        }
+
+        @Override
+        public void endOfStream() {
+            messages.add(END_OF_STREAM);
+        }
+    }
+
+    /**
+     * Collects outgoing frames until they are written to the socket.
+     */
+    private static class FrameOutputStream extends ByteArrayOutputStream {
+        FrameOutputStream() {
+            super(4096);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+
+        int startFrame() {
+            int frameStart = count;
+            // Placeholder for the frame length, filled in by endFrame()
+            write(0);
+            write(0);
+            write(0);
+            write(0);
+            return frameStart;
+        }
+
+        void endFrame(int frameStart) {
+            int length = count - frameStart - 4;
+            buf[frameStart] = (byte) (length >>> 24);
+            buf[frameStart + 1] = (byte) (length >>> 16);
+            buf[frameStart + 2] = (byte) (length >>> 8);
+            buf[frameStart + 3] = (byte) length;
+        }
+
+        void discardFrame(int frameStart) {
+            count = frameStart;
+        }
+
+        void clear() {
+            count = 0;
+            if (buf.length > MAX_RETAINED_BUFFER_SIZE) {
+                buf = new byte[MAX_RETAINED_BUFFER_SIZE];
+            }
+        }
+    }
+
+    /**
+     * Presents the content of a single frame to the decoder.
+     */
+    private static class FrameInputStream extends InputStream {
+        private byte[] bytes;
+        private int pos;
+        private int limit;
+
+        void reset(byte[] bytes, int length) {
+            this.bytes = bytes;
+            this.pos = 0;
+            this.limit = length;
+        }
+
+        void discard() {
+            pos = limit;
+        }
+
+        @Override
+        public int read() {
+            if (pos >= limit) {
+                return -1;
+            }
+            return bytes[pos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] dest, int offset, int max) {
+            if (max == 0) {
+                return 0;
+            }
+            if (pos >= limit) {
+                return -1;
+            }
+            int count = Math.min(max, limit - pos);
+            System.arraycopy(bytes, pos, dest, offset, count);
+            pos += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.min(n, limit - pos);
+            pos += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return limit - pos;
+        }
+    }
+}
@@ -16,18 +16,57 @@
 
 package org.gradle.internal.remote.internal.inet;
 
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.remote.internal.KryoBackedMessageSerializer;
 import org.gradle.internal.remote.internal.RemoteConnection;
 import org.gradle.internal.serialize.StatefulSerializer;
 import org.gradle.internal.remote.internal.ConnectCompletion;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 
+/**
+ * The connecting peer selects the transport to use for the connection, by sending a single byte when the connection is established.
+ */
 class SocketConnectCompletion implements ConnectCompletion {
+    /**
+     * Uses a {@link SocketConnection}, which reads using blocking reads on the receiving thread.
+     */
+    static final byte BLOCKING_TRANSPORT = 1;
+    /**
+     * Uses an {@link EventLoopSocketConnection}, which reads using the shared {@link SocketEventLoop}.
+     */
+    static final byte EVENT_LOOP_TRANSPORT = 2;
+
     private final SocketChannel socket;
+    private final SocketEventLoop eventLoop;
+    private byte transport;
 
-    public SocketConnectCompletion(SocketChannel socket) {
+    private SocketConnectCompletion(SocketChannel socket, SocketEventLoop eventLoop, byte transport) {
         this.socket = socket;
+        this.eventLoop = eventLoop;
+        this.transport = transport;
+    }
+
+    /**
+     * Creates the completion for a connection that has been established by this process, and tells the peer which transport to use.
+     */
+    static SocketConnectCompletion outgoing(SocketChannel socket, SocketEventLoop eventLoop, byte transport) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        buffer.put(transport);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            socket.write(buffer);
+        }
+        return new SocketConnectCompletion(socket, eventLoop, transport);
+    }
+
+    /**
+     * Creates the completion for a connection that has been accepted by this process. The transport is read from the peer when the connection is created.
+     */
+    static SocketConnectCompletion incoming(SocketChannel socket, SocketEventLoop eventLoop) {
+        return new SocketConnectCompletion(socket, eventLoop, (byte) 0);
     }
 
     @Override
@@ -36,6 +75,28 @@ class SocketConnectCompletion implements ConnectCompletion {
     }
 
     public <T> RemoteConnection<T> create(StatefulSerializer<T> serializer) {
+        if (transport == 0) {
+            transport = readTransport();
+        }
+        if (transport == EVENT_LOOP_TRANSPORT) {
+            return new EventLoopSocketConnection<T>(socket, eventLoop, new KryoBackedMessageSerializer(), serializer);
+        }
         return new SocketConnection<T>(socket, new KryoBackedMessageSerializer(), serializer);
     }
+
+    private byte readTransport() {
+        // The socket is still in blocking mode at this point
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        try {
+            while (buffer.hasRemaining()) {
+                if (socket.read(buffer) < 0) {
+                    // The peer has gone away. Use the default transport, which will report the end of stream
+                    return BLOCKING_TRANSPORT;
+                }
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        return buffer.get(0);
+    }
 }
@@ -93,7 +93,7 @@ public class SocketConnection<T> implements RemoteConnection<T> {
         }
     }
 
-    private static boolean isEndOfStream(Exception e) {
+    static boolean isEndOfStream(Exception e) {
         if (e instanceof EOFException) {
             return true;
         }
@@ -107,6 +107,9 @@ public class SocketConnection<T> implements RemoteConnection<T> {
             if (Objects.equal(e.getMessage(), "Connection reset by peer")) {
                 return true;
             }
+            if (Objects.equal(e.getMessage(), "Connection reset")) {
+                return true;
+            }
         }
         return false;
     }
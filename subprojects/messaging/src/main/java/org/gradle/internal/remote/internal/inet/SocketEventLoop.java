@@ -0,0 +1,288 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.internal.UncheckedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small, fixed set of threads that wait for socket events on behalf of all the socket channels registered with it.
+ *
+ * <p>Each registered channel is served by a single event loop thread, and its {@link Handler} is only ever notified by that thread. Interest in an operation is one-shot: once a channel
+ * becomes ready for an operation, the handler is notified and must re-register its interest using {@link Registration#interestIn(int)} to be notified again.</p>
+ */
+public class SocketEventLoop {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SocketEventLoop.class);
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static SocketEventLoop instance;
+
+    private final String displayName;
+    private final EventLoopThread[] threads;
+    private final AtomicInteger nextThread = new AtomicInteger();
+
+    /**
+     * Returns the event loop shared by all socket connections in this process.
+     */
+    public static synchronized SocketEventLoop getInstance() {
+        if (instance == null) {
+            int threadCount = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 4));
+            instance = new SocketEventLoop("Socket event loop", threadCount);
+        }
+        return instance;
+    }
+
+    public SocketEventLoop(String displayName, int threadCount) {
+        this.displayName = displayName;
+        this.threads = new EventLoopThread[threadCount];
+    }
+
+    /**
+     * Registers the given channel with this event loop. The channel is switched to non-blocking mode. Initially the handler is not interested in any operations.
+     */
+    public Registration register(SelectableChannel channel, Handler handler) {
+        try {
+            channel.configureBlocking(false);
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        EventLoopThread thread = nextThread();
+        Registration registration = new Registration(thread, channel, handler);
+        thread.submit(registration.registerTask());
+        return registration;
+    }
+
+    private EventLoopThread nextThread() {
+        int index = (nextThread.getAndIncrement() & Integer.MAX_VALUE) % threads.length;
+        synchronized (threads) {
+            if (threads[index] == null) {
+                String name = threads.length == 1 ? displayName : displayName + " Thread " + (index + 1);
+                threads[index] = new EventLoopThread(name);
+                threads[index].start();
+            }
+            return threads[index];
+        }
+    }
+
+    /**
+     * Receives the events for a registered channel. Called by the event loop thread only.
+     */
+    public interface Handler {
+        /**
+         * Called when the channel is ready for some of the operations that the handler has registered an interest in.
+         *
+         * @param readyOps The set of ready operations, as per {@link SelectionKey#readyOps()}.
+         */
+        void ready(int readyOps);
+
+        /**
+         * Called once the registration has been cancelled, or the channel closed. No further notifications are made.
+         */
+        void cancelled();
+    }
+
+    /**
+     * The registration of a channel with the event loop. Methods of this type are thread-safe.
+     */
+    public static class Registration {
+        private final EventLoopThread thread;
+        private final SelectableChannel channel;
+        private final Handler handler;
+        private SelectionKey key;
+        private boolean cancelled;
+
+        private Registration(EventLoopThread thread, SelectableChannel channel, Handler handler) {
+            this.thread = thread;
+            this.channel = channel;
+            this.handler = handler;
+        }
+
+        /**
+         * Registers an interest in the given operations, in addition to any operations that the handler is already interested in.
+         */
+        public void interestIn(final int ops) {
+            if (thread.isCurrent()) {
+                addInterest(ops);
+            } else {
+                thread.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        addInterest(ops);
+                    }
+                });
+            }
+        }
+
+        /**
+         * Cancels this registration. The handler is notified asynchronously, unless this method is called from the event loop thread.
+         */
+        public void cancel() {
+            if (thread.isCurrent()) {
+                doCancel();
+            } else {
+                thread.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        doCancel();
+                    }
+                });
+            }
+        }
+
+        /**
+         * Returns a direct buffer that the handler can use to read from the channel. The buffer is shared by all channels of the event loop thread, so can only be used while
+         * handling an event and must not be retained.
+         */
+        public ByteBuffer getReadBuffer() {
+            assert thread.isCurrent();
+            return thread.readBuffer;
+        }
+
+        private Runnable registerTask() {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    if (cancelled) {
+                        return;
+                    }
+                    try {
+                        key = channel.register(thread.selector, 0, Registration.this);
+                    } catch (ClosedChannelException e) {
+                        doCancel();
+                    }
+                }
+            };
+        }
+
+        private void addInterest(int ops) {
+            if (cancelled) {
+                return;
+            }
+            try {
+                key.interestOps(key.interestOps() | ops);
+            } catch (CancelledKeyException e) {
+                doCancel();
+            }
+        }
+
+        private void ready() {
+            int readyOps;
+            try {
+                readyOps = key.readyOps();
+                key.interestOps(key.interestOps() & ~readyOps);
+            } catch (CancelledKeyException e) {
+                doCancel();
+                return;
+            }
+            try {
+                handler.ready(readyOps);
+            } catch (Throwable t) {
+                LOGGER.error("Could not handle event for " + channel + ".", t);
+                doCancel();
+            }
+        }
+
+        private void doCancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                handler.cancelled();
+            } catch (Throwable t) {
+                LOGGER.error("Could not handle cancellation for " + channel + ".", t);
+            }
+        }
+    }
+
+    private static class EventLoopThread extends Thread {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+        EventLoopThread(String name) {
+            super(name);
+            setDaemon(true);
+            try {
+                selector = Selector.open();
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        boolean isCurrent() {
+            return Thread.currentThread() == this;
+        }
+
+        void submit(Runnable task) {
+            tasks.add(task);
+            if (!isCurrent()) {
+                selector.wakeup();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                runTasks();
+                try {
+                    selector.select();
+                } catch (IOException e) {
+                    LOGGER.error("Could not wait for socket events.", e);
+                    continue;
+                }
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                while (selectedKeys.hasNext()) {
+                    SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+                    Registration registration = (Registration) key.attachment();
+                    if (!key.isValid()) {
+                        registration.doCancel();
+                        continue;
+                    }
+                    registration.ready();
+                }
+            }
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    LOGGER.error("Could not run socket event loop task.", t);
+                }
+            }
+        }
+    }
+}
@@ -32,21 +32,29 @@ import org.slf4j.LoggerFactory;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 public class TcpIncomingConnector implements IncomingConnector {
     private static final Logger LOGGER = LoggerFactory.getLogger(TcpIncomingConnector.class);
     private final ExecutorFactory executorFactory;
     private final InetAddressFactory addressFactory;
     private final IdGenerator<UUID> idGenerator;
+    private final SocketEventLoop eventLoop;
 
     public TcpIncomingConnector(ExecutorFactory executorFactory, InetAddressFactory addressFactory, IdGenerator<UUID> idGenerator) {
+        this(executorFactory, addressFactory, idGenerator, SocketEventLoop.getInstance());
+    }
+
+    public TcpIncomingConnector(ExecutorFactory executorFactory, InetAddressFactory addressFactory, IdGenerator<UUID> idGenerator, SocketEventLoop eventLoop) {
         this.executorFactory = executorFactory;
         this.addressFactory = addressFactory;
         this.idGenerator = idGenerator;
+        this.eventLoop = eventLoop;
     }
 
     public ConnectionAcceptor accept(Action<ConnectCompletion> action, boolean allowRemote) {
@@ -66,7 +74,8 @@ public class TcpIncomingConnector implements IncomingConnector {
         LOGGER.debug("Listening on {}.", address);
 
         final ManagedExecutor executor = executorFactory.create("Incoming " + (allowRemote ? "remote" : "local")+ " TCP Connector on port " + localPort);
-        executor.execute(new Receiver(serverSocket, action, allowRemote));
+        final Receiver receiver = new Receiver(serverSocket, action, allowRemote, executor);
+        receiver.start();
 
         return new ConnectionAcceptor() {
             public Address getAddress() {
@@ -74,7 +83,7 @@ public class TcpIncomingConnector implements IncomingConnector {
             }
 
             public void requestStop() {
-                CompositeStoppable.stoppable(serverSocket).stop();
+                receiver.stop();
             }
 
             public void stop() {
@@ -84,47 +93,83 @@ public class TcpIncomingConnector implements IncomingConnector {
         };
     }
 
-    private class Receiver implements Runnable {
+    /**
+     * Waits for incoming connections using the event loop, and runs the action for each connection using the executor. Accepts one connection at a time, so that the action
+     * is never run concurrently for a given acceptor.
+     */
+    private class Receiver implements SocketEventLoop.Handler {
         private final ServerSocketChannel serverSocket;
         private final Action<ConnectCompletion> action;
         private final boolean allowRemote;
+        private final ManagedExecutor executor;
+        private SocketEventLoop.Registration registration;
 
-        public Receiver(ServerSocketChannel serverSocket, Action<ConnectCompletion> action, boolean allowRemote) {
+        public Receiver(ServerSocketChannel serverSocket, Action<ConnectCompletion> action, boolean allowRemote, ManagedExecutor executor) {
             this.serverSocket = serverSocket;
             this.action = action;
             this.allowRemote = allowRemote;
+            this.executor = executor;
+        }
+
+        void start() {
+            registration = eventLoop.register(serverSocket, this);
+            registration.interestIn(SelectionKey.OP_ACCEPT);
         }
 
-        public void run() {
+        void stop() {
+            registration.cancel();
+            CompositeStoppable.stoppable(serverSocket).stop();
+        }
+
+        @Override
+        public void ready(int readyOps) {
+            final SocketChannel socket;
             try {
-                try {
-                    while (true) {
-                        final SocketChannel socket = serverSocket.accept();
-                        InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
-                        InetAddress remoteInetAddress = remoteSocketAddress.getAddress();
-                        if (!allowRemote && !addressFactory.isCommunicationAddress(remoteInetAddress)) {
-                            LOGGER.error("Cannot accept connection from remote address {}.", remoteInetAddress);
-                            socket.close();
-                            continue;
-                        }
-                        LOGGER.debug("Accepted connection from {} to {}.", socket.socket().getRemoteSocketAddress(), socket.socket().getLocalSocketAddress());
+                socket = serverSocket.accept();
+                if (socket == null) {
+                    registration.interestIn(SelectionKey.OP_ACCEPT);
+                    return;
+                }
+                InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
+                InetAddress remoteInetAddress = remoteSocketAddress.getAddress();
+                if (!allowRemote && !addressFactory.isCommunicationAddress(remoteInetAddress)) {
+                    LOGGER.error("Cannot accept connection from remote address {}.", remoteInetAddress);
+                    socket.close();
+                    registration.interestIn(SelectionKey.OP_ACCEPT);
+                    return;
+                }
+            } catch (ClosedChannelException e) {
+                // Ignore
+                return;
+            } catch (Throwable e) {
+                LOGGER.error("Could not accept remote connection.", e);
+                stop();
+                return;
+            }
+            LOGGER.debug("Accepted connection from {} to {}.", socket.socket().getRemoteSocketAddress(), socket.socket().getLocalSocketAddress());
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
                         try {
-                            action.execute(new SocketConnectCompletion(socket));
-                        } catch (Throwable t) {
-                            socket.close();
-                            throw t;
+                            action.execute(SocketConnectCompletion.incoming(socket, eventLoop));
+                        } catch (Throwable e) {
+                            CompositeStoppable.stoppable(socket).stop();
+                            LOGGER.error("Could not accept remote connection.", e);
+                            Receiver.this.stop();
+                            return;
                         }
+                        registration.interestIn(SelectionKey.OP_ACCEPT);
                     }
-                } catch (ClosedChannelException e) {
-                    // Ignore
-                } catch (Throwable e) {
-                    LOGGER.error("Could not accept remote connection.", e);
-                }
-            } finally {
-                CompositeStoppable.stoppable(serverSocket).stop();
+                });
+            } catch (RejectedExecutionException e) {
+                // Acceptor has been stopped
+                CompositeStoppable.stoppable(socket).stop();
             }
         }
 
+        @Override
+        public void cancelled() {
+        }
     }
-
 }
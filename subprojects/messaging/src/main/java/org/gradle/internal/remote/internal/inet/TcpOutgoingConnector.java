@@ -31,6 +31,22 @@ import java.util.List;
 public class TcpOutgoingConnector implements OutgoingConnector {
     private static final Logger LOGGER = LoggerFactory.getLogger(TcpOutgoingConnector.class);
     private static final int CONNECT_TIMEOUT = 10000;
+    /**
+     * When set to true, connections use the blocking socket transport rather than the event loop.
+     */
+    public static final String BLOCKING_TRANSPORT_PROPERTY = "org.gradle.internal.remote.blocking-transport";
+
+    private final SocketEventLoop eventLoop;
+    private final byte transport;
+
+    public TcpOutgoingConnector() {
+        this(SocketEventLoop.getInstance(), !Boolean.getBoolean(BLOCKING_TRANSPORT_PROPERTY));
+    }
+
+    public TcpOutgoingConnector(SocketEventLoop eventLoop, boolean useEventLoop) {
+        this.eventLoop = eventLoop;
+        this.transport = useEventLoop ? SocketConnectCompletion.EVENT_LOOP_TRANSPORT : SocketConnectCompletion.BLOCKING_TRANSPORT;
+    }
 
     public ConnectCompletion connect(Address destinationAddress) throws org.gradle.internal.remote.internal.ConnectException {
         if (!(destinationAddress instanceof InetEndpoint)) {
@@ -61,7 +77,12 @@ public class TcpOutgoingConnector implements OutgoingConnector {
                     continue;
                 }
                 LOGGER.debug("Connected to address {}.", socketChannel.socket().getRemoteSocketAddress());
-                return new SocketConnectCompletion(socketChannel);
+                try {
+                    return SocketConnectCompletion.outgoing(socketChannel, eventLoop, transport);
+                } catch (IOException e) {
+                    socketChannel.close();
+                    throw e;
+                }
             }
             throw new org.gradle.internal.remote.internal.ConnectException(String.format("Could not connect to server %s. Tried addresses: %s.",
                     destinationAddress, candidateAddresses), lastFailure);
@@ -18,6 +18,7 @@ package org.gradle.internal.serialize.kryo;
 
 import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.io.Input;
+import org.gradle.internal.io.BufferPool;
 import org.gradle.internal.serialize.AbstractDecoder;
 import org.gradle.internal.serialize.Decoder;
 
@@ -29,11 +30,14 @@ import java.io.InputStream;
 /**
  * Note that this decoder uses buffering, so will attempt to read beyond the end of the encoded data. This means you should use this type only when this decoder will be used to decode the entire
  * stream.
+ *
+ * <p>This decoder takes its buffer from the {@link BufferPool} and returns it when closed. The decoder must not be used after it has been closed.</p>
  */
 public class KryoBackedDecoder extends AbstractDecoder implements Decoder, Closeable {
     private final Input input;
     private final InputStream inputStream;
     private long extraSkipped;
+    private boolean closed;
 
     public KryoBackedDecoder(InputStream inputStream) {
         this(inputStream, 4096);
@@ -41,7 +45,8 @@ public class KryoBackedDecoder extends AbstractDecoder implements Decoder, Close
 
     public KryoBackedDecoder(InputStream inputStream, int bufferSize) {
         this.inputStream = inputStream;
-        input = new Input(this.inputStream, bufferSize);
+        input = new Input(BufferPool.shared().acquireBytes(bufferSize));
+        input.setInputStream(inputStream);
     }
 
     @Override
@@ -151,6 +156,14 @@ public class KryoBackedDecoder extends AbstractDecoder implements Decoder, Close
     }
 
     public void close() throws IOException {
-        input.close();
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            input.close();
+        } finally {
+            BufferPool.shared().releaseBytes(input.getBuffer());
+        }
     }
 }
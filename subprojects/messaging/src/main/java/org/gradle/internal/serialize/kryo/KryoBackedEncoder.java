@@ -16,23 +16,53 @@
 
 package org.gradle.internal.serialize.kryo;
 
+import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.io.Output;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.io.BufferPool;
 import org.gradle.internal.serialize.AbstractEncoder;
 import org.gradle.internal.serialize.FlushableEncoder;
 
 import javax.annotation.Nullable;
 import java.io.Closeable;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
 
+/**
+ * Note that this encoder takes its buffer from the {@link BufferPool} and returns it when closed. The encoder must not be used after it has been closed.
+ */
 public class KryoBackedEncoder extends AbstractEncoder implements FlushableEncoder, Closeable {
     private final Output output;
+    private final WritableByteChannel channel;
+    private boolean closed;
 
     public KryoBackedEncoder(OutputStream outputStream) {
         this(outputStream, 4096);
     }
 
     public KryoBackedEncoder(OutputStream outputStream, int bufferSize) {
-        output = new Output(outputStream, bufferSize);
+        output = new Output(BufferPool.shared().acquireBytes(bufferSize));
+        output.setOutputStream(outputStream);
+        channel = null;
+    }
+
+    /**
+     * Creates an encoder that writes its buffer straight to the given channel, such as a {@link java.nio.channels.FileChannel} or a {@link java.nio.channels.SocketChannel},
+     * rather than through an {@link OutputStream}. The channel must be in blocking mode, and is closed when this encoder is closed.
+     */
+    public KryoBackedEncoder(WritableByteChannel channel) {
+        this(channel, BufferPool.MAX_POOLED_SIZE);
+    }
+
+    public KryoBackedEncoder(WritableByteChannel channel, int bufferSize) {
+        if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking()) {
+            throw new IllegalArgumentException("Cannot encode to a channel in non-blocking mode.");
+        }
+        output = new ChannelOutput(channel, BufferPool.shared().acquireBytes(bufferSize));
+        this.channel = channel;
     }
 
     public void writeByte(byte value) {
@@ -86,6 +116,48 @@ public class KryoBackedEncoder extends AbstractEncoder implements FlushableEncod
     }
 
     public void close() {
-        output.close();
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            output.close();
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            BufferPool.shared().releaseBytes(output.getBuffer());
+        }
+    }
+
+    private static class ChannelOutput extends Output {
+        private final WritableByteChannel channel;
+        private final ByteBuffer channelBuffer;
+
+        ChannelOutput(WritableByteChannel channel, byte[] buffer) {
+            super(buffer);
+            this.channel = channel;
+            this.channelBuffer = ByteBuffer.wrap(buffer);
+        }
+
+        @Override
+        public void flush() throws KryoException {
+            if (position == 0) {
+                return;
+            }
+            channelBuffer.limit(position);
+            channelBuffer.position(0);
+            try {
+                while (channelBuffer.hasRemaining()) {
+                    channel.write(channelBuffer);
+                }
+            } catch (IOException e) {
+                throw new KryoException(e);
+            }
+            total += position;
+            position = 0;
+        }
     }
 }
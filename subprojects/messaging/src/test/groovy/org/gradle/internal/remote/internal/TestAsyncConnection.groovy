@@ -0,0 +1,50 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal
+
+import org.gradle.internal.remote.internal.hub.protocol.InterHubMessage
+
+/**
+ * A {@link TestConnection} that pushes incoming messages to the receiver as they are queued.
+ */
+class TestAsyncConnection extends TestConnection implements AsyncRemoteConnection<InterHubMessage> {
+    private Receiver<? super InterHubMessage> receiver
+
+    @Override
+    void receiveAsync(Receiver<? super InterHubMessage> receiver) {
+        this.receiver = receiver
+    }
+
+    @Override
+    InterHubMessage receive() {
+        throw new UnsupportedOperationException()
+    }
+
+    @Override
+    void queueIncoming(InterHubMessage message) {
+        receiver.messageReceived(message)
+    }
+
+    void queueFailure(MessageIOException failure) {
+        receiver.receiveFailed(failure)
+    }
+
+    @Override
+    void stop() {
+        receiver.endOfStream()
+    }
+}
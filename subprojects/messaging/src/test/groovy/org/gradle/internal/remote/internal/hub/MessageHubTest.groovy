@@ -19,7 +19,10 @@ package org.gradle.internal.remote.internal.hub
 import org.gradle.api.Action
 import org.gradle.internal.dispatch.BoundedDispatch
 import org.gradle.internal.dispatch.Dispatch
+import org.gradle.internal.remote.internal.MessageIOException
+import org.gradle.internal.remote.internal.RecoverableMessageIOException
 import org.gradle.internal.remote.internal.RemoteConnection
+import org.gradle.internal.remote.internal.TestAsyncConnection
 import org.gradle.internal.remote.internal.TestConnection
 import org.gradle.internal.remote.internal.hub.protocol.ChannelIdentifier
 import org.gradle.internal.remote.internal.hub.protocol.ChannelMessage
@@ -283,6 +286,89 @@ class MessageHubTest extends ConcurrentSpec {
         instant.message1Received < instant.message2Received
     }
 
+    def "incoming messages pushed by async connection are dispatched to handler"() {
+        def connection = new TestAsyncConnection()
+        Dispatch<String> handler = Mock()
+
+        given:
+        hub.addHandler("channel", handler)
+
+        when:
+        hub.addConnection(connection)
+        connection.queueIncoming(new ChannelMessage(new ChannelIdentifier("channel"), "message 1"))
+        connection.queueIncoming(new ChannelMessage(new ChannelIdentifier("channel"), "message 2"))
+        connection.stop()
+        thread.blockUntil.message2Received
+
+        then:
+        1 * handler.dispatch("message 1")
+        1 * handler.dispatch("message 2") >> {
+            instant.message2Received
+        }
+        0 * _._
+    }
+
+    def "notifies handler of recoverable failure to receive from async connection"() {
+        def connection = new TestAsyncConnection()
+        def handler = Mock(StreamFailureHandler)
+        def failure = new RecoverableMessageIOException("broken", new IOException())
+
+        given:
+        hub.addHandler("channel", handler)
+        hub.addConnection(connection)
+
+        when:
+        connection.queueFailure(failure)
+        thread.blockUntil.notified
+
+        then:
+        1 * handler.handleStreamFailure(failure) >> {
+            instant.notified
+        }
+        0 * _._
+
+        cleanup:
+        connection.stop()
+    }
+
+    def "notifies error handler of unrecoverable failure to receive from async connection"() {
+        def connection = new TestAsyncConnection()
+        def failure = new MessageIOException("broken", new RuntimeException())
+
+        given:
+        hub.addConnection(connection)
+
+        when:
+        connection.queueFailure(failure)
+        connection.stop()
+
+        then:
+        1 * errorHandler.execute(failure)
+        0 * _._
+    }
+
+    def "stop blocks until end of stream reached for async connection"() {
+        def connection = new TestAsyncConnection()
+
+        given:
+        hub.addConnection(connection)
+
+        when:
+        async {
+            start {
+                operation.stop {
+                    hub.stop()
+                }
+            }
+            thread.block()
+            instant.endOfStream
+            connection.stop()
+        }
+
+        then:
+        operation.stop.end > instant.endOfStream
+    }
+
     def "queued incoming messages are dispatched when handler added"() {
         def connection = new TestConnection()
         Dispatch<String> handler = Mock()
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet
+
+import org.gradle.internal.remote.internal.AsyncRemoteConnection
+import org.gradle.internal.remote.internal.KryoBackedMessageSerializer
+import org.gradle.internal.remote.internal.MessageIOException
+import org.gradle.internal.remote.internal.RecoverableMessageIOException
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.internal.serialize.Decoder
+import org.gradle.internal.serialize.Encoder
+import org.gradle.internal.serialize.Serializer
+import org.gradle.internal.serialize.Serializers
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Timeout
+
+import java.nio.channels.ServerSocketChannel
+import java.nio.channels.SocketChannel
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+@Timeout(60)
+class EventLoopSocketConnectionTest extends Specification {
+    @Shared def eventLoop = new SocketEventLoop("test event loop", 2)
+    def serializer = Serializers.stateful(BaseSerializerFactory.STRING_SERIALIZER)
+    def connections = []
+
+    def cleanup() {
+        connections*.stop()
+    }
+
+    def "can send and receive messages"() {
+        def (client, server) = connect()
+
+        when:
+        client.dispatch("message 1")
+        client.dispatch("message 2")
+        client.flush()
+        server.dispatch("reply")
+        server.flush()
+
+        then:
+        server.receive() == "message 1"
+        server.receive() == "message 2"
+        client.receive() == "reply"
+    }
+
+    def "can send message that is larger than the socket buffers"() {
+        def (client, server) = connect()
+        def message = "x" * (4 * 1024 * 1024)
+
+        when:
+        def sender = Thread.start {
+            client.dispatch(message)
+            client.dispatch("next")
+            client.flush()
+        }
+
+        then:
+        server.receive() == message
+        server.receive() == "next"
+
+        cleanup:
+        sender?.join()
+    }
+
+    def "receives all messages when the receiver falls behind"() {
+        def (client, server) = connect()
+        def count = 10000
+
+        when:
+        count.times { client.dispatch("message $it".toString()) }
+        client.flush()
+
+        then:
+        (0..<count).every { server.receive() == "message $it" }
+    }
+
+    def "receive returns null once the peer has stopped"() {
+        def (client, server) = connect()
+
+        when:
+        client.dispatch("bye")
+        client.stop()
+
+        then:
+        server.receive() == "bye"
+        server.receive() == null
+        server.receive() == null
+    }
+
+    def "receive returns null once the connection has been stopped"() {
+        def (client, server) = connect()
+
+        when:
+        server.stop()
+
+        then:
+        server.receive() == null
+    }
+
+    def "pushes messages to async receiver"() {
+        def (client, server) = connect()
+        def received = new LinkedBlockingQueue()
+
+        when:
+        server.receiveAsync(new CollectingReceiver(received))
+        client.dispatch("message 1")
+        client.dispatch("message 2")
+        client.stop()
+
+        then:
+        received.poll(10, TimeUnit.SECONDS) == "message 1"
+        received.poll(10, TimeUnit.SECONDS) == "message 2"
+        received.poll(10, TimeUnit.SECONDS) == CollectingReceiver.END
+    }
+
+    def "cannot receive messages more than once"() {
+        def (client, server) = connect()
+        server.receiveAsync(new CollectingReceiver(new LinkedBlockingQueue()))
+
+        when:
+        server.receiveAsync(new CollectingReceiver(new LinkedBlockingQueue()))
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "skips remainder of message that cannot be read"() {
+        def messageSerializer = new Serializer<List<String>>() {
+            @Override
+            List<String> read(Decoder decoder) {
+                def first = decoder.readString()
+                if (first == "broken") {
+                    throw new IOException("broken")
+                }
+                return [first, decoder.readString()]
+            }
+
+            @Override
+            void write(Encoder encoder, List<String> value) {
+                encoder.writeString(value[0])
+                encoder.writeString(value[1])
+            }
+        }
+        def (client, server) = connect(Serializers.stateful(messageSerializer))
+
+        when:
+        client.dispatch(["broken", "ignore me"])
+        client.dispatch(["a", "b"])
+        client.flush()
+        server.receive()
+
+        then:
+        def e = thrown(RecoverableMessageIOException)
+        e.cause.message == "broken"
+
+        and:
+        server.receive() == ["a", "b"]
+    }
+
+    def "reports failure to receive message"() {
+        def failure = new RuntimeException()
+        def messageSerializer = Stub(Serializer) {
+            read(_) >> { throw failure }
+        }
+        def (client, server) = connect(serializer, Serializers.stateful(messageSerializer))
+
+        when:
+        client.dispatch("message")
+        client.flush()
+        server.receive()
+
+        then:
+        def e = thrown(MessageIOException)
+        !(e instanceof RecoverableMessageIOException)
+        e.cause == failure
+
+        and:
+        server.receive() == null
+    }
+
+    def connect(def messageSerializer = serializer) {
+        connect(messageSerializer, messageSerializer)
+    }
+
+    def connect(def clientSerializer, def serverSerializer) {
+        def serverSocket = ServerSocketChannel.open()
+        serverSocket.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+        def clientSocket = SocketChannel.open(serverSocket.socket().localSocketAddress)
+        def acceptedSocket = serverSocket.accept()
+        serverSocket.close()
+        def client = new EventLoopSocketConnection(clientSocket, eventLoop, new KryoBackedMessageSerializer(), clientSerializer)
+        def server = new EventLoopSocketConnection(acceptedSocket, eventLoop, new KryoBackedMessageSerializer(), serverSerializer)
+        connections << client << server
+        return [client, server]
+    }
+
+    static class CollectingReceiver implements AsyncRemoteConnection.Receiver<Object> {
+        static final Object END = new Object()
+        final LinkedBlockingQueue<Object> received
+
+        CollectingReceiver(LinkedBlockingQueue<Object> received) {
+            this.received = received
+        }
+
+        @Override
+        void messageReceived(Object message) {
+            received.add(message)
+        }
+
+        @Override
+        void receiveFailed(MessageIOException failure) {
+            received.add(failure)
+        }
+
+        @Override
+        void endOfStream() {
+            received.add(END)
+        }
+    }
+}
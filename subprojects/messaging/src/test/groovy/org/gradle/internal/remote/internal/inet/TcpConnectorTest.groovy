@@ -223,6 +223,45 @@ class TcpConnectorTest extends ConcurrentSpec {
         acceptor?.stop()
     }
 
+    @Unroll
+    def "can exchange messages using #transport transport"() {
+        def outgoingConnector = new TcpOutgoingConnector(SocketEventLoop.instance, useEventLoop)
+        def serverConnectionType = null
+
+        when:
+        def acceptor = incomingConnector.accept({ ConnectCompletion event ->
+            def connection = event.create(serializer)
+            serverConnectionType = connection.getClass()
+            connection.dispatch(connection.receive() + " reply")
+            connection.stop()
+            instant.closed
+        } as Action, false)
+
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+        connection.dispatch("message")
+        connection.flush()
+
+        then:
+        connection.receive() == "message reply"
+        connection.receive() == null
+        connection.getClass() == connectionType
+
+        when:
+        thread.blockUntil.closed
+
+        then:
+        serverConnectionType == connectionType
+
+        cleanup:
+        connection?.stop()
+        acceptor?.stop()
+
+        where:
+        transport    | useEventLoop | connectionType
+        "blocking"   | false        | SocketConnection
+        "event loop" | true         | EventLoopSocketConnection
+    }
+
     def "returns null on failure to receive due to truncated input"() {
         given:
         def incomingSerializer = { Encoder encoder, String value ->
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.serialize.kryo
+
+import org.gradle.internal.serialize.AbstractCodecTest
+import org.gradle.internal.serialize.Decoder
+import org.gradle.internal.serialize.Encoder
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+
+import java.nio.channels.Channels
+import java.nio.channels.SocketChannel
+
+class KryoBackedChannelCodecTest extends AbstractCodecTest {
+    @Rule
+    TemporaryFolder tmpDir = new TemporaryFolder()
+
+    @Override
+    void encodeTo(OutputStream outputStream, Closure<Encoder> closure) {
+        def encoder = new KryoBackedEncoder(Channels.newChannel(outputStream), 10)
+        closure.call(encoder)
+        encoder.flush()
+    }
+
+    @Override
+    void decodeFrom(InputStream inputStream, Closure<Decoder> closure) {
+        def decoder = new KryoBackedDecoder(inputStream, 10)
+        closure.call(decoder)
+    }
+
+    def "can encode to a file channel"() {
+        def file = tmpDir.newFile()
+        def encoder = new KryoBackedEncoder(new FileOutputStream(file).getChannel())
+
+        when:
+        encoder.writeString("value")
+        encoder.writeSmallInt(12)
+        encoder.writeBytes(new byte[40000])
+        encoder.writeLong(1234)
+
+        then:
+        encoder.writePosition == 40015
+        file.length() == 32768
+
+        when:
+        encoder.close()
+
+        then:
+        encoder.writePosition == 40015
+        file.length() == 40015
+
+        when:
+        def decoder = new KryoBackedDecoder(new FileInputStream(file))
+
+        then:
+        decoder.readString() == "value"
+        decoder.readSmallInt() == 12
+        decoder.skipBytes(40000)
+        decoder.readLong() == 1234
+
+        cleanup:
+        decoder?.close()
+    }
+
+    def "cannot encode to a channel in non-blocking mode"() {
+        def channel = SocketChannel.open()
+        channel.configureBlocking(false)
+
+        when:
+        new KryoBackedEncoder(channel)
+
+        then:
+        IllegalArgumentException e = thrown()
+        e.message == "Cannot encode to a channel in non-blocking mode."
+
+        cleanup:
+        channel.close()
+    }
+
+    def "closes channel when closed"() {
+        def channel = Channels.newChannel(new ByteArrayOutputStream())
+        def encoder = new KryoBackedEncoder(channel)
+
+        when:
+        encoder.close()
+        encoder.close()
+
+        then:
+        !channel.open
+    }
+}
@@ -658,12 +658,15 @@ public class BTreePersistentIndexedCache<K, V> {
             buffer = StreamByteBuffer.createWithChunkSizeInDefaultRange(size);
             KryoBackedEncoder encoder = new KryoBackedEncoder(buffer.getOutputStream());
             serializer.write(encoder, value);
-            encoder.flush();
+            encoder.close();
         }
 
         public V getValue() throws Exception {
             if (value == null) {
-                value = serializer.read(new KryoBackedDecoder(buffer.getInputStream()));
+                KryoBackedDecoder decoder = new KryoBackedDecoder(buffer.getInputStream());
+                value = serializer.read(decoder);
+                decoder.close();
+                buffer.release();
                 buffer = null;
             }
             return value;
@@ -689,6 +692,7 @@ public class BTreePersistentIndexedCache<K, V> {
             outstr.writeInt(size);
             outstr.writeInt(buffer.totalBytesUnread());
             buffer.writeTo(outstr);
+            buffer.release();
             buffer = null;
         }
 
@@ -700,7 +704,10 @@ public class BTreePersistentIndexedCache<K, V> {
                 store.write(this);
                 return DataBlockUpdateResult.success();
             } else {
-                return DataBlockUpdateResult.failed(buffer);
+                // The new block takes ownership of the buffer
+                StreamByteBuffer serializedValue = buffer;
+                buffer = null;
+                return DataBlockUpdateResult.failed(serializedValue);
             }
         }
     }
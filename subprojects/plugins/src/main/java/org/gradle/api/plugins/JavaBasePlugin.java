@@ -328,7 +328,7 @@ public class JavaBasePlugin implements Plugin<ProjectInternal> {
     }
 
     private void configureCompileDefaults(final Project project, final JavaPluginConvention javaConvention) {
-        project.getTasks().withType(AbstractCompile.class, new Action<AbstractCompile>() {
+        project.getTasks().withType(AbstractCompile.class).configureEach(new Action<AbstractCompile>() {
             public void execute(final AbstractCompile compile) {
                 ConventionMapping conventionMapping = compile.getConventionMapping();
                 conventionMapping.map("sourceCompatibility", new Callable<Object>() {
@@ -346,7 +346,7 @@ public class JavaBasePlugin implements Plugin<ProjectInternal> {
     }
 
     private void configureJavaDoc(final Project project, final JavaPluginConvention convention) {
-        project.getTasks().withType(Javadoc.class, new Action<Javadoc>() {
+        project.getTasks().withType(Javadoc.class).configureEach(new Action<Javadoc>() {
             public void execute(Javadoc javadoc) {
                 javadoc.getConventionMapping().map("destinationDir", new Callable<Object>() {
                     public Object call() throws Exception {
@@ -385,7 +385,7 @@ public class JavaBasePlugin implements Plugin<ProjectInternal> {
     }
 
     private void configureTest(final Project project, final JavaPluginConvention convention) {
-        project.getTasks().withType(Test.class, new Action<Test>() {
+        project.getTasks().withType(Test.class).configureEach(new Action<Test>() {
             public void execute(final Test test) {
                 configureTestDefaults(test, project, convention);
             }
@@ -393,7 +393,7 @@ public class JavaBasePlugin implements Plugin<ProjectInternal> {
         project.getGradle().getTaskGraph().whenReady(new Action<TaskExecutionGraph>() {
             @Override
             public void execute(final TaskExecutionGraph taskExecutionGraph) {
-                project.getTasks().withType(Test.class, new Action<Test>() {
+                project.getTasks().withType(Test.class).configureEach(new Action<Test>() {
 
                     @Override
                     public void execute(Test test) {
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.report;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.internal.tasks.testing.junit.result.Binary2JUnitXmlReportGenerator;
+import org.gradle.api.internal.tasks.testing.junit.result.BinaryResultBackedTestResultsProvider;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
+import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult;
+import org.gradle.api.internal.tasks.testing.junit.result.TestOutputAssociation;
+import org.gradle.api.internal.tasks.testing.junit.result.TestOutputStore;
+import org.gradle.api.internal.tasks.testing.junit.result.TestResultSerializer;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.api.tasks.testing.TestResult;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.BuildOperationWorker;
+import org.gradle.internal.operations.CallableBuildOperation;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.util.GFileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the HTML and JUnit XML reports from a synthetic set of binary test results, including captured output
+ * for every test and a small share of failing tests, either from scratch or over the reports of the previous invocation. Run with a small heap (for example {@code -Xmx256m}) to check that
+ * the memory used by report generation does not grow with the number of tests.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class TestReportGenerationBenchmark {
+
+    @Param({"100000"})
+    int testCount;
+
+    @Param({"20"})
+    int testsPerClass;
+
+    @Param({"4"})
+    int threads;
+
+    /**
+     * Whether the reports from the previous invocation are kept, in which case none of the class files need to be written again.
+     */
+    @Param({"false", "true"})
+    boolean incremental;
+
+    File resultsDir;
+    File reportDir;
+    ExecutorService executorService;
+    BuildOperationExecutor buildOperationExecutor;
+
+    @Setup(Level.Trial)
+    public void generateResults() throws IOException {
+        resultsDir = createTempDir("results");
+        reportDir = createTempDir("report");
+        executorService = Executors.newFixedThreadPool(threads);
+        buildOperationExecutor = new ParallelBuildOperationExecutor(executorService);
+
+        List<TestClassResult> classes = new ArrayList<TestClassResult>();
+        TestOutputStore.Writer outputWriter = new TestOutputStore(resultsDir).writer();
+        try {
+            long id = 0;
+            int classCount = testCount / testsPerClass;
+            for (int i = 0; i < classCount; i++) {
+                long classId = ++id;
+                TestClassResult classResult = new TestClassResult(classId, "org.gradle.benchmark.package" + (i % 50) + ".SomeTest" + i, 0);
+                outputWriter.onOutput(classId, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "Starting test class " + i + "\n"));
+                for (int j = 0; j < testsPerClass; j++) {
+                    long testId = ++id;
+                    boolean failed = (i * testsPerClass + j) % 100 == 0;
+                    TestMethodResult methodResult = new TestMethodResult(testId, "test" + j, failed ? TestResult.ResultType.FAILURE : TestResult.ResultType.SUCCESS, 15, 0);
+                    if (failed) {
+                        methodResult.addFailure("expected:<1> but was:<2>", stackTrace(j), "java.lang.AssertionError");
+                    }
+                    classResult.add(methodResult);
+                    outputWriter.onOutput(classId, testId, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "Running test " + j + " of test class " + i + "\n"));
+                    outputWriter.onOutput(classId, testId, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdErr, "Some warning logged by test " + j + "\n"));
+                }
+                classes.add(classResult);
+            }
+        } finally {
+            outputWriter.close();
+        }
+        new TestResultSerializer(resultsDir).write(classes);
+    }
+
+    @Setup(Level.Invocation)
+    public void cleanReports() {
+        if (!incremental) {
+            GFileUtils.cleanDirectory(reportDir);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteResults() {
+        executorService.shutdown();
+        GFileUtils.deleteDirectory(resultsDir);
+        GFileUtils.deleteDirectory(reportDir);
+    }
+
+    @Benchmark
+    public void generateHtmlReport() throws IOException {
+        BinaryResultBackedTestResultsProvider resultsProvider = new BinaryResultBackedTestResultsProvider(resultsDir);
+        try {
+            new DefaultTestReport(buildOperationExecutor).generateReport(resultsProvider, reportDir);
+        } finally {
+            resultsProvider.close();
+        }
+    }
+
+    @Benchmark
+    public void generateJUnitXmlReport() throws IOException {
+        BinaryResultBackedTestResultsProvider resultsProvider = new BinaryResultBackedTestResultsProvider(resultsDir);
+        try {
+            new Binary2JUnitXmlReportGenerator(reportDir, resultsProvider, TestOutputAssociation.WITH_TESTCASE, buildOperationExecutor, "localhost").generate();
+        } finally {
+            resultsProvider.close();
+        }
+    }
+
+    private static String stackTrace(int depth) {
+        StringBuilder builder = new StringBuilder("java.lang.AssertionError: expected:<1> but was:<2>\n");
+        for (int i = 0; i < 40 + depth; i++) {
+            builder.append("\tat org.gradle.benchmark.SomeClass.method").append(i).append("(SomeClass.java:").append(i).append(")\n");
+        }
+        return builder.toString();
+    }
+
+    private static File createTempDir(String prefix) throws IOException {
+        File dir = File.createTempFile(prefix, "");
+        GFileUtils.deleteQuietly(dir);
+        GFileUtils.mkdirs(dir);
+        return dir;
+    }
+
+    /**
+     * Runs queued operations on a fixed thread pool, which is all report generation requires.
+     */
+    private static class ParallelBuildOperationExecutor implements BuildOperationExecutor {
+        private final ExecutorService executorService;
+
+        ParallelBuildOperationExecutor(ExecutorService executorService) {
+            this.executorService = executorService;
+        }
+
+        @Override
+        public void run(RunnableBuildOperation buildOperation) {
+            buildOperation.run(null);
+        }
+
+        @Override
+        public <T> T call(CallableBuildOperation<T> buildOperation) {
+            return buildOperation.call(null);
+        }
+
+        @Override
+        public <O extends RunnableBuildOperation> void runAll(Action<BuildOperationQueue<O>> schedulingAction) {
+            ExecutorBackedQueue<O> queue = new ExecutorBackedQueue<O>(executorService);
+            schedulingAction.execute(queue);
+            queue.waitForCompletion();
+        }
+
+        @Override
+        public <O extends BuildOperation> void runAll(BuildOperationWorker<O> worker, Action<BuildOperationQueue<O>> schedulingAction) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public BuildOperationRef getCurrentOperation() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class ExecutorBackedQueue<O extends RunnableBuildOperation> implements BuildOperationQueue<O> {
+        private final ExecutorService executorService;
+        private final List<Future<?>> futures = new ArrayList<Future<?>>();
+
+        ExecutorBackedQueue(ExecutorService executorService) {
+            this.executorService = executorService;
+        }
+
+        @Override
+        public void add(final O operation) {
+            futures.add(executorService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    operation.run(null);
+                }
+            }));
+        }
+
+        @Override
+        public void cancel() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void waitForCompletion() {
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } catch (ExecutionException e) {
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            }
+        }
+
+        @Override
+        public void setLogLocation(String logLocation) {
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing;
+
+/**
+ * Receives notifications about the progress of a {@link TestClassProcessor} through the test classes handed to it.
+ *
+ * <p>A test worker process sends these notifications back to the build process when it has finished with a test class. When the result
+ * processor passed to {@link TestClassProcessor#startProcessing(TestResultProcessor)} also implements this interface, the processor will notify
+ * it.</p>
+ *
+ * @see TestClassProcessorFailureListener
+ */
+public interface TestClassProcessingListener {
+    /**
+     * Called when the processor has finished with the given test class. Note that some test frameworks do not execute a test class
+     * immediately, in which case this is called once the class has been handed to the test framework.
+     */
+    void testClassProcessed(String testClassName);
+}
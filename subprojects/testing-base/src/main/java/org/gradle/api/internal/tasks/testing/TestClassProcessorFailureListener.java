@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing;
+
+import java.util.List;
+
+/**
+ * Receives a notification when a {@link TestClassProcessor} stops unexpectedly. This is reported by the build process, for example when the
+ * connection to a test worker process is closed, and is never sent by the worker itself.
+ *
+ * <p>When the result processor passed to {@link TestClassProcessor#startProcessing(TestResultProcessor)} also implements this interface, the
+ * processor will notify it.</p>
+ */
+public interface TestClassProcessorFailureListener {
+    /**
+     * Called when the processor has stopped unexpectedly and will not accept any more test classes. The given test classes were handed to
+     * the processor, but will not be processed.
+     */
+    void processorFailed(List<String> unprocessedTestClassNames);
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing;
+
+import org.gradle.api.InvalidUserDataException;
+
+import java.io.Serializable;
+
+/**
+ * Identifies one of a number of partitions of the test classes of a test task. Shards are numbered from 1.
+ */
+public class TestShard implements Serializable {
+    private final int index;
+    private final int count;
+
+    public TestShard(int index, int count) {
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * Parses a shard in the form {@code index/count}, for example {@code 2/4}.
+     */
+    public static TestShard parse(String value) {
+        int separator = value.indexOf('/');
+        if (separator > 0) {
+            try {
+                int index = Integer.parseInt(value.substring(0, separator).trim());
+                int count = Integer.parseInt(value.substring(separator + 1).trim());
+                if (count > 0 && index > 0 && index <= count) {
+                    return new TestShard(index, count);
+                }
+            } catch (NumberFormatException e) {
+                // Fall through
+            }
+        }
+        throw new InvalidUserDataException(String.format("Cannot use '%s' as a test shard. The test shard should have the form 'index/count', for example '1/4', where index is between 1 and count.", value));
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
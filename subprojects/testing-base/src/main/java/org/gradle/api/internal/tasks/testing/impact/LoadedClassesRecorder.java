@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Java agent that records the classes loaded by a test JVM, so that the test classes affected by a change can be determined.
+ *
+ * <p>The agent is packaged into its own jar and added to the command line of the test worker, see {@link TestImpactAgentJar}.
+ * The test worker calls {@link #drain()} through the system ClassLoader, as it is loaded in a separate ClassLoader itself.
+ * The agent does not modify any classes and only depends on the JDK.</p>
+ */
+public class LoadedClassesRecorder implements ClassFileTransformer {
+    private static LoadedClassesRecorder recorder;
+
+    private List<String> loadedClasses = new ArrayList<String>();
+
+    public static void premain(String args, Instrumentation instrumentation) {
+        recorder = new LoadedClassesRecorder();
+        instrumentation.addTransformer(recorder);
+    }
+
+    /**
+     * Returns the internal names of the classes loaded since the previous call, or null when the agent is not installed.
+     */
+    public static List<String> drain() {
+        LoadedClassesRecorder current = recorder;
+        if (current == null) {
+            return null;
+        }
+        synchronized (current) {
+            List<String> result = current.loadedClasses;
+            current.loadedClasses = new ArrayList<String>();
+            return result;
+        }
+    }
+
+    @Override
+    public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+        // Only classes defined from a class path entry can be affected by changes to the test runtime classpath
+        if (loader != null && className != null && classBeingRedefined == null && protectionDomain != null && protectionDomain.getCodeSource() != null) {
+            synchronized (this) {
+                loadedClasses.add(className);
+            }
+        }
+        return null;
+    }
+}
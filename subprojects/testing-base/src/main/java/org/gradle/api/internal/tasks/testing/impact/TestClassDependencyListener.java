@@ -0,0 +1,39 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact;
+
+import java.util.List;
+
+/**
+ * Receives the classes loaded by a test worker, in the order the worker processes its test classes.
+ *
+ * <p>A test class can depend on any class loaded by the worker before or while it was executed, as classes already loaded by an
+ * earlier test class are not loaded again.</p>
+ */
+public interface TestClassDependencyListener {
+    /**
+     * Called when the worker has finished with the given test class, with the internal names of the classes loaded since the previous
+     * notification.
+     */
+    void testClassProcessed(String testClassName, List<String> loadedClasses);
+
+    /**
+     * Called when the worker has stopped, with the internal names of the classes loaded since the previous notification. Some test frameworks
+     * execute the test classes only when the worker stops, so every test class of the worker can depend on these classes.
+     */
+    void processingStopped(List<String> loadedClasses);
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The hashes of the classes on a test runtime classpath, used to determine which of the classes loaded by a test have changed.
+ *
+ * <p>A class in a directory is hashed individually, whereas a class in a jar has the hash of the jar. Additionally, the snapshot records
+ * the names of the classes in each package of the directories, so that adding or removing a class affects the tests that loaded another
+ * class from its package. Everything else that a test may depend on is not tracked per test, and goes into a single resources hash: the
+ * ordered list of classpath entries, and the other files in the directories and jars.</p>
+ */
+public class TestClasspathSnapshot {
+    private static final int MISSING = 0;
+    private static final int DIRECTORY = 1;
+    private static final int JAR = 2;
+
+    private final Map<String, HashCode> classes;
+    private final Map<String, HashCode> packages;
+    private final HashCode resources;
+
+    public TestClasspathSnapshot(Map<String, HashCode> classes, Map<String, HashCode> packages, HashCode resources) {
+        this.classes = classes;
+        this.packages = packages;
+        this.resources = resources;
+    }
+
+    /**
+     * Creates a snapshot of the given classpath. When a class appears in more than one entry, the first entry wins.
+     */
+    public static TestClasspathSnapshot of(Iterable<? extends File> classpath, FileHasher fileHasher) {
+        Map<String, HashCode> classes = new HashMap<String, HashCode>();
+        Map<String, Collection<String>> packageContents = new TreeMap<String, Collection<String>>();
+        Hasher resourcesHasher = Hashing.md5().newHasher();
+        for (File entry : classpath) {
+            putString(resourcesHasher, entry.getAbsolutePath());
+            if (entry.isDirectory()) {
+                resourcesHasher.putInt(DIRECTORY);
+                visitDirectory(entry, "", fileHasher, classes, packageContents, resourcesHasher);
+            } else if (entry.isFile()) {
+                resourcesHasher.putInt(JAR);
+                visitJar(entry, fileHasher.hash(entry), classes, resourcesHasher);
+            } else {
+                resourcesHasher.putInt(MISSING);
+            }
+        }
+        Map<String, HashCode> packages = new HashMap<String, HashCode>(packageContents.size() * 2);
+        for (Map.Entry<String, Collection<String>> entry : packageContents.entrySet()) {
+            Hasher hasher = Hashing.md5().newHasher();
+            for (String className : entry.getValue()) {
+                putString(hasher, className);
+            }
+            packages.put(entry.getKey(), hasher.hash());
+        }
+        return new TestClasspathSnapshot(classes, packages, resourcesHasher.hash());
+    }
+
+    private static void visitDirectory(File dir, String relativePath, FileHasher fileHasher, Map<String, HashCode> classes, Map<String, Collection<String>> packageContents, Hasher resourcesHasher) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            String childPath = relativePath + child.getName();
+            if (child.isDirectory()) {
+                visitDirectory(child, childPath + "/", fileHasher, classes, packageContents, resourcesHasher);
+            } else if (childPath.endsWith(".class")) {
+                String className = childPath.substring(0, childPath.length() - ".class".length());
+                if (!classes.containsKey(className)) {
+                    classes.put(className, fileHasher.hash(child));
+                }
+                String packageName = packageOf(className);
+                Collection<String> contents = packageContents.get(packageName);
+                if (contents == null) {
+                    contents = new TreeSet<String>();
+                    packageContents.put(packageName, contents);
+                }
+                contents.add(className);
+            } else {
+                putString(resourcesHasher, childPath);
+                resourcesHasher.putHash(fileHasher.hash(child));
+            }
+        }
+    }
+
+    /**
+     * Records the classes of the given jar, and hashes its other entries by name and CRC, as recorded in the jar.
+     */
+    private static void visitJar(File jar, HashCode jarHash, Map<String, HashCode> classes, Hasher resourcesHasher) {
+        try {
+            ZipFile zipFile = new ZipFile(jar);
+            try {
+                Map<String, Long> resources = new TreeMap<String, Long>();
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    String name = entry.getName();
+                    if (name.endsWith(".class")) {
+                        String className = name.substring(0, name.length() - ".class".length());
+                        if (!classes.containsKey(className)) {
+                            classes.put(className, jarHash);
+                        }
+                    } else if (!entry.isDirectory()) {
+                        resources.put(name, entry.getCrc());
+                    }
+                }
+                for (Map.Entry<String, Long> resource : resources.entrySet()) {
+                    putString(resourcesHasher, resource.getKey());
+                    resourcesHasher.putLong(resource.getValue());
+                }
+            } finally {
+                zipFile.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not read the classes of %s.", jar), e);
+        }
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        hasher.putInt(value.length());
+        hasher.putString(value);
+    }
+
+    /**
+     * Returns the package of the class with the given internal name.
+     */
+    static String packageOf(String className) {
+        int index = className.lastIndexOf('/');
+        return index < 0 ? "" : className.substring(0, index);
+    }
+
+    public boolean contains(String className) {
+        return classes.containsKey(className);
+    }
+
+    /**
+     * Returns whether the given class, which was part of the given earlier snapshot, has been changed, removed or had a class added to or
+     * removed from its package since.
+     */
+    public boolean isChanged(String className, TestClasspathSnapshot previous) {
+        HashCode hash = classes.get(className);
+        if (hash == null || !hash.equals(previous.classes.get(className))) {
+            return true;
+        }
+        String packageName = packageOf(className);
+        return !equal(packages.get(packageName), previous.packages.get(packageName));
+    }
+
+    public boolean hasSameResources(TestClasspathSnapshot other) {
+        return resources.equals(other.resources);
+    }
+
+    /**
+     * Returns a snapshot that only contains the given classes, and the packages of the given classes.
+     */
+    public TestClasspathSnapshot retainClasses(Collection<String> classNames) {
+        Map<String, HashCode> retainedClasses = new HashMap<String, HashCode>(classNames.size() * 2);
+        Map<String, HashCode> retainedPackages = new HashMap<String, HashCode>();
+        for (String className : classNames) {
+            HashCode hash = classes.get(className);
+            if (hash != null) {
+                retainedClasses.put(className, hash);
+                String packageName = packageOf(className);
+                HashCode packageHash = packages.get(packageName);
+                if (packageHash != null) {
+                    retainedPackages.put(packageName, packageHash);
+                }
+            }
+        }
+        return new TestClasspathSnapshot(retainedClasses, retainedPackages, resources);
+    }
+
+    public Map<String, HashCode> getClasses() {
+        return Collections.unmodifiableMap(classes);
+    }
+
+    public Map<String, HashCode> getPackages() {
+        return Collections.unmodifiableMap(packages);
+    }
+
+    public HashCode getResources() {
+        return resources;
+    }
+
+    private static boolean equal(@Nullable HashCode a, @Nullable HashCode b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the classes loaded by each test worker of a test execution.
+ */
+public class TestDependencyRecorder {
+    private final List<WorkerDependencies> workers = new ArrayList<WorkerDependencies>();
+
+    /**
+     * Returns the listener to attach to a newly started test worker.
+     */
+    public TestClassDependencyListener startWorker() {
+        final WorkerDependencies worker = new WorkerDependencies();
+        synchronized (workers) {
+            workers.add(worker);
+        }
+        return new TestClassDependencyListener() {
+            @Override
+            public void testClassProcessed(String testClassName, List<String> loadedClasses) {
+                synchronized (worker) {
+                    worker.addTestClass(testClassName, loadedClasses);
+                }
+            }
+
+            @Override
+            public void processingStopped(List<String> loadedClasses) {
+                synchronized (worker) {
+                    worker.addLoadedOnStop(loadedClasses);
+                }
+            }
+        };
+    }
+
+    public List<WorkerDependencies> getWorkers() {
+        synchronized (workers) {
+            return new ArrayList<WorkerDependencies>(workers);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.IoActions;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Creates the jar of the {@link LoadedClassesRecorder} agent.
+ */
+public class TestImpactAgentJar {
+    private TestImpactAgentJar() {
+    }
+
+    public static void create(File jarFile) {
+        String classFileName = LoadedClassesRecorder.class.getName().replace('.', '/') + ".class";
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Premain-Class", LoadedClassesRecorder.class.getName());
+        InputStream classFile = LoadedClassesRecorder.class.getClassLoader().getResourceAsStream(classFileName);
+        if (classFile == null) {
+            throw new IllegalStateException(String.format("Could not find class file %s.", classFileName));
+        }
+        try {
+            try {
+                JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jarFile), manifest);
+                try {
+                    jarOutputStream.putNextEntry(new JarEntry(classFileName));
+                    byte[] buffer = new byte[8192];
+                    int count;
+                    while ((count = classFile.read(buffer)) >= 0) {
+                        jarOutputStream.write(buffer, 0, count);
+                    }
+                    jarOutputStream.closeEntry();
+                } finally {
+                    jarOutputStream.close();
+                }
+            } finally {
+                IoActions.closeQuietly(classFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not create test impact agent jar %s.", jarFile), e);
+        }
+    }
+}
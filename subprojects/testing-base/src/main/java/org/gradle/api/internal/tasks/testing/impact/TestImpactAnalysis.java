@@ -0,0 +1,186 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.hash.HashCode;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Determines which test classes of a test task are not affected by the changes since the previous run, using the dependencies recorded by
+ * earlier runs, and records the dependencies of the test classes executed by the current run.
+ *
+ * <p>A test class is affected when any class loaded by its worker before or while it was executed has changed, as the classes loaded by
+ * earlier test classes of the same worker are not recorded again. All test classes are affected when no dependencies were recorded against
+ * the current test configuration, or when other files on the classpath changed.</p>
+ */
+public class TestImpactAnalysis {
+    private static final Logger LOGGER = Logging.getLogger(TestImpactAnalysis.class);
+
+    private final TestImpactStore store;
+    private final HashCode configuration;
+    private final TestClasspathSnapshot classpath;
+    private final TestDependencyRecorder recorder = new TestDependencyRecorder();
+    private final List<WorkerDependencies> previousWorkers = new ArrayList<WorkerDependencies>();
+    private final List<Integer> firstChangedSegments = new ArrayList<Integer>();
+
+    public TestImpactAnalysis(TestImpactStore store, HashCode configuration, TestClasspathSnapshot classpath) {
+        this.store = store;
+        this.configuration = configuration;
+        this.classpath = classpath;
+        TestImpactStore.StoredDependencies previous = store.read();
+        String reason = getFullRunReason(previous);
+        if (reason != null) {
+            LOGGER.info("All test classes are affected by changes: {}.", reason);
+            return;
+        }
+        for (WorkerDependencies worker : previous.getWorkers()) {
+            previousWorkers.add(worker);
+            firstChangedSegments.add(findFirstChangedSegment(worker, previous.getClasspath()));
+        }
+    }
+
+    @Nullable
+    private String getFullRunReason(@Nullable TestImpactStore.StoredDependencies previous) {
+        if (previous == null) {
+            return "no dependencies were recorded by a previous run";
+        }
+        if (!previous.getConfiguration().equals(configuration)) {
+            return "the test configuration has changed";
+        }
+        if (!previous.getClasspath().hasSameResources(classpath)) {
+            return "the classpath or files other than classes have changed";
+        }
+        return null;
+    }
+
+    private int findFirstChangedSegment(WorkerDependencies worker, TestClasspathSnapshot previousClasspath) {
+        if (containsChangedClass(worker.getLoadedOnStop(), previousClasspath)) {
+            return 0;
+        }
+        for (int i = 0; i < worker.getSegmentCount(); i++) {
+            if (containsChangedClass(worker.getLoadedClasses(i), previousClasspath)) {
+                return i;
+            }
+        }
+        return worker.getSegmentCount();
+    }
+
+    private boolean containsChangedClass(Collection<String> classNames, TestClasspathSnapshot previousClasspath) {
+        for (String className : classNames) {
+            if (classpath.isChanged(className, previousClasspath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the test classes that do not need to be executed, as their recorded dependencies have not changed.
+     */
+    public Set<String> getUnaffectedTestClasses() {
+        Set<String> unaffected = new HashSet<String>();
+        for (int i = 0; i < previousWorkers.size(); i++) {
+            WorkerDependencies worker = previousWorkers.get(i);
+            int firstChanged = firstChangedSegments.get(i);
+            for (int j = 0; j < firstChanged; j++) {
+                String testClass = worker.getTestClass(j);
+                if (testClass != null) {
+                    unaffected.add(testClass);
+                }
+            }
+        }
+        return unaffected;
+    }
+
+    /**
+     * The recorder to attach to the test workers of the current run.
+     */
+    public TestDependencyRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Stores the dependencies recorded by the current run, along with the still valid dependencies of the test classes it did not execute.
+     */
+    public void storeDependencies() {
+        List<WorkerDependencies> workers = new ArrayList<WorkerDependencies>();
+        Set<String> executed = new HashSet<String>();
+        Set<String> referencedClasses = new HashSet<String>();
+        for (WorkerDependencies recorded : recorder.getWorkers()) {
+            WorkerDependencies worker = new WorkerDependencies();
+            for (int i = 0; i < recorded.getSegmentCount(); i++) {
+                executed.add(recorded.getTestClass(i));
+                worker.addTestClass(recorded.getTestClass(i), retainClasspathClasses(recorded.getLoadedClasses(i), referencedClasses));
+            }
+            worker.addLoadedOnStop(retainClasspathClasses(recorded.getLoadedOnStop(), referencedClasses));
+            if (worker.getSegmentCount() > 0) {
+                workers.add(worker);
+            }
+        }
+        for (int i = 0; i < previousWorkers.size(); i++) {
+            WorkerDependencies worker = retainUnaffectedTestClasses(previousWorkers.get(i), firstChangedSegments.get(i), executed, referencedClasses);
+            if (worker != null) {
+                workers.add(worker);
+            }
+        }
+        store.write(new TestImpactStore.StoredDependencies(configuration, classpath.retainClasses(referencedClasses), workers));
+    }
+
+    /**
+     * Retains the test classes of a previous worker that are neither affected by changes nor executed again. The classes loaded for the
+     * other test classes are kept as long as a retained test class depends on them.
+     */
+    @Nullable
+    private WorkerDependencies retainUnaffectedTestClasses(WorkerDependencies previous, int firstChanged, Set<String> executed, Set<String> referencedClasses) {
+        int lastRetained = -1;
+        for (int i = 0; i < firstChanged; i++) {
+            String testClass = previous.getTestClass(i);
+            if (testClass != null && !executed.contains(testClass)) {
+                lastRetained = i;
+            }
+        }
+        if (lastRetained < 0) {
+            return null;
+        }
+        WorkerDependencies worker = new WorkerDependencies();
+        for (int i = 0; i <= lastRetained; i++) {
+            String testClass = previous.getTestClass(i);
+            worker.addTestClass(executed.contains(testClass) ? null : testClass, retainClasspathClasses(previous.getLoadedClasses(i), referencedClasses));
+        }
+        worker.addLoadedOnStop(retainClasspathClasses(previous.getLoadedOnStop(), referencedClasses));
+        return worker;
+    }
+
+    private List<String> retainClasspathClasses(Collection<String> classNames, Set<String> referencedClasses) {
+        List<String> retained = new ArrayList<String>(classNames.size());
+        for (String className : classNames) {
+            if (classpath.contains(className)) {
+                retained.add(className);
+                referencedClasses.add(className);
+            }
+        }
+        return retained;
+    }
+}
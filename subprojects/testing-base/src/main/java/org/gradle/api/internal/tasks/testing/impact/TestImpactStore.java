@@ -0,0 +1,202 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.FlushableEncoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores the classes each test class of a test task depends on, along with the classpath snapshot they were recorded against, so that they
+ * are available to later runs of the task.
+ */
+public class TestImpactStore {
+    private static final Logger LOGGER = Logging.getLogger(TestImpactStore.class);
+    private static final int STORE_VERSION = 1;
+
+    private final File storeFile;
+
+    public TestImpactStore(File storeFile) {
+        this.storeFile = storeFile;
+    }
+
+    /**
+     * Returns the stored dependencies, or null when the store does not exist or cannot be read.
+     */
+    @Nullable
+    public StoredDependencies read() {
+        if (!storeFile.isFile()) {
+            return null;
+        }
+        try {
+            InputStream inputStream = new FileInputStream(storeFile);
+            try {
+                Decoder decoder = new KryoBackedDecoder(inputStream);
+                if (decoder.readSmallInt() != STORE_VERSION) {
+                    return null;
+                }
+                HashCode configuration = readHash(decoder);
+                HashCode resources = readHash(decoder);
+                int packageCount = decoder.readSmallInt();
+                Map<String, HashCode> packages = new HashMap<String, HashCode>(packageCount * 2);
+                for (int i = 0; i < packageCount; i++) {
+                    packages.put(decoder.readString(), readHash(decoder));
+                }
+                int classCount = decoder.readSmallInt();
+                String[] classNames = new String[classCount];
+                Map<String, HashCode> classes = new HashMap<String, HashCode>(classCount * 2);
+                for (int i = 0; i < classCount; i++) {
+                    classNames[i] = decoder.readString();
+                    classes.put(classNames[i], readHash(decoder));
+                }
+                int workerCount = decoder.readSmallInt();
+                List<WorkerDependencies> workers = new ArrayList<WorkerDependencies>(workerCount);
+                for (int i = 0; i < workerCount; i++) {
+                    WorkerDependencies worker = new WorkerDependencies();
+                    int segmentCount = decoder.readSmallInt();
+                    for (int j = 0; j < segmentCount; j++) {
+                        String testClass = decoder.readNullableString();
+                        worker.addTestClass(testClass, readClassNames(decoder, classNames));
+                    }
+                    worker.addLoadedOnStop(readClassNames(decoder, classNames));
+                    workers.add(worker);
+                }
+                return new StoredDependencies(configuration, new TestClasspathSnapshot(classes, packages, resources), workers);
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not read test dependencies from {}.", storeFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the stored dependencies. The classpath snapshot should only contain the classes loaded by the given workers.
+     */
+    public void write(StoredDependencies dependencies) {
+        File parentDir = storeFile.getParentFile();
+        if (!parentDir.isDirectory() && !parentDir.mkdirs()) {
+            throw new UncheckedIOException(String.format("Could not create directory %s.", parentDir));
+        }
+        try {
+            OutputStream outputStream = new FileOutputStream(storeFile);
+            try {
+                FlushableEncoder encoder = new KryoBackedEncoder(outputStream);
+                encoder.writeSmallInt(STORE_VERSION);
+                writeHash(encoder, dependencies.getConfiguration());
+                TestClasspathSnapshot classpath = dependencies.getClasspath();
+                writeHash(encoder, classpath.getResources());
+                encoder.writeSmallInt(classpath.getPackages().size());
+                for (Map.Entry<String, HashCode> entry : classpath.getPackages().entrySet()) {
+                    encoder.writeString(entry.getKey());
+                    writeHash(encoder, entry.getValue());
+                }
+                encoder.writeSmallInt(classpath.getClasses().size());
+                Map<String, Integer> classIds = new HashMap<String, Integer>(classpath.getClasses().size() * 2);
+                for (Map.Entry<String, HashCode> entry : classpath.getClasses().entrySet()) {
+                    classIds.put(entry.getKey(), classIds.size());
+                    encoder.writeString(entry.getKey());
+                    writeHash(encoder, entry.getValue());
+                }
+                encoder.writeSmallInt(dependencies.getWorkers().size());
+                for (WorkerDependencies worker : dependencies.getWorkers()) {
+                    encoder.writeSmallInt(worker.getSegmentCount());
+                    for (int i = 0; i < worker.getSegmentCount(); i++) {
+                        encoder.writeNullableString(worker.getTestClass(i));
+                        writeClassNames(encoder, worker.getLoadedClasses(i), classIds);
+                    }
+                    writeClassNames(encoder, worker.getLoadedOnStop(), classIds);
+                }
+                encoder.flush();
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> readClassNames(Decoder decoder, String[] classNames) throws IOException {
+        int count = decoder.readSmallInt();
+        List<String> result = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(classNames[decoder.readSmallInt()]);
+        }
+        return result;
+    }
+
+    private static void writeClassNames(Encoder encoder, List<String> classNames, Map<String, Integer> classIds) throws IOException {
+        encoder.writeSmallInt(classNames.size());
+        for (String className : classNames) {
+            encoder.writeSmallInt(classIds.get(className));
+        }
+    }
+
+    private static HashCode readHash(Decoder decoder) throws IOException {
+        return HashCode.fromBytes(decoder.readBinary());
+    }
+
+    private static void writeHash(Encoder encoder, HashCode hash) throws IOException {
+        encoder.writeBinary(hash.toByteArray());
+    }
+
+    /**
+     * The dependencies of the test classes of a test task, recorded against a given test configuration and classpath.
+     */
+    public static class StoredDependencies {
+        private final HashCode configuration;
+        private final TestClasspathSnapshot classpath;
+        private final List<WorkerDependencies> workers;
+
+        public StoredDependencies(HashCode configuration, TestClasspathSnapshot classpath, List<WorkerDependencies> workers) {
+            this.configuration = configuration;
+            this.classpath = classpath;
+            this.workers = workers;
+        }
+
+        public HashCode getConfiguration() {
+            return configuration;
+        }
+
+        public TestClasspathSnapshot getClasspath() {
+            return classpath;
+        }
+
+        public List<WorkerDependencies> getWorkers() {
+            return workers;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The classes loaded by a single test worker JVM, split into one segment per test class in the order the worker processed them.
+ *
+ * <p>A test class depends on the classes of its own segment and of all segments before it, as well as on the classes loaded when the
+ * worker stopped. A segment without a test class name only contributes classes to the segments after it.</p>
+ */
+public class WorkerDependencies {
+    private final List<String> testClasses = new ArrayList<String>();
+    private final List<List<String>> loadedClasses = new ArrayList<List<String>>();
+    private final List<String> loadedOnStop = new ArrayList<String>();
+
+    public void addTestClass(@Nullable String testClassName, Collection<String> loadedClasses) {
+        testClasses.add(testClassName);
+        this.loadedClasses.add(new ArrayList<String>(loadedClasses));
+    }
+
+    public void addLoadedOnStop(Collection<String> loadedClasses) {
+        loadedOnStop.addAll(loadedClasses);
+    }
+
+    public int getSegmentCount() {
+        return testClasses.size();
+    }
+
+    @Nullable
+    public String getTestClass(int segment) {
+        return testClasses.get(segment);
+    }
+
+    public List<String> getLoadedClasses(int segment) {
+        return Collections.unmodifiableList(loadedClasses.get(segment));
+    }
+
+    public List<String> getLoadedOnStop() {
+        return Collections.unmodifiableList(loadedOnStop);
+    }
+}
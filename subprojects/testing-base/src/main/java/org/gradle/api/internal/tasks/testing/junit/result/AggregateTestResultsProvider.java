@@ -25,6 +25,7 @@ import org.gradle.api.Action;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.hash.Hasher;
 
 import java.io.IOException;
 import java.io.Writer;
@@ -115,6 +116,14 @@ public class AggregateTestResultsProvider implements TestResultsProvider {
         }
     }
 
+    @Override
+    public void hashOutputLocation(long id, Hasher hasher) {
+        for (DelegateProvider delegateProvider : classOutputProviders.get(id)) {
+            hasher.putLong(delegateProvider.id);
+            delegateProvider.provider.hashOutputLocation(delegateProvider.id, hasher);
+        }
+    }
+
     @Override
     public boolean isHasResults() {
         return any(providers, new Spec<TestResultsProvider>() {
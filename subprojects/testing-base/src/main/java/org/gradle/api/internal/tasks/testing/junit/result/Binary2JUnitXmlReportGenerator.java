@@ -34,11 +34,23 @@ import org.gradle.util.GFileUtils;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Binary2JUnitXmlReportGenerator {
+    /**
+     * The number of classes whose results are written together, which bounds the number of class results held in memory at once.
+     */
+    private static final int BATCH_SIZE = 100;
+    private static final String FINGERPRINTS_FILE_NAME = ".junit-xml-fingerprints.bin";
 
     private final File testResultsDir;
     private final TestResultsProvider testResultsProvider;
+    private final TestOutputAssociation outputAssociation;
+    private final String hostName;
     private JUnitXmlResultWriter xmlWriter;
     private final BuildOperationExecutor buildOperationExecutor;
     private final static Logger LOG = Logging.getLogger(Binary2JUnitXmlReportGenerator.class);
@@ -46,6 +58,8 @@ public class Binary2JUnitXmlReportGenerator {
     public Binary2JUnitXmlReportGenerator(File testResultsDir, TestResultsProvider testResultsProvider, TestOutputAssociation outputAssociation, BuildOperationExecutor buildOperationExecutor, String hostName) {
         this.testResultsDir = testResultsDir;
         this.testResultsProvider = testResultsProvider;
+        this.outputAssociation = outputAssociation;
+        this.hostName = hostName;
         this.xmlWriter = new JUnitXmlResultWriter(hostName, testResultsProvider, outputAssociation);
         this.buildOperationExecutor = buildOperationExecutor;
     }
@@ -53,13 +67,33 @@ public class Binary2JUnitXmlReportGenerator {
     public void generate() {
         Timer clock = Time.startTimer();
 
+        // Only the files of the test classes whose results have changed since the files were last generated are written
+        final TestReportFingerprints fingerprints = new TestReportFingerprints(new File(testResultsDir, FINGERPRINTS_FILE_NAME), "junit-xml/" + hostName + "/" + outputAssociation);
+        final Set<String> reportFileNames = new HashSet<String>();
+        final List<TestClassResult> batch = new ArrayList<TestClassResult>(BATCH_SIZE);
+        final AtomicInteger writtenCount = new AtomicInteger();
+        testResultsProvider.visitClasses(new Action<TestClassResult>() {
+            public void execute(final TestClassResult result) {
+                String reportFileName = getReportFileName(result);
+                reportFileNames.add(reportFileName);
+                if (fingerprints.update(result, testResultsProvider, new File(testResultsDir, reportFileName))) {
+                    writtenCount.incrementAndGet();
+                    batch.add(result);
+                    if (batch.size() == BATCH_SIZE) {
+                        generateFiles(batch);
+                    }
+                }
+            }
+        });
+        generateFiles(batch);
+
         buildOperationExecutor.run(new RunnableBuildOperation() {
             @Override
             public void run(BuildOperationContext context) {
                 File[] oldXmlFiles = testResultsDir.listFiles(new FilenameFilter() {
                     @Override
                     public boolean accept(File dir, String name) {
-                        return name.startsWith("TEST") && name.endsWith(".xml");
+                        return name.startsWith("TEST") && name.endsWith(".xml") && !reportFileNames.contains(name);
                     }
                 });
 
@@ -73,20 +107,25 @@ public class Binary2JUnitXmlReportGenerator {
                 return BuildOperationDescriptor.displayName("Delete old JUnit XML results");
             }
         });
+        fingerprints.write();
+
+        LOG.info("Finished generating test XML results ({}, {} of {} files written) into: {}", clock.getElapsed(), writtenCount.get(), reportFileNames.size(), testResultsDir);
+    }
 
+    private void generateFiles(final List<TestClassResult> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
         buildOperationExecutor.runAll(new Action<BuildOperationQueue<JUnitXmlReportFileGenerator>>() {
             @Override
             public void execute(final BuildOperationQueue<JUnitXmlReportFileGenerator> queue) {
-                testResultsProvider.visitClasses(new Action<TestClassResult>() {
-                    public void execute(final TestClassResult result) {
-                        final File reportFile = new File(testResultsDir, getReportFileName(result));
-                        queue.add(new JUnitXmlReportFileGenerator(result, reportFile, xmlWriter));
-                    }
-                });
+                for (TestClassResult result : batch) {
+                    final File reportFile = new File(testResultsDir, getReportFileName(result));
+                    queue.add(new JUnitXmlReportFileGenerator(result, reportFile, xmlWriter));
+                }
             }
         });
-
-        LOG.info("Finished generating test XML results ({}) into: {}", clock.getElapsed(), testResultsDir);
+        batch.clear();
     }
 
     private String getReportFileName(TestClassResult result) {
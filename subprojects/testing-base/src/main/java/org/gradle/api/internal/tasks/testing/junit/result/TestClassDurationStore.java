@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import org.gradle.api.Action;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.FlushableEncoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores the execution time of each test class of a test task, keyed by class name, so that it is available to later runs of the task.
+ *
+ * <p>Unlike the binary test results, the store is kept when the test results are deleted, and is updated rather than replaced when only some
+ * of the test classes are executed.</p>
+ */
+public class TestClassDurationStore {
+    private static final Logger LOGGER = Logging.getLogger(TestClassDurationStore.class);
+    private static final int STORE_VERSION = 1;
+
+    private final File storeFile;
+
+    public TestClassDurationStore(File storeFile) {
+        this.storeFile = storeFile;
+    }
+
+    /**
+     * Returns the most recent execution time in milliseconds of each test class. Returns an empty map when the store does not exist or
+     * cannot be read.
+     */
+    public Map<String, Long> read() {
+        if (!storeFile.isFile()) {
+            return Collections.emptyMap();
+        }
+        try {
+            InputStream inputStream = new FileInputStream(storeFile);
+            try {
+                Decoder decoder = new KryoBackedDecoder(inputStream);
+                if (decoder.readSmallInt() != STORE_VERSION) {
+                    return Collections.emptyMap();
+                }
+                int count = decoder.readSmallInt();
+                Map<String, Long> durations = new HashMap<String, Long>(count * 2);
+                for (int i = 0; i < count; i++) {
+                    String className = decoder.readString();
+                    durations.put(className, decoder.readSmallLong());
+                }
+                return durations;
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not read test class durations from {}.", storeFile, e);
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Records the execution time of the test classes in the given results. The execution times of other test classes are retained.
+     */
+    public void update(TestResultSerializer results) {
+        final Map<String, Long> durations = new HashMap<String, Long>(read());
+        final int previousCount = durations.size();
+        results.read(new Action<TestClassResult>() {
+            @Override
+            public void execute(TestClassResult testClassResult) {
+                durations.put(testClassResult.getClassName(), testClassResult.getDuration());
+            }
+        });
+        if (durations.isEmpty() && previousCount == 0) {
+            return;
+        }
+        write(durations);
+    }
+
+    private void write(Map<String, Long> durations) {
+        File parentDir = storeFile.getParentFile();
+        if (!parentDir.isDirectory() && !parentDir.mkdirs()) {
+            throw new UncheckedIOException(String.format("Could not create directory %s.", parentDir));
+        }
+        try {
+            // Write to a temporary file first, so that a build that is interrupted, or another build reading the store, never sees a partially written store
+            File tempFile = File.createTempFile(storeFile.getName(), ".tmp", parentDir);
+            try {
+                OutputStream outputStream = new FileOutputStream(tempFile);
+                try {
+                    FlushableEncoder encoder = new KryoBackedEncoder(outputStream);
+                    encoder.writeSmallInt(STORE_VERSION);
+                    encoder.writeSmallInt(durations.size());
+                    for (Map.Entry<String, Long> entry : durations.entrySet()) {
+                        encoder.writeString(entry.getKey());
+                        encoder.writeSmallLong(entry.getValue());
+                    }
+                    encoder.flush();
+                } finally {
+                    outputStream.close();
+                }
+                // File.renameTo() does not replace an existing file on some platforms
+                if (!tempFile.renameTo(storeFile) && !(storeFile.delete() && tempFile.renameTo(storeFile))) {
+                    throw new IOException(String.format("Could not move %s to %s.", tempFile, storeFile));
+                }
+            } finally {
+                if (tempFile.exists() && !tempFile.delete()) {
+                    LOGGER.debug("Could not delete {}.", tempFile);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
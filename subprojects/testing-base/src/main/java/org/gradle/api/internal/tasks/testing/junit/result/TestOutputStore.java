@@ -23,9 +23,12 @@ import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.internal.io.RandomAccessFileInputStream;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.Hasher;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
+import javax.annotation.Nullable;
+
 import java.io.*;
 import java.nio.charset.Charset;
 import java.util.LinkedHashMap;
@@ -76,7 +79,7 @@ public class TestOutputStore {
 
         public Writer() {
             try {
-                output = new KryoBackedEncoder(new FileOutputStream(getOutputsFile()));
+                output = new KryoBackedEncoder(new FileOutputStream(getOutputsFile()).getChannel());
             } catch (FileNotFoundException e) {
                 throw new UncheckedIOException(e);
             }
@@ -171,7 +174,7 @@ public class TestOutputStore {
         return new Writer();
     }
 
-    private static class Index {
+    static class Index {
         final ImmutableMap<Long, Index> children;
         final Region stdOut;
         final Region stdErr;
@@ -187,6 +190,21 @@ public class TestOutputStore {
             this.stdOut = stdOut;
             this.stdErr = stdErr;
         }
+
+        /**
+         * Adds the location of the output in the outputs file to the given hasher, for this entry and all its children.
+         */
+        void hashRegions(Hasher hasher) {
+            hasher.putLong(stdOut.start);
+            hasher.putLong(stdOut.stop);
+            hasher.putLong(stdErr.start);
+            hasher.putLong(stdErr.stop);
+            hasher.putInt(children.size());
+            for (Map.Entry<Long, Index> child : children.entrySet()) {
+                hasher.putLong(child.getKey());
+                child.getValue().hashRegions(hasher);
+            }
+        }
     }
 
     private static class IndexBuilder {
@@ -217,62 +235,74 @@ public class TestOutputStore {
         }
     }
 
-    public class Reader implements Closeable {
-        private final Index index;
-        private final RandomAccessFile dataFile;
+    /**
+     * Reads the index of the outputs file, or returns null when there is no output.
+     */
+    Index readIndex() {
+        File indexFile = getIndexFile();
+        File outputsFile = getOutputsFile();
 
-        public Reader() {
-            File indexFile = getIndexFile();
-            File outputsFile = getOutputsFile();
+        if (outputsFile.exists()) {
+            if (!indexFile.exists()) {
+                throw new IllegalStateException(String.format("Test outputs data file '%s' exists but the index file '%s' does not", outputsFile, indexFile));
+            }
 
-            if (outputsFile.exists()) {
-                if (!indexFile.exists()) {
-                    throw new IllegalStateException(String.format("Test outputs data file '%s' exists but the index file '%s' does not", outputsFile, indexFile));
-                }
+            Input input;
+            try {
+                input = new Input(new FileInputStream(indexFile));
+            } catch (FileNotFoundException e) {
+                throw new UncheckedIOException(e);
+            }
 
-                Input input;
-                try {
-                    input = new Input(new FileInputStream(indexFile));
-                } catch (FileNotFoundException e) {
-                    throw new UncheckedIOException(e);
+            IndexBuilder rootBuilder = null;
+            try {
+                int numClasses = input.readInt(true);
+                rootBuilder = new IndexBuilder();
+
+                for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
+                    long classId = input.readLong(true);
+                    IndexBuilder classBuilder = new IndexBuilder();
+
+                    int numEntries = input.readInt(true);
+                    for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
+                        long testId = input.readLong(true);
+                        Region stdOut = new Region(input.readLong(), input.readLong());
+                        Region stdErr = new Region(input.readLong(), input.readLong());
+                        classBuilder.add(testId, new Index(stdOut, stdErr));
+                    }
+
+                    rootBuilder.add(classId, classBuilder.build());
                 }
+            } finally {
+                input.close();
+            }
 
-                IndexBuilder rootBuilder = null;
-                try {
-                    int numClasses = input.readInt(true);
-                    rootBuilder = new IndexBuilder();
-
-                    for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
-                        long classId = input.readLong(true);
-                        IndexBuilder classBuilder = new IndexBuilder();
-
-                        int numEntries = input.readInt(true);
-                        for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
-                            long testId = input.readLong(true);
-                            Region stdOut = new Region(input.readLong(), input.readLong());
-                            Region stdErr = new Region(input.readLong(), input.readLong());
-                            classBuilder.add(testId, new Index(stdOut, stdErr));
-                        }
+            return rootBuilder.build();
+        } else { // no outputs file
+            if (indexFile.exists()) {
+                throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
+            }
+            return null;
+        }
+    }
 
-                        rootBuilder.add(classId, classBuilder.build());
-                    }
-                } finally {
-                    input.close();
-                }
+    public class Reader implements Closeable {
+        private final Index index;
+        private final RandomAccessFile dataFile;
 
-                index = rootBuilder.build();
+        public Reader() {
+            this(readIndex());
+        }
 
+        Reader(@Nullable Index index) {
+            this.index = index;
+            if (index != null) {
                 try {
                     dataFile = new RandomAccessFile(getOutputsFile(), "r");
                 } catch (FileNotFoundException e) {
                     throw new UncheckedIOException(e);
                 }
-            } else { // no outputs file
-                if (indexFile.exists()) {
-                    throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
-                }
-
-                index = null;
+            } else {
                 dataFile = null;
             }
         }
@@ -387,4 +417,12 @@ public class TestOutputStore {
     public Reader reader() {
         return new Reader();
     }
+
+    /**
+     * Creates a reader that uses the given index, as returned by {@link #readIndex()}. The index is immutable, so it can be shared by
+     * readers used from different threads. IMPORTANT: return must be closed when done with.
+     */
+    Reader reader(@Nullable Index index) {
+        return new Reader(index);
+    }
 }
@@ -19,6 +19,7 @@ package org.gradle.api.internal.tasks.testing.junit.result;
 import com.google.common.collect.Maps;
 import org.gradle.api.Action;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.hash.Hasher;
 
 import java.io.IOException;
 import java.util.concurrent.ConcurrentMap;
@@ -26,6 +27,8 @@ import java.util.concurrent.ConcurrentMap;
 public abstract class TestOutputStoreBackedResultsProvider implements TestResultsProvider {
     private final TestOutputStore outputStore;
     private final ConcurrentMap<Thread, TestOutputStore.Reader> readers;
+    private TestOutputStore.Index index;
+    private boolean indexRead;
 
     public TestOutputStoreBackedResultsProvider(TestOutputStore outputStore) {
         this.outputStore = outputStore;
@@ -40,12 +43,32 @@ public abstract class TestOutputStoreBackedResultsProvider implements TestResult
         Thread thread = Thread.currentThread();
         TestOutputStore.Reader reader = readers.get(thread);
         if (reader == null) {
-            reader = outputStore.reader();
+            reader = outputStore.reader(getIndex());
             readers.put(thread, reader);
         }
         return reader;
     }
 
+    @Override
+    public void hashOutputLocation(long id, Hasher hasher) {
+        TestOutputStore.Index index = getIndex();
+        TestOutputStore.Index classIndex = index == null ? null : index.children.get(id);
+        if (classIndex == null) {
+            hasher.putInt(-1);
+        } else {
+            classIndex.hashRegions(hasher);
+        }
+    }
+
+    // The index is shared by the readers of all threads, as it holds an entry for every test and can be large
+    private synchronized TestOutputStore.Index getIndex() {
+        if (!indexRead) {
+            index = outputStore.readIndex();
+            indexRead = true;
+        }
+        return index;
+    }
+
     @Override
     public void close() throws IOException {
         CompositeStoppable.stoppable(readers.values()).stop();
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.FlushableEncoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.util.GradleVersion;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks a fingerprint of the results of each test class that the files of a report were generated from, keyed by class name, so that
+ * only the files of the test classes whose results have changed need to be written again when the report is regenerated.
+ *
+ * <p>The fingerprints are stored next to the report. A report without fingerprints, for example one generated by an earlier Gradle version,
+ * is regenerated completely.</p>
+ */
+public class TestReportFingerprints {
+    private static final Logger LOGGER = Logging.getLogger(TestReportFingerprints.class);
+    private static final int STORE_VERSION = 2;
+
+    private final File storeFile;
+    private final String reportSettings;
+    private final Map<String, HashCode> previousFingerprints;
+    private final Map<String, HashCode> fingerprints = new HashMap<String, HashCode>();
+
+    /**
+     * @param reportSettings Describes everything apart from the test results that the content of the report files depends on.
+     */
+    public TestReportFingerprints(File storeFile, String reportSettings) {
+        this.storeFile = storeFile;
+        this.reportSettings = reportSettings + "/" + GradleVersion.current().getVersion();
+        this.previousFingerprints = read();
+    }
+
+    /**
+     * Records the results of the given test class, and returns whether its report file needs to be written. This is the case when the
+     * file does not exist or when it was generated from different results.
+     */
+    public boolean update(TestClassResult result, TestResultsProvider resultsProvider, File reportFile) {
+        HashCode fingerprint = fingerprint(result, resultsProvider);
+        fingerprints.put(result.getClassName(), fingerprint);
+        return !fingerprint.equals(previousFingerprints.get(result.getClassName())) || !reportFile.isFile();
+    }
+
+    /**
+     * Stores the fingerprints of the test classes recorded by {@link #update}. Should be called once all report files have been written.
+     */
+    public void write() {
+        try {
+            OutputStream outputStream = new FileOutputStream(storeFile);
+            try {
+                FlushableEncoder encoder = new KryoBackedEncoder(outputStream);
+                encoder.writeSmallInt(STORE_VERSION);
+                encoder.writeSmallInt(fingerprints.size());
+                for (Map.Entry<String, HashCode> entry : fingerprints.entrySet()) {
+                    encoder.writeString(entry.getKey());
+                    encoder.writeBinary(entry.getValue().toByteArray());
+                }
+                encoder.flush();
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Map<String, HashCode> read() {
+        if (!storeFile.isFile()) {
+            return Collections.emptyMap();
+        }
+        try {
+            InputStream inputStream = new FileInputStream(storeFile);
+            try {
+                Decoder decoder = new KryoBackedDecoder(inputStream);
+                if (decoder.readSmallInt() != STORE_VERSION) {
+                    return Collections.emptyMap();
+                }
+                int count = decoder.readSmallInt();
+                Map<String, HashCode> fingerprints = new HashMap<String, HashCode>(count * 2);
+                for (int i = 0; i < count; i++) {
+                    String className = decoder.readString();
+                    fingerprints.put(className, HashCode.fromBytes(decoder.readBinary()));
+                }
+                return fingerprints;
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not read test report fingerprints from {}.", storeFile, e);
+            return Collections.emptyMap();
+        }
+    }
+
+    private HashCode fingerprint(TestClassResult result, TestResultsProvider resultsProvider) {
+        Hasher hasher = Hashing.md5().newHasher();
+        putString(hasher, reportSettings);
+        putString(hasher, result.getClassName());
+        putString(hasher, result.getClassDisplayName());
+        hasher.putLong(result.getStartTime());
+        hasher.putLong(result.getDuration());
+        hasher.putInt(result.getResults().size());
+        for (TestMethodResult methodResult : result.getResults()) {
+            putString(hasher, methodResult.getName());
+            putString(hasher, methodResult.getDisplayName());
+            putString(hasher, methodResult.getResultType().name());
+            hasher.putLong(methodResult.getDuration());
+            hasher.putLong(methodResult.getEndTime());
+            hasher.putInt(methodResult.getFailures().size());
+            for (TestFailure failure : methodResult.getFailures()) {
+                putString(hasher, failure.getMessage());
+                putString(hasher, failure.getStackTrace());
+                putString(hasher, failure.getExceptionType());
+            }
+        }
+        // Together with the start time and duration of the test class, the location of the output in the output store identifies the output,
+        // so the output itself does not need to be read
+        resultsProvider.hashOutputLocation(result.getId(), hasher);
+        return hasher.hash();
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length());
+            hasher.putString(value);
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.testing.junit.result;
 
 import org.gradle.api.Action;
 import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.hash.Hasher;
 
 import java.io.Closeable;
 import java.io.Writer;
@@ -46,5 +47,11 @@ public interface TestResultsProvider extends Closeable {
 
     boolean hasOutput(long id, TestOutputEvent.Destination destination);
 
+    /**
+     * Adds the location of the output of the given test class to the given hasher, without reading the output. Together with the results of
+     * the test class, this identifies the output of the test class. This method must be called only after {@link #visitClasses(org.gradle.api.Action)}.
+     */
+    void hashOutputLocation(long id, Hasher hasher);
+
     boolean isHasResults();
 }
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessingListener;
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassProcessorFailureListener;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.actor.Actor;
+import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.dispatch.DispatchException;
+import org.gradle.internal.time.Clock;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Manages a set of parallel TestClassProcessors. Unlike {@link MaxNParallelTestClassProcessor}, test classes are not assigned to a processor
+ * up front. Instead, test classes are queued and each processor is handed the next test class from the queue once it has finished with its
+ * current test class. This way, a processor that receives some long running test classes does not hold up the test run while the other
+ * processors sit idle.
+ *
+ * <p>The processors created by the factory are expected to notify the {@link TestClassProcessingListener} and
+ * {@link TestClassProcessorFailureListener} passed to them as the result processor.</p>
+ */
+public class PullBasedParallelTestClassProcessor implements TestClassProcessor {
+    private static final Logger LOGGER = Logging.getLogger(PullBasedParallelTestClassProcessor.class);
+
+    private final int maxProcessors;
+    private final Factory<TestClassProcessor> factory;
+    private final ActorFactory actorFactory;
+    private final Clock clock;
+    private final Lock lock = new ReentrantLock();
+    private final Condition queueChanged = lock.newCondition();
+    private final Deque<TestClassRunInfo> queue = new ArrayDeque<TestClassRunInfo>();
+    private final List<ProcessorSlot> slots = new ArrayList<ProcessorSlot>();
+    private final List<TestClassProcessor> rawProcessors = new ArrayList<TestClassProcessor>();
+    private final List<Actor> actors = new ArrayList<Actor>();
+    private TestResultProcessor resultProcessor;
+    private Actor resultProcessorActor;
+    private long startTime;
+    private volatile boolean stoppedNow;
+
+    public PullBasedParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Clock clock) {
+        this.maxProcessors = maxProcessors;
+        this.factory = factory;
+        this.actorFactory = actorFactory;
+        this.clock = clock;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        startTime = clock.getCurrentTime();
+        // Create a processor that processes events in its own thread
+        resultProcessorActor = actorFactory.createActor(resultProcessor);
+        this.resultProcessor = resultProcessorActor.getProxy(TestResultProcessor.class);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        if (stoppedNow) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            queue.add(testClass);
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands queued test classes to idle processors, starting new processors as required. Must be called while holding the lock.
+     */
+    private void dispatch() {
+        while (!queue.isEmpty()) {
+            ProcessorSlot slot = findIdleSlot();
+            if (slot == null) {
+                if (slots.size() >= maxProcessors) {
+                    return;
+                }
+                slot = startSlot();
+            }
+            slot.process(queue.removeFirst());
+        }
+    }
+
+    private ProcessorSlot findIdleSlot() {
+        for (ProcessorSlot slot : slots) {
+            if (slot.isIdle()) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    private boolean hasUsableSlot() {
+        for (ProcessorSlot slot : slots) {
+            if (!slot.failed) {
+                return true;
+            }
+        }
+        return slots.size() < maxProcessors;
+    }
+
+    private ProcessorSlot startSlot() {
+        TestClassProcessor processor = factory.create();
+        rawProcessors.add(processor);
+        Actor actor = actorFactory.createActor(processor);
+        actors.add(actor);
+        ProcessorSlot slot = new ProcessorSlot(slots.size() + 1, actor.getProxy(TestClassProcessor.class));
+        slots.add(slot);
+        slot.processor.startProcessing(slot);
+        return slot;
+    }
+
+    @Override
+    public void stop() {
+        List<ProcessorSlot> slotsToStop;
+        lock.lock();
+        try {
+            while (!queue.isEmpty() && !stoppedNow && hasUsableSlot()) {
+                try {
+                    queueChanged.await();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            if (!queue.isEmpty() && !stoppedNow) {
+                LOGGER.info("Not executing {} test classes as all test workers have stopped unexpectedly.", queue.size());
+            }
+            queue.clear();
+            slotsToStop = new ArrayList<ProcessorSlot>(slots);
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>(slotsToStop.size());
+            for (ProcessorSlot slot : slotsToStop) {
+                processors.add(slot.processor);
+            }
+            CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
+        } catch (DispatchException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } finally {
+            reportUtilization(slotsToStop);
+        }
+    }
+
+    private void reportUtilization(List<ProcessorSlot> slots) {
+        if (slots.isEmpty() || !LOGGER.isInfoEnabled()) {
+            return;
+        }
+        long wallClockTime = Math.max(1, clock.getCurrentTime() - startTime);
+        StringBuilder utilization = new StringBuilder();
+        lock.lock();
+        try {
+            for (ProcessorSlot slot : slots) {
+                if (utilization.length() > 0) {
+                    utilization.append(", ");
+                }
+                utilization.append("worker ").append(slot.id).append(": ")
+                    .append(slot.busyTime * 100 / wallClockTime).append("% (")
+                    .append(slot.testClassCount).append(" test classes)");
+            }
+        } finally {
+            lock.unlock();
+        }
+        LOGGER.info("Executed tests using {} test workers in {}ms. Utilization per test worker: {}.", slots.size(), wallClockTime, utilization);
+    }
+
+    @Override
+    public void stopNow() {
+        stoppedNow = true;
+        List<TestClassProcessor> processors;
+        lock.lock();
+        try {
+            queueChanged.signalAll();
+            processors = new ArrayList<TestClassProcessor>(rawProcessors);
+        } finally {
+            lock.unlock();
+        }
+        for (TestClassProcessor processor : processors) {
+            processor.stopNow();
+        }
+    }
+
+    /**
+     * A processor, and the result processor passed to it. Forwards results to the shared result processor, and keeps track of the test classes
+     * handed to the processor.
+     */
+    private class ProcessorSlot implements TestResultProcessor, TestClassProcessingListener, TestClassProcessorFailureListener {
+        private final int id;
+        private final TestClassProcessor processor;
+        private int testClassesInProcessor;
+        private int testClassCount;
+        private boolean failed;
+        private long busySince;
+        private long busyTime;
+
+        ProcessorSlot(int id, TestClassProcessor processor) {
+            this.id = id;
+            this.processor = processor;
+        }
+
+        boolean isIdle() {
+            return !failed && testClassesInProcessor == 0;
+        }
+
+        void process(TestClassRunInfo testClass) {
+            if (testClassesInProcessor++ == 0) {
+                busySince = clock.getCurrentTime();
+            }
+            testClassCount++;
+            processor.processTestClass(testClass);
+        }
+
+        private void finished(int count) {
+            int remaining = Math.max(0, testClassesInProcessor - count);
+            if (testClassesInProcessor > 0 && remaining == 0) {
+                busyTime += clock.getCurrentTime() - busySince;
+            }
+            testClassesInProcessor = remaining;
+        }
+
+        @Override
+        public void testClassProcessed(String testClassName) {
+            lock.lock();
+            try {
+                finished(1);
+                dispatch();
+                queueChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void processorFailed(List<String> unprocessedTestClassNames) {
+            lock.lock();
+            try {
+                failed = true;
+                finished(unprocessedTestClassNames.size());
+                dispatch();
+                queueChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            resultProcessor.started(test, event);
+        }
+
+        @Override
+        public void completed(Object testId, TestCompleteEvent event) {
+            resultProcessor.completed(testId, event);
+        }
+
+        @Override
+        public void output(Object testId, TestOutputEvent event) {
+            resultProcessor.output(testId, event);
+        }
+
+        @Override
+        public void failure(Object testId, Throwable result) {
+            resultProcessor.failure(testId, result);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Passes test classes to its delegate in order of their previous execution time, longest first, so that parallel test workers finish
+ * at roughly the same time. Test classes without a previous execution time are passed first, in the order they were received.
+ */
+public class RunLongestFirstTestClassProcessor implements TestClassProcessor {
+    private final Map<String, Long> previousTestClassDurations;
+    private final TestClassProcessor delegate;
+    private final LinkedHashSet<TestClassRunInfo> testClasses = new LinkedHashSet<TestClassRunInfo>();
+
+    public RunLongestFirstTestClassProcessor(Map<String, Long> previousTestClassDurations, TestClassProcessor delegate) {
+        this.previousTestClassDurations = previousTestClassDurations;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        delegate.startProcessing(resultProcessor);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        testClasses.add(testClass);
+    }
+
+    @Override
+    public void stop() {
+        List<TestClassRunInfo> ordered = new ArrayList<TestClassRunInfo>(testClasses);
+        Collections.sort(ordered, new Comparator<TestClassRunInfo>() {
+            @Override
+            public int compare(TestClassRunInfo o1, TestClassRunInfo o2) {
+                long duration1 = durationOf(o1);
+                long duration2 = durationOf(o2);
+                return duration1 > duration2 ? -1 : duration1 == duration2 ? 0 : 1;
+            }
+        });
+        for (TestClassRunInfo testClass : ordered) {
+            delegate.processTestClass(testClass);
+        }
+        delegate.stop();
+    }
+
+    private long durationOf(TestClassRunInfo testClass) {
+        Long duration = previousTestClassDurations.get(testClass.getTestClassName());
+        return duration == null ? Long.MAX_VALUE : duration;
+    }
+
+    @Override
+    public void stopNow() {
+        delegate.stopNow();
+    }
+}
@@ -20,21 +20,25 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
  * In order to speed up the development feedback cycle, this class guarantee previous failed test classes
  * to be passed to its delegate first.
+ *
+ * <p>Test classes are passed to the delegate as soon as they are received, so that the first test class can start while test classes are still
+ * being detected. Only while some of the previously failed test classes have not been received yet, the other test classes are held back.</p>
  */
 public class RunPreviousFailedFirstTestClassProcessor implements TestClassProcessor {
-    private final Set<String> previousFailedTestClasses;
+    private final Set<String> pendingFailedTestClasses;
     private final TestClassProcessor delegate;
-    private final LinkedHashSet<TestClassRunInfo> prioritizedTestClasses = new LinkedHashSet<TestClassRunInfo>();
-    private final LinkedHashSet<TestClassRunInfo> otherTestClasses = new LinkedHashSet<TestClassRunInfo>();
+    private final Set<String> processedTestClasses = new HashSet<String>();
+    private final LinkedHashSet<TestClassRunInfo> deferredTestClasses = new LinkedHashSet<TestClassRunInfo>();
 
     public RunPreviousFailedFirstTestClassProcessor(Set<String> previousFailedTestClasses, TestClassProcessor delegate) {
-        this.previousFailedTestClasses = previousFailedTestClasses;
+        this.pendingFailedTestClasses = new HashSet<String>(previousFailedTestClasses);
         this.delegate = delegate;
     }
 
@@ -45,21 +49,35 @@ public class RunPreviousFailedFirstTestClassProcessor implements TestClassProces
 
     @Override
     public void processTestClass(TestClassRunInfo testClass) {
-        if (previousFailedTestClasses.contains(testClass.getTestClassName())) {
-            prioritizedTestClasses.add(testClass);
-        } else {
-            otherTestClasses.add(testClass);
+        String testClassName = testClass.getTestClassName();
+        if (pendingFailedTestClasses.remove(testClassName)) {
+            processNow(testClass);
+            if (pendingFailedTestClasses.isEmpty()) {
+                processDeferred();
+            }
+        } else if (pendingFailedTestClasses.isEmpty()) {
+            processNow(testClass);
+        } else if (!processedTestClasses.contains(testClassName)) {
+            deferredTestClasses.add(testClass);
         }
     }
 
-    @Override
-    public void stop() {
-        for (TestClassRunInfo test : prioritizedTestClasses) {
-            delegate.processTestClass(test);
+    private void processNow(TestClassRunInfo testClass) {
+        if (processedTestClasses.add(testClass.getTestClassName())) {
+            delegate.processTestClass(testClass);
         }
-        for (TestClassRunInfo test : otherTestClasses) {
-            delegate.processTestClass(test);
+    }
+
+    private void processDeferred() {
+        for (TestClassRunInfo test : deferredTestClasses) {
+            processNow(test);
         }
+        deferredTestClasses.clear();
+    }
+
+    @Override
+    public void stop() {
+        processDeferred();
         delegate.stop();
     }
 
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestShard;
+import org.gradle.internal.hash.Hashing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Passes only the test classes that belong to the given shard to its delegate.
+ *
+ * <p>By default, a test class is assigned to a shard using a hash of its name, so that every machine places a test class in the same shard
+ * regardless of the other test classes or of anything recorded by earlier builds. When execution times are given, the test classes are
+ * instead split into shards with roughly equal total execution time. Every machine must then be given the same execution times. Test classes
+ * without an execution time are assumed to take the average time of the other test classes.</p>
+ *
+ * <p>In both cases the split does not depend on the order in which test classes are received.</p>
+ */
+public class ShardingTestClassProcessor implements TestClassProcessor {
+    private final TestShard shard;
+    private final Map<String, Long> testClassDurations;
+    private final TestClassProcessor delegate;
+    private final LinkedHashSet<TestClassRunInfo> testClasses = new LinkedHashSet<TestClassRunInfo>();
+
+    public ShardingTestClassProcessor(TestShard shard, Map<String, Long> testClassDurations, TestClassProcessor delegate) {
+        this.shard = shard;
+        this.testClassDurations = testClassDurations;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        delegate.startProcessing(resultProcessor);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        if (testClassDurations.isEmpty()) {
+            if (shardOf(testClass.getTestClassName(), shard.getCount()) == shard.getIndex()) {
+                delegate.processTestClass(testClass);
+            }
+        } else {
+            testClasses.add(testClass);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!testClasses.isEmpty()) {
+            for (TestClassRunInfo testClass : testClassesInShard()) {
+                delegate.processTestClass(testClass);
+            }
+        }
+        delegate.stop();
+    }
+
+    /**
+     * Returns the shard of the given test class when no execution times are used, between 1 and the given number of shards.
+     */
+    static int shardOf(String testClassName, int shardCount) {
+        int hash = Hashing.md5().hashString(testClassName).hashCode();
+        return (hash & Integer.MAX_VALUE) % shardCount + 1;
+    }
+
+    private List<TestClassRunInfo> testClassesInShard() {
+        long knownTotal = 0;
+        int knownCount = 0;
+        for (TestClassRunInfo testClass : testClasses) {
+            Long duration = testClassDurations.get(testClass.getTestClassName());
+            if (duration != null) {
+                knownTotal += duration;
+                knownCount++;
+            }
+        }
+        final long defaultDuration = knownCount == 0 ? 1 : Math.max(1, knownTotal / knownCount);
+
+        List<TestClassRunInfo> ordered = new ArrayList<TestClassRunInfo>(testClasses);
+        Collections.sort(ordered, new Comparator<TestClassRunInfo>() {
+            @Override
+            public int compare(TestClassRunInfo o1, TestClassRunInfo o2) {
+                long duration1 = durationOf(o1, defaultDuration);
+                long duration2 = durationOf(o2, defaultDuration);
+                if (duration1 != duration2) {
+                    return duration1 > duration2 ? -1 : 1;
+                }
+                return o1.getTestClassName().compareTo(o2.getTestClassName());
+            }
+        });
+
+        // Assign each test class, longest first, to the shard with the least total execution time so far
+        long[] shardDurations = new long[shard.getCount()];
+        List<TestClassRunInfo> selected = new ArrayList<TestClassRunInfo>();
+        for (TestClassRunInfo testClass : ordered) {
+            int target = 0;
+            for (int i = 1; i < shardDurations.length; i++) {
+                if (shardDurations[i] < shardDurations[target]) {
+                    target = i;
+                }
+            }
+            shardDurations[target] += durationOf(testClass, defaultDuration);
+            if (target == shard.getIndex() - 1) {
+                selected.add(testClass);
+            }
+        }
+        return selected;
+    }
+
+    private long durationOf(TestClassRunInfo testClass, long defaultDuration) {
+        Long duration = testClassDurations.get(testClass.getTestClassName());
+        return duration == null ? defaultDuration : Math.max(1, duration);
+    }
+
+    @Override
+    public void stopNow() {
+        delegate.stopNow();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.util.Set;
+
+/**
+ * Does not pass the given test classes to its delegate, as they are not affected by the changes since the previous run.
+ */
+public class SkipUnaffectedTestClassProcessor implements TestClassProcessor {
+    private static final Logger LOGGER = Logging.getLogger(SkipUnaffectedTestClassProcessor.class);
+
+    private final Set<String> unaffectedTestClasses;
+    private final TestClassProcessor delegate;
+    private int skipped;
+    private int executed;
+
+    public SkipUnaffectedTestClassProcessor(Set<String> unaffectedTestClasses, TestClassProcessor delegate) {
+        this.unaffectedTestClasses = unaffectedTestClasses;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        delegate.startProcessing(resultProcessor);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        if (unaffectedTestClasses.contains(testClass.getTestClassName())) {
+            skipped++;
+        } else {
+            executed++;
+            delegate.processTestClass(testClass);
+        }
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.info("Skipped {} of {} test classes, as they are not affected by the changes since the previous run.", skipped, skipped + executed);
+        delegate.stop();
+    }
+
+    @Override
+    public void stopNow() {
+        delegate.stopNow();
+    }
+}
@@ -96,4 +96,15 @@ public class ClassTestResults extends CompositeTestResults {
         results.add(test);
         return addTest(test);
     }
+
+    /**
+     * Discards the per-test detail of this class once its page has been rendered. The counts, and the failed and ignored tests
+     * that the overview and package pages link to, are retained.
+     */
+    public void releaseTestResults() {
+        results.clear();
+        for (TestResult failure : getFailures()) {
+            failure.releaseFailures();
+        }
+    }
 }
@@ -20,6 +20,7 @@ import org.gradle.api.GradleException;
 import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestFailure;
 import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult;
+import org.gradle.api.internal.tasks.testing.junit.result.TestReportFingerprints;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
@@ -37,11 +38,22 @@ import org.gradle.util.GFileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.gradle.api.tasks.testing.TestResult.ResultType.SKIPPED;
 
 public class DefaultTestReport implements TestReporter {
+    /**
+     * The number of class pages that are rendered together. Only the per-test detail of the classes in the current batch is held in memory,
+     * the rest of the model only keeps the aggregated counts and the failed and ignored tests.
+     */
+    private static final int CLASS_PAGE_BATCH_SIZE = 100;
+    private static final String FINGERPRINTS_FILE_NAME = ".html-report-fingerprints.bin";
+
     private final BuildOperationExecutor buildOperationExecutor;
     private final static Logger LOG = Logging.getLogger(DefaultTestReport.class);
 
@@ -54,65 +66,47 @@ public class DefaultTestReport implements TestReporter {
         LOG.info("Generating HTML test report...");
 
         Timer clock = Time.startTimer();
-        AllTestResults model = loadModelFromProvider(resultsProvider);
-        generateFiles(model, resultsProvider, reportDir);
+        generateFiles(resultsProvider, reportDir);
         LOG.info("Finished generating test html results ({}) into: {}", clock.getElapsed(), reportDir);
     }
 
-    private AllTestResults loadModelFromProvider(TestResultsProvider resultsProvider) {
-        final AllTestResults model = new AllTestResults();
-        resultsProvider.visitClasses(new Action<TestClassResult>() {
-            public void execute(TestClassResult classResult) {
-                model.addTestClass(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName());
-                List<TestMethodResult> collectedResults = classResult.getResults();
-                for (TestMethodResult collectedResult : collectedResults) {
-                    final TestResult testResult = model.addTest(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName(), collectedResult.getName(), collectedResult.getDisplayName(), collectedResult.getDuration());
-                    if (collectedResult.getResultType() == SKIPPED) {
-                        testResult.setIgnored();
-                    } else {
-                        List<TestFailure> failures = collectedResult.getFailures();
-                        for (TestFailure failure : failures) {
-                            testResult.addFailure(failure);
-                        }
-                    }
+    private static ClassTestResults addClassToModel(AllTestResults model, TestClassResult classResult) {
+        ClassTestResults classResults = model.addTestClass(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName());
+        List<TestMethodResult> collectedResults = classResult.getResults();
+        for (TestMethodResult collectedResult : collectedResults) {
+            final TestResult testResult = model.addTest(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName(), collectedResult.getName(), collectedResult.getDisplayName(), collectedResult.getDuration());
+            if (collectedResult.getResultType() == SKIPPED) {
+                testResult.setIgnored();
+            } else {
+                List<TestFailure> failures = collectedResult.getFailures();
+                for (TestFailure failure : failures) {
+                    testResult.addFailure(failure);
                 }
             }
-        });
-        return model;
+        }
+        return classResults;
     }
 
-    private void generateFiles(AllTestResults model, final TestResultsProvider resultsProvider, final File reportDir) {
+    private void generateFiles(final TestResultsProvider resultsProvider, final File reportDir) {
         try {
             HtmlReportRenderer htmlRenderer = new HtmlReportRenderer();
-            buildOperationExecutor.run(new RunnableBuildOperation() {
-                @Override
-                public void run(BuildOperationContext context) {
-                    // Clean-up old HTML report directories
-                    GFileUtils.deleteQuietly(new File(reportDir, "packages"));
-                    GFileUtils.deleteQuietly(new File(reportDir, "classes"));
-                }
-
-                @Override
-                public BuildOperationDescriptor.Builder description() {
-                    return BuildOperationDescriptor.displayName("Delete old HTML results");
-                }
-            });
-
-            htmlRenderer.render(model, new ReportRenderer<AllTestResults, HtmlReportBuilder>() {
+            htmlRenderer.render(new AllTestResults(), new ReportRenderer<AllTestResults, HtmlReportBuilder>() {
                 @Override
                 public void render(final AllTestResults model, final HtmlReportBuilder output) throws IOException {
+                    // Class pages are rendered while the results are read, the summary pages once all classes have been seen
+                    TestReportFingerprints fingerprints = new TestReportFingerprints(new File(reportDir, FINGERPRINTS_FILE_NAME), "html");
+                    generateClassPages(model, resultsProvider, fingerprints, reportDir, output);
                     buildOperationExecutor.runAll(new Action<BuildOperationQueue<HtmlReportFileGenerator<? extends CompositeTestResults>>>() {
                         @Override
                         public void execute(BuildOperationQueue<HtmlReportFileGenerator<? extends CompositeTestResults>> queue) {
                             queue.add(generator("index.html", model, new OverviewPageRenderer(), output));
                             for (PackageTestResults packageResults : model.getPackages()) {
                                 queue.add(generator(packageResults.getBaseUrl(), packageResults, new PackagePageRenderer(), output));
-                                for (ClassTestResults classResults : packageResults.getClasses()) {
-                                    queue.add(generator(classResults.getBaseUrl(), classResults, new ClassPageRenderer(resultsProvider), output));
-                                }
                             }
                         }
                     });
+                    deleteOldPages(model, reportDir);
+                    fingerprints.write();
                 }
             }, reportDir);
         } catch (Exception e) {
@@ -120,6 +114,74 @@ public class DefaultTestReport implements TestReporter {
         }
     }
 
+    private void generateClassPages(final AllTestResults model, final TestResultsProvider resultsProvider, final TestReportFingerprints fingerprints, final File reportDir, final HtmlReportBuilder output) {
+        final List<ClassTestResults> batch = new ArrayList<ClassTestResults>(CLASS_PAGE_BATCH_SIZE);
+        resultsProvider.visitClasses(new Action<TestClassResult>() {
+            public void execute(TestClassResult classResult) {
+                ClassTestResults classResults = addClassToModel(model, classResult);
+                if (!fingerprints.update(classResult, resultsProvider, new File(reportDir, classResults.getBaseUrl()))) {
+                    // The existing page was generated from the same results
+                    classResults.releaseTestResults();
+                    return;
+                }
+                batch.add(classResults);
+                if (batch.size() == CLASS_PAGE_BATCH_SIZE) {
+                    generateClassPages(batch, resultsProvider, output);
+                }
+            }
+        });
+        generateClassPages(batch, resultsProvider, output);
+    }
+
+    private void deleteOldPages(AllTestResults model, final File reportDir) {
+        final Set<String> pages = new HashSet<String>();
+        for (PackageTestResults packageResults : model.getPackages()) {
+            pages.add(packageResults.getBaseUrl());
+            for (ClassTestResults classResults : packageResults.getClasses()) {
+                pages.add(classResults.getBaseUrl());
+            }
+        }
+        buildOperationExecutor.run(new RunnableBuildOperation() {
+            @Override
+            public void run(BuildOperationContext context) {
+                for (String dirName : Arrays.asList("packages", "classes")) {
+                    File[] files = new File(reportDir, dirName).listFiles();
+                    if (files == null) {
+                        continue;
+                    }
+                    for (File file : files) {
+                        if (!pages.contains(dirName + "/" + file.getName())) {
+                            GFileUtils.deleteQuietly(file);
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Delete old HTML results");
+            }
+        });
+    }
+
+    private void generateClassPages(final List<ClassTestResults> batch, final TestResultsProvider resultsProvider, final HtmlReportBuilder output) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<HtmlReportFileGenerator<ClassTestResults>>>() {
+            @Override
+            public void execute(BuildOperationQueue<HtmlReportFileGenerator<ClassTestResults>> queue) {
+                for (ClassTestResults classResults : batch) {
+                    queue.add(generator(classResults.getBaseUrl(), classResults, new ClassPageRenderer(resultsProvider), output));
+                }
+            }
+        });
+        for (ClassTestResults classResults : batch) {
+            classResults.releaseTestResults();
+        }
+        batch.clear();
+    }
+
     public static <T extends CompositeTestResults> HtmlReportFileGenerator<T> generator(String fileUrl, T results, PageRenderer<T> renderer, HtmlReportBuilder output) {
         return new HtmlReportFileGenerator<T>(fileUrl, results, renderer, output);
     }
@@ -28,6 +28,7 @@ public class TestResult extends TestResultModel implements Comparable<TestResult
     final List<TestFailure> failures = new ArrayList<TestFailure>();
     final String name;
     final String displayName;
+    boolean failed;
     boolean ignored;
 
     public TestResult(String name, long duration, ClassTestResults classResults) {
@@ -63,7 +64,7 @@ public class TestResult extends TestResultModel implements Comparable<TestResult
         if (ignored) {
             return ResultType.SKIPPED;
         }
-        return failures.isEmpty() ? ResultType.SUCCESS : ResultType.FAILURE;
+        return failed ? ResultType.FAILURE : ResultType.SUCCESS;
     }
 
     @Override
@@ -90,9 +91,17 @@ public class TestResult extends TestResultModel implements Comparable<TestResult
 
     public void addFailure(TestFailure failure) {
         classResults.failed(this);
+        failed = true;
         failures.add(failure);
     }
 
+    /**
+     * Discards the failure details of this test, which are only required to render the page for its class. The test is still reported as failed.
+     */
+    public void releaseFailures() {
+        failures.clear();
+    }
+
     public void setIgnored() {
         classResults.ignored(this);
         ignored = true;
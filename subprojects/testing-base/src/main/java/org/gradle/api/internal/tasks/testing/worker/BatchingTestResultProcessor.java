@@ -0,0 +1,180 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * A {@link TestResultProcessor} that collects the events produced in a test worker into batches, so that chatty tests do not send a message to
+ * the build process for every event. Consecutive output of a test to the same destination is merged into a single output event.
+ *
+ * <p>A batch is sent to the {@link TestEventBatchListener} once it reaches the maximum batch size, when {@link #flush()} is called and when this
+ * processor is stopped. The worker is expected to flush periodically, so that events are not held back for long. This processor is thread-safe.</p>
+ */
+public class BatchingTestResultProcessor implements TestResultProcessor, Stoppable {
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64 * 1024;
+    private final TestEventBatchListener listener;
+    private final int maxBatchSize;
+    private final TestEventBatchSerializer serializer = new TestEventBatchSerializer();
+    private final BatchBuffer buffer = new BatchBuffer();
+    private final KryoBackedEncoder encoder = new KryoBackedEncoder(buffer);
+    private final StringBuilder pendingOutput = new StringBuilder();
+    private Object pendingOutputTestId;
+    private TestOutputEvent.Destination pendingOutputDestination;
+    private int batchStart;
+    private boolean hasEvents;
+
+    public BatchingTestResultProcessor(TestEventBatchListener listener) {
+        this(listener, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public BatchingTestResultProcessor(TestEventBatchListener listener, int maxBatchSize) {
+        this.listener = listener;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public synchronized void started(TestDescriptorInternal test, TestStartEvent event) {
+        writePendingOutput();
+        int eventStart = encoder.getWritePosition();
+        try {
+            serializer.writeStarted(encoder, test, event);
+        } catch (Exception e) {
+            discardEvent(eventStart);
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        eventWritten();
+    }
+
+    @Override
+    public synchronized void completed(Object testId, TestCompleteEvent event) {
+        writePendingOutput();
+        int eventStart = encoder.getWritePosition();
+        try {
+            serializer.writeCompleted(encoder, testId, event);
+        } catch (Exception e) {
+            discardEvent(eventStart);
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        eventWritten();
+    }
+
+    @Override
+    public synchronized void output(Object testId, TestOutputEvent event) {
+        if (pendingOutput.length() > 0 && (!testId.equals(pendingOutputTestId) || event.getDestination() != pendingOutputDestination)) {
+            writePendingOutput();
+        }
+        pendingOutputTestId = testId;
+        pendingOutputDestination = event.getDestination();
+        pendingOutput.append(event.getMessage());
+        if (getBatchSize() >= maxBatchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public synchronized void failure(Object testId, Throwable result) {
+        writePendingOutput();
+        int eventStart = encoder.getWritePosition();
+        try {
+            serializer.writeFailure(encoder, testId, result);
+        } catch (Exception e) {
+            discardEvent(eventStart);
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        eventWritten();
+    }
+
+    /**
+     * Sends the events collected so far, if any.
+     */
+    public synchronized void flush() {
+        writePendingOutput();
+        if (!hasEvents) {
+            return;
+        }
+        try {
+            serializer.writeEnd(encoder);
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        encoder.flush();
+        byte[] batch = buffer.toByteArray();
+        buffer.reset();
+        batchStart = encoder.getWritePosition();
+        hasEvents = false;
+        listener.eventsProduced(batch);
+    }
+
+    @Override
+    public void stop() {
+        flush();
+    }
+
+    private void eventWritten() {
+        hasEvents = true;
+        if (getBatchSize() >= maxBatchSize) {
+            flush();
+        }
+    }
+
+    private int getBatchSize() {
+        return encoder.getWritePosition() - batchStart + pendingOutput.length();
+    }
+
+    private void writePendingOutput() {
+        if (pendingOutput.length() == 0) {
+            return;
+        }
+        int eventStart = encoder.getWritePosition();
+        try {
+            serializer.writeOutput(encoder, pendingOutputTestId, pendingOutputDestination, pendingOutput);
+        } catch (Exception e) {
+            discardEvent(eventStart);
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            pendingOutput.setLength(0);
+            pendingOutputTestId = null;
+            pendingOutputDestination = null;
+        }
+        hasEvents = true;
+    }
+
+    /**
+     * Removes a partially written event from the batch, so that an event that cannot be serialized does not corrupt the batch.
+     */
+    private void discardEvent(int eventStart) {
+        encoder.flush();
+        int discarded = encoder.getWritePosition() - eventStart;
+        buffer.truncate(buffer.size() - discarded);
+        batchStart += discarded;
+    }
+
+    private static class BatchBuffer extends ByteArrayOutputStream {
+        void truncate(int size) {
+            count = size;
+        }
+    }
+}
@@ -20,10 +20,15 @@ import org.gradle.api.Action;
 import org.gradle.api.internal.DocumentationRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.tasks.testing.JULRedirector;
+import org.gradle.api.internal.tasks.testing.TestClassProcessingListener;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassProcessorFailureListener;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.internal.tasks.testing.impact.TestClassDependencyListener;
+import org.gradle.api.internal.tasks.testing.impact.TestDependencyRecorder;
+import org.gradle.internal.dispatch.StreamCompletion;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.process.JavaForkOptions;
@@ -33,8 +38,12 @@ import org.gradle.process.internal.worker.WorkerProcessBuilder;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 import org.gradle.util.CollectionUtils;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -47,15 +56,21 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final Iterable<File> classPath;
     private final Action<WorkerProcessBuilder> buildConfigAction;
     private final ModuleRegistry moduleRegistry;
+    private final TestDependencyRecorder dependencyRecorder;
+    private final TestWorkerProcessPool workerProcessPool;
     private final Lock lock = new ReentrantLock();
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
     private TestResultProcessor resultProcessor;
+    private TestClassProcessingListener processingListener;
+    private TestClassProcessorFailureListener failureListener;
+    private final List<String> testClassesInWorker = new LinkedList<String>();
+    private boolean workerStopped;
     private WorkerLeaseRegistry.WorkerLeaseCompletion completion;
     private DocumentationRegistry documentationRegistry;
     private boolean stoppedNow;
 
-    public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry) {
+    public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry, @Nullable TestDependencyRecorder dependencyRecorder, @Nullable TestWorkerProcessPool workerProcessPool) {
         this.currentWorkerLease = parentWorkerLease;
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
@@ -64,11 +79,19 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         this.buildConfigAction = buildConfigAction;
         this.moduleRegistry = moduleRegistry;
         this.documentationRegistry = documentationRegistry;
+        this.dependencyRecorder = dependencyRecorder;
+        this.workerProcessPool = workerProcessPool;
     }
 
     @Override
     public void startProcessing(TestResultProcessor resultProcessor) {
         this.resultProcessor = resultProcessor;
+        if (resultProcessor instanceof TestClassProcessingListener) {
+            processingListener = (TestClassProcessingListener) resultProcessor;
+        }
+        if (resultProcessor instanceof TestClassProcessorFailureListener) {
+            failureListener = (TestClassProcessorFailureListener) resultProcessor;
+        }
     }
 
     @Override
@@ -79,16 +102,37 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
                 return;
             }
 
-            if (remoteProcessor == null) {
-                completion = currentWorkerLease.startChild();
-                JULRedirector.checkDeprecatedProperty(options);
-                remoteProcessor = forkProcess();
-            }
+            if (!workerStopped) {
+                if (remoteProcessor == null) {
+                    completion = currentWorkerLease.startChild();
+                    JULRedirector.checkDeprecatedProperty(options);
+                    try {
+                        remoteProcessor = forkProcess();
+                    } catch (RuntimeException e) {
+                        workerStopped = true;
+                        processorFailed(Collections.singletonList(testClass.getTestClassName()));
+                        throw e;
+                    }
+                }
 
-            remoteProcessor.processTestClass(testClass);
+                if (failureListener != null) {
+                    testClassesInWorker.add(testClass.getTestClassName());
+                }
+                remoteProcessor.processTestClass(testClass);
+                return;
+            }
         } finally {
             lock.unlock();
         }
+
+        // The worker process has gone away, so the test class cannot be processed
+        processorFailed(Collections.singletonList(testClass.getTestClassName()));
+    }
+
+    private void processorFailed(List<String> testClassNames) {
+        if (failureListener != null) {
+            failureListener.processorFailed(testClassNames);
+        }
     }
 
     RemoteTestClassProcessor forkProcess() {
@@ -100,12 +144,16 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         builder.getJavaCommand().jvmArgs("-Dorg.gradle.native=false");
         buildConfigAction.execute(builder);
 
-        workerProcess = builder.build();
+        workerProcess = workerProcessPool != null ? workerProcessPool.createWorker(builder) : builder.build();
         workerProcess.start();
 
         ObjectConnection connection = workerProcess.getConnection();
         connection.useParameterSerializers(TestEventSerializer.create());
-        connection.addIncoming(TestResultProcessor.class, resultProcessor);
+        connection.addIncoming(TestEventBatchListener.class, new TestEventBatchDecoder(resultProcessor));
+        connection.addIncoming(TestClassProcessingListener.class, new WorkerProgressListener());
+        if (dependencyRecorder != null) {
+            connection.addIncoming(TestClassDependencyListener.class, dependencyRecorder.startWorker());
+        }
         RemoteTestClassProcessor remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
         connection.connect();
         remoteProcessor.startProcessing();
@@ -175,4 +223,39 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
             lock.unlock();
         }
     }
+
+    /**
+     * Receives notifications from the worker process, and the end of its connection. The worker process is assumed to have stopped unexpectedly
+     * when its connection is closed before it has finished with all of the test classes handed to it.
+     */
+    private class WorkerProgressListener implements TestClassProcessingListener, StreamCompletion {
+        @Override
+        public void testClassProcessed(String testClassName) {
+            lock.lock();
+            try {
+                testClassesInWorker.remove(testClassName);
+            } finally {
+                lock.unlock();
+            }
+            if (processingListener != null) {
+                processingListener.testClassProcessed(testClassName);
+            }
+        }
+
+        @Override
+        public void endStream() {
+            List<String> unprocessed;
+            lock.lock();
+            try {
+                workerStopped = true;
+                unprocessed = new ArrayList<String>(testClassesInWorker);
+                testClassesInWorker.clear();
+            } finally {
+                lock.unlock();
+            }
+            if (!unprocessed.isEmpty()) {
+                ForkingTestClassProcessor.this.processorFailed(unprocessed);
+            }
+        }
+    }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.SerializerRegistry;
+
+/**
+ * Encodes test events into a batch, and replays a batch into a {@link TestResultProcessor}. Each event is written as a tag followed by its
+ * arguments, and the batch is terminated by an end tag.
+ */
+public class TestEventBatchSerializer {
+    private static final byte END = 0;
+    private static final byte STARTED = 1;
+    private static final byte COMPLETED = 2;
+    private static final byte OUTPUT = 3;
+    private static final byte FAILURE = 4;
+    private static final TestOutputEvent.Destination[] DESTINATIONS = TestOutputEvent.Destination.values();
+
+    private final Serializer<TestDescriptorInternal> descriptorSerializer;
+    private final Serializer<Object> idSerializer;
+    private final Serializer<TestStartEvent> startEventSerializer;
+    private final Serializer<TestCompleteEvent> completeEventSerializer;
+    private final Serializer<Throwable> failureSerializer;
+
+    public TestEventBatchSerializer() {
+        SerializerRegistry registry = TestEventSerializer.create();
+        descriptorSerializer = registry.build(TestDescriptorInternal.class);
+        idSerializer = registry.build(Object.class);
+        startEventSerializer = registry.build(TestStartEvent.class);
+        completeEventSerializer = registry.build(TestCompleteEvent.class);
+        failureSerializer = registry.build(Throwable.class);
+    }
+
+    public void writeStarted(Encoder encoder, TestDescriptorInternal test, TestStartEvent event) throws Exception {
+        encoder.writeByte(STARTED);
+        descriptorSerializer.write(encoder, test);
+        startEventSerializer.write(encoder, event);
+    }
+
+    public void writeCompleted(Encoder encoder, Object testId, TestCompleteEvent event) throws Exception {
+        encoder.writeByte(COMPLETED);
+        idSerializer.write(encoder, testId);
+        completeEventSerializer.write(encoder, event);
+    }
+
+    public void writeOutput(Encoder encoder, Object testId, TestOutputEvent.Destination destination, CharSequence message) throws Exception {
+        encoder.writeByte(OUTPUT);
+        idSerializer.write(encoder, testId);
+        encoder.writeSmallInt(destination.ordinal());
+        encoder.writeString(message);
+    }
+
+    public void writeFailure(Encoder encoder, Object testId, Throwable failure) throws Exception {
+        encoder.writeByte(FAILURE);
+        idSerializer.write(encoder, testId);
+        failureSerializer.write(encoder, failure);
+    }
+
+    public void writeEnd(Encoder encoder) throws Exception {
+        encoder.writeByte(END);
+    }
+
+    /**
+     * Reads the events of a batch, notifying the given processor of each event in the order that they were written.
+     */
+    public void read(Decoder decoder, TestResultProcessor processor) throws Exception {
+        while (true) {
+            byte tag = decoder.readByte();
+            switch (tag) {
+                case END:
+                    return;
+                case STARTED:
+                    TestDescriptorInternal test = descriptorSerializer.read(decoder);
+                    processor.started(test, startEventSerializer.read(decoder));
+                    break;
+                case COMPLETED:
+                    Object completedId = idSerializer.read(decoder);
+                    processor.completed(completedId, completeEventSerializer.read(decoder));
+                    break;
+                case OUTPUT:
+                    Object outputId = idSerializer.read(decoder);
+                    TestOutputEvent.Destination destination = DESTINATIONS[decoder.readSmallInt()];
+                    processor.output(outputId, new DefaultTestOutputEvent(destination, decoder.readString()));
+                    break;
+                case FAILURE:
+                    Object failedId = idSerializer.read(decoder);
+                    processor.failure(failedId, failureSerializer.read(decoder));
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format("Unexpected test event tag %d found.", tag));
+            }
+        }
+    }
+}
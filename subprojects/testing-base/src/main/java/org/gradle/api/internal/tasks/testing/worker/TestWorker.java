@@ -17,15 +17,19 @@
 package org.gradle.api.internal.tasks.testing.worker;
 
 import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.TestClassProcessingListener;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
-import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.internal.tasks.testing.impact.LoadedClassesRecorder;
+import org.gradle.api.internal.tasks.testing.impact.TestClassDependencyListener;
+import org.gradle.internal.Cast;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.actor.ActorFactory;
 import org.gradle.internal.actor.internal.DefaultActorFactory;
 import org.gradle.internal.concurrent.DefaultExecutorFactory;
 import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedScheduledExecutor;
 import org.gradle.internal.dispatch.ContextClassLoaderProxy;
 import org.gradle.internal.id.CompositeIdGenerator;
 import org.gradle.internal.id.IdGenerator;
@@ -38,17 +42,25 @@ import org.gradle.process.internal.worker.WorkerProcessContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.Serializable;
+import java.lang.reflect.Method;
 import java.security.AccessControlException;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClassProcessor, Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestWorker.class);
     public static final String WORKER_ID_SYS_PROPERTY = "org.gradle.test.worker";
+    private static final long EVENT_BATCH_FLUSH_INTERVAL_MILLIS = 100;
     private final WorkerTestClassProcessorFactory factory;
     private CountDownLatch completed;
     private TestClassProcessor processor;
-    private TestResultProcessor resultProcessor;
+    private BatchingTestResultProcessor resultProcessor;
+    private TestClassProcessingListener processingListener;
+    private Method drainLoadedClassesMethod;
+    private TestClassDependencyListener dependencyListener;
 
     public TestWorker(WorkerTestClassProcessorFactory factory) {
         this.factory = factory;
@@ -91,7 +103,19 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
 
         ObjectConnection serverConnection = workerProcessContext.getServerConnection();
         serverConnection.useParameterSerializers(TestEventSerializer.create());
-        this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
+        this.resultProcessor = new BatchingTestResultProcessor(serverConnection.addOutgoing(TestEventBatchListener.class));
+        ManagedScheduledExecutor batchFlusher = testServices.get(ExecutorFactory.class).createScheduled("Test event batch flusher", 1);
+        batchFlusher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                resultProcessor.flush();
+            }
+        }, EVENT_BATCH_FLUSH_INTERVAL_MILLIS, EVENT_BATCH_FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        this.processingListener = serverConnection.addOutgoing(TestClassProcessingListener.class);
+        drainLoadedClassesMethod = findLoadedClassesRecorder();
+        if (drainLoadedClassesMethod != null) {
+            this.dependencyListener = serverConnection.addOutgoing(TestClassDependencyListener.class);
+        }
         serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
         serverConnection.connect();
     }
@@ -114,6 +138,12 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
             // Clean the interrupted status
             Thread.interrupted();
         }
+        // Send the results of the test class ahead of the notification that it has been processed
+        resultProcessor.flush();
+        if (dependencyListener != null) {
+            dependencyListener.testClassProcessed(testClass.getTestClassName(), drainLoadedClasses());
+        }
+        processingListener.testClassProcessed(testClass.getTestClassName());
     }
 
     @Override
@@ -121,6 +151,10 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
         Thread.currentThread().setName("Test worker");
         try {
             processor.stop();
+            resultProcessor.stop();
+            if (dependencyListener != null) {
+                dependencyListener.processingStopped(drainLoadedClasses());
+            }
         } finally {
             completed.countDown();
             // Clean the interrupted status
@@ -129,6 +163,31 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
         }
     }
 
+    /**
+     * Returns the method that drains the classes recorded by the {@link LoadedClassesRecorder} agent, or null when the agent is not installed.
+     * The agent is loaded by the system ClassLoader, rather than the ClassLoader of this class.
+     */
+    @Nullable
+    private static Method findLoadedClassesRecorder() {
+        try {
+            Method drain = ClassLoader.getSystemClassLoader().loadClass(LoadedClassesRecorder.class.getName()).getMethod("drain");
+            // Discard the classes loaded while starting the worker
+            return drain.invoke(null) != null ? drain : null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private List<String> drainLoadedClasses() {
+        try {
+            return Cast.uncheckedCast(drainLoadedClassesMethod.invoke(null));
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
     private static class TestFrameworkServiceRegistry extends DefaultServiceRegistry {
         private final WorkerProcessContext workerProcessContext;
 
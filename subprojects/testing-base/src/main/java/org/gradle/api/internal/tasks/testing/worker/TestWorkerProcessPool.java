@@ -0,0 +1,247 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.JavaExecHandleBuilder;
+import org.gradle.process.internal.health.memory.JvmMemoryStatus;
+import org.gradle.process.internal.health.memory.MemoryHolder;
+import org.gradle.process.internal.health.memory.MemoryManager;
+import org.gradle.process.internal.worker.ReusableWorkerProcess;
+import org.gradle.process.internal.worker.WorkerProcess;
+import org.gradle.process.internal.worker.WorkerProcessBuilder;
+import org.gradle.process.internal.worker.WorkerProcessFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Keeps test worker processes alive once their tests have finished, so that later test workers with the same Java command can run in them
+ * without paying for the start-up and warm-up of a new JVM.
+ *
+ * <p>A process is reused only while it is healthy: every test worker it ran completed successfully, it has run fewer than {@link #MAX_USES}
+ * test workers, and the heap it retains once a test worker has finished stays below {@link #MAX_RETAINED_HEAP_RATIO} of its maximum heap.</p>
+ */
+public class TestWorkerProcessPool implements Stoppable, MemoryHolder {
+    private static final Logger LOGGER = Logging.getLogger(TestWorkerProcessPool.class);
+    static final int MAX_USES = 50;
+    static final double MAX_RETAINED_HEAP_RATIO = 0.5;
+
+    private final Object lock = new Object();
+    private final List<PooledProcess> allProcesses = new ArrayList<PooledProcess>();
+    private final List<PooledProcess> idleProcesses = new ArrayList<PooledProcess>();
+    private final WorkerProcessFactory workerProcessFactory;
+    private final MemoryManager memoryManager;
+
+    public TestWorkerProcessPool(WorkerProcessFactory workerProcessFactory, MemoryManager memoryManager) {
+        this.workerProcessFactory = workerProcessFactory;
+        this.memoryManager = memoryManager;
+        memoryManager.addMemoryHolder(this);
+    }
+
+    /**
+     * Creates a test worker that runs in a pooled process started with the Java command of the given builder.
+     * The process is reserved when the worker is started, and released when the worker has stopped.
+     */
+    public WorkerProcess createWorker(WorkerProcessBuilder builder) {
+        return new PooledWorkerProcess(builder);
+    }
+
+    private PooledProcess reserve(WorkerProcessBuilder builder) {
+        List<Object> javaCommand = javaCommandOf(builder.getJavaCommand());
+        List<PooledProcess> unhealthy = new ArrayList<PooledProcess>();
+        try {
+            synchronized (lock) {
+                Iterator<PooledProcess> it = idleProcesses.iterator();
+                while (it.hasNext()) {
+                    PooledProcess candidate = it.next();
+                    if (candidate.javaCommand.equals(javaCommand)) {
+                        it.remove();
+                        if (candidate.process.isHealthy()) {
+                            LOGGER.debug("Reusing {} for {}.", candidate.process, builder.getBaseName());
+                            return candidate;
+                        }
+                        allProcesses.remove(candidate);
+                        unhealthy.add(candidate);
+                    }
+                }
+            }
+        } finally {
+            CompositeStoppable.stoppable(unhealthy).stop();
+        }
+
+        // allow processes to be started concurrently
+        PooledProcess process = new PooledProcess(javaCommand, workerProcessFactory.startReusable(builder));
+        synchronized (lock) {
+            allProcesses.add(process);
+        }
+        return process;
+    }
+
+    private void release(PooledProcess process) {
+        if (isReusable(process.process)) {
+            synchronized (lock) {
+                if (allProcesses.contains(process)) {
+                    idleProcesses.add(process);
+                    return;
+                }
+            }
+        }
+        discard(process);
+    }
+
+    private void discard(PooledProcess process) {
+        synchronized (lock) {
+            allProcesses.remove(process);
+            idleProcesses.remove(process);
+        }
+        process.stop();
+    }
+
+    static boolean isReusable(ReusableWorkerProcess process) {
+        if (!process.isHealthy() || process.getUses() >= MAX_USES) {
+            return false;
+        }
+        long maxMemory = process.getMaxMemory();
+        return maxMemory <= 0 || process.getRetainedMemory() < maxMemory * MAX_RETAINED_HEAP_RATIO;
+    }
+
+    private static List<Object> javaCommandOf(JavaExecHandleBuilder javaCommand) {
+        return Arrays.<Object>asList(javaCommand.getExecutable(), javaCommand.getWorkingDir(), javaCommand.getAllJvmArgs(), new HashMap<String, Object>(javaCommand.getEnvironment()));
+    }
+
+    @Override
+    public long attemptToRelease(long memoryAmountBytes) throws IllegalArgumentException {
+        if (memoryAmountBytes < 0) {
+            throw new IllegalArgumentException("Negative memory amount");
+        }
+        List<PooledProcess> toStop = new ArrayList<PooledProcess>();
+        long releasedBytes = 0;
+        synchronized (lock) {
+            List<PooledProcess> candidates = new ArrayList<PooledProcess>(idleProcesses);
+            Collections.sort(candidates, new Comparator<PooledProcess>() {
+                @Override
+                public int compare(PooledProcess o1, PooledProcess o2) {
+                    return Integer.valueOf(o1.process.getUses()).compareTo(o2.process.getUses());
+                }
+            });
+            for (PooledProcess candidate : candidates) {
+                if (releasedBytes >= memoryAmountBytes) {
+                    break;
+                }
+                toStop.add(candidate);
+                releasedBytes += candidate.process.getMaxMemory();
+            }
+            idleProcesses.removeAll(toStop);
+            allProcesses.removeAll(toStop);
+        }
+        if (!toStop.isEmpty()) {
+            LOGGER.debug("Stopping {} idle test worker process(es) to free some system memory.", toStop.size());
+            CompositeStoppable.stoppable(toStop).stop();
+        }
+        return releasedBytes;
+    }
+
+    @Override
+    public void stop() {
+        List<PooledProcess> toStop;
+        synchronized (lock) {
+            toStop = new ArrayList<PooledProcess>(allProcesses);
+            allProcesses.clear();
+            idleProcesses.clear();
+        }
+        memoryManager.removeMemoryHolder(this);
+        if (!toStop.isEmpty()) {
+            LOGGER.debug("Stopping {} test worker process(es).", toStop.size());
+            CompositeStoppable.stoppable(toStop).stop();
+        }
+    }
+
+    private static class PooledProcess implements Stoppable {
+        private final List<Object> javaCommand;
+        private final ReusableWorkerProcess process;
+
+        PooledProcess(List<Object> javaCommand, ReusableWorkerProcess process) {
+            this.javaCommand = javaCommand;
+            this.process = process;
+        }
+
+        @Override
+        public void stop() {
+            process.stop();
+        }
+    }
+
+    private class PooledWorkerProcess implements WorkerProcess {
+        private final WorkerProcessBuilder builder;
+        private PooledProcess process;
+        private WorkerProcess delegate;
+
+        PooledWorkerProcess(WorkerProcessBuilder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public WorkerProcess start() {
+            process = reserve(builder);
+            delegate = process.process.createWorker(builder);
+            try {
+                delegate.start();
+            } catch (RuntimeException e) {
+                discard(process);
+                throw e;
+            }
+            return this;
+        }
+
+        @Override
+        public ObjectConnection getConnection() {
+            return delegate.getConnection();
+        }
+
+        @Override
+        public ExecResult waitForStop() {
+            try {
+                return delegate.waitForStop();
+            } finally {
+                release(process);
+            }
+        }
+
+        @Override
+        public JvmMemoryStatus getJvmMemoryStatus() {
+            return delegate.getJvmMemoryStatus();
+        }
+
+        @Override
+        public void stopNow() {
+            // Stops the process running the worker as well
+            delegate.stopNow();
+            discard(process);
+        }
+    }
+}
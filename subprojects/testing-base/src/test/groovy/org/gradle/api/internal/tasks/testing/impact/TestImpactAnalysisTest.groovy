@@ -0,0 +1,210 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.impact
+
+import org.gradle.internal.hash.FileHasher
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.Hashing
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class TestImpactAnalysisTest extends Specification {
+    @Rule
+    private TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+
+    def classesDir = tmp.createDir("classes")
+    def libJar = tmp.file("lib.jar")
+    def classpath = [classesDir]
+    def storeFile = tmp.file("test-impact/test.bin")
+    def configuration = HashCode.fromInt(1)
+    def fileHasher = Stub(FileHasher) {
+        hash(_ as File) >> { File file -> Hashing.md5().hashString(file.text) }
+    }
+
+    def setup() {
+        ["org/A", "org/B", "com/C", "test/Test1", "test/Test2", "test/Test3"].each {
+            classesDir.file("${it}.class").text = it
+        }
+    }
+
+    def "all test classes are affected when no dependencies were recorded"() {
+        expect:
+        analysis().unaffectedTestClasses.empty
+    }
+
+    def "test classes are unaffected when nothing has changed"() {
+        given:
+        recordRun("test.Test1": ["test/Test1", "org/A"], "test.Test2": ["test/Test2", "com/C"], "test.Test3": ["test/Test3"])
+
+        expect:
+        analysis().unaffectedTestClasses == ["test.Test1", "test.Test2", "test.Test3"] as Set
+    }
+
+    def "test classes executed after a changed class was loaded are affected"() {
+        given:
+        recordRun("test.Test1": ["test/Test1", "org/A"], "test.Test2": ["test/Test2", "com/C"], "test.Test3": ["test/Test3"])
+
+        when:
+        classesDir.file("com/C.class").text = "changed"
+
+        then:
+        analysis().unaffectedTestClasses == ["test.Test1"] as Set
+    }
+
+    def "test classes that loaded a class from a package with added classes are affected"() {
+        given:
+        recordRun("test.Test1": ["test/Test1", "org/A"])
+        recordRun("test.Test2": ["test/Test2", "com/C"])
+
+        when:
+        classesDir.file("org/D.class").text = "new"
+
+        then:
+        analysis().unaffectedTestClasses == ["test.Test2"] as Set
+    }
+
+    def "all test classes are affected when other files or the configuration have changed"() {
+        given:
+        recordRun("test.Test1": ["test/Test1", "org/A"])
+
+        expect:
+        analysis(HashCode.fromInt(2)).unaffectedTestClasses.empty
+
+        when:
+        classesDir.file("config.properties").text = "changed"
+
+        then:
+        analysis().unaffectedTestClasses.empty
+    }
+
+    def "all test classes are affected when a resource in a jar has changed"() {
+        given:
+        classpath = [classesDir, libJar]
+        jar(libJar, "lib/L.class": "L", "META-INF/services/lib.Service": "lib.Impl")
+        recordRun("test.Test1": ["test/Test1", "org/A"])
+
+        when:
+        jar(libJar, "lib/L.class": "L", "META-INF/services/lib.Service": "lib.OtherImpl")
+
+        then:
+        analysis().unaffectedTestClasses.empty
+    }
+
+    def "all test classes are affected when the classpath has changed"() {
+        given:
+        classpath = [classesDir, libJar]
+        jar(libJar, "lib/L.class": "L")
+        recordRun("test.Test1": ["test/Test1", "org/A"])
+
+        expect:
+        analysis().unaffectedTestClasses == ["test.Test1"] as Set
+
+        when:
+        classpath = [libJar, classesDir]
+
+        then:
+        analysis().unaffectedTestClasses.empty
+
+        when:
+        classpath = [classesDir]
+
+        then:
+        analysis().unaffectedTestClasses.empty
+
+        when:
+        classpath = [classesDir, libJar, tmp.file("other.jar")]
+        jar(tmp.file("other.jar"), "META-INF/services/lib.Service": "other.Impl")
+
+        then:
+        analysis().unaffectedTestClasses.empty
+    }
+
+    def "retains dependencies of test classes not executed again"() {
+        given:
+        recordRun("test.Test1": ["test/Test1", "org/A"], "test.Test2": ["test/Test2", "com/C"], "test.Test3": ["test/Test3"])
+        classesDir.file("com/C.class").text = "changed"
+
+        when:
+        recordRun("test.Test3": ["test/Test3"], "test.Test2": ["test/Test2", "com/C"])
+
+        then:
+        analysis().unaffectedTestClasses == ["test.Test1", "test.Test2", "test.Test3"] as Set
+    }
+
+    def "affected test classes that were not executed are affected by later runs"() {
+        given:
+        recordRun("test.Test1": ["test/Test1", "org/A"], "test.Test2": ["test/Test2", "com/C"])
+        classesDir.file("org/A.class").text = "changed"
+
+        when:
+        recordRun("test.Test1": ["test/Test1", "org/A"])
+
+        then:
+        analysis().unaffectedTestClasses == ["test.Test1"] as Set
+    }
+
+    def "all test classes of a worker depend on the classes loaded when the worker stopped"() {
+        given:
+        recordRun(["test.Test1": ["test/Test1"], "test.Test2": ["test/Test2"]], ["org/A"])
+
+        when:
+        classesDir.file("org/A.class").text = "changed"
+
+        then:
+        analysis().unaffectedTestClasses.empty
+    }
+
+    def "all test classes are affected when store cannot be read"() {
+        given:
+        recordRun("test.Test1": ["test/Test1"])
+        storeFile.text = "broken"
+
+        expect:
+        analysis().unaffectedTestClasses.empty
+    }
+
+    private TestImpactAnalysis analysis(HashCode configuration = this.configuration) {
+        new TestImpactAnalysis(new TestImpactStore(storeFile), configuration, TestClasspathSnapshot.of(classpath, fileHasher))
+    }
+
+    private void recordRun(Map<String, List<String>> loadedClasses, List<String> loadedOnStop = []) {
+        def analysis = analysis()
+        def worker = analysis.recorder.startWorker()
+        loadedClasses.each { testClass, classes ->
+            worker.testClassProcessed(testClass, classes)
+        }
+        worker.processingStopped(loadedOnStop)
+        analysis.storeDependencies()
+    }
+
+    private static void jar(Map<String, String> entries, File jar) {
+        def out = new ZipOutputStream(new FileOutputStream(jar))
+        try {
+            entries.each { name, content ->
+                out.putNextEntry(new ZipEntry(name))
+                out.write(content.bytes)
+                out.closeEntry()
+            }
+        } finally {
+            out.close()
+        }
+    }
+}
@@ -82,6 +82,41 @@ class Binary2JUnitXmlReportGeneratorSpec extends Specification {
         numThreads << [ 1, 4 ]
     }
 
+    def "only writes files of test classes whose results have changed"() {
+        generator = generatorWithMaxThreads(1)
+
+        def fooTest = new TestClassResult(1, 'FooTest', 100)
+            .add(new TestMethodResult(1, "foo"))
+        def barTest = new TestClassResult(2, 'BarTest', 100)
+            .add(new TestMethodResult(2, "bar"))
+        def changedBarTest = new TestClassResult(2, 'BarTest', 200)
+            .add(new TestMethodResult(2, "bar"))
+
+        resultsProvider.visitClasses(_) >> { Action action ->
+            action.execute(fooTest)
+            action.execute(barTest)
+        }
+        generator.xmlWriter.write(_, _) >> { TestClassResult result, OutputStream output -> output << "<testsuite/>" }
+        generator.generate()
+        temp.file("TEST-OldTest.xml").createFile()
+
+        when:
+        generator.generate()
+
+        then:
+        1 * resultsProvider.visitClasses(_) >> { Action action ->
+            action.execute(fooTest)
+            action.execute(changedBarTest)
+        }
+        1 * generator.xmlWriter.write(changedBarTest, _)
+        0 * generator.xmlWriter._
+
+        and:
+        temp.file("TEST-FooTest.xml").assertIsFile()
+        temp.file("TEST-BarTest.xml").assertIsFile()
+        temp.file("TEST-OldTest.xml").assertDoesNotExist()
+    }
+
     def "adds context information to the failure if something goes wrong"() {
         generator = generatorWithMaxThreads(1)
 
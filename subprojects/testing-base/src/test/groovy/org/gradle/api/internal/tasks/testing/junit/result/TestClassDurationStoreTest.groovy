@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result
+
+import org.gradle.api.tasks.testing.TestResult
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestClassDurationStoreTest extends Specification {
+    @Rule
+    private TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+
+    def storeFile = tmp.file("durations/test.bin")
+    def store = new TestClassDurationStore(storeFile)
+
+    def "is empty when store does not exist"() {
+        expect:
+        store.read().isEmpty()
+    }
+
+    def "records durations of test classes in results"() {
+        when:
+        store.update(results(class1: 1000, class2: 2000))
+
+        then:
+        new TestClassDurationStore(storeFile).read() == [Class1: 100L, Class2: 200L]
+    }
+
+    def "retains durations of test classes not in results"() {
+        given:
+        store.update(results(class1: 1000, class2: 2000))
+
+        when:
+        store.update(results(class2: 3000))
+
+        then:
+        store.read() == [Class1: 100L, Class2: 300L]
+    }
+
+    def "replaces store without leaving temporary files behind"() {
+        given:
+        store.update(results(class1: 1000))
+
+        when:
+        store.update(results(class1: 2000))
+
+        then:
+        storeFile.parentFile.list() as List == ["test.bin"]
+        store.read() == [Class1: 200L]
+    }
+
+    def "is empty when store cannot be read"() {
+        given:
+        storeFile.text = "broken"
+
+        expect:
+        store.read().isEmpty()
+    }
+
+    TestResultSerializer results(Map<String, Integer> endTimes) {
+        def resultsDir = tmp.createDir("results-${endTimes.hashCode()}")
+        def serializer = new TestResultSerializer(resultsDir)
+        serializer.write(endTimes.collect { name, endTime ->
+            def classResult = new TestClassResult(1, name.capitalize(), endTime - endTime / 10 as long)
+            classResult.add(new TestMethodResult(1, "method", TestResult.ResultType.SUCCESS, endTime / 10 as long, endTime))
+            classResult
+        })
+        serializer
+    }
+}
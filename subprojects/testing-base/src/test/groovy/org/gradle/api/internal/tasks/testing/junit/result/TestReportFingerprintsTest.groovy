@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result
+
+import org.gradle.api.internal.tasks.testing.BuildableTestResultsProvider
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestReportFingerprintsTest extends Specification {
+    @Rule
+    private TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+
+    def storeFile = tmp.file("report/.fingerprints.bin")
+    def reportFile = tmp.file("report/TEST-SomeTest.xml").createFile()
+
+    def "report file needs to be written when there are no fingerprints"() {
+        expect:
+        new TestReportFingerprints(storeFile, "settings").update(classResult(), provider(), reportFile)
+    }
+
+    def "report file does not need to be written when results have not changed"() {
+        given:
+        store(classResult())
+
+        expect:
+        !new TestReportFingerprints(storeFile, "settings").update(classResult(), provider(), reportFile)
+    }
+
+    def "report file needs to be written when it does not exist"() {
+        given:
+        store(classResult())
+        reportFile.delete()
+
+        expect:
+        new TestReportFingerprints(storeFile, "settings").update(classResult(), provider(), reportFile)
+    }
+
+    def "report file needs to be written when report settings have changed"() {
+        given:
+        store(classResult())
+
+        expect:
+        new TestReportFingerprints(storeFile, "other").update(classResult(), provider(), reportFile)
+    }
+
+    def "report file needs to be written when results have changed"() {
+        given:
+        store(classResult())
+
+        expect:
+        new TestReportFingerprints(storeFile, "settings").update(changed, provider(), reportFile)
+
+        where:
+        changed << [
+            classResult(duration: 200),
+            classResult(failure: "broken"),
+            classResult(methods: ["test1", "test2", "test3"]),
+            classResult(startTime: 1000)
+        ]
+    }
+
+    def "report file needs to be written when output has changed"() {
+        given:
+        def result = classResult()
+        store(result, provider("some output"))
+
+        expect:
+        new TestReportFingerprints(storeFile, "settings").update(result, provider("other output"), reportFile)
+        !new TestReportFingerprints(storeFile, "settings").update(result, provider("some output"), reportFile)
+    }
+
+    def "uses location of output rather than reading output"() {
+        def provider = Mock(TestResultsProvider)
+
+        when:
+        new TestReportFingerprints(storeFile, "settings").update(classResult(), provider, reportFile)
+
+        then:
+        1 * provider.hashOutputLocation(1, _)
+        0 * provider._
+    }
+
+    def "report file needs to be written when fingerprints cannot be read"() {
+        given:
+        storeFile.text = "broken"
+
+        expect:
+        new TestReportFingerprints(storeFile, "settings").update(classResult(), provider(), reportFile)
+    }
+
+    void store(TestClassResult result, TestResultsProvider provider = provider()) {
+        def fingerprints = new TestReportFingerprints(storeFile, "settings")
+        fingerprints.update(result, provider, reportFile)
+        fingerprints.write()
+    }
+
+    TestClassResult classResult(Map<String, ?> options = [:]) {
+        def result = new TestClassResult(1, "SomeTest", options.startTime ?: 0)
+        (options.methods ?: ["test1", "test2"]).eachWithIndex { String name, int i ->
+            def method = new TestMethodResult(i + 2, name, org.gradle.api.tasks.testing.TestResult.ResultType.SUCCESS, options.duration ?: 100, 0)
+            if (options.failure && i == 0) {
+                method.addFailure(options.failure, "stack trace", "SomeException")
+            }
+            result.add(method)
+        }
+        result
+    }
+
+    TestResultsProvider provider(String output = null) {
+        def provider = new BuildableTestResultsProvider()
+        if (output) {
+            provider.testClassResult("SomeTest") {
+                stdout output
+            }
+        }
+        provider
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessingListener
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.internal.Factory
+import org.gradle.internal.actor.Actor
+import org.gradle.internal.actor.ActorFactory
+import org.gradle.internal.time.Time
+import spock.lang.Specification
+
+class PullBasedParallelTestClassProcessorTest extends Specification {
+    private final Factory<TestClassProcessor> factory = Mock()
+    private final TestResultProcessor resultProcessor = Mock()
+    private final TestResultProcessor asyncResultProcessor = Mock()
+    private final Actor resultProcessorActor = Mock()
+    private final ActorFactory actorFactory = Mock()
+    private final PullBasedParallelTestClassProcessor processor = new PullBasedParallelTestClassProcessor(2, factory, actorFactory, Time.clock())
+    private final TestClassProcessor processor1 = Mock()
+    private final TestClassProcessor processor2 = Mock()
+    private final List<TestClassProcessingListener> listeners = []
+
+    def setup() {
+        actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        [processor1, processor2].each { TestClassProcessor processor ->
+            def actor = Stub(Actor) {
+                getProxy(TestClassProcessor) >> processor
+            }
+            actorFactory.createActor(processor) >> actor
+        }
+        processor.startProcessing(resultProcessor)
+    }
+
+    def "starts processors on demand and hands each a single test class"() {
+        when:
+        processor.processTestClass(test('Class1'))
+        processor.processTestClass(test('Class2'))
+        processor.processTestClass(test('Class3'))
+
+        then:
+        1 * factory.create() >> processor1
+        1 * processor1.startProcessing(_) >> { listeners << it[0] }
+        1 * processor1.processTestClass(test('Class1'))
+        1 * factory.create() >> processor2
+        1 * processor2.startProcessing(_) >> { listeners << it[0] }
+        1 * processor2.processTestClass(test('Class2'))
+        0 * processor1._
+        0 * processor2._
+    }
+
+    def "hands queued test classes to the processor that finishes first"() {
+        given:
+        factory.create() >>> [processor1, processor2]
+        processor1.startProcessing(_) >> { listeners << it[0] }
+        processor2.startProcessing(_) >> { listeners << it[0] }
+        ['Class1', 'Class2', 'Class3', 'Class4'].each { processor.processTestClass(test(it)) }
+
+        when:
+        listeners[1].testClassProcessed('Class2')
+
+        then:
+        1 * processor2.processTestClass(test('Class3'))
+        0 * processor1._
+
+        when:
+        listeners[1].testClassProcessed('Class3')
+
+        then:
+        1 * processor2.processTestClass(test('Class4'))
+        0 * processor1._
+
+        when:
+        processor.stop()
+
+        then:
+        1 * processor1.stop()
+        1 * processor2.stop()
+        1 * resultProcessorActor.stop()
+    }
+
+    def "forwards results to the result processor"() {
+        given:
+        factory.create() >> processor1
+        processor1.startProcessing(_) >> { listeners << it[0] }
+        processor.processTestClass(test('Class1'))
+
+        when:
+        listeners[0].failure('id', null)
+
+        then:
+        1 * asyncResultProcessor.failure('id', null)
+    }
+
+    def "does not hand test classes to a processor that has failed"() {
+        given:
+        factory.create() >>> [processor1, processor2]
+        processor1.startProcessing(_) >> { listeners << it[0] }
+        processor2.startProcessing(_) >> { listeners << it[0] }
+        ['Class1', 'Class2', 'Class3'].each { processor.processTestClass(test(it)) }
+
+        when:
+        listeners[0].processorFailed(['Class1'])
+        listeners[1].testClassProcessed('Class2')
+
+        then:
+        1 * processor2.processTestClass(test('Class3'))
+        0 * processor1._
+    }
+
+    def "stops when all processors have failed"() {
+        given:
+        factory.create() >>> [processor1, processor2]
+        processor1.startProcessing(_) >> { listeners << it[0] }
+        processor2.startProcessing(_) >> { listeners << it[0] }
+        ['Class1', 'Class2', 'Class3'].each { processor.processTestClass(test(it)) }
+        listeners[0].processorFailed(['Class1'])
+        listeners[1].processorFailed(['Class2'])
+
+        when:
+        processor.stop()
+
+        then:
+        0 * processor1.processTestClass(_)
+        0 * processor2.processTestClass(_)
+        1 * processor1.stop()
+        1 * processor2.stop()
+    }
+
+    def "stopNow propagates to factory created processors"() {
+        given:
+        factory.create() >>> [processor1, processor2]
+        ['Class1', 'Class2', 'Class3'].each { processor.processTestClass(test(it)) }
+
+        when:
+        processor.stopNow()
+        processor.stop()
+
+        then:
+        1 * processor1.stopNow()
+        1 * processor2.stopNow()
+    }
+
+    def test(String className) {
+        new DefaultTestClassRunInfo(className)
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.InvalidUserDataException
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestShard
+import spock.lang.Specification
+
+class ShardingTestClassProcessorTest extends Specification {
+    def durations = [Class1: 500L, Class2: 400L, Class3: 300L, Class4: 200L, Class5: 100L, Class6: 100L]
+
+    def "splits test classes into shards with similar execution times"() {
+        expect:
+        shard(1, 2, durations.keySet()) == ['Class1', 'Class4', 'Class5']
+        shard(2, 2, durations.keySet()) == ['Class2', 'Class3', 'Class6']
+    }
+
+    def "split does not depend on the order that test classes are received"() {
+        expect:
+        shard(index, 3, durations.keySet()) == shard(index, 3, durations.keySet().toList().reverse())
+
+        where:
+        index << [1, 2, 3]
+    }
+
+    def "every test class is executed by exactly one shard"() {
+        def classes = (1..20).collect { "Class$it" as String } + ['New1', 'New2']
+
+        when:
+        def shards = (1..4).collect { shard(it, 4, classes) }
+
+        then:
+        shards.flatten().sort() == classes.sort()
+    }
+
+    def "test classes without a previous execution time take the average execution time"() {
+        expect:
+        shard(1, 2, ['Class1', 'Class5', 'New1'], [Class1: 300L, Class5: 100L]) == ['Class1']
+        shard(2, 2, ['Class1', 'Class5', 'New1'], [Class1: 300L, Class5: 100L]) == ['New1', 'Class5']
+    }
+
+    def "assigns test classes to shards using a hash of their name when no execution times are given"() {
+        def classes = (1..100).collect { "org.gradle.Class$it" as String }
+
+        when:
+        def shards = (1..4).collect { shard(it, 4, classes, [:]) }
+
+        then:
+        shards.flatten().sort() == classes.sort()
+        shards.every { it.size() > 10 }
+    }
+
+    def "shard of a test class does not depend on the other test classes when no execution times are given"() {
+        def classes = (1..20).collect { "Class$it" as String }
+
+        expect:
+        classes.every { testClass ->
+            def index = ShardingTestClassProcessor.shardOf(testClass, 3)
+            shard(index, 3, [testClass], [:]) == [testClass] && shard(index, 3, classes, [:]).contains(testClass)
+        }
+    }
+
+    def "can parse shard"() {
+        expect:
+        TestShard.parse("2/4").index == 2
+        TestShard.parse("2/4").count == 4
+    }
+
+    def "fails on invalid shard"() {
+        when:
+        TestShard.parse(value)
+
+        then:
+        def e = thrown(InvalidUserDataException)
+        e.message.startsWith("Cannot use '$value' as a test shard.")
+
+        where:
+        value << ["", "1", "0/2", "3/2", "a/b", "1/0"]
+    }
+
+    List<String> shard(int index, int count, Collection<String> classes, Map<String, Long> durations = this.durations) {
+        def selected = []
+        def delegate = Stub(TestClassProcessor) {
+            processTestClass(_) >> { TestClassRunInfo testClass -> selected << testClass.testClassName }
+        }
+        def processor = new ShardingTestClassProcessor(new TestShard(index, count), durations, delegate)
+        processor.startProcessing(Stub(TestResultProcessor))
+        classes.each { processor.processTestClass(new DefaultTestClassRunInfo(it)) }
+        processor.stop()
+        return selected
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import spock.lang.Specification
+
+class SkipUnaffectedTestClassProcessorTest extends Specification {
+    def delegate = Mock(TestClassProcessor)
+    def processor = new SkipUnaffectedTestClassProcessor(["Class2"] as Set, delegate)
+
+    def "passes only affected test classes to delegate"() {
+        def resultProcessor = Stub(TestResultProcessor)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(new DefaultTestClassRunInfo("Class1"))
+        processor.processTestClass(new DefaultTestClassRunInfo("Class2"))
+        processor.processTestClass(new DefaultTestClassRunInfo("Class3"))
+        processor.stop()
+
+        then:
+        1 * delegate.startProcessing(resultProcessor)
+        1 * delegate.processTestClass({ it.testClassName == "Class1" })
+        1 * delegate.processTestClass({ it.testClassName == "Class3" })
+        1 * delegate.stop()
+        0 * delegate._
+    }
+}
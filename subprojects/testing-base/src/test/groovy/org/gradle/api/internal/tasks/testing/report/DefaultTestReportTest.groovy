@@ -467,6 +467,96 @@ class DefaultTestReportTest extends Specification {
         numThreads << [ 1, 4 ]
     }
 
+    @Unroll
+    def "generates report for more classes than are rendered in a single batch - #numThreads parallel thread(s)"() {
+        given:
+        report = reportWithMaxThreads(numThreads)
+        def testTestResults = buildResults {
+            250.times { i ->
+                testClassResult("org.gradle.batched.Test${i}") {
+                    testcase("passed") {
+                        duration = 10
+                    }
+                    testcase("failed") {
+                        duration = 10
+                        if (i % 100 == 0) {
+                            failure("failure ${i}", "stack trace ${i}")
+                        }
+                    }
+                }
+            }
+        }
+
+        when:
+        report.generateReport(testTestResults, reportDir)
+
+        then:
+        def index = results(indexFile)
+        index.assertHasTests(500)
+        index.assertHasFailures(3)
+        index.assertHasFailedTest('classes/org.gradle.batched.Test0', 'failed')
+        index.assertHasFailedTest('classes/org.gradle.batched.Test200', 'failed')
+        index.classDetails("org.gradle.batched.Test100").assertFailed()
+        index.classDetails("org.gradle.batched.Test249").assertPassed()
+
+        def packageFile = results(reportDir.file('packages/org.gradle.batched.html'))
+        packageFile.assertHasTests(500)
+        packageFile.assertHasFailedTest('../classes/org.gradle.batched.Test100', 'failed')
+
+        def failingClassFile = results(reportDir.file('classes/org.gradle.batched.Test200.html'))
+        failingClassFile.assertHasTests(2)
+        failingClassFile.assertHasFailure('failed', 'failure 200\n\nstack trace 200')
+
+        def passingClassFile = results(reportDir.file('classes/org.gradle.batched.Test249.html'))
+        passingClassFile.assertHasTests(2)
+        passingClassFile.assertHasFailures(0)
+
+        where:
+        numThreads << [ 1, 4 ]
+    }
+
+    def "only regenerates class pages of test classes whose results have changed"() {
+        given:
+        report = reportWithMaxThreads(1)
+        report.generateReport(buildResults {
+            testClassResult("org.gradle.Unchanged") {
+                testcase("test1")
+            }
+            testClassResult("org.gradle.Changed") {
+                testcase("test1")
+            }
+            testClassResult("org.gradle.other.Removed") {
+                testcase("test1")
+            }
+        }, reportDir)
+        def unchangedPage = reportDir.file('classes/org.gradle.Unchanged.html')
+        unchangedPage.text = unchangedPage.text.replace("test1", "unchanged")
+
+        when:
+        report.generateReport(buildResults {
+            testClassResult("org.gradle.Unchanged") {
+                testcase("test1")
+            }
+            testClassResult("org.gradle.Changed") {
+                testcase("test1") {
+                    failure("something failed", "this is the failure")
+                }
+            }
+        }, reportDir)
+
+        then:
+        def index = results(indexFile)
+        index.assertHasTests(2)
+        index.assertHasFailures(1)
+        index.assertHasFailedTest('classes/org.gradle.Changed', 'test1')
+
+        results(unchangedPage).assertHasTest('unchanged')
+        results(reportDir.file('classes/org.gradle.Changed.html')).assertHasFailure('test1', 'this is the failure')
+
+        reportDir.file('classes/org.gradle.other.Removed.html').assertDoesNotExist()
+        reportDir.file('packages/org.gradle.other.html').assertDoesNotExist()
+    }
+
     def reportsOnClassesInDefaultPackage() {
         given:
         report = reportWithMaxThreads(1)
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.tasks.testing.TestResult
+import org.gradle.internal.id.CompositeIdGenerator
+import spock.lang.Specification
+
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdErr
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdOut
+
+class BatchingTestResultProcessorTest extends Specification {
+    def target = Mock(TestResultProcessor)
+    def decoder = new TestEventBatchDecoder(target)
+    def batches = []
+    def listener = { byte[] batch -> batches << batch; decoder.eventsProduced(batch) } as TestEventBatchListener
+    def processor = new BatchingTestResultProcessor(listener)
+    def id = new CompositeIdGenerator.CompositeId(1L, 2L)
+    def descriptor = new DefaultTestClassDescriptor(id, "SomeTest")
+
+    def "holds back events until flushed"() {
+        when:
+        processor.started(descriptor, new TestStartEvent(100L))
+        processor.failure(id, new RuntimeException("broken"))
+        processor.completed(id, new TestCompleteEvent(200L, TestResult.ResultType.FAILURE))
+
+        then:
+        batches.empty
+        0 * target._
+
+        when:
+        processor.flush()
+
+        then:
+        batches.size() == 1
+
+        then:
+        1 * target.started({ it.id == id && it.name == "SomeTest" }, { it.startTime == 100L })
+
+        then:
+        1 * target.failure(id, { it.message == "broken" })
+
+        then:
+        1 * target.completed(id, { it.endTime == 200L && it.resultType == TestResult.ResultType.FAILURE })
+        0 * target._
+    }
+
+    def "merges consecutive output of a test to the same destination"() {
+        def otherId = new CompositeIdGenerator.CompositeId(1L, 3L)
+
+        when:
+        processor.output(id, new DefaultTestOutputEvent(StdOut, "a"))
+        processor.output(id, new DefaultTestOutputEvent(StdOut, "b"))
+        processor.output(id, new DefaultTestOutputEvent(StdErr, "c"))
+        processor.output(otherId, new DefaultTestOutputEvent(StdErr, "d"))
+        processor.output(otherId, new DefaultTestOutputEvent(StdErr, "e"))
+        processor.stop()
+
+        then:
+        batches.size() == 1
+
+        then:
+        1 * target.output(id, { it.destination == StdOut && it.message == "ab" })
+
+        then:
+        1 * target.output(id, { it.destination == StdErr && it.message == "c" })
+
+        then:
+        1 * target.output(otherId, { it.destination == StdErr && it.message == "de" })
+        0 * target._
+    }
+
+    def "sends batch when it reaches the maximum size"() {
+        def processor = new BatchingTestResultProcessor(listener, 10)
+
+        when:
+        processor.output(id, new DefaultTestOutputEvent(StdOut, "12345"))
+
+        then:
+        batches.empty
+
+        when:
+        processor.output(id, new DefaultTestOutputEvent(StdOut, "67890"))
+
+        then:
+        batches.size() == 1
+        1 * target.output(id, { it.message == "1234567890" })
+    }
+
+    def "discards event that cannot be serialized"() {
+        when:
+        processor.output(id, new DefaultTestOutputEvent(StdOut, "before"))
+        processor.started(new DefaultTestClassDescriptor(id, null), new TestStartEvent(100L))
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        processor.completed(id, new TestCompleteEvent(200L))
+        processor.flush()
+
+        then:
+        1 * target.output(id, { it.message == "before" })
+
+        then:
+        1 * target.completed(id, { it.endTime == 200L })
+        0 * target._
+    }
+
+    def "sends nothing when there are no events to flush"() {
+        when:
+        processor.flush()
+        processor.stop()
+
+        then:
+        batches.empty
+    }
+}
@@ -20,7 +20,10 @@ import org.gradle.api.Action
 import org.gradle.api.internal.DocumentationRegistry
 import org.gradle.api.internal.classpath.Module
 import org.gradle.api.internal.classpath.ModuleRegistry
+import org.gradle.api.internal.tasks.testing.TestClassProcessingListener
+import org.gradle.api.internal.tasks.testing.TestClassProcessorFailureListener
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
 import org.gradle.internal.classpath.ClassPath
 import org.gradle.internal.remote.ObjectConnection
@@ -44,7 +47,7 @@ class ForkingTestClassProcessorTest extends Specification {
     JavaForkOptions options = Stub(JavaForkOptions)
 
     @Subject
-        processor = Spy(ForkingTestClassProcessor, constructorArgs: [workerLease, workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), moduleRegistry, documentationRegistry])
+        processor = Spy(ForkingTestClassProcessor, constructorArgs: [workerLease, workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), moduleRegistry, documentationRegistry, null, null])
 
     def setup() {
         workerProcessBuilder.build() >> workerProcess
@@ -93,7 +96,7 @@ class ForkingTestClassProcessorTest extends Specification {
     }
 
     def "stopNow propagates to worker process"() {
-        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry)
+        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry, null, null)
 
         setup:
         1 * workerProcess.getConnection() >> Stub(ObjectConnection) { addOutgoing(_) >> Stub(RemoteTestClassProcessor) }
@@ -107,7 +110,7 @@ class ForkingTestClassProcessorTest extends Specification {
     }
 
     def "no exception when stop after stopNow"() {
-        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry)
+        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry, null, null)
 
         setup:
         1 * workerProcess.getConnection() >> Stub(ObjectConnection) { addOutgoing(_) >> Stub(RemoteTestClassProcessor) }
@@ -123,6 +126,44 @@ class ForkingTestClassProcessorTest extends Specification {
         notThrown(ExecException)
     }
 
+    def "notifies listener when worker finishes with a test class and when worker stops unexpectedly"() {
+        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry, null, null)
+        def resultProcessor = Mock(ListeningResultProcessor)
+        def connection = Mock(ObjectConnection)
+        def workerListener = null
+
+        setup:
+        workerProcess.getConnection() >> connection
+        connection.addOutgoing(RemoteTestClassProcessor) >> Stub(RemoteTestClassProcessor)
+        connection.addIncoming(TestClassProcessingListener, _) >> { workerListener = it[1] }
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(test("Test1"))
+        processor.processTestClass(test("Test2"))
+        workerListener.testClassProcessed("Test1")
+
+        then:
+        1 * resultProcessor.testClassProcessed("Test1")
+        0 * resultProcessor._
+        !(workerListener instanceof TestClassProcessorFailureListener)
+
+        when:
+        workerListener.endStream()
+        processor.processTestClass(test("Test3"))
+
+        then:
+        1 * resultProcessor.processorFailed(["Test2"])
+        1 * resultProcessor.processorFailed(["Test3"])
+        0 * resultProcessor._
+    }
+
+    def test(String className) {
+        return Stub(TestClassRunInfo) {
+            getTestClassName() >> className
+        }
+    }
+
     def module(String module) {
         return Stub(Module) {
             _ * getImplementationClasspath() >> {
@@ -132,4 +173,7 @@ class ForkingTestClassProcessorTest extends Specification {
             }
         }
     }
+
+    interface ListeningResultProcessor extends TestResultProcessor, TestClassProcessingListener, TestClassProcessorFailureListener {
+    }
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.process.internal.JavaExecHandleBuilder
+import org.gradle.process.internal.health.memory.MemoryManager
+import org.gradle.process.internal.worker.ReusableWorkerProcess
+import org.gradle.process.internal.worker.WorkerProcess
+import org.gradle.process.internal.worker.WorkerProcessBuilder
+import org.gradle.process.internal.worker.WorkerProcessFactory
+import spock.lang.Specification
+
+class TestWorkerProcessPoolTest extends Specification {
+    def workerProcessFactory = Mock(WorkerProcessFactory)
+    def memoryManager = Mock(MemoryManager)
+    def pool = new TestWorkerProcessPool(workerProcessFactory, memoryManager)
+
+    def "reuses idle process started with the same java command"() {
+        def process = reusableProcess()
+        def builder1 = builder("-Xmx64m")
+        def builder2 = builder("-Xmx64m")
+
+        when:
+        runWorker(builder1)
+        runWorker(builder2)
+
+        then:
+        1 * workerProcessFactory.startReusable(builder1) >> process
+        0 * workerProcessFactory._
+        0 * process.stop()
+    }
+
+    def "starts new process for a different java command"() {
+        def process1 = reusableProcess()
+        def process2 = reusableProcess()
+        def builder1 = builder("-Xmx64m")
+        def builder2 = builder("-Xmx128m")
+
+        when:
+        runWorker(builder1)
+        runWorker(builder2)
+
+        then:
+        1 * workerProcessFactory.startReusable(builder1) >> process1
+        1 * workerProcessFactory.startReusable(builder2) >> process2
+    }
+
+    def "does not reuse process that is no longer healthy"() {
+        def process1 = reusableProcess(healthy: false)
+        def process2 = reusableProcess()
+        def builder1 = builder("-Xmx64m")
+        def builder2 = builder("-Xmx64m")
+
+        when:
+        runWorker(builder1)
+
+        then:
+        1 * workerProcessFactory.startReusable(builder1) >> process1
+        1 * process1.stop()
+
+        when:
+        runWorker(builder2)
+
+        then:
+        1 * workerProcessFactory.startReusable(builder2) >> process2
+    }
+
+    def "discards process that has run too many workers or retains too much heap"() {
+        expect:
+        TestWorkerProcessPool.isReusable(reusableProcess())
+        !TestWorkerProcessPool.isReusable(reusableProcess(healthy: false))
+        !TestWorkerProcessPool.isReusable(reusableProcess(uses: TestWorkerProcessPool.MAX_USES))
+        !TestWorkerProcessPool.isReusable(reusableProcess(retainedMemory: 60L, maxMemory: 100L))
+        TestWorkerProcessPool.isReusable(reusableProcess(retainedMemory: 40L, maxMemory: 100L))
+    }
+
+    def "stops process when worker is stopped forcefully"() {
+        def worker = Mock(WorkerProcess)
+        def process = reusableProcess(worker: worker)
+        def builder = builder("-Xmx64m")
+        workerProcessFactory.startReusable(builder) >> process
+
+        when:
+        def pooledWorker = pool.createWorker(builder)
+        pooledWorker.start()
+        pooledWorker.stopNow()
+
+        then:
+        1 * worker.stopNow()
+        1 * process.stop()
+    }
+
+    def "stops idle processes to release memory"() {
+        def process1 = reusableProcess(uses: 2, maxMemory: 100L)
+        def process2 = reusableProcess(uses: 1, maxMemory: 100L)
+        workerProcessFactory.startReusable(_) >>> [process1, process2]
+
+        given:
+        runWorker(builder("-Xmx64m"))
+        runWorker(builder("-Xmx128m"))
+
+        when:
+        def released = pool.attemptToRelease(50)
+
+        then:
+        released == 100
+        1 * process2.stop()
+        0 * process1.stop()
+    }
+
+    def "stops all processes when stopped"() {
+        def process1 = reusableProcess()
+        def process2 = reusableProcess()
+        workerProcessFactory.startReusable(_) >>> [process1, process2]
+
+        given:
+        runWorker(builder("-Xmx64m"))
+        runWorker(builder("-Xmx128m"))
+
+        when:
+        pool.stop()
+
+        then:
+        1 * process1.stop()
+        1 * process2.stop()
+        1 * memoryManager.removeMemoryHolder(pool)
+    }
+
+    private void runWorker(WorkerProcessBuilder builder) {
+        def worker = pool.createWorker(builder)
+        worker.start()
+        worker.waitForStop()
+    }
+
+    private WorkerProcessBuilder builder(String jvmArg) {
+        def javaCommand = Stub(JavaExecHandleBuilder) {
+            getExecutable() >> "java"
+            getWorkingDir() >> new File("work")
+            getAllJvmArgs() >> [jvmArg]
+            getEnvironment() >> [:]
+        }
+        return Stub(WorkerProcessBuilder) {
+            getJavaCommand() >> javaCommand
+        }
+    }
+
+    private ReusableWorkerProcess reusableProcess(Map<String, ?> state = [:]) {
+        def process = Mock(ReusableWorkerProcess)
+        process.isHealthy() >> state.get("healthy", true)
+        process.getUses() >> state.get("uses", 1)
+        process.getRetainedMemory() >> state.get("retainedMemory", 0L)
+        process.getMaxMemory() >> state.get("maxMemory", 0L)
+        process.createWorker(_) >> state.get("worker", Stub(WorkerProcess))
+        return process
+    }
+}
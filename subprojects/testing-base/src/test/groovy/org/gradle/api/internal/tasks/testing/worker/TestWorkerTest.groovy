@@ -17,9 +17,9 @@
 
 package org.gradle.api.internal.tasks.testing.worker
 
+import org.gradle.api.internal.tasks.testing.TestClassProcessingListener
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
-import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
 import org.gradle.internal.remote.ObjectConnection
 import org.gradle.internal.service.DefaultServiceRegistry
@@ -37,12 +37,14 @@ public class TestWorkerTest extends ConcurrentSpec {
     def factory = Mock(WorkerTestClassProcessorFactory)
     def processor = Mock(TestClassProcessor)
     def test = Mock(TestClassRunInfo)
-    def resultProcessor = Mock(TestResultProcessor)
+    def batchListener = Mock(TestEventBatchListener)
+    def processingListener = Mock(TestClassProcessingListener)
     def worker = new TestWorker(factory)
     def serviceRegistry = new DefaultServiceRegistry().add(Clock, Time.clock())
 
     def setup() {
-        workerContext.workerId >> "<worker-id>"
+        workerContext.workerId >> 12L
+        workerContext.displayName >> "<worker>"
         workerContext.serverConnection >> connection
         workerContext.serviceRegistry >> serviceRegistry
     }
@@ -56,11 +58,12 @@ public class TestWorkerTest extends ConcurrentSpec {
 
         then:
         instant.completed > instant.stopped
-        System.properties['org.gradle.test.worker'] == '<worker-id>'
+        System.properties['org.gradle.test.worker'] == "12"
 
         and:
         1 * factory.create(_) >> processor
-        1 * connection.addOutgoing(TestResultProcessor) >> resultProcessor
+        1 * connection.addOutgoing(TestEventBatchListener) >> batchListener
+        1 * connection.addOutgoing(TestClassProcessingListener) >> processingListener
         1 * connection.addIncoming(RemoteTestClassProcessor, worker)
         1 * connection.useParameterSerializers(_)
         1 * connection.connect() >> {
@@ -74,6 +77,7 @@ public class TestWorkerTest extends ConcurrentSpec {
         }
         1 * processor.startProcessing(_)
         1 * processor.processTestClass(test)
+        1 * processingListener.testClassProcessed(test.testClassName)
         1 * processor.stop()
     }
 }
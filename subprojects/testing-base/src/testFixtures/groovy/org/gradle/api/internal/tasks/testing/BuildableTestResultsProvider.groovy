@@ -23,6 +23,7 @@ import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider
 import org.gradle.api.tasks.testing.TestOutputEvent
 import org.gradle.api.tasks.testing.TestResult
+import org.gradle.internal.hash.Hasher
 import org.gradle.util.ConfigureUtil
 
 import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdErr
@@ -75,6 +76,17 @@ class BuildableTestResultsProvider implements TestResultsProvider {
         testClasses[classId]?.outputEvents?.find { it.testOutputEvent.destination == destination }
     }
 
+    void hashOutputLocation(long classId, Hasher hasher) {
+        // The output is held in memory, so its position in the list of output events identifies it
+        def outputEvents = testClasses[classId]?.outputEvents ?: []
+        hasher.putInt(outputEvents.size())
+        outputEvents.each { BuildableOutputEvent event ->
+            hasher.putLong(event.testId)
+            hasher.putString(event.testOutputEvent.destination.name())
+            hasher.putString(event.testOutputEvent.message)
+        }
+    }
+
     static class BuildableOutputEvent {
         long testId
         TestOutputEvent testOutputEvent
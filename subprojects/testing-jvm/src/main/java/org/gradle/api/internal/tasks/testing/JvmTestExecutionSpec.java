@@ -18,10 +18,16 @@ package org.gradle.api.internal.tasks.testing;
 
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileTree;
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionCache;
+import org.gradle.api.internal.tasks.testing.impact.TestDependencyRecorder;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerProcessPool;
 import org.gradle.process.JavaForkOptions;
 import org.gradle.util.Path;
 
+import javax.annotation.Nullable;
+
 import java.io.File;
+import java.util.Map;
 import java.util.Set;
 
 public class JvmTestExecutionSpec implements TestExecutionSpec {
@@ -36,8 +42,16 @@ public class JvmTestExecutionSpec implements TestExecutionSpec {
     private final JavaForkOptions javaForkOptions;
     private final int maxParallelForks;
     private final Set<String> previousFailedTestClasses;
-
-    public JvmTestExecutionSpec(TestFramework testFramework, Iterable<? extends File> classpath, FileTree candidateClassFiles, boolean scanForTestClasses, FileCollection testClassesDirs, String path, Path identityPath, long forkEvery, JavaForkOptions javaForkOptions, int maxParallelForks, Set<String> previousFailedTestClasses) {
+    private final Map<String, Long> previousTestClassDurations;
+    private final boolean runLongestFirst;
+    private final TestShard shard;
+    private final Map<String, Long> shardTestClassDurations;
+    private final Set<String> unaffectedTestClasses;
+    private final TestDependencyRecorder dependencyRecorder;
+    private final TestWorkerProcessPool workerProcessPool;
+    private final TestClassDetectionCache detectionCache;
+
+    public JvmTestExecutionSpec(TestFramework testFramework, Iterable<? extends File> classpath, FileTree candidateClassFiles, boolean scanForTestClasses, FileCollection testClassesDirs, String path, Path identityPath, long forkEvery, JavaForkOptions javaForkOptions, int maxParallelForks, Set<String> previousFailedTestClasses, Map<String, Long> previousTestClassDurations, boolean runLongestFirst, @Nullable TestShard shard, Map<String, Long> shardTestClassDurations, Set<String> unaffectedTestClasses, @Nullable TestDependencyRecorder dependencyRecorder, @Nullable TestWorkerProcessPool workerProcessPool, @Nullable TestClassDetectionCache detectionCache) {
         this.testFramework = testFramework;
         this.classpath = classpath;
         this.candidateClassFiles = candidateClassFiles;
@@ -49,6 +63,14 @@ public class JvmTestExecutionSpec implements TestExecutionSpec {
         this.javaForkOptions = javaForkOptions;
         this.maxParallelForks = maxParallelForks;
         this.previousFailedTestClasses = previousFailedTestClasses;
+        this.previousTestClassDurations = previousTestClassDurations;
+        this.runLongestFirst = runLongestFirst;
+        this.shard = shard;
+        this.shardTestClassDurations = shardTestClassDurations;
+        this.unaffectedTestClasses = unaffectedTestClasses;
+        this.dependencyRecorder = dependencyRecorder;
+        this.workerProcessPool = workerProcessPool;
+        this.detectionCache = detectionCache;
     }
 
     public TestFramework getTestFramework() {
@@ -94,4 +116,64 @@ public class JvmTestExecutionSpec implements TestExecutionSpec {
     public Set<String> getPreviousFailedTestClasses() {
         return previousFailedTestClasses;
     }
+
+    /**
+     * The most recent execution time of each test class of the test task, keyed by class name.
+     */
+    public Map<String, Long> getPreviousTestClassDurations() {
+        return previousTestClassDurations;
+    }
+
+    /**
+     * Whether test classes should be handed to parallel test workers in order of their most recent execution time, longest first.
+     */
+    public boolean isRunLongestFirst() {
+        return runLongestFirst;
+    }
+
+    /**
+     * The shard of the test classes to execute, or null to execute all test classes.
+     */
+    @Nullable
+    public TestShard getShard() {
+        return shard;
+    }
+
+    /**
+     * The execution times used to split the test classes into shards, keyed by class name. When empty, the test classes are split using a hash of their name.
+     */
+    public Map<String, Long> getShardTestClassDurations() {
+        return shardTestClassDurations;
+    }
+
+    /**
+     * The test classes that are not executed, as they are not affected by the changes since the previous run.
+     */
+    public Set<String> getUnaffectedTestClasses() {
+        return unaffectedTestClasses;
+    }
+
+    /**
+     * The recorder for the classes loaded by each test class, or null when the loaded classes are not recorded.
+     */
+    @Nullable
+    public TestDependencyRecorder getDependencyRecorder() {
+        return dependencyRecorder;
+    }
+
+    /**
+     * The pool of processes to run the test workers in, or null when each test worker runs in a new process.
+     */
+    @Nullable
+    public TestWorkerProcessPool getWorkerProcessPool() {
+        return workerProcessPool;
+    }
+
+    /**
+     * The cache of the test class detection results of previous runs, or null when the results are not cached.
+     */
+    @Nullable
+    public TestClassDetectionCache getDetectionCache() {
+        return detectionCache;
+    }
 }
@@ -21,20 +21,22 @@ import org.apache.commons.lang.StringUtils;
 import org.gradle.api.GradleException;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.internal.hash.HashCode;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
@@ -46,6 +48,7 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     private final ClassFileExtractionManager classFileExtractionManager;
     private final Map<File, Boolean> superClasses;
     private TestClassProcessor testClassProcessor;
+    private volatile TestClassDetectionCache detectionCache;
 
     private Set<File> testClassesDirectories;
     private Set<File> testClasspath;
@@ -53,7 +56,7 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     protected AbstractTestFrameworkDetector(ClassFileExtractionManager classFileExtractionManager) {
         assert classFileExtractionManager != null;
         this.classFileExtractionManager = classFileExtractionManager;
-        this.superClasses = new HashMap<File, Boolean>();
+        this.superClasses = new ConcurrentHashMap<File, Boolean>();
     }
 
     protected abstract T createClassVisitor();
@@ -83,7 +86,7 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         }
     }
 
-    private void prepareClasspath() {
+    private synchronized void prepareClasspath() {
         if (testClassDirectories != null) {
             return;
         }
@@ -131,23 +134,49 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         return classVisitor;
     }
 
+    private TestClassDetectionCache.ClassDetails classDetails(File testClassFile) {
+        TestClassDetectionCache cache = detectionCache;
+        HashCode hash = null;
+        if (cache != null) {
+            hash = cache.hash(testClassFile);
+            TestClassDetectionCache.ClassDetails details = cache.get(hash);
+            if (details != null) {
+                return details;
+            }
+        }
+        TestClassVisitor classVisitor = classVisitor(testClassFile);
+        TestClassDetectionCache.ClassDetails details = new TestClassDetectionCache.ClassDetails(classVisitor.getClassName(), classVisitor.getSuperClassName(), classVisitor.isAbstract(), classVisitor.isTest());
+        if (cache != null) {
+            cache.put(hash, details);
+        }
+        return details;
+    }
+
     @Override
     public boolean processTestClass(File testClassFile) {
-        return processTestClass(testClassFile, false);
+        TestClassDetectionCache.ClassDetails classDetails = classDetails(testClassFile);
+        boolean isTest = isTest(classDetails);
+        publishTestClass(isTest, classDetails);
+        return isTest;
+    }
+
+    @Nullable
+    @Override
+    public String detectTestClass(File testClassFile) {
+        TestClassDetectionCache.ClassDetails classDetails = classDetails(testClassFile);
+        return isTest(classDetails) && !classDetails.isAbstract() ? testClassName(classDetails) : null;
     }
 
     /**
-     * Uses a TestClassVisitor to detect whether the class in the testClassFile is a test class. <p/> If the class is not a test, this function will go up the inheritance tree to check if a parent
+     * Detects whether the given class is a test class. <p/> If the class is not a test, this function will go up the inheritance tree to check if a parent
      * class is a test class. First the package of the parent class is checked, if it is a java.lang or groovy.lang the class can't be a test class, otherwise the parent class is scanned. <p/> When a
      * parent class is a test class all the extending classes are marked as test classes.
      */
-    private boolean processTestClass(final File testClassFile, boolean superClass) {
-        final TestClassVisitor classVisitor = classVisitor(testClassFile);
-
-        boolean isTest = classVisitor.isTest();
+    private boolean isTest(TestClassDetectionCache.ClassDetails classDetails) {
+        boolean isTest = classDetails.isTest();
 
         if (!isTest) { // scan parent class
-            final String superClassName = classVisitor.getSuperClassName();
+            final String superClassName = classDetails.getSuperClassName();
 
             if (isKnownTestCaseClassName(superClassName)) {
                 isTest = true;
@@ -163,40 +192,43 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
             }
         }
 
-        publishTestClass(isTest, classVisitor, superClass);
-
         return isTest;
     }
 
     protected abstract boolean isKnownTestCaseClassName(String testCaseClassName);
 
     private boolean processSuperClass(File testClassFile) {
-        boolean isTest;
-
         Boolean isSuperTest = superClasses.get(testClassFile);
 
         if (isSuperTest == null) {
-            isTest = processTestClass(testClassFile, true);
+            // Super classes may be scanned concurrently for several test classes, in which case the result is the same
+            isSuperTest = isTest(classDetails(testClassFile));
 
-            superClasses.put(testClassFile, isTest);
-        } else {
-            isTest = isSuperTest;
+            superClasses.put(testClassFile, isSuperTest);
         }
 
-        return isTest;
+        return isSuperTest;
     }
 
     /**
-     * In none super class mode a test class is published when the class is a test and it is not abstract. In super class mode it must not publish the class otherwise it will get published multiple
+     * A test class is published when the class is a test and it is not abstract. Super classes are never published directly, otherwise they would get published multiple
      * times (for each extending class).
      */
-    private void publishTestClass(boolean isTest, TestClassVisitor classVisitor, boolean superClass) {
-        if (isTest && !classVisitor.isAbstract() && !superClass) {
-            String className = Type.getObjectType(classVisitor.getClassName()).getClassName();
-            testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
+    private void publishTestClass(boolean isTest, TestClassDetectionCache.ClassDetails classDetails) {
+        if (isTest && !classDetails.isAbstract()) {
+            testClassProcessor.processTestClass(new DefaultTestClassRunInfo(testClassName(classDetails)));
         }
     }
 
+    private static String testClassName(TestClassDetectionCache.ClassDetails classDetails) {
+        return Type.getObjectType(classDetails.getClassName()).getClassName();
+    }
+
+    @Override
+    public void setDetectionCache(@Nullable TestClassDetectionCache detectionCache) {
+        this.detectionCache = detectionCache;
+    }
+
     @Override
     public void startDetection(TestClassProcessor testClassProcessor) {
         this.testClassProcessor = testClassProcessor;
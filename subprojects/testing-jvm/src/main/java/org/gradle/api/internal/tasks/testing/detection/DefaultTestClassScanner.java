@@ -22,24 +22,47 @@ import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
  * a detection or filename scan is performed to find test classes.
+ *
+ * <p>When given an executor factory and a parallelism greater than 1, the class files are read by several threads. The test classes are
+ * still passed to the test class processor one at a time, as soon as they are detected, and in the order that the class files are visited.</p>
  */
 public class DefaultTestClassScanner implements Runnable {
     private static final Pattern ANONYMOUS_CLASS_NAME = Pattern.compile(".*\\$\\d+");
+    private static final int MAX_PENDING_CLASS_FILES_PER_THREAD = 64;
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final ExecutorFactory executorFactory;
+    private final int parallelism;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, null, 1);
+    }
+
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, @Nullable ExecutorFactory executorFactory, int parallelism) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.executorFactory = executorFactory;
+        this.parallelism = parallelism;
     }
 
     @Override
@@ -53,11 +76,61 @@ public class DefaultTestClassScanner implements Runnable {
 
     private void detectionScan() {
         testFrameworkDetector.startDetection(testClassProcessor);
-        candidateClassFiles.visit(new ClassFileVisitor() {
-            public void visitClassFile(FileVisitDetails fileDetails) {
-                testFrameworkDetector.processTestClass(fileDetails.getFile());
+        if (executorFactory == null || parallelism <= 1) {
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    testFrameworkDetector.processTestClass(fileDetails.getFile());
+                }
+            });
+        } else {
+            parallelDetectionScan();
+        }
+    }
+
+    private void parallelDetectionScan() {
+        final ManagedExecutor executor = executorFactory.create("Test class scanner", parallelism);
+        final Deque<Future<String>> pending = new ArrayDeque<Future<String>>();
+        try {
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    final File classFile = fileDetails.getFile();
+                    pending.add(executor.submit(new Callable<String>() {
+                        @Override
+                        public String call() {
+                            return testFrameworkDetector.detectTestClass(classFile);
+                        }
+                    }));
+                    while (!pending.isEmpty() && pending.peek().isDone()) {
+                        publishTestClass(pending.remove());
+                    }
+                    if (pending.size() >= parallelism * MAX_PENDING_CLASS_FILES_PER_THREAD) {
+                        publishTestClass(pending.remove());
+                    }
+                }
+            });
+            while (!pending.isEmpty()) {
+                publishTestClass(pending.remove());
             }
-        });
+        } finally {
+            for (Future<String> future : pending) {
+                future.cancel(false);
+            }
+            executor.stop();
+        }
+    }
+
+    private void publishTestClass(Future<String> detection) {
+        String testClassName;
+        try {
+            testClassName = detection.get();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+        if (testClassName != null) {
+            testClassProcessor.processTestClass(new DefaultTestClassRunInfo(testClassName));
+        }
     }
 
     private void filenameScan() {
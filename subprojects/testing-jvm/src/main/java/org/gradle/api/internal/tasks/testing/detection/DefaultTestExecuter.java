@@ -29,14 +29,19 @@ import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.PatternMatchTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.PullBasedParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.RunLongestFirstTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RunPreviousFailedFirstTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.ShardingTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.SkipUnaffectedTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.Factory;
 import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.time.Clock;
 import org.gradle.internal.work.WorkerLeaseRegistry;
@@ -52,8 +57,15 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
 
     private static final Logger LOGGER = Logging.getLogger(DefaultTestExecuter.class);
 
+    /**
+     * When set, test classes are handed to the test workers as they become idle, longest running test classes first, rather than being assigned
+     * to the test workers up front.
+     */
+    public static final String PULL_BASED_DISTRIBUTION_PROPERTY = "org.gradle.internal.test.pullBasedDistribution";
+
     private final WorkerProcessFactory workerFactory;
     private final ActorFactory actorFactory;
+    private final ExecutorFactory executorFactory;
     private final ModuleRegistry moduleRegistry;
     private final WorkerLeaseRegistry workerLeaseRegistry;
     private final BuildOperationExecutor buildOperationExecutor;
@@ -63,11 +75,12 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
     private final DefaultTestFilter testFilter;
     private TestClassProcessor processor;
 
-    public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry,
+    public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ExecutorFactory executorFactory, ModuleRegistry moduleRegistry,
                                WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor, int maxWorkerCount,
                                Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter) {
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
+        this.executorFactory = executorFactory;
         this.moduleRegistry = moduleRegistry;
         this.workerLeaseRegistry = workerLeaseRegistry;
         this.buildOperationExecutor = buildOperationExecutor;
@@ -86,7 +99,7 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(currentWorkerLease, workerFactory, testInstanceFactory, testExecutionSpec.getJavaForkOptions(),
-                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry);
+                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry, testExecutionSpec.getDependencyRecorder(), testExecutionSpec.getWorkerProcessPool());
             }
         };
         final Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
@@ -94,10 +107,25 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
                 return new RestartEveryNTestClassProcessor(forkingProcessorFactory, testExecutionSpec.getForkEvery());
             }
         };
-        processor =
-            new PatternMatchTestClassProcessor(testFilter,
-                new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
-                    new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory)));
+        int maxParallelForks = getMaxParallelForks(testExecutionSpec);
+        boolean pullBasedDistribution = maxParallelForks > 1 && Boolean.getBoolean(PULL_BASED_DISTRIBUTION_PROPERTY);
+        TestClassProcessor parallelProcessor;
+        if (pullBasedDistribution) {
+            parallelProcessor = new PullBasedParallelTestClassProcessor(maxParallelForks, reforkingProcessorFactory, actorFactory, clock);
+        } else {
+            parallelProcessor = new MaxNParallelTestClassProcessor(maxParallelForks, reforkingProcessorFactory, actorFactory);
+        }
+        TestClassProcessor orderingProcessor = new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(), parallelProcessor);
+        if (maxParallelForks > 1 && (pullBasedDistribution || testExecutionSpec.isRunLongestFirst())) {
+            orderingProcessor = new RunLongestFirstTestClassProcessor(testExecutionSpec.getPreviousTestClassDurations(), orderingProcessor);
+        }
+        if (!testExecutionSpec.getUnaffectedTestClasses().isEmpty()) {
+            orderingProcessor = new SkipUnaffectedTestClassProcessor(testExecutionSpec.getUnaffectedTestClasses(), orderingProcessor);
+        }
+        if (testExecutionSpec.getShard() != null) {
+            orderingProcessor = new ShardingTestClassProcessor(testExecutionSpec.getShard(), testExecutionSpec.getShardTestClassDurations(), orderingProcessor);
+        }
+        processor = new PatternMatchTestClassProcessor(testFilter, orderingProcessor);
 
         final FileTree testClassFiles = testExecutionSpec.getCandidateClassFiles();
 
@@ -106,14 +134,22 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
             TestFrameworkDetector testFrameworkDetector = testFramework.getDetector();
             testFrameworkDetector.setTestClasses(testExecutionSpec.getTestClassesDirs().getFiles());
             testFrameworkDetector.setTestClasspath(classpath);
-            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
+            testFrameworkDetector.setDetectionCache(testExecutionSpec.getDetectionCache());
+            int scannerThreads = Math.min(maxWorkerCount, Runtime.getRuntime().availableProcessors());
+            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor, executorFactory, scannerThreads);
         } else {
             detector = new DefaultTestClassScanner(testClassFiles, null, processor);
         }
 
         final Object testTaskOperationId = buildOperationExecutor.getCurrentOperation().getParentId();
 
-        new TestMainAction(detector, processor, testResultProcessor, clock, testTaskOperationId, testExecutionSpec.getPath(), "Gradle Test Run " + testExecutionSpec.getIdentityPath()).run();
+        try {
+            new TestMainAction(detector, processor, testResultProcessor, clock, testTaskOperationId, testExecutionSpec.getPath(), "Gradle Test Run " + testExecutionSpec.getIdentityPath()).run();
+        } finally {
+            if (testExecutionSpec.getDetectionCache() != null) {
+                testExecutionSpec.getDetectionCache().store();
+            }
+        }
     }
 
     @Override
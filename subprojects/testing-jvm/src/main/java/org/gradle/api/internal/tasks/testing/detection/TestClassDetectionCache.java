@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.FlushableEncoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches what a {@link TestFrameworkDetector} found in each class file, keyed by the hash of the class file content, so that later runs of a
+ * test task do not need to read the class files that have not changed.
+ *
+ * <p>Only the details found in the class file itself are cached. Whether a class inherits from a test class is still determined on each run,
+ * as the super class may have changed. The store is tied to the detector that produced it, and only the entries used by the most recent run
+ * are kept. This class is thread-safe.</p>
+ */
+public class TestClassDetectionCache {
+    private static final Logger LOGGER = Logging.getLogger(TestClassDetectionCache.class);
+    private static final int STORE_VERSION = 1;
+
+    private final File storeFile;
+    private final String detectorKey;
+    private final FileHasher fileHasher;
+    private final Map<HashCode, ClassDetails> previousEntries;
+    private final ConcurrentMap<HashCode, ClassDetails> entries = new ConcurrentHashMap<HashCode, ClassDetails>();
+
+    private TestClassDetectionCache(File storeFile, String detectorKey, FileHasher fileHasher, Map<HashCode, ClassDetails> previousEntries) {
+        this.storeFile = storeFile;
+        this.detectorKey = detectorKey;
+        this.fileHasher = fileHasher;
+        this.previousEntries = previousEntries;
+    }
+
+    /**
+     * Loads the entries stored by a previous run. The previous entries are ignored when they were produced by a different detector.
+     *
+     * @param detectorKey Identifies the detector and its configuration.
+     */
+    public static TestClassDetectionCache load(File storeFile, String detectorKey, FileHasher fileHasher) {
+        return new TestClassDetectionCache(storeFile, detectorKey, fileHasher, read(storeFile, detectorKey));
+    }
+
+    public HashCode hash(File classFile) {
+        return fileHasher.hash(classFile);
+    }
+
+    @Nullable
+    public ClassDetails get(HashCode classFileHash) {
+        ClassDetails details = entries.get(classFileHash);
+        if (details == null) {
+            details = previousEntries.get(classFileHash);
+            if (details != null) {
+                entries.put(classFileHash, details);
+            }
+        }
+        return details;
+    }
+
+    public void put(HashCode classFileHash, ClassDetails details) {
+        entries.put(classFileHash, details);
+    }
+
+    /**
+     * Replaces the stored entries with the entries used since this cache was loaded. Does nothing when no class files were looked up.
+     */
+    public void store() {
+        if (entries.isEmpty()) {
+            return;
+        }
+        File parentDir = storeFile.getParentFile();
+        if (!parentDir.isDirectory() && !parentDir.mkdirs()) {
+            throw new UncheckedIOException(String.format("Could not create directory %s.", parentDir));
+        }
+        try {
+            OutputStream outputStream = new FileOutputStream(storeFile);
+            try {
+                FlushableEncoder encoder = new KryoBackedEncoder(outputStream);
+                encoder.writeSmallInt(STORE_VERSION);
+                encoder.writeString(detectorKey);
+                encoder.writeSmallInt(entries.size());
+                for (Map.Entry<HashCode, ClassDetails> entry : entries.entrySet()) {
+                    encoder.writeBinary(entry.getKey().toByteArray());
+                    ClassDetails details = entry.getValue();
+                    encoder.writeString(details.getClassName());
+                    encoder.writeNullableString(details.getSuperClassName());
+                    encoder.writeBoolean(details.isAbstract());
+                    encoder.writeBoolean(details.isTest());
+                }
+                encoder.flush();
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<HashCode, ClassDetails> read(File storeFile, String detectorKey) {
+        if (!storeFile.isFile()) {
+            return Collections.emptyMap();
+        }
+        try {
+            InputStream inputStream = new FileInputStream(storeFile);
+            try {
+                Decoder decoder = new KryoBackedDecoder(inputStream);
+                if (decoder.readSmallInt() != STORE_VERSION || !decoder.readString().equals(detectorKey)) {
+                    return Collections.emptyMap();
+                }
+                int count = decoder.readSmallInt();
+                Map<HashCode, ClassDetails> entries = new HashMap<HashCode, ClassDetails>(count * 2);
+                for (int i = 0; i < count; i++) {
+                    HashCode hash = HashCode.fromBytes(decoder.readBinary());
+                    String className = decoder.readString();
+                    String superClassName = decoder.readNullableString();
+                    boolean isAbstract = decoder.readBoolean();
+                    boolean isTest = decoder.readBoolean();
+                    entries.put(hash, new ClassDetails(className, superClassName, isAbstract, isTest));
+                }
+                return entries;
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not read test class detection results from {}.", storeFile, e);
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * The details of a class file that are relevant to test class detection.
+     */
+    public static class ClassDetails {
+        private final String className;
+        private final String superClassName;
+        private final boolean isAbstract;
+        private final boolean test;
+
+        public ClassDetails(String className, @Nullable String superClassName, boolean isAbstract, boolean test) {
+            this.className = className;
+            this.superClassName = superClassName;
+            this.isAbstract = isAbstract;
+            this.test = test;
+        }
+
+        /**
+         * The internal name of the class.
+         */
+        public String getClassName() {
+            return className;
+        }
+
+        /**
+         * The internal name of the super class, or null for {@code java.lang.Object}.
+         */
+        @Nullable
+        public String getSuperClassName() {
+            return superClassName;
+        }
+
+        public boolean isAbstract() {
+            return isAbstract;
+        }
+
+        /**
+         * Whether the class itself is marked as a test class, without considering its super classes.
+         */
+        public boolean isTest() {
+            return test;
+        }
+    }
+}
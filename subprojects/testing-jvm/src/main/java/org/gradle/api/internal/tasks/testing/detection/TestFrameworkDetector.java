@@ -17,6 +17,7 @@ package org.gradle.api.internal.tasks.testing.detection;
 
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Set;
 
@@ -25,7 +26,16 @@ public interface TestFrameworkDetector {
 
     boolean processTestClass(File testClassFile);
 
+    /**
+     * Returns the name of the test class in the given class file, or null when the class file does not contain a concrete test class. Unlike
+     * {@link #processTestClass(File)}, the test class is not passed to the test class processor. May be called concurrently.
+     */
+    @Nullable
+    String detectTestClass(File testClassFile);
+
     void setTestClasses(Set<File> testClasses);
 
     void setTestClasspath(Set<File> classpath);
+
+    void setDetectionCache(@Nullable TestClassDetectionCache detectionCache);
 }
@@ -21,8 +21,10 @@ import groovy.lang.Closure;
 import org.gradle.StartParameter;
 import org.gradle.api.Action;
 import org.gradle.api.Incubating;
+import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.JavaVersion;
 import org.gradle.api.NonNullApi;
+import org.gradle.api.Task;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileTreeElement;
@@ -33,14 +35,25 @@ import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
 import org.gradle.api.internal.tasks.testing.JvmTestExecutionSpec;
 import org.gradle.api.internal.tasks.testing.TestExecuter;
 import org.gradle.api.internal.tasks.testing.TestFramework;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestShard;
 import org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter;
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionCache;
+import org.gradle.api.internal.tasks.testing.detection.TestFrameworkDetector;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
+import org.gradle.api.internal.tasks.testing.impact.TestClasspathSnapshot;
+import org.gradle.api.internal.tasks.testing.impact.TestDependencyRecorder;
+import org.gradle.api.internal.tasks.testing.impact.TestImpactAgentJar;
+import org.gradle.api.internal.tasks.testing.impact.TestImpactAnalysis;
+import org.gradle.api.internal.tasks.testing.impact.TestImpactStore;
 import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassDurationStore;
 import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultSerializer;
 import org.gradle.api.tasks.testing.junitplatform.JUnitPlatformOptions;
 import org.gradle.api.internal.tasks.testing.junitplatform.JUnitPlatformTestFramework;
 import org.gradle.api.internal.tasks.testing.testng.TestNGTestFramework;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerProcessPool;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Classpath;
@@ -54,9 +67,15 @@ import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.options.Option;
 import org.gradle.api.tasks.testing.junit.JUnitOptions;
 import org.gradle.api.tasks.util.PatternFilterable;
+import org.gradle.initialization.layout.ProjectCacheDir;
 import org.gradle.internal.Actions;
 import org.gradle.internal.Cast;
 import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.jvm.UnsupportedJavaRuntimeException;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.operations.BuildOperationExecutor;
@@ -69,16 +88,19 @@ import org.gradle.process.internal.DefaultJavaForkOptions;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 import org.gradle.util.CollectionUtils;
 import org.gradle.util.ConfigureUtil;
+import org.gradle.util.GradleVersion;
 import org.gradle.util.SingleMessageLogger;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.File;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import static org.gradle.util.ConfigureUtil.configureUsing;
 
@@ -131,11 +153,55 @@ import static org.gradle.util.ConfigureUtil.configureUsing;
  * <pre>
  * gradle someTestTask --debug-jvm
  * </pre>
+ * <p>
+ * When the `testLongestFirst` project property is set to `true` and {@link #getMaxParallelForks()} is greater than 1, the test classes are handed to the
+ * test workers in order of their most recent execution time, longest first, so that the test workers finish at roughly the same time. Previously failed
+ * test classes still run first. The execution times are recorded in the project cache directory. As the test classes have to be sorted, no test class
+ * is started until all test classes have been detected.
+ * <p>
+ * By default, test classes are handed to the test workers as soon as they are detected, in the order they are detected. When some test classes
+ * failed in the previous run, those are handed to the test workers first, and the other test classes are held back only until all of the previously
+ * failed test classes have been detected.
+ * <pre>
+ * gradle someTestTask -PtestLongestFirst=true
+ * </pre>
+ * <p>
+ * The test classes can be split into a number of shards, for example to run the tests on several machines, by supplying the `testShard` project
+ * property with the shard to execute. By default, each test class is assigned to a shard using a hash of its name, so every machine computes the
+ * same split. To split the test classes into shards with roughly equal execution times instead, supply the `testShardDurations` project property
+ * with a file of test class execution times that is shared by every machine, for example a copy of the execution times recorded in the project
+ * cache directory by an unsharded run. Sharded runs do not record execution times.
+ * <pre>
+ * gradle someTestTask -PtestShard=1/4
+ * gradle someTestTask -PtestShard=1/4 -PtestShardDurations=test-durations.bin
+ * </pre>
+ * <p>
+ * When the `testImpactAnalysis` project property is set to `true`, the classes loaded by each JUnit test class are recorded, and later runs only
+ * execute the test classes that loaded a class which has changed since, as well as new and previously failed test classes. All test classes are
+ * executed when the JVM arguments, the test framework options or a file on the test runtime classpath other than a class have changed, and
+ * when a test filter is used. The test reports only contain the executed test classes.
+ * <pre>
+ * gradle someTestTask -PtestImpactAnalysis=true
+ * </pre>
+ * <p>
+ * When the `testWorkerReuse` project property is set to `true`, test worker processes are kept alive once their tests have finished, and later
+ * test workers with the same JVM arguments, environment and working directory run in them. The test classes are then loaded by an isolated
+ * ClassLoader rather than the system ClassLoader, and the system properties are restored between test workers, but other JVM-wide state is not
+ * reset. A process is discarded once a test worker running in it fails, once it has run a number of test workers, or once it retains too much heap.
+ * Test worker processes are not reused when {@link #getForkEvery()} is set or when debugging.
+ * <pre>
+ * gradle someTestTask -PtestWorkerReuse=true
+ * </pre>
 
  */
 @NonNullApi
 @CacheableTask
 public class Test extends AbstractTestTask implements JavaForkOptions, PatternFilterable {
+    private static final String TEST_LONGEST_FIRST_PROPERTY = "testLongestFirst";
+    private static final String TEST_SHARD_PROPERTY = "testShard";
+    private static final String TEST_SHARD_DURATIONS_PROPERTY = "testShardDurations";
+    private static final String TEST_IMPACT_ANALYSIS_PROPERTY = "testImpactAnalysis";
+    private static final String TEST_WORKER_REUSE_PROPERTY = "testWorkerReuse";
 
     private final DefaultJavaForkOptions forkOptions;
 
@@ -147,11 +213,33 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
     private long forkEvery;
     private int maxParallelForks = 1;
     private TestExecuter<JvmTestExecutionSpec> testExecuter;
+    private TestImpactAnalysis testImpactAnalysis;
+    private CompletionTrackingTestExecuter currentTestExecuter;
 
     public Test() {
         patternSet = getFileResolver().getPatternSetFactory().create();
         forkOptions = new DefaultJavaForkOptions(getFileResolver());
         forkOptions.setEnableAssertions(true);
+
+        getInputs().property(TEST_SHARD_PROPERTY, new Callable<String>() {
+            @Override
+            public String call() {
+                TestShard shard = getTestShard();
+                return shard == null ? null : shard.toString();
+            }
+        }).optional(true);
+        getInputs().file(new Callable<File>() {
+            @Override
+            public File call() {
+                return getTestShardDurationsFile();
+            }
+        }).withPropertyName(TEST_SHARD_DURATIONS_PROPERTY).withPathSensitivity(PathSensitivity.NONE).optional(true);
+        getOutputs().doNotCacheIf("Only the test classes affected by changes since the previous build are executed", new Spec<Task>() {
+            @Override
+            public boolean isSatisfiedBy(Task task) {
+                return isTestImpactAnalysisEnabled();
+            }
+        });
     }
 
     @Inject
@@ -551,7 +639,22 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
     protected JvmTestExecutionSpec createTestExecutionSpec() {
         DefaultJavaForkOptions javaForkOptions = new DefaultJavaForkOptions(getFileResolver());
         copyTo(javaForkOptions);
-        return new JvmTestExecutionSpec(getTestFramework(), getClasspath(), getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), javaForkOptions, getMaxParallelForks(), getPreviousFailedTestClasses());
+        Set<String> previousFailedTestClasses = getPreviousFailedTestClasses();
+        Set<String> unaffectedTestClasses = Collections.emptySet();
+        TestDependencyRecorder dependencyRecorder = null;
+        testImpactAnalysis = createTestImpactAnalysis(javaForkOptions);
+        if (testImpactAnalysis != null) {
+            File agentJar = new File(getTemporaryDir(), "test-impact-agent.jar");
+            TestImpactAgentJar.create(agentJar);
+            javaForkOptions.jvmArgs("-javaagent:" + agentJar.getAbsolutePath());
+            dependencyRecorder = testImpactAnalysis.getRecorder();
+            DefaultTestFilter filter = (DefaultTestFilter) getFilter();
+            if (filter.getIncludePatterns().isEmpty() && filter.getCommandLineIncludePatterns().isEmpty()) {
+                unaffectedTestClasses = new HashSet<String>(testImpactAnalysis.getUnaffectedTestClasses());
+                unaffectedTestClasses.removeAll(previousFailedTestClasses);
+            }
+        }
+        return new JvmTestExecutionSpec(getTestFramework(), getClasspath(), getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), javaForkOptions, getMaxParallelForks(), previousFailedTestClasses, getTestClassDurationStore().read(), isRunLongestFirst(), getTestShard(), getTestShardDurations(), unaffectedTestClasses, dependencyRecorder, getTestWorkerProcessPool(), createDetectionCache());
     }
 
     private Set<String> getPreviousFailedTestClasses() {
@@ -572,6 +675,107 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
         }
     }
 
+    private TestClassDurationStore getTestClassDurationStore() {
+        return new TestClassDurationStore(getProjectCacheFile("test-class-durations"));
+    }
+
+    @Nullable
+    private TestClassDetectionCache createDetectionCache() {
+        TestFrameworkDetector detector = getTestFramework().getDetector();
+        if (!isScanForTestClasses() || detector == null) {
+            return null;
+        }
+        String detectorKey = GradleVersion.current().getVersion() + ":" + detector.getClass().getName();
+        return TestClassDetectionCache.load(getProjectCacheFile("test-class-detection"), detectorKey, getServices().get(FileHasher.class));
+    }
+
+    private File getProjectCacheFile(String storeName) {
+        File storeDir = new File(getServices().get(ProjectCacheDir.class).getDir(), storeName);
+        String taskPath = getIdentityPath().getPath().substring(1).replace(':', '/');
+        return new File(storeDir, taskPath + ".bin");
+    }
+
+    @Nullable
+    private TestWorkerProcessPool getTestWorkerProcessPool() {
+        Object enabled = getProject().findProperty(TEST_WORKER_REUSE_PROPERTY);
+        if (enabled == null || !Boolean.parseBoolean(enabled.toString())) {
+            return null;
+        }
+        if (getForkEvery() > 0 || getDebug()) {
+            getLogger().info("Test worker processes of {} are not reused, as forkEvery or debug is set.", getPath());
+            return null;
+        }
+        return getServices().get(TestWorkerProcessPool.class);
+    }
+
+    private boolean isTestImpactAnalysisEnabled() {
+        Object enabled = getProject().findProperty(TEST_IMPACT_ANALYSIS_PROPERTY);
+        return enabled != null && Boolean.parseBoolean(enabled.toString());
+    }
+
+    @Nullable
+    private TestImpactAnalysis createTestImpactAnalysis(JavaForkOptions javaForkOptions) {
+        if (!isTestImpactAnalysisEnabled()) {
+            return null;
+        }
+        if (!(getTestFramework() instanceof JUnitTestFramework)) {
+            getLogger().warn("Test impact analysis is only supported for JUnit, all test classes of {} will be executed.", getPath());
+            return null;
+        }
+        TestClasspathSnapshot classpath = TestClasspathSnapshot.of(getClasspath(), getServices().get(FileHasher.class));
+        return new TestImpactAnalysis(new TestImpactStore(getProjectCacheFile("test-impact")), getTestImpactConfiguration(javaForkOptions), classpath);
+    }
+
+    /**
+     * Hashes the inputs other than the classpath that can change the behavior of the test classes.
+     */
+    private HashCode getTestImpactConfiguration(JavaForkOptions javaForkOptions) {
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(GradleVersion.current().getVersion());
+        hasher.putString(getJavaVersion().toString());
+        putStrings(hasher, javaForkOptions.getAllJvmArgs());
+        JUnitOptions options = ((JUnitTestFramework) getTestFramework()).getOptions();
+        putStrings(hasher, options.getIncludeCategories());
+        putStrings(hasher, options.getExcludeCategories());
+        return hasher.hash();
+    }
+
+    private static void putStrings(Hasher hasher, Collection<String> values) {
+        hasher.putInt(values.size());
+        for (String value : values) {
+            hasher.putInt(value.length());
+            hasher.putString(value);
+        }
+    }
+
+    private boolean isRunLongestFirst() {
+        Object enabled = getProject().findProperty(TEST_LONGEST_FIRST_PROPERTY);
+        return enabled != null && Boolean.parseBoolean(enabled.toString());
+    }
+
+    @Nullable
+    private TestShard getTestShard() {
+        Object shard = getProject().findProperty(TEST_SHARD_PROPERTY);
+        return shard == null ? null : TestShard.parse(shard.toString());
+    }
+
+    @Nullable
+    private File getTestShardDurationsFile() {
+        Object durationsFile = getProject().findProperty(TEST_SHARD_DURATIONS_PROPERTY);
+        return durationsFile == null || getTestShard() == null ? null : getProject().file(durationsFile);
+    }
+
+    private Map<String, Long> getTestShardDurations() {
+        File durationsFile = getTestShardDurationsFile();
+        if (durationsFile == null) {
+            return Collections.emptyMap();
+        }
+        if (!durationsFile.isFile()) {
+            throw new InvalidUserDataException(String.format("Cannot split the test classes of %s into shards using execution times from %s, as the file does not exist.", getPath(), durationsFile));
+        }
+        return new TestClassDurationStore(durationsFile).read();
+    }
+
     @TaskAction
     public void executeTests() {
         JavaVersion javaVersion = getJavaVersion();
@@ -583,13 +787,39 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
             super.executeTests();
         } finally {
             testFramework = null;
+            if (testImpactAnalysis != null) {
+                testImpactAnalysis.storeDependencies();
+                testImpactAnalysis = null;
+            }
+            recordTestClassDurations();
+        }
+    }
+
+    /**
+     * Records the execution times of the test classes, unless only some of the test classes were executed because the tests were sharded or
+     * because test execution did not run to completion.
+     */
+    private void recordTestClassDurations() {
+        CompletionTrackingTestExecuter executer = currentTestExecuter;
+        currentTestExecuter = null;
+        if (executer == null || !executer.isCompleted() || getTestShard() != null) {
+            return;
+        }
+        TestResultSerializer results = new TestResultSerializer(getBinResultsDir());
+        if (results.isHasResults()) {
+            getTestClassDurationStore().update(results);
         }
     }
 
     @Override
     protected TestExecuter<JvmTestExecutionSpec> createTestExecuter() {
+        currentTestExecuter = new CompletionTrackingTestExecuter(createDelegateTestExecuter());
+        return currentTestExecuter;
+    }
+
+    private TestExecuter<JvmTestExecutionSpec> createDelegateTestExecuter() {
         if (testExecuter == null) {
-            return new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory(), getModuleRegistry(),
+            return new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory(), getServices().get(ExecutorFactory.class), getModuleRegistry(),
                 getServices().get(WorkerLeaseRegistry.class),
                 getServices().get(BuildOperationExecutor.class),
                 getServices().get(StartParameter.class).getMaxWorkerCount(),
@@ -1059,4 +1289,33 @@ public class Test extends AbstractTestTask implements JavaForkOptions, PatternFi
     void setTestExecuter(TestExecuter<JvmTestExecutionSpec> testExecuter) {
         this.testExecuter = testExecuter;
     }
+
+    /**
+     * Tracks whether test execution ran to completion, rather than failing or being stopped early.
+     */
+    private static class CompletionTrackingTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
+        private final TestExecuter<JvmTestExecutionSpec> delegate;
+        private boolean executed;
+        private volatile boolean stopped;
+
+        CompletionTrackingTestExecuter(TestExecuter<JvmTestExecutionSpec> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(JvmTestExecutionSpec testExecutionSpec, TestResultProcessor testResultProcessor) {
+            delegate.execute(testExecutionSpec, testResultProcessor);
+            executed = true;
+        }
+
+        @Override
+        public void stopNow() {
+            stopped = true;
+            delegate.stopNow();
+        }
+
+        boolean isCompleted() {
+            return executed && !stopped;
+        }
+    }
 }
@@ -23,6 +23,8 @@ import org.gradle.api.file.FileVisitor
 import org.gradle.api.file.RelativePath
 import org.gradle.api.internal.file.DefaultFileVisitDetails
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.junit.Test
 import spock.lang.Specification
 
@@ -75,6 +77,40 @@ class DefaultTestClassScannerTest extends Specification {
         0 * _._
     }
 
+    @Test
+    void detectsClassesInParallelAndPassesTestClassesToProcessorInVisitOrder() {
+        def executorFactory = new DefaultExecutorFactory()
+        def published = []
+        DefaultTestClassScanner scanner = new DefaultTestClassScanner(files, detector, processor, executorFactory, 4)
+
+        when:
+        scanner.run()
+
+        then:
+        1 * detector.startDetection(processor)
+        then:
+        1 * files.visit(_) >> { args ->
+            FileVisitor visitor = args[0]
+            for (int i = 1; i <= 20; i++) {
+                visitor.visitFile(mockFileVisitDetails("class$i"))
+            }
+        }
+        20 * detector.detectTestClass(_) >> { File file ->
+            def name = file.name - '.class'
+            // Finish the class files out of order
+            Thread.sleep(20 - (name - 'class').toInteger())
+            return name == 'class7' ? null : name
+        }
+        _ * processor.processTestClass(_) >> { TestClassRunInfo testClass -> published << testClass.testClassName }
+        0 * _._
+
+        and:
+        published == (1..20).findAll { it != 7 }.collect { "class$it" }
+
+        cleanup:
+        executorFactory.stop()
+    }
+
     FileVisitDetails mockFileVisitDetails(String className) {
         return new DefaultFileVisitDetails(new File("${className}.class"), new RelativePath(false, "${className}.class"), null, null, null)
     }
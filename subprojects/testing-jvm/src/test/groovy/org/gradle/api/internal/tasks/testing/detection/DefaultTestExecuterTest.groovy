@@ -0,0 +1,177 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.api.Action
+import org.gradle.api.file.FileCollection
+import org.gradle.api.file.FileTree
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.api.internal.file.AbstractFileTree
+import org.gradle.api.internal.classpath.ModuleRegistry
+import org.gradle.api.internal.file.DefaultFileVisitDetails
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.JvmTestExecutionSpec
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestFramework
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
+import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter
+import org.gradle.api.internal.tasks.testing.worker.RemoteTestClassProcessor
+import org.gradle.internal.actor.internal.DefaultActorFactory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.operations.BuildOperationRef
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.remote.ObjectConnection
+import org.gradle.internal.time.Time
+import org.gradle.internal.work.WorkerLeaseRegistry
+import org.gradle.process.JavaForkOptions
+import org.gradle.process.internal.JavaExecHandleBuilder
+import org.gradle.process.internal.worker.WorkerProcess
+import org.gradle.process.internal.worker.WorkerProcessBuilder
+import org.gradle.process.internal.worker.WorkerProcessFactory
+import org.gradle.util.Path
+import spock.lang.Specification
+
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+class DefaultTestExecuterTest extends Specification {
+    def executorFactory = new DefaultExecutorFactory()
+    def dispatched = new LinkedBlockingQueue<String>()
+    def remoteProcessor = Stub(RemoteTestClassProcessor) {
+        processTestClass(_) >> { TestClassRunInfo testClass -> dispatched.add(testClass.testClassName) }
+    }
+    def workerProcessFactory = Stub(WorkerProcessFactory) {
+        create(_) >> Stub(WorkerProcessBuilder) {
+            getJavaCommand() >> Stub(JavaExecHandleBuilder)
+            build() >> Stub(WorkerProcess) {
+                getConnection() >> Stub(ObjectConnection) {
+                    addOutgoing(RemoteTestClassProcessor) >> remoteProcessor
+                }
+            }
+        }
+    }
+    def buildOperationExecutor = Stub(BuildOperationExecutor) {
+        getCurrentOperation() >> Stub(BuildOperationRef) {
+            getParentId() >> new OperationIdentifier(1)
+        }
+    }
+    def detector = new PausingTestFrameworkDetector()
+    def testFramework = Stub(TestFramework) {
+        getDetector() >> detector
+        getProcessorFactory() >> Stub(WorkerTestClassProcessorFactory)
+        getWorkerConfigurationAction() >> Stub(Action)
+    }
+    def candidateClassFiles = new ClassFileTree("Test1", "Test2")
+    def executer = new DefaultTestExecuter(workerProcessFactory, new DefaultActorFactory(executorFactory), executorFactory, Stub(ModuleRegistry),
+        Stub(WorkerLeaseRegistry), buildOperationExecutor, 1, Time.clock(), new DocumentationRegistry(), new DefaultTestFilter())
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "hands the first test class to a test worker before all test classes have been detected"() {
+        given:
+        String dispatchedBeforeScanCompleted = null
+        detector.beforeDetecting = { String testClassName ->
+            if (testClassName == "Test2") {
+                dispatchedBeforeScanCompleted = dispatched.poll(10, TimeUnit.SECONDS)
+            }
+        }
+
+        when:
+        executer.execute(spec(previousFailedTestClasses), Stub(TestResultProcessor))
+
+        then:
+        dispatchedBeforeScanCompleted == "Test1"
+        dispatched.toList() == ["Test2"]
+
+        where:
+        previousFailedTestClasses << [[] as Set, ["Test1"] as Set]
+    }
+
+    private JvmTestExecutionSpec spec(Set<String> previousFailedTestClasses) {
+        def testClassesDirs = Stub(FileCollection) {
+            getFiles() >> ([] as Set)
+        }
+        return new JvmTestExecutionSpec(testFramework, [], candidateClassFiles, true, testClassesDirs, ":test", Path.path(":test"), 0,
+            Stub(JavaForkOptions), 1, previousFailedTestClasses, [:], false, null, [:], [] as Set, null, null, null)
+    }
+
+    /**
+     * A real file tree and detector rather than stubs, so that the scan can wait for the test worker without holding the mock controller.
+     */
+    private static class PausingTestFrameworkDetector implements TestFrameworkDetector {
+        Closure beforeDetecting = {}
+        private TestClassProcessor testClassProcessor
+
+        @Override
+        void startDetection(TestClassProcessor testClassProcessor) {
+            this.testClassProcessor = testClassProcessor
+        }
+
+        @Override
+        boolean processTestClass(File testClassFile) {
+            def testClassName = testClassFile.name - ".class"
+            beforeDetecting(testClassName)
+            testClassProcessor.processTestClass(new DefaultTestClassRunInfo(testClassName))
+            return true
+        }
+
+        @Override
+        String detectTestClass(File testClassFile) {
+            return testClassFile.name - ".class"
+        }
+
+        @Override
+        void setTestClasses(Set<File> testClasses) {
+        }
+
+        @Override
+        void setTestClasspath(Set<File> classpath) {
+        }
+
+        @Override
+        void setDetectionCache(TestClassDetectionCache detectionCache) {
+        }
+    }
+
+    private static class ClassFileTree extends AbstractFileTree {
+        private final List<String> classNames
+
+        ClassFileTree(String... classNames) {
+            this.classNames = classNames as List
+        }
+
+        @Override
+        String getDisplayName() {
+            return "class files"
+        }
+
+        @Override
+        FileTree visit(FileVisitor visitor) {
+            classNames.each {
+                visitor.visitFile(new DefaultFileVisitDetails(new File("${it}.class"), new RelativePath(true, "${it}.class"), null, null, null))
+            }
+            return this
+        }
+    }
+}
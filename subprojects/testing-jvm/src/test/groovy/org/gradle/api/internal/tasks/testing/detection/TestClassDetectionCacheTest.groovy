@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.internal.hash.FileHasher
+import org.gradle.internal.hash.HashCode
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestClassDetectionCacheTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def fileHasher = Mock(FileHasher)
+    def storeFile = tmpDir.file("store.bin")
+    def hash1 = HashCode.fromInt(1)
+    def hash2 = HashCode.fromInt(2)
+
+    def "stores the entries used by a run"() {
+        def cache = TestClassDetectionCache.load(storeFile, "detector", fileHasher)
+
+        when:
+        cache.put(hash1, new TestClassDetectionCache.ClassDetails("org/SomeTest", "org/BaseTest", false, true))
+        cache.put(hash2, new TestClassDetectionCache.ClassDetails("org/Base", null, true, false))
+        cache.store()
+        def loaded = TestClassDetectionCache.load(storeFile, "detector", fileHasher)
+
+        then:
+        def someTest = loaded.get(hash1)
+        someTest.className == "org/SomeTest"
+        someTest.superClassName == "org/BaseTest"
+        !someTest.isAbstract()
+        someTest.test
+
+        and:
+        def base = loaded.get(hash2)
+        base.className == "org/Base"
+        base.superClassName == null
+        base.isAbstract()
+        !base.test
+    }
+
+    def "drops entries that were not used by the most recent run"() {
+        def cache = TestClassDetectionCache.load(storeFile, "detector", fileHasher)
+        cache.put(hash1, new TestClassDetectionCache.ClassDetails("org/SomeTest", null, false, true))
+        cache.put(hash2, new TestClassDetectionCache.ClassDetails("org/OtherTest", null, false, true))
+        cache.store()
+
+        when:
+        def secondRun = TestClassDetectionCache.load(storeFile, "detector", fileHasher)
+        secondRun.get(hash1)
+        secondRun.store()
+        def loaded = TestClassDetectionCache.load(storeFile, "detector", fileHasher)
+
+        then:
+        loaded.get(hash1).className == "org/SomeTest"
+        loaded.get(hash2) == null
+    }
+
+    def "ignores entries of a different detector"() {
+        def cache = TestClassDetectionCache.load(storeFile, "detector", fileHasher)
+        cache.put(hash1, new TestClassDetectionCache.ClassDetails("org/SomeTest", null, false, true))
+        cache.store()
+
+        expect:
+        TestClassDetectionCache.load(storeFile, "other", fileHasher).get(hash1) == null
+    }
+
+    def "ignores store that cannot be read"() {
+        storeFile.text = "broken"
+
+        expect:
+        TestClassDetectionCache.load(storeFile, "detector", fileHasher).get(hash1) == null
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.gradle.api.Action;
+import org.gradle.internal.classloader.ClasspathHasher;
+import org.gradle.internal.classloader.ClasspathUtil;
+import org.gradle.internal.classloader.DefaultClassLoaderFactory;
+import org.gradle.internal.classpath.ClassPath;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.BuildOperationWorker;
+import org.gradle.internal.operations.CallableBuildOperation;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.work.WorkerLeaseRegistry;
+import org.gradle.process.internal.health.memory.JvmMemoryStatusListener;
+import org.gradle.process.internal.health.memory.MemoryHolder;
+import org.gradle.process.internal.health.memory.MemoryManager;
+import org.gradle.process.internal.health.memory.OsMemoryStatusListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a large number of trivial work items in an isolated ClassLoader, either one at a time as {@link org.gradle.workers.WorkerExecutor#submit} does,
+ * or in batches as {@link org.gradle.workers.WorkerExecutor#submitAll} does, to measure the overhead the worker infrastructure adds to each work item.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class WorkerBatchSubmissionBenchmark {
+
+    @Param({"1000"})
+    int itemCount;
+
+    @Param({"100"})
+    int batchSize;
+
+    IsolatedClassloaderWorkerFactory workerFactory;
+    Worker worker;
+    List<ActionExecutionSpec> specs;
+    List<ActionExecutionBatch> batches;
+
+    @Setup(Level.Trial)
+    public void setupWorker() {
+        workerFactory = new IsolatedClassloaderWorkerFactory(new DefaultClassLoaderFactory(), new PathBasedClasspathHasher(), new NoOpMemoryManager(), null, new InlineBuildOperationExecutor());
+        ClassPath classpath = ClasspathUtil.getClasspath(NoOpAction.class.getClassLoader());
+        DaemonForkOptions forkOptions = new DaemonForkOptions(null, classpath.getAsFiles(), ImmutableList.of("javax.inject", NoOpAction.class.getPackage().getName()), KeepAliveMode.SESSION);
+        worker = workerFactory.getWorker(forkOptions);
+
+        specs = new ArrayList<ActionExecutionSpec>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            specs.add(new SerializingActionExecutionSpec(NoOpAction.class, "item " + i, null, new Object[]{"item " + i}));
+        }
+        batches = new ArrayList<ActionExecutionBatch>();
+        for (List<ActionExecutionSpec> batch : Lists.partition(specs, batchSize)) {
+            batches.add(new ActionExecutionBatch(new ArrayList<ActionExecutionSpec>(batch)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopWorker() {
+        workerFactory.stop();
+    }
+
+    @Benchmark
+    public void submitIndividually(Blackhole blackhole) {
+        for (ActionExecutionSpec spec : specs) {
+            blackhole.consume(worker.execute(spec, NoOpWorkerLease.INSTANCE, null));
+        }
+    }
+
+    @Benchmark
+    public void submitInBatches(Blackhole blackhole) {
+        for (ActionExecutionBatch batch : batches) {
+            blackhole.consume(worker.executeBatch(batch, NoOpWorkerLease.INSTANCE, null));
+        }
+    }
+
+    public static class NoOpAction implements Runnable {
+        private final String name;
+
+        @Inject
+        public NoOpAction(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException();
+            }
+        }
+    }
+
+    private static class PathBasedClasspathHasher implements ClasspathHasher {
+        @Override
+        public HashCode hash(ClassPath classpath) {
+            return HashCode.fromInt(classpath.getAsFiles().hashCode());
+        }
+    }
+
+    private static class NoOpMemoryManager implements MemoryManager {
+        @Override
+        public void addListener(JvmMemoryStatusListener listener) {
+        }
+
+        @Override
+        public void addListener(OsMemoryStatusListener listener) {
+        }
+
+        @Override
+        public void removeListener(JvmMemoryStatusListener listener) {
+        }
+
+        @Override
+        public void removeListener(OsMemoryStatusListener listener) {
+        }
+
+        @Override
+        public void addMemoryHolder(MemoryHolder holder) {
+        }
+
+        @Override
+        public void removeMemoryHolder(MemoryHolder holder) {
+        }
+
+        @Override
+        public void requestFreeMemory(long memoryAmountBytes) {
+        }
+    }
+
+    private static class NoOpWorkerLease implements WorkerLeaseRegistry.WorkerLease, WorkerLeaseRegistry.WorkerLeaseCompletion {
+        static final NoOpWorkerLease INSTANCE = new NoOpWorkerLease();
+
+        @Override
+        public WorkerLeaseRegistry.WorkerLease createChild() {
+            return this;
+        }
+
+        @Override
+        public WorkerLeaseRegistry.WorkerLeaseCompletion startChild() {
+            return this;
+        }
+
+        @Override
+        public void leaseFinish() {
+        }
+
+        @Override
+        public boolean isLocked() {
+            return true;
+        }
+
+        @Override
+        public boolean isLockedByCurrentThread() {
+            return true;
+        }
+
+        @Override
+        public boolean tryLock() {
+            return true;
+        }
+
+        @Override
+        public void unlock() {
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "worker lease";
+        }
+    }
+
+    /**
+     * Runs each build operation in the calling thread, without any progress reporting.
+     */
+    private static class InlineBuildOperationExecutor implements BuildOperationExecutor {
+        @Override
+        public void run(RunnableBuildOperation buildOperation) {
+            buildOperation.run(null);
+        }
+
+        @Override
+        public <T> T call(CallableBuildOperation<T> buildOperation) {
+            return buildOperation.call(null);
+        }
+
+        @Override
+        public <O extends RunnableBuildOperation> void runAll(Action<BuildOperationQueue<O>> schedulingAction) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <O extends BuildOperation> void runAll(BuildOperationWorker<O> worker, Action<BuildOperationQueue<O>> schedulingAction) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public BuildOperationRef getCurrentOperation() {
+            return null;
+        }
+    }
+}
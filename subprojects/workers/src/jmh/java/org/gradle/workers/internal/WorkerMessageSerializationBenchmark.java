@@ -0,0 +1,197 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.workers.internal;
+
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.DefaultBuildOperationRef;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.remote.ObjectConnectionBuilder;
+import org.gradle.internal.serialize.Message;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.SerializerRegistry;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.process.internal.worker.request.Request;
+import org.gradle.process.internal.worker.request.RequestSerializers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the encoding of the messages sent to and received from a worker daemon using Java serialization, as they used to be, and using the worker daemon serializers.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class WorkerMessageSerializationBenchmark {
+    private static final BuildOperationRef BUILD_OPERATION = new DefaultBuildOperationRef(new OperationIdentifier(12), new OperationIdentifier(3));
+
+    @Param({"java", "serializers"})
+    String encoding;
+
+    @Param({"1", "100"})
+    int workItems;
+
+    MessageCodec<Request> requests;
+    MessageCodec<Object> results;
+    Request request;
+    Object result;
+    ByteArrayOutputStream buffer;
+
+    @Setup
+    public void setup() {
+        List<ActionExecutionSpec> specs = new ArrayList<ActionExecutionSpec>();
+        List<DefaultWorkResult> workResults = new ArrayList<DefaultWorkResult>();
+        for (int i = 0; i < workItems; i++) {
+            specs.add(new SerializingActionExecutionSpec(NoOpAction.class, "work item " + i, new File("work-dir"), new Object[]{"item " + i, new File("input-" + i)}));
+            workResults.add(new DefaultWorkResult(true, null));
+        }
+        if (workItems == 1) {
+            request = new Request("execute", new Class<?>[]{WorkSpec.class}, new Object[]{specs.get(0)}, BUILD_OPERATION);
+            result = workResults.get(0);
+        } else {
+            request = new Request("executeBatch", new Class<?>[]{ActionExecutionBatch.class}, new Object[]{new ActionExecutionBatch(specs)}, BUILD_OPERATION);
+            result = workResults;
+        }
+
+        if (encoding.equals("java")) {
+            requests = new JavaSerializationRequestCodec();
+            results = new JavaSerializationResultCodec();
+        } else {
+            CapturingConnectionBuilder connection = new CapturingConnectionBuilder();
+            RequestSerializers.useFor(connection, new WorkerDaemonMessageSerializer().create(), getClass().getClassLoader());
+            requests = new SerializerCodec<Request>(connection.registries.get(0).build(Request.class));
+            results = new SerializerCodec<Object>(connection.registries.get(1).build(Object.class));
+        }
+        buffer = new ByteArrayOutputStream();
+    }
+
+    @Benchmark
+    public Request request() throws Exception {
+        buffer.reset();
+        requests.write(buffer, request);
+        return requests.read(new ByteArrayInputStream(buffer.toByteArray()));
+    }
+
+    @Benchmark
+    public Object result() throws Exception {
+        buffer.reset();
+        results.write(buffer, result);
+        return results.read(new ByteArrayInputStream(buffer.toByteArray()));
+    }
+
+    private interface MessageCodec<T> {
+        void write(ByteArrayOutputStream outputStream, T message) throws Exception;
+
+        T read(ByteArrayInputStream inputStream) throws Exception;
+    }
+
+    /**
+     * Encodes the arguments of a request as they used to be, when the whole argument array was written using Java serialization.
+     */
+    private static class JavaSerializationRequestCodec implements MessageCodec<Request> {
+        @Override
+        public void write(ByteArrayOutputStream outputStream, Request message) throws Exception {
+            Message.send(new Object[]{message.getMethodName(), message.getParamTypes(), message.getArgs(), message.getBuildOperation()}, outputStream);
+        }
+
+        @Override
+        public Request read(ByteArrayInputStream inputStream) throws Exception {
+            Object[] args = (Object[]) Message.receive(inputStream, getClass().getClassLoader());
+            return new Request((String) args[0], (Class<?>[]) args[1], (Object[]) args[2], (BuildOperationRef) args[3]);
+        }
+    }
+
+    private static class JavaSerializationResultCodec implements MessageCodec<Object> {
+        @Override
+        public void write(ByteArrayOutputStream outputStream, Object message) throws Exception {
+            Message.send(new Object[]{message}, outputStream);
+        }
+
+        @Override
+        public Object read(ByteArrayInputStream inputStream) throws Exception {
+            return ((Object[]) Message.receive(inputStream, getClass().getClassLoader()))[0];
+        }
+    }
+
+    private static class SerializerCodec<T> implements MessageCodec<T> {
+        private final Serializer<T> serializer;
+
+        SerializerCodec(Serializer<T> serializer) {
+            this.serializer = serializer;
+        }
+
+        @Override
+        public void write(ByteArrayOutputStream outputStream, T message) throws Exception {
+            KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+            serializer.write(encoder, message);
+            encoder.flush();
+        }
+
+        @Override
+        public T read(ByteArrayInputStream inputStream) throws Exception {
+            return serializer.read(new KryoBackedDecoder(inputStream));
+        }
+    }
+
+    private static class CapturingConnectionBuilder implements ObjectConnectionBuilder {
+        final List<SerializerRegistry> registries = new ArrayList<SerializerRegistry>();
+
+        @Override
+        public <T> T addOutgoing(Class<T> type) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> void addIncoming(Class<T> type, T instance) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void useJavaSerializationForParameters(ClassLoader incomingMessageClassLoader) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void useParameterSerializers(SerializerRegistry serializers) {
+            registries.add(serializers);
+        }
+    }
+
+    public static class NoOpAction implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+}
@@ -56,6 +56,20 @@ public interface WorkerExecutor {
      */
     void submit(Class<? extends Runnable> actionClass, Action<? super WorkerConfiguration> configAction);
 
+    /**
+     * Submits a batch of work items to be executed asynchronously, each of them implemented by the given class and configured
+     * by one of the given actions.
+     *
+     * This behaves as if each work item was submitted using {@link #submit(Class, Action)}, but is cheaper when submitting a large number
+     * of small work items. Work items that can run in the same worker are grouped and handed to the worker together, rather than one at a time.
+     * Each work item still succeeds or fails on its own, and any errors will be thrown from {@link #await()} or from the surrounding task
+     * action if {@link #await()} is not used.
+     *
+     * @since 4.8
+     */
+    @Incubating
+    void submitAll(Class<? extends Runnable> actionClass, Iterable<? extends Action<? super WorkerConfiguration>> configActions);
+
     /**
      * Blocks until all work associated with the current build operation is complete.  Note that when using this method inside
      * a task action, it will block completion of the task action until all submitted work is complete.  This means that other
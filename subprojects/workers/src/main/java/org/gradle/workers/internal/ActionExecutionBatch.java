@@ -0,0 +1,50 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal;
+
+import org.gradle.api.Describable;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A number of work items that are handed to a worker together, and executed one after the other.
+ */
+public class ActionExecutionBatch implements Describable, Serializable {
+    private final List<ActionExecutionSpec> specs;
+
+    public ActionExecutionBatch(List<ActionExecutionSpec> specs) {
+        if (specs.isEmpty()) {
+            throw new IllegalArgumentException("A batch requires at least one work item.");
+        }
+        this.specs = specs;
+    }
+
+    public List<ActionExecutionSpec> getSpecs() {
+        return specs;
+    }
+
+    public int size() {
+        return specs.size();
+    }
+
+    @Override
+    public String getDisplayName() {
+        String firstDisplayName = specs.get(0).getDisplayName();
+        return specs.size() == 1 ? firstDisplayName : firstDisplayName + " (and " + (specs.size() - 1) + " more work items)";
+    }
+}
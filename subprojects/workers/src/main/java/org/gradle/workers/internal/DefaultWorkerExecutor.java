@@ -16,7 +16,10 @@
 
 package org.gradle.workers.internal;
 
+import com.google.common.base.Function;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
@@ -27,6 +30,7 @@ import org.gradle.internal.UncheckedException;
 import org.gradle.internal.classloader.ClasspathUtil;
 import org.gradle.internal.classloader.FilteringClassLoader;
 import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ParallelismConfigurationManager;
 import org.gradle.internal.exceptions.Contextual;
 import org.gradle.internal.exceptions.DefaultMultiCauseException;
 import org.gradle.internal.operations.BuildOperationExecutor;
@@ -46,12 +50,18 @@ import org.gradle.workers.WorkerExecutionException;
 import org.gradle.workers.WorkerExecutor;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
 public class DefaultWorkerExecutor implements WorkerExecutor {
+    /**
+     * The maximum number of work items handed to a worker at once by {@link #submitAll(Class, Iterable)}.
+     */
+    static final int MAX_BATCH_SIZE = 100;
+
     private final ListeningExecutorService executor;
     private final WorkerFactory daemonWorkerFactory;
     private final WorkerFactory isolatedClassloaderWorkerFactory;
@@ -61,10 +71,11 @@ public class DefaultWorkerExecutor implements WorkerExecutor {
     private final BuildOperationExecutor buildOperationExecutor;
     private final AsyncWorkTracker asyncWorkTracker;
     private final WorkerDirectoryProvider workerDirectoryProvider;
+    private final ParallelismConfigurationManager parallelismConfigurationManager;
 
     public DefaultWorkerExecutor(WorkerFactory daemonWorkerFactory, WorkerFactory isolatedClassloaderWorkerFactory, WorkerFactory noIsolationWorkerFactory,
                                  FileResolver fileResolver, ExecutorFactory executorFactory, WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor,
-                                 AsyncWorkTracker asyncWorkTracker, WorkerDirectoryProvider workerDirectoryProvider) {
+                                 AsyncWorkTracker asyncWorkTracker, WorkerDirectoryProvider workerDirectoryProvider, ParallelismConfigurationManager parallelismConfigurationManager) {
         this.daemonWorkerFactory = daemonWorkerFactory;
         this.isolatedClassloaderWorkerFactory = isolatedClassloaderWorkerFactory;
         this.noIsolationWorkerFactory = noIsolationWorkerFactory;
@@ -74,23 +85,58 @@ public class DefaultWorkerExecutor implements WorkerExecutor {
         this.buildOperationExecutor = buildOperationExecutor;
         this.asyncWorkTracker = asyncWorkTracker;
         this.workerDirectoryProvider = workerDirectoryProvider;
+        this.parallelismConfigurationManager = parallelismConfigurationManager;
     }
 
     @Override
     public void submit(Class<? extends Runnable> actionClass, Action<? super WorkerConfiguration> configAction) {
         WorkerConfiguration configuration = new DefaultWorkerConfiguration(fileResolver);
         configAction.execute(configuration);
+        submit(createSpec(actionClass, configuration), configuration.getIsolationMode(), getDaemonForkOptions(actionClass, configuration));
+    }
+
+    @Override
+    public void submitAll(Class<? extends Runnable> actionClass, Iterable<? extends Action<? super WorkerConfiguration>> configActions) {
+        // Group the work items that can run in the same worker
+        List<WorkItemGroup> groups = new ArrayList<WorkItemGroup>();
+        for (Action<? super WorkerConfiguration> configAction : configActions) {
+            WorkerConfiguration configuration = new DefaultWorkerConfiguration(fileResolver);
+            configAction.execute(configuration);
+            ActionExecutionSpec spec = createSpec(actionClass, configuration);
+            DaemonForkOptions daemonForkOptions = getDaemonForkOptions(actionClass, configuration);
+            findOrAddGroup(groups, configuration.getIsolationMode(), daemonForkOptions).specs.add(spec);
+        }
+
+        // Split each group into batches, so that the work items can still run in parallel
+        int maxWorkerCount = parallelismConfigurationManager.getParallelismConfiguration().getMaxWorkerCount();
+        for (WorkItemGroup group : groups) {
+            int batchSize = Math.min(MAX_BATCH_SIZE, (group.specs.size() + maxWorkerCount - 1) / maxWorkerCount);
+            for (List<ActionExecutionSpec> specs : Lists.partition(group.specs, batchSize)) {
+                submit(new ActionExecutionBatch(new ArrayList<ActionExecutionSpec>(specs)), group.isolationMode, group.daemonForkOptions);
+            }
+        }
+    }
+
+    private ActionExecutionSpec createSpec(Class<? extends Runnable> actionClass, WorkerConfiguration configuration) {
         String description = configuration.getDisplayName() != null ? configuration.getDisplayName() : actionClass.getName();
 
         // Serialize parameters in this thread prior to starting work in a separate thread
-        ActionExecutionSpec spec;
         try {
-            spec = new SerializingActionExecutionSpec(actionClass, description, configuration.getForkOptions().getWorkingDir(), configuration.getParams());
+            return new SerializingActionExecutionSpec(actionClass, description, configuration.getForkOptions().getWorkingDir(), configuration.getParams());
         } catch (Throwable t) {
             throw new WorkExecutionException(description, t);
         }
+    }
 
-        submit(spec, configuration.getIsolationMode(), getDaemonForkOptions(actionClass, configuration));
+    private static WorkItemGroup findOrAddGroup(List<WorkItemGroup> groups, IsolationMode isolationMode, DaemonForkOptions daemonForkOptions) {
+        for (WorkItemGroup group : groups) {
+            if (group.isolationMode == isolationMode && group.daemonForkOptions.isCompatibleWith(daemonForkOptions)) {
+                return group;
+            }
+        }
+        WorkItemGroup group = new WorkItemGroup(isolationMode, daemonForkOptions);
+        groups.add(group);
+        return group;
     }
 
     private void submit(final ActionExecutionSpec spec, final IsolationMode isolationMode, final DaemonForkOptions daemonForkOptions) {
@@ -111,6 +157,37 @@ public class DefaultWorkerExecutor implements WorkerExecutor {
         registerAsyncWork(spec.getDisplayName(), workerDaemonResult);
     }
 
+    private void submit(final ActionExecutionBatch batch, final IsolationMode isolationMode, final DaemonForkOptions daemonForkOptions) {
+        final WorkerLease currentWorkerWorkerLease = getCurrentWorkerLease();
+        final BuildOperationRef currentBuildOperation = buildOperationExecutor.getCurrentOperation();
+        ListenableFuture<List<DefaultWorkResult>> batchResult = executor.submit(new Callable<List<DefaultWorkResult>>() {
+            @Override
+            public List<DefaultWorkResult> call() {
+                try {
+                    WorkerFactory workerFactory = getWorkerFactory(isolationMode);
+                    Worker worker = workerFactory.getWorker(daemonForkOptions);
+                    return worker.executeBatch(batch, currentWorkerWorkerLease, currentBuildOperation);
+                } catch (Throwable t) {
+                    // Report the failure against each work item of the batch
+                    List<DefaultWorkResult> results = new ArrayList<DefaultWorkResult>(batch.size());
+                    for (int i = 0; i < batch.size(); i++) {
+                        results.add(new DefaultWorkResult(true, t));
+                    }
+                    return results;
+                }
+            }
+        });
+        for (int i = 0; i < batch.size(); i++) {
+            final int index = i;
+            registerAsyncWork(batch.getSpecs().get(i).getDisplayName(), Futures.lazyTransform(batchResult, new Function<List<DefaultWorkResult>, DefaultWorkResult>() {
+                @Override
+                public DefaultWorkResult apply(List<DefaultWorkResult> results) {
+                    return results.get(index);
+                }
+            }));
+        }
+    }
+
     private WorkerLease getCurrentWorkerLease() {
         try {
             return workerLeaseRegistry.getCurrentWorkerLease();
@@ -268,6 +345,17 @@ public class DefaultWorkerExecutor implements WorkerExecutor {
         }
     }
 
+    private static class WorkItemGroup {
+        private final IsolationMode isolationMode;
+        private final DaemonForkOptions daemonForkOptions;
+        private final List<ActionExecutionSpec> specs = new ArrayList<ActionExecutionSpec>();
+
+        WorkItemGroup(IsolationMode isolationMode, DaemonForkOptions daemonForkOptions) {
+            this.isolationMode = isolationMode;
+            this.daemonForkOptions = daemonForkOptions;
+        }
+    }
+
     @Contextual
     private static class WorkExecutionException extends RuntimeException {
         WorkExecutionException(String description, Throwable cause) {
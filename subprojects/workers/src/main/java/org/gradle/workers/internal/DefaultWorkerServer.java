@@ -20,6 +20,8 @@ import org.gradle.api.tasks.WorkResult;
 import org.gradle.internal.reflect.Instantiator;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 public class DefaultWorkerServer implements WorkerProtocol<ActionExecutionSpec> {
@@ -55,6 +57,15 @@ public class DefaultWorkerServer implements WorkerProtocol<ActionExecutionSpec>
         }
     }
 
+    @Override
+    public List<DefaultWorkResult> executeBatch(ActionExecutionBatch batch) {
+        List<DefaultWorkResult> results = new ArrayList<DefaultWorkResult>(batch.size());
+        for (ActionExecutionSpec spec : batch.getSpecs()) {
+            results.add(execute(spec));
+        }
+        return results;
+    }
+
     @Override
     public String toString() {
         return "DefaultWorkerServer{}";
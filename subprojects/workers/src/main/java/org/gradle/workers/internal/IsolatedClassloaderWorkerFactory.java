@@ -18,19 +18,12 @@ package org.gradle.workers.internal;
 
 import org.gradle.api.internal.AsmBackedClassGenerator;
 import org.gradle.api.internal.DefaultInstantiatorFactory;
-import org.gradle.api.internal.classloading.GroovySystemLoader;
-import org.gradle.api.internal.classloading.GroovySystemLoaderFactory;
-import org.gradle.api.logging.LogLevel;
-import org.gradle.api.logging.Logger;
 import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
+import org.gradle.internal.Cast;
 import org.gradle.internal.UncheckedException;
-import org.gradle.internal.classloader.CachingClassLoader;
 import org.gradle.internal.classloader.ClassLoaderFactory;
-import org.gradle.internal.classloader.ClasspathUtil;
-import org.gradle.internal.classloader.FilteringClassLoader;
-import org.gradle.internal.classloader.MultiParentClassLoader;
-import org.gradle.internal.classloader.VisitableURLClassLoader;
-import org.gradle.internal.classpath.DefaultClassPath;
+import org.gradle.internal.classloader.ClasspathHasher;
+import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.DefaultListenerManager;
 import org.gradle.internal.io.ClassLoaderObjectInputStream;
 import org.gradle.internal.operations.BuildOperationContext;
@@ -42,6 +35,7 @@ import org.gradle.internal.serialize.ExceptionReplacingObjectInputStream;
 import org.gradle.internal.serialize.ExceptionReplacingObjectOutputStream;
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.internal.work.WorkerLeaseRegistry.WorkerLease;
+import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.util.GUtil;
 import org.gradle.workers.IsolationMode;
 
@@ -51,19 +45,22 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.List;
 import java.util.concurrent.Callable;
 
-public class IsolatedClassloaderWorkerFactory implements WorkerFactory {
+public class IsolatedClassloaderWorkerFactory implements WorkerFactory, Stoppable {
 
-    private final ClassLoaderFactory classLoaderFactory;
     private final WorkerLeaseRegistry workerLeaseRegistry;
     private final BuildOperationExecutor buildOperationExecutor;
-    private final GroovySystemLoaderFactory groovySystemLoaderFactory = new GroovySystemLoaderFactory();
+    private final MemoryManager memoryManager;
+    private final IsolatedWorkerClassLoaderCache classLoaderCache;
 
-    public IsolatedClassloaderWorkerFactory(ClassLoaderFactory classLoaderFactory, WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor) {
-        this.classLoaderFactory = classLoaderFactory;
+    public IsolatedClassloaderWorkerFactory(ClassLoaderFactory classLoaderFactory, ClasspathHasher classpathHasher, MemoryManager memoryManager, WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor) {
         this.workerLeaseRegistry = workerLeaseRegistry;
         this.buildOperationExecutor = buildOperationExecutor;
+        this.memoryManager = memoryManager;
+        this.classLoaderCache = new IsolatedWorkerClassLoaderCache(classLoaderFactory, classpathHasher);
+        memoryManager.addMemoryHolder(classLoaderCache);
     }
 
     @Override
@@ -81,7 +78,7 @@ public class IsolatedClassloaderWorkerFactory implements WorkerFactory {
                     return buildOperationExecutor.call(new CallableBuildOperation<DefaultWorkResult>() {
                         @Override
                         public DefaultWorkResult call(BuildOperationContext context) {
-                            return executeInWorkerClassLoader(spec, forkOptions);
+                            return executeInWorkerClassLoader(spec.getClass(), new WorkerCallable(spec), forkOptions);
                         }
 
                         @Override
@@ -93,6 +90,26 @@ public class IsolatedClassloaderWorkerFactory implements WorkerFactory {
                     workerLease.leaseFinish();
                 }
             }
+
+            @Override
+            public List<DefaultWorkResult> executeBatch(final ActionExecutionBatch batch, WorkerLease parentWorkerWorkerLease, final BuildOperationRef parentBuildOperation) {
+                WorkerLeaseRegistry.WorkerLeaseCompletion workerLease = parentWorkerWorkerLease.startChild();
+                try {
+                    return buildOperationExecutor.call(new CallableBuildOperation<List<DefaultWorkResult>>() {
+                        @Override
+                        public List<DefaultWorkResult> call(BuildOperationContext context) {
+                            return executeInWorkerClassLoader(batch.getSpecs().get(0).getClass(), new BatchWorkerCallable(batch), forkOptions);
+                        }
+
+                        @Override
+                        public BuildOperationDescriptor.Builder description() {
+                            return BuildOperationDescriptor.displayName(batch.getDisplayName()).parent(parentBuildOperation);
+                        }
+                    });
+                } finally {
+                    workerLease.leaseFinish();
+                }
+            }
         };
     }
 
@@ -101,62 +118,37 @@ public class IsolatedClassloaderWorkerFactory implements WorkerFactory {
         return IsolationMode.CLASSLOADER;
     }
 
-    private DefaultWorkResult executeInWorkerClassLoader(ActionExecutionSpec spec, DaemonForkOptions forkOptions) {
-        ClassLoader actionClasspathLoader = createActionClasspathLoader(forkOptions);
-        GroovySystemLoader actionClasspathGroovy = groovySystemLoaderFactory.forClassLoader(actionClasspathLoader);
+    @Override
+    public void stop() {
+        memoryManager.removeMemoryHolder(classLoaderCache);
+        classLoaderCache.stop();
+    }
 
-        ClassLoader workerClassLoader = createWorkerClassLoader(actionClasspathLoader, forkOptions.getSharedPackages(), spec.getClass());
+    private <T> T executeInWorkerClassLoader(Class<?> specClass, Callable<T> workerCallable, DaemonForkOptions forkOptions) {
+        IsolatedWorkerClassLoaderCache.WorkerClassLoaders classLoaders = classLoaderCache.acquire(forkOptions, specClass);
+        ClassLoader workerClassLoader = classLoaders.getWorkerClassLoader();
 
         ClassLoader previousContextLoader = Thread.currentThread().getContextClassLoader();
         try {
             Thread.currentThread().setContextClassLoader(workerClassLoader);
-            Callable<?> worker = transferWorkerIntoWorkerClassloader(spec, workerClassLoader);
+            Callable<?> worker = transferWorkerIntoWorkerClassloader(workerCallable, workerClassLoader);
             Object result = worker.call();
-            return transferResultFromWorkerClassLoader(result);
+            return Cast.uncheckedCast(transferResultFromWorkerClassLoader(result));
         } catch (Exception e) {
             throw UncheckedException.throwAsUncheckedException(e);
         } finally {
-            // Eventually shutdown any leaky groovy runtime loaded from action classpath loader
-            actionClasspathGroovy.shutdown();
             Thread.currentThread().setContextClassLoader(previousContextLoader);
+            classLoaderCache.release(classLoaders);
         }
     }
 
-    private ClassLoader createActionClasspathLoader(DaemonForkOptions forkOptions) {
-        return classLoaderFactory.createIsolatedClassLoader(new DefaultClassPath(forkOptions.getClasspath()));
-    }
-
-    private ClassLoader createWorkerClassLoader(ClassLoader actionClasspathLoader, Iterable<String> sharedPackages, Class<?> actionClass) {
-        FilteringClassLoader.Spec actionFilterSpec = new FilteringClassLoader.Spec();
-        for (String packageName : sharedPackages) {
-            actionFilterSpec.allowPackage(packageName);
-        }
-        ClassLoader actionFilteredClasspathLoader = classLoaderFactory.createFilteringClassLoader(actionClasspathLoader, actionFilterSpec);
-
-        FilteringClassLoader.Spec gradleApiFilterSpec = new FilteringClassLoader.Spec();
-        // Logging
-        gradleApiFilterSpec.allowPackage("org.slf4j");
-        gradleApiFilterSpec.allowClass(Logger.class);
-        gradleApiFilterSpec.allowClass(LogLevel.class);
-        // Native
-        gradleApiFilterSpec.allowPackage("org.gradle.internal.nativeintegration");
-        gradleApiFilterSpec.allowPackage("org.gradle.internal.nativeplatform");
-        gradleApiFilterSpec.allowPackage("net.rubygrapefruit.platform");
-        // TODO:pm Add Gradle API and a way to opt out of it (for compiler workers)
-        ClassLoader gradleApiLoader = classLoaderFactory.createFilteringClassLoader(actionClass.getClassLoader(), gradleApiFilterSpec);
-
-        ClassLoader actionAndGradleApiLoader = new CachingClassLoader(new MultiParentClassLoader(gradleApiLoader, actionFilteredClasspathLoader));
-
-        return new VisitableURLClassLoader(actionAndGradleApiLoader, ClasspathUtil.getClasspath(actionClass.getClassLoader()));
-    }
-
-    private Callable<?> transferWorkerIntoWorkerClassloader(ActionExecutionSpec spec, ClassLoader workerClassLoader) throws IOException, ClassNotFoundException {
-        byte[] serializedWorker = GUtil.serialize(new WorkerCallable(spec));
+    private Callable<?> transferWorkerIntoWorkerClassloader(Callable<?> workerCallable, ClassLoader workerClassLoader) throws IOException, ClassNotFoundException {
+        byte[] serializedWorker = GUtil.serialize(workerCallable);
         ObjectInputStream ois = new ClassLoaderObjectInputStream(new ByteArrayInputStream(serializedWorker), workerClassLoader);
         return (Callable<?>) ois.readObject();
     }
 
-    private DefaultWorkResult transferResultFromWorkerClassLoader(Object result) throws IOException, ClassNotFoundException {
+    private Object transferResultFromWorkerClassLoader(Object result) throws IOException, ClassNotFoundException {
         ByteArrayOutputStream resultBytes = new ByteArrayOutputStream();
         ObjectOutputStream oos = new ExceptionReplacingObjectOutputStream(resultBytes);
         try {
@@ -165,13 +157,16 @@ public class IsolatedClassloaderWorkerFactory implements WorkerFactory {
             oos.close();
         }
         ObjectInputStream ois = new ExceptionReplacingObjectInputStream(new ByteArrayInputStream(resultBytes.toByteArray()), getClass().getClassLoader());
-        return (DefaultWorkResult) ois.readObject();
+        return ois.readObject();
     }
 
     /**
-     * This is serialized across into the worker ClassLoader and then executed.
+     * This is serialized across into the worker ClassLoader and then executed. As each worker ClassLoader loads its own copy of this
+     * class, the worker server is shared by all the work items that run in the same (cached) worker ClassLoader.
      */
-    private static class WorkerCallable implements Callable<Object>, Serializable {
+    private static class WorkerCallable implements Callable<DefaultWorkResult>, Serializable {
+        private static WorkerProtocol<ActionExecutionSpec> workerServer;
+
         private final ActionExecutionSpec spec;
 
         private WorkerCallable(ActionExecutionSpec spec) {
@@ -179,11 +174,32 @@ public class IsolatedClassloaderWorkerFactory implements WorkerFactory {
         }
 
         @Override
-        public Object call() throws Exception {
-            // TODO - reuse these services, either by making the global instances visible or by reusing the worker ClassLoaders and retaining a reference to them
-            DefaultInstantiatorFactory instantiatorFactory = new DefaultInstantiatorFactory(new AsmBackedClassGenerator(), new CrossBuildInMemoryCacheFactory(new DefaultListenerManager()));
-            WorkerProtocol<ActionExecutionSpec> worker = new DefaultWorkerServer(instantiatorFactory.inject());
-            return worker.execute(spec);
+        public DefaultWorkResult call() throws Exception {
+            return getWorkerServer().execute(spec);
+        }
+
+        private static synchronized WorkerProtocol<ActionExecutionSpec> getWorkerServer() {
+            if (workerServer == null) {
+                DefaultInstantiatorFactory instantiatorFactory = new DefaultInstantiatorFactory(new AsmBackedClassGenerator(), new CrossBuildInMemoryCacheFactory(new DefaultListenerManager()));
+                workerServer = new DefaultWorkerServer(instantiatorFactory.inject());
+            }
+            return workerServer;
+        }
+    }
+
+    /**
+     * Like {@link WorkerCallable}, for a batch of work items.
+     */
+    private static class BatchWorkerCallable implements Callable<List<DefaultWorkResult>>, Serializable {
+        private final ActionExecutionBatch batch;
+
+        private BatchWorkerCallable(ActionExecutionBatch batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public List<DefaultWorkResult> call() throws Exception {
+            return WorkerCallable.getWorkerServer().executeBatch(batch);
         }
     }
 }
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import org.gradle.api.internal.classloading.GroovySystemLoader;
+import org.gradle.api.internal.classloading.GroovySystemLoaderFactory;
+import org.gradle.api.logging.LogLevel;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.classloader.CachingClassLoader;
+import org.gradle.internal.classloader.ClassLoaderFactory;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.gradle.internal.classloader.ClasspathHasher;
+import org.gradle.internal.classloader.ClasspathUtil;
+import org.gradle.internal.classloader.FilteringClassLoader;
+import org.gradle.internal.classloader.MultiParentClassLoader;
+import org.gradle.internal.classloader.VisitableURLClassLoader;
+import org.gradle.internal.classpath.ClassPath;
+import org.gradle.internal.classpath.DefaultClassPath;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.process.internal.health.memory.MemoryHolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Caches the ClassLoaders used to run work items in {@link org.gradle.workers.IsolationMode#CLASSLOADER} isolation, so that
+ * work items with the same classpath and shared packages reuse the classes already loaded by a previous work item.
+ *
+ * <p>Entries are evicted in least recently used order once more than {@link #MAX_CACHED_CLASSLOADERS} are idle, or when
+ * memory is required. The memory used by an entry is approximated by the size of its classpath.</p>
+ */
+public class IsolatedWorkerClassLoaderCache implements MemoryHolder, Stoppable {
+
+    private static final Logger LOGGER = Logging.getLogger(IsolatedWorkerClassLoaderCache.class);
+    public static final int MAX_CACHED_CLASSLOADERS = 16;
+
+    private final ClassLoaderFactory classLoaderFactory;
+    private final ClasspathHasher classpathHasher;
+    private final int maxCachedClassLoaders;
+    private final GroovySystemLoaderFactory groovySystemLoaderFactory = new GroovySystemLoaderFactory();
+    private final Object lock = new Object();
+    private final LinkedHashMap<Key, WorkerClassLoaders> entries = new LinkedHashMap<Key, WorkerClassLoaders>(16, 0.75f, true);
+
+    public IsolatedWorkerClassLoaderCache(ClassLoaderFactory classLoaderFactory, ClasspathHasher classpathHasher) {
+        this(classLoaderFactory, classpathHasher, MAX_CACHED_CLASSLOADERS);
+    }
+
+    IsolatedWorkerClassLoaderCache(ClassLoaderFactory classLoaderFactory, ClasspathHasher classpathHasher, int maxCachedClassLoaders) {
+        this.classLoaderFactory = classLoaderFactory;
+        this.classpathHasher = classpathHasher;
+        this.maxCachedClassLoaders = maxCachedClassLoaders;
+    }
+
+    /**
+     * Returns the ClassLoaders to use to run an action of the given class with the given options, creating them when required.
+     * The result must be given back to {@link #release(WorkerClassLoaders)} once the action has completed.
+     */
+    public WorkerClassLoaders acquire(DaemonForkOptions forkOptions, Class<?> actionClass) {
+        ClassPath classpath = new DefaultClassPath(forkOptions.getClasspath());
+        Key key = new Key(classpathHasher.hash(classpath), ImmutableSortedSet.copyOf(forkOptions.getSharedPackages()).asList(), actionClass.getClassLoader());
+        List<WorkerClassLoaders> evicted;
+        WorkerClassLoaders classLoaders;
+        synchronized (lock) {
+            classLoaders = entries.get(key);
+            if (classLoaders == null) {
+                classLoaders = create(classpath, key.sharedPackages, actionClass);
+                entries.put(key, classLoaders);
+            }
+            classLoaders.activeUses++;
+            evicted = evictIdle(maxCachedClassLoaders, Long.MAX_VALUE);
+        }
+        close(evicted);
+        return classLoaders;
+    }
+
+    public void release(WorkerClassLoaders classLoaders) {
+        boolean close;
+        synchronized (lock) {
+            classLoaders.activeUses--;
+            close = classLoaders.evicted && classLoaders.activeUses == 0;
+        }
+        if (close) {
+            classLoaders.close();
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public long attemptToRelease(long memoryAmountBytes) throws IllegalArgumentException {
+        if (memoryAmountBytes < 0) {
+            throw new IllegalArgumentException("Negative memory amount");
+        }
+        List<WorkerClassLoaders> evicted;
+        synchronized (lock) {
+            evicted = evictIdle(0, memoryAmountBytes);
+        }
+        long releasedBytes = 0;
+        for (WorkerClassLoaders classLoaders : evicted) {
+            releasedBytes += classLoaders.estimatedSize;
+        }
+        if (!evicted.isEmpty()) {
+            LOGGER.debug("Released {} isolated worker ClassLoader(s) to free some system memory", evicted.size());
+        }
+        close(evicted);
+        return releasedBytes;
+    }
+
+    @Override
+    public void stop() {
+        List<WorkerClassLoaders> evicted = new ArrayList<WorkerClassLoaders>();
+        synchronized (lock) {
+            for (WorkerClassLoaders classLoaders : entries.values()) {
+                classLoaders.evicted = true;
+                if (classLoaders.activeUses == 0) {
+                    evicted.add(classLoaders);
+                }
+            }
+            entries.clear();
+        }
+        close(evicted);
+    }
+
+    /**
+     * Removes idle entries, least recently used first, until at most {@code maxEntries} are left and at least {@code bytesToRelease} have been released.
+     */
+    private List<WorkerClassLoaders> evictIdle(int maxEntries, long bytesToRelease) {
+        List<WorkerClassLoaders> evicted = new ArrayList<WorkerClassLoaders>();
+        long releasedBytes = 0;
+        Iterator<WorkerClassLoaders> iterator = entries.values().iterator();
+        while (iterator.hasNext() && entries.size() > maxEntries && releasedBytes < bytesToRelease) {
+            WorkerClassLoaders classLoaders = iterator.next();
+            if (classLoaders.activeUses == 0) {
+                iterator.remove();
+                classLoaders.evicted = true;
+                evicted.add(classLoaders);
+                releasedBytes += classLoaders.estimatedSize;
+            }
+        }
+        return evicted;
+    }
+
+    private static void close(List<WorkerClassLoaders> classLoaders) {
+        for (WorkerClassLoaders entry : classLoaders) {
+            entry.close();
+        }
+    }
+
+    private WorkerClassLoaders create(ClassPath classpath, Iterable<String> sharedPackages, Class<?> actionClass) {
+        ClassLoader actionClasspathLoader = classLoaderFactory.createIsolatedClassLoader(classpath);
+        GroovySystemLoader actionClasspathGroovy = groovySystemLoaderFactory.forClassLoader(actionClasspathLoader);
+        ClassLoader workerClassLoader = createWorkerClassLoader(actionClasspathLoader, sharedPackages, actionClass);
+        return new WorkerClassLoaders(actionClasspathLoader, actionClasspathGroovy, workerClassLoader, sizeOf(classpath.getAsFiles()));
+    }
+
+    private ClassLoader createWorkerClassLoader(ClassLoader actionClasspathLoader, Iterable<String> sharedPackages, Class<?> actionClass) {
+        FilteringClassLoader.Spec actionFilterSpec = new FilteringClassLoader.Spec();
+        for (String packageName : sharedPackages) {
+            actionFilterSpec.allowPackage(packageName);
+        }
+        ClassLoader actionFilteredClasspathLoader = classLoaderFactory.createFilteringClassLoader(actionClasspathLoader, actionFilterSpec);
+
+        FilteringClassLoader.Spec gradleApiFilterSpec = new FilteringClassLoader.Spec();
+        // Logging
+        gradleApiFilterSpec.allowPackage("org.slf4j");
+        gradleApiFilterSpec.allowClass(Logger.class);
+        gradleApiFilterSpec.allowClass(LogLevel.class);
+        // Native
+        gradleApiFilterSpec.allowPackage("org.gradle.internal.nativeintegration");
+        gradleApiFilterSpec.allowPackage("org.gradle.internal.nativeplatform");
+        gradleApiFilterSpec.allowPackage("net.rubygrapefruit.platform");
+        // TODO:pm Add Gradle API and a way to opt out of it (for compiler workers)
+        ClassLoader gradleApiLoader = classLoaderFactory.createFilteringClassLoader(actionClass.getClassLoader(), gradleApiFilterSpec);
+
+        ClassLoader actionAndGradleApiLoader = new CachingClassLoader(new MultiParentClassLoader(gradleApiLoader, actionFilteredClasspathLoader));
+
+        return new VisitableURLClassLoader(actionAndGradleApiLoader, ClasspathUtil.getClasspath(actionClass.getClassLoader()));
+    }
+
+    private static long sizeOf(Iterable<File> files) {
+        long size = 0;
+        for (File file : files) {
+            if (file.isDirectory()) {
+                File[] children = file.listFiles();
+                if (children != null) {
+                    size += sizeOf(ImmutableList.copyOf(children));
+                }
+            } else {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * The ClassLoaders used to run work items with a particular classpath.
+     */
+    public static class WorkerClassLoaders {
+        private final ClassLoader actionClasspathLoader;
+        private final GroovySystemLoader actionClasspathGroovy;
+        private final ClassLoader workerClassLoader;
+        private final long estimatedSize;
+        // Guarded by the cache lock
+        private int activeUses;
+        private boolean evicted;
+
+        private WorkerClassLoaders(ClassLoader actionClasspathLoader, GroovySystemLoader actionClasspathGroovy, ClassLoader workerClassLoader, long estimatedSize) {
+            this.actionClasspathLoader = actionClasspathLoader;
+            this.actionClasspathGroovy = actionClasspathGroovy;
+            this.workerClassLoader = workerClassLoader;
+            this.estimatedSize = estimatedSize;
+        }
+
+        public ClassLoader getWorkerClassLoader() {
+            return workerClassLoader;
+        }
+
+        public long getEstimatedSize() {
+            return estimatedSize;
+        }
+
+        private void close() {
+            // Eventually shutdown any leaky groovy runtime loaded from action classpath loader
+            actionClasspathGroovy.shutdown();
+            ClassLoaderUtils.tryClose(workerClassLoader);
+            ClassLoaderUtils.tryClose(actionClasspathLoader);
+        }
+    }
+
+    private static class Key {
+        private final HashCode classpathHash;
+        private final List<String> sharedPackages;
+        private final ClassLoader actionClassLoader;
+
+        Key(HashCode classpathHash, List<String> sharedPackages, ClassLoader actionClassLoader) {
+            this.classpathHash = classpathHash;
+            this.sharedPackages = sharedPackages;
+            this.actionClassLoader = actionClassLoader;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key other = (Key) o;
+            return classpathHash.equals(other.classpathHash)
+                && sharedPackages.equals(other.sharedPackages)
+                && actionClassLoader == other.actionClassLoader;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = classpathHash.hashCode();
+            result = 31 * result + sharedPackages.hashCode();
+            result = 31 * result + System.identityHashCode(actionClassLoader);
+            return result;
+        }
+    }
+}
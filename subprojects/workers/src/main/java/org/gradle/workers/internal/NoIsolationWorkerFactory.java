@@ -29,6 +29,8 @@ import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.workers.IsolationMode;
 import org.gradle.workers.WorkerExecutor;
 
+import java.util.List;
+
 public class NoIsolationWorkerFactory implements WorkerFactory {
     private final WorkerLeaseRegistry workerLeaseRegistry;
     private final BuildOperationExecutor buildOperationExecutor;
@@ -87,6 +89,32 @@ public class NoIsolationWorkerFactory implements WorkerFactory {
                     workerLease.leaseFinish();
                 }
             }
+
+            @Override
+            public List<DefaultWorkResult> executeBatch(final ActionExecutionBatch batch, WorkerLeaseRegistry.WorkerLease parentWorkerWorkerLease, final BuildOperationRef parentBuildOperation) {
+                WorkerLeaseRegistry.WorkerLeaseCompletion workerLease = parentWorkerWorkerLease.startChild();
+
+                try {
+                    return buildOperationExecutor.call(new CallableBuildOperation<List<DefaultWorkResult>>() {
+                        @Override
+                        public List<DefaultWorkResult> call(BuildOperationContext context) {
+                            try {
+                                WorkerProtocol<ActionExecutionSpec> workerServer = new DefaultWorkerServer(actionInstantiator);
+                                return workerServer.executeBatch(batch);
+                            } finally {
+                                workTracker.waitForCompletion(buildOperationExecutor.getCurrentOperation(), false);
+                            }
+                        }
+
+                        @Override
+                        public BuildOperationDescriptor.Builder description() {
+                            return BuildOperationDescriptor.displayName(batch.getDisplayName()).parent(parentBuildOperation);
+                        }
+                    });
+                } finally {
+                    workerLease.leaseFinish();
+                }
+            }
         };
     }
 
@@ -19,10 +19,19 @@ package org.gradle.workers.internal;
 import org.gradle.internal.operations.BuildOperationRef;
 import org.gradle.internal.work.WorkerLeaseRegistry.WorkerLease;
 
+import java.util.List;
+
 /**
  * A service that executes work in a (potentially) long-lived process or in-process.
  */
 public interface Worker {
     DefaultWorkResult execute(ActionExecutionSpec spec);
     DefaultWorkResult execute(ActionExecutionSpec spec, WorkerLease parentWorkerWorkerLease, final BuildOperationRef parentBuildOperation);
+
+    /**
+     * Executes the work items of the given batch one after the other, as a single unit of work.
+     *
+     * @return the result of each work item, in the order of the batch.
+     */
+    List<DefaultWorkResult> executeBatch(ActionExecutionBatch batch, WorkerLease parentWorkerWorkerLease, BuildOperationRef parentBuildOperation);
 }
@@ -23,6 +23,8 @@ import org.gradle.internal.work.WorkerLeaseRegistry.WorkerLease;
 import org.gradle.process.internal.health.memory.JvmMemoryStatus;
 import org.gradle.process.internal.worker.WorkerProcess;
 
+import java.util.List;
+
 class WorkerDaemonClient implements Worker, Stoppable {
     private final DaemonForkOptions forkOptions;
     private final WorkerDaemonProcess<ActionExecutionSpec> workerDaemonProcess;
@@ -48,6 +50,16 @@ class WorkerDaemonClient implements Worker, Stoppable {
         return workerDaemonProcess.execute(spec);
     }
 
+    @Override
+    public List<DefaultWorkResult> executeBatch(ActionExecutionBatch batch, WorkerLease parentWorkerWorkerLease, BuildOperationRef parentBuildOperation) {
+        return executeBatch(batch);
+    }
+
+    public List<DefaultWorkResult> executeBatch(ActionExecutionBatch batch) {
+        uses += batch.size();
+        return workerDaemonProcess.executeBatch(batch);
+    }
+
     public boolean isCompatibleWith(DaemonForkOptions required) {
         return forkOptions.isCompatibleWith(required);
     }
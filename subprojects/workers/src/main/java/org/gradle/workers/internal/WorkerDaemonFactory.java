@@ -29,6 +29,8 @@ import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.health.memory.TotalPhysicalMemoryProvider;
 import org.gradle.workers.IsolationMode;
 
+import java.util.List;
+
 /**
  * Controls the lifecycle of the worker daemon and provides access to it.
  */
@@ -55,11 +57,7 @@ public class WorkerDaemonFactory implements WorkerFactory, Stoppable {
             public DefaultWorkResult execute(final ActionExecutionSpec spec, WorkerLease parentWorkerWorkerLease, final BuildOperationRef parentBuildOperation) {
                 WorkerLeaseRegistry.WorkerLeaseCompletion workerLease = parentWorkerWorkerLease.startChild();
                 try {
-                    WorkerDaemonClient client = clientsManager.reserveIdleClient(forkOptions);
-                    if (client == null) {
-                        client = clientsManager.reserveNewClient(WorkerDaemonServer.class, forkOptions);
-                    }
-
+                    WorkerDaemonClient client = reserveClient();
                     try {
                         return executeInClient(client, spec, parentBuildOperation);
                     } finally {
@@ -75,6 +73,39 @@ public class WorkerDaemonFactory implements WorkerFactory, Stoppable {
                 return execute(spec, workerLeaseRegistry.getCurrentWorkerLease(), buildOperationExecutor.getCurrentOperation());
             }
 
+            @Override
+            public List<DefaultWorkResult> executeBatch(final ActionExecutionBatch batch, WorkerLease parentWorkerWorkerLease, final BuildOperationRef parentBuildOperation) {
+                WorkerLeaseRegistry.WorkerLeaseCompletion workerLease = parentWorkerWorkerLease.startChild();
+                try {
+                    final WorkerDaemonClient client = reserveClient();
+                    try {
+                        return buildOperationExecutor.call(new CallableBuildOperation<List<DefaultWorkResult>>() {
+                            @Override
+                            public List<DefaultWorkResult> call(BuildOperationContext context) {
+                                return client.executeBatch(batch);
+                            }
+
+                            @Override
+                            public BuildOperationDescriptor.Builder description() {
+                                return BuildOperationDescriptor.displayName(batch.getDisplayName()).parent(parentBuildOperation);
+                            }
+                        });
+                    } finally {
+                        clientsManager.release(client);
+                    }
+                } finally {
+                    workerLease.leaseFinish();
+                }
+            }
+
+            private WorkerDaemonClient reserveClient() {
+                WorkerDaemonClient client = clientsManager.reserveIdleClient(forkOptions);
+                if (client == null) {
+                    client = clientsManager.reserveNewClient(WorkerDaemonServer.class, forkOptions);
+                }
+                return client;
+            }
+
             private DefaultWorkResult executeInClient(final WorkerDaemonClient client, final ActionExecutionSpec spec, final BuildOperationRef parentBuildOperation) {
                 return buildOperationExecutor.call(new CallableBuildOperation<DefaultWorkResult>() {
                     @Override
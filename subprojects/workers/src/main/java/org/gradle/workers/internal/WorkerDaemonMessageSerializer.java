@@ -0,0 +1,193 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.workers.internal;
+
+import org.gradle.internal.Factory;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.DefaultSerializer;
+import org.gradle.internal.serialize.DefaultSerializerRegistry;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.ListSerializer;
+import org.gradle.internal.serialize.Message;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.SerializerRegistry;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Serializers for the messages exchanged with a worker daemon, so that work items and their results do not use Java serialization. The parameters of a work item are already serialized by {@link SerializingActionExecutionSpec} and are sent as is.
+ */
+public class WorkerDaemonMessageSerializer implements Factory<SerializerRegistry> {
+    @Override
+    public SerializerRegistry create() {
+        ClassLoader classLoader = getClass().getClassLoader();
+        SerializingActionExecutionSpecSerializer specSerializer = new SerializingActionExecutionSpecSerializer(classLoader);
+        DefaultWorkResultSerializer resultSerializer = new DefaultWorkResultSerializer(classLoader);
+
+        DefaultSerializerRegistry registry = new DefaultSerializerRegistry(false);
+        registry.register(SerializingActionExecutionSpec.class, specSerializer);
+        registry.register(ActionExecutionBatch.class, new ActionExecutionBatchSerializer(specSerializer, new DefaultSerializer<ActionExecutionSpec>(classLoader)));
+        registry.register(DefaultWorkResult.class, resultSerializer);
+        // The results of a batch
+        registry.register(ArrayList.class, (Serializer) new ListSerializer<DefaultWorkResult>(resultSerializer));
+        return registry;
+    }
+
+    private static class SerializingActionExecutionSpecSerializer implements Serializer<SerializingActionExecutionSpec> {
+        private final ClassLoader classLoader;
+        private final ConcurrentMap<String, Class<? extends Runnable>> implementationClasses = new ConcurrentHashMap<String, Class<? extends Runnable>>();
+
+        SerializingActionExecutionSpecSerializer(ClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        public void write(Encoder encoder, SerializingActionExecutionSpec value) throws Exception {
+            write(encoder, value, new HashMap<String, Integer>());
+        }
+
+        @Override
+        public SerializingActionExecutionSpec read(Decoder decoder) throws Exception {
+            return read(decoder, new ArrayList<String>());
+        }
+
+        /**
+         * Writes the given work item. The implementation class and working directory are written only once for all the work items that share them.
+         */
+        void write(Encoder encoder, SerializingActionExecutionSpec value, Map<String, Integer> strings) throws Exception {
+            writeString(encoder, value.getImplementationClass().getName(), strings);
+            encoder.writeString(value.getDisplayName());
+            File executionWorkingDir = value.getExecutionWorkingDir();
+            encoder.writeBoolean(executionWorkingDir != null);
+            if (executionWorkingDir != null) {
+                writeString(encoder, executionWorkingDir.getPath(), strings);
+            }
+            encoder.writeBinary(value.getSerializedParams());
+        }
+
+        SerializingActionExecutionSpec read(Decoder decoder, List<String> strings) throws Exception {
+            Class<? extends Runnable> implementationClass = implementationClass(readString(decoder, strings));
+            String displayName = decoder.readString();
+            File executionWorkingDir = decoder.readBoolean() ? new File(readString(decoder, strings)) : null;
+            byte[] params = decoder.readBinary();
+            return new SerializingActionExecutionSpec(implementationClass, displayName, executionWorkingDir, params);
+        }
+
+        private static void writeString(Encoder encoder, String value, Map<String, Integer> strings) throws Exception {
+            Integer index = strings.get(value);
+            if (index != null) {
+                encoder.writeSmallInt(index + 1);
+            } else {
+                encoder.writeSmallInt(0);
+                encoder.writeString(value);
+                strings.put(value, strings.size());
+            }
+        }
+
+        private static String readString(Decoder decoder, List<String> strings) throws Exception {
+            int index = decoder.readSmallInt();
+            if (index > 0) {
+                return strings.get(index - 1);
+            }
+            String value = decoder.readString();
+            strings.add(value);
+            return value;
+        }
+
+        private Class<? extends Runnable> implementationClass(String name) throws ClassNotFoundException {
+            Class<? extends Runnable> implementationClass = implementationClasses.get(name);
+            if (implementationClass == null) {
+                implementationClass = Class.forName(name, false, classLoader).asSubclass(Runnable.class);
+                implementationClasses.put(name, implementationClass);
+            }
+            return implementationClass;
+        }
+    }
+
+    private static class ActionExecutionBatchSerializer implements Serializer<ActionExecutionBatch> {
+        private final SerializingActionExecutionSpecSerializer specSerializer;
+        private final Serializer<ActionExecutionSpec> otherSpecSerializer;
+
+        ActionExecutionBatchSerializer(SerializingActionExecutionSpecSerializer specSerializer, Serializer<ActionExecutionSpec> otherSpecSerializer) {
+            this.specSerializer = specSerializer;
+            this.otherSpecSerializer = otherSpecSerializer;
+        }
+
+        @Override
+        public void write(Encoder encoder, ActionExecutionBatch value) throws Exception {
+            Map<String, Integer> strings = new HashMap<String, Integer>();
+            encoder.writeSmallInt(value.size());
+            for (ActionExecutionSpec spec : value.getSpecs()) {
+                if (spec instanceof SerializingActionExecutionSpec) {
+                    encoder.writeBoolean(true);
+                    specSerializer.write(encoder, (SerializingActionExecutionSpec) spec, strings);
+                } else {
+                    encoder.writeBoolean(false);
+                    otherSpecSerializer.write(encoder, spec);
+                }
+            }
+        }
+
+        @Override
+        public ActionExecutionBatch read(Decoder decoder) throws Exception {
+            List<String> strings = new ArrayList<String>();
+            int size = decoder.readSmallInt();
+            List<ActionExecutionSpec> specs = new ArrayList<ActionExecutionSpec>(size);
+            for (int i = 0; i < size; i++) {
+                if (decoder.readBoolean()) {
+                    specs.add(specSerializer.read(decoder, strings));
+                } else {
+                    specs.add(otherSpecSerializer.read(decoder));
+                }
+            }
+            return new ActionExecutionBatch(specs);
+        }
+    }
+
+    private static class DefaultWorkResultSerializer implements Serializer<DefaultWorkResult> {
+        private final ClassLoader classLoader;
+
+        DefaultWorkResultSerializer(ClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        public void write(Encoder encoder, DefaultWorkResult value) throws Exception {
+            encoder.writeBoolean(value.getDidWork());
+            Throwable exception = value.getException();
+            encoder.writeBoolean(exception != null);
+            if (exception != null) {
+                Message.send(exception, encoder.getOutputStream());
+            }
+        }
+
+        @Override
+        public DefaultWorkResult read(Decoder decoder) throws Exception {
+            boolean didWork = decoder.readBoolean();
+            Throwable exception = null;
+            if (decoder.readBoolean()) {
+                exception = (Throwable) Message.receive(decoder.getInputStream(), classLoader);
+            }
+            return new DefaultWorkResult(didWork, exception);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.gradle.internal.nativeintegration.services.NativeServices;
 import org.gradle.process.internal.worker.child.WorkerDirectoryProvider;
 
 import javax.inject.Inject;
+import java.util.List;
 
 public class WorkerDaemonServer extends DefaultWorkerServer {
     // Services for this process. They shouldn't be static, make them injectable instead
@@ -51,6 +52,12 @@ public class WorkerDaemonServer extends DefaultWorkerServer {
         }
     }
 
+    @Override
+    public List<DefaultWorkResult> executeBatch(ActionExecutionBatch batch) {
+        // Declared here so that it can be looked up on the worker implementation class. Each work item still runs in its own working directory
+        return super.executeBatch(batch);
+    }
+
     @Override
     public String toString() {
         return "WorkerDaemonServer{}";
@@ -44,6 +44,7 @@ public class WorkerDaemonStarter {
         builder.setLogLevel(loggingManager.getLevel()); // NOTE: might make sense to respect per-compile-task log level
         builder.applicationClasspath(forkOptions.getClasspath());
         builder.sharedPackages(forkOptions.getSharedPackages());
+        builder.useArgumentSerializers(WorkerDaemonMessageSerializer.class);
         JavaExecHandleBuilder javaCommand = builder.getJavaCommand();
         forkOptions.getJavaForkOptions().copyTo(javaCommand);
         WorkerDaemonProcess workerDaemonProcess = builder.build();
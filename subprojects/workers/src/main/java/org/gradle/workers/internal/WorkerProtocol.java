@@ -16,6 +16,10 @@
 
 package org.gradle.workers.internal;
 
+import java.util.List;
+
 public interface WorkerProtocol<T extends WorkSpec> {
     DefaultWorkResult execute(T spec);
+
+    List<DefaultWorkResult> executeBatch(ActionExecutionBatch batch);
 }
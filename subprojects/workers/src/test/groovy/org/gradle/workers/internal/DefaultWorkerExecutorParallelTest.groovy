@@ -22,6 +22,7 @@ import org.gradle.api.internal.file.FileResolver
 import org.gradle.internal.Factory
 import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.concurrent.ParallelismConfigurationManager
 import org.gradle.internal.exceptions.DefaultMultiCauseException
 import org.gradle.internal.operations.BuildOperationExecutor
 import org.gradle.internal.work.AsyncWorkTracker
@@ -46,6 +47,7 @@ class DefaultWorkerExecutorParallelTest extends ConcurrentSpec {
     def stoppableExecutor = Mock(ManagedExecutor)
     def workerDirectoryProvider = Mock(WorkerDirectoryProvider)
     def instantiatorFactory = Mock(InstantiatorFactory)
+    def parallelismConfigurationManager = Mock(ParallelismConfigurationManager)
     ListenableFutureTask task
     DefaultWorkerExecutor workerExecutor
 
@@ -53,7 +55,7 @@ class DefaultWorkerExecutorParallelTest extends ConcurrentSpec {
         _ * fileResolver.resolve(_ as File) >> { files -> files[0] }
         _ * fileResolver.resolve(_ as String) >> { files -> new File(files[0]) }
         _ * workerExecutorFactory.create(_ as String) >> stoppableExecutor
-        workerExecutor = new DefaultWorkerExecutor(workerDaemonFactory, workerInProcessFactory, workerNoIsolationFactory, fileResolver, workerExecutorFactory, buildOperationWorkerRegistry, buildOperationExecutor, asyncWorkerTracker, workerDirectoryProvider)
+        workerExecutor = new DefaultWorkerExecutor(workerDaemonFactory, workerInProcessFactory, workerNoIsolationFactory, fileResolver, workerExecutorFactory, buildOperationWorkerRegistry, buildOperationExecutor, asyncWorkerTracker, workerDirectoryProvider, parallelismConfigurationManager)
     }
 
     @Unroll
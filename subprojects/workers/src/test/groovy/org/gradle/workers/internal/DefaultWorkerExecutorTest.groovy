@@ -17,11 +17,15 @@
 package org.gradle.workers.internal
 
 import com.google.common.util.concurrent.ListenableFutureTask
+import org.gradle.api.Action
 import org.gradle.api.internal.InstantiatorFactory
 import org.gradle.api.internal.file.FileResolver
+import org.gradle.concurrent.ParallelismConfiguration
 import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.concurrent.ParallelismConfigurationManager
 import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.work.AsyncWorkCompletion
 import org.gradle.internal.work.AsyncWorkTracker
 import org.gradle.internal.work.WorkerLeaseRegistry
 import org.gradle.process.internal.worker.child.WorkerDirectoryProvider
@@ -50,6 +54,12 @@ class DefaultWorkerExecutorTest extends Specification {
     def executor = Mock(ManagedExecutor)
     def instantiatorFactory = Mock(InstantiatorFactory)
     def worker = Mock(Worker)
+    def maxWorkerCount = 2
+    def parallelismConfigurationManager = Mock(ParallelismConfigurationManager) {
+        getParallelismConfiguration() >> Stub(ParallelismConfiguration) {
+            getMaxWorkerCount() >> { maxWorkerCount }
+        }
+    }
     ListenableFutureTask task
     DefaultWorkerExecutor workerExecutor
 
@@ -57,7 +67,7 @@ class DefaultWorkerExecutorTest extends Specification {
         _ * fileResolver.resolve(_ as File) >> { files -> files[0] }
         _ * fileResolver.resolve(_ as String) >> { files -> new File(files[0]) }
         _ * executorFactory.create(_ as String) >> executor
-        workerExecutor = new DefaultWorkerExecutor(workerDaemonFactory, inProcessWorkerFactory, noIsolationWorkerFactory, fileResolver, executorFactory, buildOperationWorkerRegistry, buildOperationExecutor, asyncWorkTracker, workerDirectoryProvider)
+        workerExecutor = new DefaultWorkerExecutor(workerDaemonFactory, inProcessWorkerFactory, noIsolationWorkerFactory, fileResolver, executorFactory, buildOperationWorkerRegistry, buildOperationExecutor, asyncWorkTracker, workerDirectoryProvider, parallelismConfigurationManager)
     }
 
     def "worker configuration fork property defaults to AUTO"() {
@@ -196,6 +206,91 @@ class DefaultWorkerExecutorTest extends Specification {
         }
     }
 
+    def "executor groups submitted work items into batches"() {
+        def tasks = []
+
+        when:
+        workerExecutor.submitAll(TestRunnable.class, (1..5).collect { index -> configure(IsolationMode.CLASSLOADER, "item $index") } + (1..2).collect { index -> configure(IsolationMode.NONE, "other $index") })
+
+        then:
+        4 * buildOperationWorkerRegistry.getCurrentWorkerLease()
+        4 * executor.execute(_ as ListenableFutureTask) >> { args -> tasks << args[0] }
+        7 * asyncWorkTracker.registerWork(_, _)
+
+        when:
+        tasks*.run()
+
+        then:
+        2 * inProcessWorkerFactory.getWorker(_) >> worker
+        2 * noIsolationWorkerFactory.getWorker(_) >> worker
+        4 * worker.executeBatch(_, _, _) >> { ActionExecutionBatch batch, workOperation, buildOperation ->
+            assert batch.specs*.implementationClass.every { it == TestRunnable }
+            return batch.specs.collect { new DefaultWorkResult(true, null) }
+        }
+        0 * worker.execute(_, _, _)
+    }
+
+    def "executor reports the failure of each work item of a batch"() {
+        maxWorkerCount = 1
+        def completions = []
+        def failure = new RuntimeException("broken")
+
+        when:
+        workerExecutor.submitAll(TestRunnable.class, [configure(IsolationMode.CLASSLOADER, "first"), configure(IsolationMode.CLASSLOADER, "second")])
+
+        then:
+        1 * executor.execute(_ as ListenableFutureTask) >> { args -> task = args[0] }
+        2 * asyncWorkTracker.registerWork(_, _) >> { operation, AsyncWorkCompletion completion -> completions << completion }
+
+        when:
+        task.run()
+
+        then:
+        1 * inProcessWorkerFactory.getWorker(_) >> worker
+        1 * worker.executeBatch(_, _, _) >> { ActionExecutionBatch batch, workOperation, buildOperation ->
+            assert batch.specs*.displayName == ["first", "second"]
+            return [new DefaultWorkResult(true, null), new DefaultWorkResult(true, failure)]
+        }
+        completions*.complete == [true, true]
+
+        when:
+        completions[0].waitForCompletion()
+        completions[1].waitForCompletion()
+
+        then:
+        def e = thrown(RuntimeException)
+        e.message == "A failure occurred while executing second"
+        e.cause == failure
+    }
+
+    def "executor reports a failure to run a batch against each of its work items"() {
+        maxWorkerCount = 1
+        def completions = []
+        def failure = new RuntimeException("broken")
+
+        when:
+        workerExecutor.submitAll(TestRunnable.class, [configure(IsolationMode.PROCESS, "first"), configure(IsolationMode.PROCESS, "second")])
+
+        then:
+        1 * executor.execute(_ as ListenableFutureTask) >> { args -> task = args[0] }
+        2 * asyncWorkTracker.registerWork(_, _) >> { operation, AsyncWorkCompletion completion -> completions << completion }
+
+        when:
+        task.run()
+
+        then:
+        1 * workerDaemonFactory.getWorker(_) >> worker
+        1 * worker.executeBatch(_, _, _) >> { throw failure }
+
+        when:
+        completions[1].waitForCompletion()
+
+        then:
+        def e = thrown(RuntimeException)
+        e.message == "A failure occurred while executing second"
+        e.cause == failure
+    }
+
     def "cannot set classpath in isolation mode NONE"() {
         when:
         workerExecutor.submit(TestRunnable.class) { WorkerConfiguration configuration ->
@@ -294,6 +389,14 @@ class DefaultWorkerExecutorTest extends Specification {
         isolationMode << [IsolationMode.NONE, IsolationMode.CLASSLOADER]
     }
 
+    private static Action<WorkerConfiguration> configure(IsolationMode isolationMode, String displayName) {
+        return { WorkerConfiguration configuration ->
+            configuration.isolationMode = isolationMode
+            configuration.displayName = displayName
+            configuration.params = []
+        } as Action<WorkerConfiguration>
+    }
+
     static class TestRunnable implements Runnable {
         @Override
         void run() {
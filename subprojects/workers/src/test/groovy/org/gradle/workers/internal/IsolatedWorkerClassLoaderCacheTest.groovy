@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal
+
+import org.gradle.internal.classloader.ClassLoaderFactory
+import org.gradle.internal.classloader.ClasspathHasher
+import org.gradle.internal.classpath.ClassPath
+import org.gradle.internal.hash.HashCode
+import org.gradle.process.internal.JavaForkOptionsInternal
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class IsolatedWorkerClassLoaderCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def classLoaderFactory = Mock(ClassLoaderFactory) {
+        createIsolatedClassLoader(_) >> { new URLClassLoader(new URL[0], (ClassLoader) null) }
+        createFilteringClassLoader(_, _) >> { ClassLoader parent, spec -> parent }
+    }
+    def classpathHasher = Stub(ClasspathHasher) {
+        hash(_) >> { ClassPath classPath -> HashCode.fromInt(classPath.asFiles.hashCode()) }
+    }
+    def cache = new IsolatedWorkerClassLoaderCache(classLoaderFactory, classpathHasher, 2)
+
+    def "reuses ClassLoaders for work items with the same classpath and shared packages"() {
+        def options = forkOptions(["a.jar"], ["org.foo", "org.bar"])
+
+        when:
+        def first = cache.acquire(options, getClass())
+        cache.release(first)
+        def second = cache.acquire(forkOptions(["a.jar"], ["org.bar", "org.foo"]), getClass())
+        cache.release(second)
+
+        then:
+        second.is(first)
+        cache.size() == 1
+    }
+
+    def "creates separate ClassLoaders for a different classpath or different shared packages"() {
+        when:
+        def first = cache.acquire(forkOptions(["a.jar"], ["org.foo"]), getClass())
+        def second = cache.acquire(forkOptions(["b.jar"], ["org.foo"]), getClass())
+        def third = cache.acquire(forkOptions(["a.jar"], ["org.bar"]), getClass())
+
+        then:
+        !second.is(first)
+        !third.is(first)
+        !third.is(second)
+        first.workerClassLoader != second.workerClassLoader
+    }
+
+    def "evicts least recently used idle ClassLoaders when the cache is full"() {
+        def a = forkOptions(["a.jar"], [])
+        def b = forkOptions(["b.jar"], [])
+        def c = forkOptions(["c.jar"], [])
+
+        when:
+        def first = cache.acquire(a, getClass())
+        cache.release(first)
+        cache.release(cache.acquire(b, getClass()))
+        cache.release(cache.acquire(a, getClass()))
+        cache.release(cache.acquire(c, getClass()))
+
+        then:
+        cache.size() == 2
+        cache.acquire(a, getClass()).is(first)
+        cache.size() == 2
+    }
+
+    def "does not evict ClassLoaders that are in use"() {
+        when:
+        def first = cache.acquire(forkOptions(["a.jar"], []), getClass())
+        def second = cache.acquire(forkOptions(["b.jar"], []), getClass())
+        def third = cache.acquire(forkOptions(["c.jar"], []), getClass())
+
+        then:
+        cache.size() == 3
+
+        when:
+        cache.release(first)
+        cache.release(second)
+        cache.release(third)
+        cache.release(cache.acquire(forkOptions(["d.jar"], []), getClass()))
+
+        then:
+        cache.size() == 2
+    }
+
+    def "releases idle ClassLoaders when memory is required"() {
+        def jarA = tmpDir.file("a.jar") << new byte[100]
+        def libDir = tmpDir.createDir("lib")
+        libDir.file("b.class") << new byte[30]
+        libDir.file("org/c.class") << new byte[20]
+
+        def first = cache.acquire(forkOptions([jarA.path], []), getClass())
+        def second = cache.acquire(forkOptions([libDir.path], []), getClass())
+
+        expect:
+        first.estimatedSize == 100
+        second.estimatedSize == 50
+
+        when:
+        cache.release(first)
+        def released = cache.attemptToRelease(10)
+
+        then:
+        released == 100
+        cache.size() == 1
+
+        when:
+        cache.release(second)
+
+        then:
+        cache.attemptToRelease(1000) == 50
+        cache.size() == 0
+    }
+
+    def "discards all ClassLoaders when stopped"() {
+        given:
+        cache.release(cache.acquire(forkOptions(["a.jar"], []), getClass()))
+        def inUse = cache.acquire(forkOptions(["b.jar"], []), getClass())
+
+        when:
+        cache.stop()
+
+        then:
+        cache.size() == 0
+
+        when:
+        cache.release(inUse)
+        def next = cache.acquire(forkOptions(["b.jar"], []), getClass())
+
+        then:
+        !next.is(inUse)
+    }
+
+    private DaemonForkOptions forkOptions(List<String> classpath, List<String> sharedPackages) {
+        return new DaemonForkOptions(Stub(JavaForkOptionsInternal), classpath.collect { new File(it) }, sharedPackages, KeepAliveMode.SESSION)
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.workers.internal
+
+import org.gradle.internal.serialize.SerializerSpec
+
+class WorkerDaemonMessageSerializerTest extends SerializerSpec {
+    def registry = new WorkerDaemonMessageSerializer().create()
+    def serializer = registry.build(Object)
+
+    def "serializes work item"() {
+        def spec = new SerializingActionExecutionSpec(TestRunnable, "test action", new File("dir"), ["param", 12] as Object[])
+
+        when:
+        def result = usesEfficientSerialization(spec, serializer)
+
+        then:
+        result instanceof SerializingActionExecutionSpec
+        result.implementationClass == TestRunnable
+        result.displayName == "test action"
+        result.executionWorkingDir == new File("dir")
+        result.getParams(getClass().classLoader) == ["param", 12] as Object[]
+    }
+
+    def "serializes work item without working directory"() {
+        def spec = new SerializingActionExecutionSpec(TestRunnable, "test action", null, [] as Object[])
+
+        when:
+        def result = serialize(spec, serializer)
+
+        then:
+        result.executionWorkingDir == null
+    }
+
+    def "serializes batch of work items"() {
+        def spec1 = new SerializingActionExecutionSpec(TestRunnable, "action 1", new File("dir"), ["param 1"] as Object[])
+        def spec2 = new SimpleActionExecutionSpec(TestRunnable, "action 2", null, ["param 2"] as Object[])
+        def spec3 = new SerializingActionExecutionSpec(TestRunnable, "action 3", new File("dir"), ["param 3"] as Object[])
+        def spec4 = new SerializingActionExecutionSpec(TestRunnable, "action 4", null, ["param 4"] as Object[])
+        def batch = new ActionExecutionBatch([spec1, spec2, spec3, spec4])
+
+        when:
+        def result = usesEfficientSerialization(batch, serializer)
+
+        then:
+        result instanceof ActionExecutionBatch
+        result.specs*.displayName == ["action 1", "action 2", "action 3", "action 4"]
+        result.specs*.class == [SerializingActionExecutionSpec, SimpleActionExecutionSpec, SerializingActionExecutionSpec, SerializingActionExecutionSpec]
+        result.specs*.implementationClass == [TestRunnable, TestRunnable, TestRunnable, TestRunnable]
+        result.specs*.executionWorkingDir == [new File("dir"), null, new File("dir"), null]
+        result.specs.collect { it.getParams(getClass().classLoader) as List } == [["param 1"], ["param 2"], ["param 3"], ["param 4"]]
+    }
+
+    def "serializes work result"() {
+        when:
+        def result = usesEfficientSerialization(new DefaultWorkResult(didWork, null), serializer)
+
+        then:
+        result instanceof DefaultWorkResult
+        result.didWork == didWork
+        result.exception == null
+
+        where:
+        didWork << [true, false]
+    }
+
+    def "serializes failed work result"() {
+        when:
+        def result = serialize(new DefaultWorkResult(true, new IllegalStateException("broken")), serializer)
+
+        then:
+        result.didWork
+        result.exception instanceof IllegalStateException
+        result.exception.message == "broken"
+    }
+
+    def "serializes results of batch"() {
+        def results = new ArrayList([new DefaultWorkResult(true, null), new DefaultWorkResult(false, null)])
+
+        when:
+        def result = serialize(results, serializer)
+
+        then:
+        result*.didWork == [true, false]
+    }
+
+    static class TestRunnable implements Runnable {
+        @Override
+        void run() {
+        }
+    }
+}
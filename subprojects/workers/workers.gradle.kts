@@ -18,4 +18,5 @@ gradlebuildJava {
 testFixtures {
     from(":core")
     from(":logging")
+    from(":messaging")
 }